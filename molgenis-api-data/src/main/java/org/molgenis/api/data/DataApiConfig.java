@@ -2,19 +2,36 @@ package org.molgenis.api.data;
 
 import static java.util.Objects.requireNonNull;
 
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
 import org.molgenis.web.rsql.RSQLValueParser;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.format.FormatterRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 @Import(RSQLValueParser.class)
 @Configuration
 public class DataApiConfig implements WebMvcConfigurer {
   private final RSQLValueParser rsqlValueParser;
+  private final EntityCountEstimator entityCountEstimator;
+  private final RowLevelSecurityRepositoryDecoratorFactory
+      rowLevelSecurityRepositoryDecoratorFactory;
 
-  public DataApiConfig(RSQLValueParser rsqlValueParser) {
+  public DataApiConfig(
+      RSQLValueParser rsqlValueParser,
+      EntityCountEstimator entityCountEstimator,
+      RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory) {
     this.rsqlValueParser = requireNonNull(rsqlValueParser);
+    this.entityCountEstimator = requireNonNull(entityCountEstimator);
+    this.rowLevelSecurityRepositoryDecoratorFactory =
+        requireNonNull(rowLevelSecurityRepositoryDecoratorFactory);
+  }
+
+  @Override
+  public void addFormatters(FormatterRegistry registry) {
+    registry.addConverter(totalModeConverter());
   }
 
   @Bean
@@ -26,4 +43,14 @@ public class DataApiConfig implements WebMvcConfigurer {
   public SortMapper sortMapper() {
     return new SortMapper();
   }
+
+  @Bean
+  public TotalCounter totalCounter() {
+    return new TotalCounter(entityCountEstimator, rowLevelSecurityRepositoryDecoratorFactory);
+  }
+
+  @Bean
+  public TotalModeConverter totalModeConverter() {
+    return new TotalModeConverter();
+  }
 }
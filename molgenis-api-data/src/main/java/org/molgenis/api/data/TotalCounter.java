@@ -0,0 +1,93 @@
+package org.molgenis.api.data;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.util.EntityTypeUtils.isSystemEntity;
+
+import java.util.OptionalLong;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.util.UnexpectedEnumException;
+
+/**
+ * Determines the total number of entities of a paged entity collection response.
+ *
+ * <p>Callers retrieve one entity more than the requested page size to find out whether a next page
+ * exists. If the retrieved page is the last page the total follows from the page itself and no
+ * count is required.
+ */
+public class TotalCounter {
+  private final EntityCountEstimator entityCountEstimator;
+  private final RowLevelSecurityRepositoryDecoratorFactory
+      rowLevelSecurityRepositoryDecoratorFactory;
+
+  TotalCounter(
+      EntityCountEstimator entityCountEstimator,
+      RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory) {
+    this.entityCountEstimator = requireNonNull(entityCountEstimator);
+    this.rowLevelSecurityRepositoryDecoratorFactory =
+        requireNonNull(rowLevelSecurityRepositoryDecoratorFactory);
+  }
+
+  /**
+   * @param repository repository that was queried
+   * @param query query of which offset, page size, sort and fetch are ignored
+   * @param totalMode how to determine the total
+   * @param offset offset of the retrieved page
+   * @param pageSize requested page size, 0 if no page was retrieved
+   * @param nrPageEntities number of entities on the retrieved page, excluding the extra entity
+   * @param hasNextPage whether the extra entity was retrieved
+   * @return exact total, estimated total or a lower bound of the total depending on the total mode
+   */
+  @SuppressWarnings("java:S107") // Methods should not have too many parameters
+  public long getTotal(
+      Repository<Entity> repository,
+      Query<Entity> query,
+      TotalMode totalMode,
+      int offset,
+      int pageSize,
+      int nrPageEntities,
+      boolean hasNextPage) {
+    if (pageSize > 0 && !hasNextPage && (nrPageEntities > 0 || offset == 0)) {
+      return (long) offset + nrPageEntities;
+    }
+
+    long lowerBound = (long) offset + nrPageEntities + (hasNextPage ? 1 : 0);
+    switch (totalMode) {
+      case NONE:
+        return lowerBound;
+      case ESTIMATE:
+        OptionalLong estimate = estimateCount(repository.getEntityType(), query);
+        if (estimate.isPresent()) {
+          return Math.max(estimate.getAsLong(), lowerBound);
+        }
+        return count(repository, query);
+      case EXACT:
+        return count(repository, query);
+      default:
+        throw new UnexpectedEnumException(totalMode);
+    }
+  }
+
+  /**
+   * Backend statistics describe all rows of an entity type, so only estimate unfiltered queries on
+   * entity types without row level security. System entity repositories may filter entities the
+   * user is not permitted to read.
+   */
+  private OptionalLong estimateCount(EntityType entityType, Query<Entity> query) {
+    if (!query.getRules().isEmpty()
+        || isSystemEntity(entityType)
+        || rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(entityType)) {
+      return OptionalLong.empty();
+    }
+    return entityCountEstimator.estimateCount(entityType);
+  }
+
+  private static long count(Repository<Entity> repository, Query<Entity> query) {
+    return repository.count(new QueryImpl<>(query.getRules()));
+  }
+}
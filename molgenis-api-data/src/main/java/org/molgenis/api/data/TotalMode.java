@@ -0,0 +1,11 @@
+package org.molgenis.api.data;
+
+/** Determines how the total number of entities of a paged entity collection response is counted */
+public enum TotalMode {
+  /** Count the entities matching the query */
+  EXACT,
+  /** Estimate the total from database statistics if possible, otherwise count */
+  ESTIMATE,
+  /** Do not count, the total is a lower bound that is sufficient for paging */
+  NONE
+}
@@ -0,0 +1,13 @@
+package org.molgenis.api.data;
+
+import static java.util.Locale.ROOT;
+
+import org.springframework.core.convert.converter.Converter;
+
+/** Converts the case-insensitive 'total' request parameter to a {@link TotalMode} */
+public class TotalModeConverter implements Converter<String, TotalMode> {
+  @Override
+  public TotalMode convert(String source) {
+    return TotalMode.valueOf(source.trim().toUpperCase(ROOT));
+  }
+}
@@ -2,6 +2,8 @@ package org.molgenis.api.data.v2;
 
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import org.molgenis.api.data.TotalMode;
 import org.molgenis.data.Sort;
 import org.molgenis.web.rsql.AggregateQueryRsql;
 import org.molgenis.web.rsql.QueryRsql;
@@ -21,6 +23,8 @@ class EntityCollectionRequestV2 {
   @Max(MAX_ROWS)
   private int num = DEFAULT_ROW_COUNT;
 
+  @NotNull private TotalMode total = TotalMode.EXACT;
+
   public int getStart() {
     return start;
   }
@@ -69,6 +73,14 @@ class EntityCollectionRequestV2 {
     this.aggs = aggs;
   }
 
+  public TotalMode getTotal() {
+    return total;
+  }
+
+  public void setTotal(TotalMode total) {
+    this.total = total;
+  }
+
   @Override
   public String toString() {
     return "EntityCollectionRequestV2 [q="
@@ -83,6 +95,8 @@ class EntityCollectionRequestV2 {
         + start
         + ", num="
         + num
+        + ", total="
+        + total
         + "]";
   }
 }
@@ -0,0 +1,61 @@
+package org.molgenis.api.data.v2;
+
+import static java.util.stream.Collectors.toList;
+
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Striped;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import org.molgenis.data.EntityKey;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Striped row locks for read-modify-write updates of entities. The locks are held until the current
+ * transaction completes, so a concurrent update of the same rows reads the committed result.
+ * Updates of other rows, in the same or in other entity types, only contend if their keys share a
+ * stripe.
+ */
+class EntityUpdateLocks {
+  private static final int NR_STRIPES = 1024;
+
+  private final Striped<Lock> locks = Striped.lazyWeakLock(NR_STRIPES);
+
+  /**
+   * Locks the rows with the given ids until the current transaction completes.
+   *
+   * @throws IllegalStateException if there is no active transaction
+   */
+  void lockUntilTransactionCompletion(String entityTypeId, Collection<Object> ids) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      throw new IllegalStateException("Entity update locks require an active transaction");
+    }
+
+    List<EntityKey> keys =
+        ids.stream().map(id -> EntityKey.create(entityTypeId, id)).collect(toList());
+    // bulkGet returns the locks in a consistent order, which prevents deadlocks between requests
+    List<Lock> bulkLocks = Lists.newArrayList(locks.bulkGet(keys));
+    List<Lock> acquiredLocks = Lists.newArrayListWithCapacity(bulkLocks.size());
+    try {
+      for (Lock lock : bulkLocks) {
+        lock.lock();
+        acquiredLocks.add(lock);
+      }
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+              unlock(acquiredLocks);
+            }
+          });
+    } catch (RuntimeException e) {
+      unlock(acquiredLocks);
+      throw e;
+    }
+  }
+
+  private static void unlock(List<Lock> acquiredLocks) {
+    Lists.reverse(acquiredLocks).forEach(Lock::unlock);
+  }
+}
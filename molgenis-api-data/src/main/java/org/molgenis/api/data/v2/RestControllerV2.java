@@ -41,6 +41,8 @@ import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import org.molgenis.api.ApiNamespace;
 import org.molgenis.api.data.RestService;
+import org.molgenis.api.data.TotalCounter;
+import org.molgenis.api.data.TotalMode;
 import org.molgenis.api.data.v1.EntityPager;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
@@ -119,6 +121,8 @@ public class RestControllerV2 {
   private final PermissionSystemService permissionSystemService;
   private final RepositoryCopier repoCopier;
   private final LocalizationService localizationService;
+  private final TotalCounter totalCounter;
+  private final EntityUpdateLocks entityUpdateLocks = new EntityUpdateLocks();
 
   static MolgenisDataAccessException createMolgenisDataAccessExceptionReadOnlyAttribute(
       String entityTypeId, String attributeName) {
@@ -145,13 +149,15 @@ public class RestControllerV2 {
       RestService restService,
       LocalizationService localizationService,
       PermissionSystemService permissionSystemService,
-      RepositoryCopier repoCopier) {
+      RepositoryCopier repoCopier,
+      TotalCounter totalCounter) {
     this.dataService = requireNonNull(dataService);
     this.permissionService = requireNonNull(permissionService);
     this.restService = requireNonNull(restService);
     this.localizationService = requireNonNull(localizationService);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.repoCopier = requireNonNull(repoCopier);
+    this.totalCounter = requireNonNull(totalCounter);
   }
 
   /** @deprecated replaced with a call to '/api' with method 'OPTIONS' */
@@ -461,7 +467,7 @@ public class RestControllerV2 {
   @Transactional
   @WithJsMagmaScriptContext
   @PutMapping("/{entityTypeId}")
-  public synchronized void updateEntities(
+  public void updateEntities(
       @PathVariable("entityTypeId") String entityTypeId,
       @RequestBody @Valid EntityCollectionBatchRequestV2 request,
       HttpServletResponse response) {
@@ -516,7 +522,7 @@ public class RestControllerV2 {
   @WithJsMagmaScriptContext
   @PutMapping("/{entityTypeId}/{attributeName}")
   @ResponseStatus(OK)
-  public synchronized void updateAttribute(
+  public void updateAttribute(
       @PathVariable("entityTypeId") String entityTypeId,
       @PathVariable("attributeName") String attributeName,
       @RequestBody @Valid EntityCollectionBatchRequestV2 request,
@@ -543,11 +549,20 @@ public class RestControllerV2 {
         throw createMolgenisDataExceptionIdentifierAndValue();
       }
 
+      final List<Object> ids = new ArrayList<>(entities.size());
+      int count = 0;
+      for (Entity entity : entities) {
+        ids.add(checkForEntityId(entity, count));
+        count++;
+      }
+      // prevent lost updates by concurrent requests that update other attributes of the same rows
+      entityUpdateLocks.lockUntilTransactionCompletion(entityTypeId, ids);
+
       // update original entities
       final List<Entity> updatedEntities = new ArrayList<>();
-      int count = 0;
+      count = 0;
       for (Entity entity : entities) {
-        Object id = checkForEntityId(entity, count);
+        Object id = ids.get(count);
 
         Entity originalEntity = dataService.findOneById(entityTypeId, id);
         if (originalEntity == null) {
@@ -753,12 +768,31 @@ public class RestControllerV2 {
           yAttrResponse,
           UriUtils.createEntityCollectionUriPath(uriBuilder, entityTypeId));
     } else {
-      Long count = dataService.count(entityTypeId, new QueryImpl<>(q).setOffset(0).setPageSize(0));
+      Long count;
       Iterable<Entity> it;
-      if (count > 0 && q.getPageSize() > 0) {
-        it = () -> dataService.findAll(entityTypeId, q).iterator();
+      if (request.getTotal() == TotalMode.EXACT) {
+        count = dataService.count(entityTypeId, new QueryImpl<>(q).setOffset(0).setPageSize(0));
+        if (count > 0 && q.getPageSize() > 0) {
+          it = () -> dataService.findAll(entityTypeId, q).iterator();
+        } else {
+          it = Collections.emptyList();
+        }
       } else {
-        it = Collections.emptyList();
+        List<Entity> pageEntities = findPageEntities(entityTypeId, q);
+        boolean hasNextPage = pageEntities.size() > q.getPageSize();
+        if (hasNextPage) {
+          pageEntities = pageEntities.subList(0, q.getPageSize());
+        }
+        count =
+            totalCounter.getTotal(
+                repository,
+                q,
+                request.getTotal(),
+                q.getOffset(),
+                q.getPageSize(),
+                pageEntities.size(),
+                hasNextPage);
+        it = pageEntities;
       }
       EntityPager pager = new EntityPager(request.getStart(), request.getNum(), count, it);
 
@@ -798,6 +832,15 @@ public class RestControllerV2 {
     }
   }
 
+  /** Retrieves one entity more than the page size to determine whether a next page exists */
+  private List<Entity> findPageEntities(String entityTypeId, Query<Entity> q) {
+    if (q.getPageSize() == 0) {
+      return Collections.emptyList();
+    }
+    Query<Entity> pageQuery = new QueryImpl<>(q).setPageSize(q.getPageSize() + 1);
+    return dataService.findAll(entityTypeId, pageQuery).collect(toList());
+  }
+
   private String getFullURL(HttpServletRequest request) {
     StringBuffer requestURL = request.getRequestURL();
     String queryString = request.getQueryString();
@@ -3,6 +3,7 @@ package org.molgenis.api.data.v3;
 import java.util.Map;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.molgenis.api.data.TotalMode;
 import org.molgenis.api.model.Query;
 import org.molgenis.api.model.Selection;
 import org.molgenis.api.model.Sort;
@@ -46,7 +47,8 @@ interface DataServiceV3 {
       Selection expand,
       Sort sort,
       int size,
-      int number);
+      int number,
+      TotalMode totalMode);
 
   /**
    * Retrieves all entities matching a query.
@@ -58,6 +60,7 @@ interface DataServiceV3 {
    * @param sort entities sort criteria
    * @param size maximum number of entities to return
    * @param number page number
+   * @param totalMode how to determine the total number of entities
    * @return entities, never null
    * @throws UnknownRepositoryException if no repository exists for the given entity type identifier
    */
@@ -68,7 +71,8 @@ interface DataServiceV3 {
       Selection expand,
       Sort sort,
       int size,
-      int number);
+      int number,
+      TotalMode totalMode);
 
   /**
    * Update one entity.
@@ -13,6 +13,8 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.molgenis.api.data.QueryMapper;
 import org.molgenis.api.data.SortMapper;
+import org.molgenis.api.data.TotalCounter;
+import org.molgenis.api.data.TotalMode;
 import org.molgenis.api.model.Query;
 import org.molgenis.api.model.Selection;
 import org.molgenis.api.model.Sort;
@@ -44,6 +46,7 @@ class DataServiceV3Impl implements DataServiceV3 {
   private final SortMapper sortMapper;
   private final FetchMapper fetchMapper;
   private final EntityValidator entityValidator;
+  private final TotalCounter totalCounter;
 
   private enum OperationType {
     READ,
@@ -56,13 +59,15 @@ class DataServiceV3Impl implements DataServiceV3 {
       QueryMapper queryMapper,
       SortMapper sortMapper,
       FetchMapper fetchMapper,
-      EntityValidator entityValidator) {
+      EntityValidator entityValidator,
+      TotalCounter totalCounter) {
     this.metaDataService = requireNonNull(metaDataService);
     this.entityManagerV3 = requireNonNull(entityManagerV3);
     this.queryMapper = requireNonNull(queryMapper);
     this.sortMapper = requireNonNull(sortMapper);
     this.fetchMapper = requireNonNull(fetchMapper);
     this.entityValidator = requireNonNull(entityValidator);
+    this.totalCounter = requireNonNull(totalCounter);
   }
 
   @Transactional
@@ -107,7 +112,8 @@ class DataServiceV3Impl implements DataServiceV3 {
       Selection expand,
       Sort sort,
       int size,
-      int number) {
+      int number,
+      TotalMode totalMode) {
     Repository<Entity> repository = getRepository(entityTypeId, OperationType.READ);
     EntityType entityType = repository.getEntityType();
     Object typedEntityId = toTypedEntityId(entityType, entityId);
@@ -152,7 +158,7 @@ class DataServiceV3Impl implements DataServiceV3 {
     Entities result;
     if (!refEntityIds.isEmpty()) {
       q.in(refEntityType.getIdAttribute().getName(), refEntityIds);
-      result = getEntities(filter, expand, sort, size, number, refRepository, q);
+      result = getEntities(filter, expand, sort, size, number, totalMode, refRepository, q);
     } else {
       result = Entities.builder().setEntities(Collections.emptyList()).setTotal(0).build();
     }
@@ -168,20 +174,27 @@ class DataServiceV3Impl implements DataServiceV3 {
       Selection expand,
       Sort sort,
       int size,
-      int number) {
+      int number,
+      TotalMode totalMode) {
     Repository<Entity> repository = getRepository(entityTypeId, OperationType.READ);
     org.molgenis.data.Query<Entity> findQuery =
         query != null ? queryMapper.map(query, repository) : new QueryImpl<>(repository);
 
-    return getEntities(filter, expand, sort, size, number, repository, findQuery);
+    return getEntities(filter, expand, sort, size, number, totalMode, repository, findQuery);
   }
 
+  /**
+   * Retrieves one entity more than the page size to determine whether a next page exists, so that
+   * counting can be skipped for the last page.
+   */
+  @SuppressWarnings("java:S107") // Methods should not have too many parameters
   private Entities getEntities(
       Selection filter,
       Selection expand,
       Sort sort,
       int size,
       int number,
+      TotalMode totalMode,
       Repository<Entity> repository,
       org.molgenis.data.Query<Entity> query) {
     EntityType entityType = repository.getEntityType();
@@ -190,15 +203,20 @@ class DataServiceV3Impl implements DataServiceV3 {
     // get entities
     org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>(query);
     findQuery.fetch(fetch);
-    findQuery.offset(number * size);
-    findQuery.pageSize(size);
+    int offset = number * size;
+    findQuery.offset(offset);
+    findQuery.pageSize(size + 1);
     findQuery.sort(sortMapper.map(sort, entityType));
     List<Entity> entities = repository.findAll(findQuery).collect(toList());
 
-    org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(query);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
-    int count = Math.toIntExact(repository.count(countQuery));
+    boolean hasNextPage = entities.size() > size;
+    if (hasNextPage) {
+      entities = entities.subList(0, size);
+    }
+    int count =
+        Math.toIntExact(
+            totalCounter.getTotal(
+                repository, query, totalMode, offset, size, entities.size(), hasNextPage));
 
     return Entities.builder().setEntities(entities).setTotal(count).build();
   }
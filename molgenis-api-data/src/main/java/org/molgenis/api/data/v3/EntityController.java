@@ -99,7 +99,8 @@ public class EntityController extends ApiController {
             expand,
             sort,
             size,
-            page);
+            page,
+            entitiesRequest.getTotal());
 
     EntityCollection entityCollection =
         EntityCollection.builder()
@@ -162,7 +163,14 @@ public class EntityController extends ApiController {
 
     Entities entities =
         dataServiceV3.findAll(
-            entityTypeId, entitiesRequest.getQ().orElse(null), filter, expand, sort, size, page);
+            entityTypeId,
+            entitiesRequest.getQ().orElse(null),
+            filter,
+            expand,
+            sort,
+            size,
+            page,
+            entitiesRequest.getTotal());
 
     EntityCollection entityCollection =
         EntityCollection.builder()
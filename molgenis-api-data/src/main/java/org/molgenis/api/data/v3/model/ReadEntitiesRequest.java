@@ -3,6 +3,8 @@ package org.molgenis.api.data.v3.model;
 import java.util.Optional;
 import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import org.molgenis.api.data.TotalMode;
 import org.molgenis.api.model.Query;
 import org.molgenis.api.model.Sort;
 
@@ -22,6 +24,8 @@ public class ReadEntitiesRequest extends AbstractReadRequest {
 
   private Query q;
 
+  @NotNull private TotalMode total = TotalMode.EXACT;
+
   public int getPage() {
     return page;
   }
@@ -53,4 +57,12 @@ public class ReadEntitiesRequest extends AbstractReadRequest {
   public void setQ(Query q) {
     this.q = q;
   }
+
+  public TotalMode getTotal() {
+    return total;
+  }
+
+  public void setTotal(TotalMode total) {
+    this.total = total;
+  }
 }
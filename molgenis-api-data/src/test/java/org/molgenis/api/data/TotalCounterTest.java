@@ -0,0 +1,114 @@
+package org.molgenis.api.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.molgenis.api.data.TotalMode.ESTIMATE;
+import static org.molgenis.api.data.TotalMode.EXACT;
+import static org.molgenis.api.data.TotalMode.NONE;
+
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.Entity;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.test.AbstractMockitoTest;
+
+class TotalCounterTest extends AbstractMockitoTest {
+  @Mock private EntityCountEstimator entityCountEstimator;
+
+  @Mock
+  private RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory;
+
+  @Mock private Repository<Entity> repository;
+  @Mock private EntityType entityType;
+  private TotalCounter totalCounter;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    totalCounter =
+        new TotalCounter(entityCountEstimator, rowLevelSecurityRepositoryDecoratorFactory);
+  }
+
+  @Test
+  void testGetTotalLastPage() {
+    Query<Entity> query = new QueryImpl<>().offset(20).pageSize(10);
+    assertEquals(25L, totalCounter.getTotal(repository, query, EXACT, 20, 10, 5, false));
+    verifyZeroInteractions(repository, entityCountEstimator);
+  }
+
+  @Test
+  void testGetTotalEmptyPageBeyondLastPage() {
+    Query<Entity> query = new QueryImpl<Entity>().eq("attr", "value");
+    when(repository.count(new QueryImpl<Entity>().eq("attr", "value"))).thenReturn(15L);
+    assertEquals(15L, totalCounter.getTotal(repository, query, EXACT, 20, 10, 0, false));
+  }
+
+  @Test
+  void testGetTotalExact() {
+    Query<Entity> query = new QueryImpl<Entity>().eq("attr", "value").offset(20).pageSize(10);
+    when(repository.count(new QueryImpl<Entity>().eq("attr", "value"))).thenReturn(123L);
+    assertEquals(123L, totalCounter.getTotal(repository, query, EXACT, 20, 10, 10, true));
+  }
+
+  @Test
+  void testGetTotalNone() {
+    Query<Entity> query = new QueryImpl<>();
+    assertEquals(31L, totalCounter.getTotal(repository, query, NONE, 20, 10, 10, true));
+    verifyZeroInteractions(repository, entityCountEstimator);
+  }
+
+  @Test
+  void testGetTotalEstimate() {
+    setUpEntityType();
+    when(entityCountEstimator.estimateCount(entityType)).thenReturn(OptionalLong.of(1000L));
+    assertEquals(
+        1000L, totalCounter.getTotal(repository, new QueryImpl<>(), ESTIMATE, 20, 10, 10, true));
+  }
+
+  @Test
+  void testGetTotalEstimateLowerBound() {
+    setUpEntityType();
+    when(entityCountEstimator.estimateCount(entityType)).thenReturn(OptionalLong.of(5L));
+    assertEquals(
+        31L, totalCounter.getTotal(repository, new QueryImpl<>(), ESTIMATE, 20, 10, 10, true));
+  }
+
+  @Test
+  void testGetTotalEstimateUnavailable() {
+    setUpEntityType();
+    when(entityCountEstimator.estimateCount(entityType)).thenReturn(OptionalLong.empty());
+    when(repository.count(new QueryImpl<>())).thenReturn(123L);
+    assertEquals(
+        123L, totalCounter.getTotal(repository, new QueryImpl<>(), ESTIMATE, 20, 10, 10, true));
+  }
+
+  @Test
+  void testGetTotalEstimateRowLevelSecured() {
+    setUpEntityType();
+    when(rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(entityType)).thenReturn(true);
+    when(repository.count(new QueryImpl<>())).thenReturn(123L);
+    assertEquals(
+        123L, totalCounter.getTotal(repository, new QueryImpl<>(), ESTIMATE, 20, 10, 10, true));
+    verifyZeroInteractions(entityCountEstimator);
+  }
+
+  @Test
+  void testGetTotalEstimateQueryRules() {
+    when(repository.getEntityType()).thenReturn(entityType);
+    Query<Entity> query = new QueryImpl<Entity>().eq("attr", "value");
+    when(repository.count(query)).thenReturn(123L);
+    assertEquals(123L, totalCounter.getTotal(repository, query, ESTIMATE, 20, 10, 10, true));
+    verifyZeroInteractions(entityCountEstimator);
+  }
+
+  private void setUpEntityType() {
+    when(repository.getEntityType()).thenReturn(entityType);
+  }
+}
@@ -0,0 +1,19 @@
+package org.molgenis.api.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class TotalModeConverterTest {
+  @Test
+  void testConvert() {
+    assertEquals(TotalMode.ESTIMATE, new TotalModeConverter().convert("estimate"));
+  }
+
+  @Test
+  void testConvertUnknown() {
+    TotalModeConverter totalModeConverter = new TotalModeConverter();
+    assertThrows(IllegalArgumentException.class, () -> totalModeConverter.convert("unknown"));
+  }
+}
@@ -0,0 +1,77 @@
+package org.molgenis.api.data.v2;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.transaction.support.TransactionSynchronization.STATUS_COMMITTED;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class EntityUpdateLocksTest {
+  private EntityUpdateLocks entityUpdateLocks;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    entityUpdateLocks = new EntityUpdateLocks();
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
+  @Test
+  void testLockUntilTransactionCompletion() throws Exception {
+    entityUpdateLocks.lockUntilTransactionCompletion("entityTypeId", List.of("id0", "id1"));
+
+    assertFalse(tryLockInOtherTransaction("entityTypeId", "id0"));
+
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(1, synchronizations.size());
+    synchronizations.get(0).afterCompletion(STATUS_COMMITTED);
+
+    assertTrue(tryLockInOtherTransaction("entityTypeId", "id0"));
+  }
+
+  @Test
+  void testLockUntilTransactionCompletionNoTransaction() {
+    TransactionSynchronizationManager.clearSynchronization();
+    List<Object> ids = List.of("id0");
+    assertThrows(
+        IllegalStateException.class,
+        () -> entityUpdateLocks.lockUntilTransactionCompletion("entityTypeId", ids));
+    TransactionSynchronizationManager.initSynchronization();
+  }
+
+  private boolean tryLockInOtherTransaction(String entityTypeId, Object id) throws Exception {
+    CompletableFuture<Void> future =
+        CompletableFuture.runAsync(
+            () -> {
+              TransactionSynchronizationManager.initSynchronization();
+              try {
+                entityUpdateLocks.lockUntilTransactionCompletion(entityTypeId, List.of(id));
+                TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(STATUS_COMMITTED));
+              } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+              }
+            });
+    try {
+      future.get(500, TimeUnit.MILLISECONDS);
+      return true;
+    } catch (TimeoutException e) {
+      return false;
+    }
+  }
+}
@@ -21,6 +21,7 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.api.data.TotalMode.NONE;
 import static org.molgenis.api.data.v2.RestControllerV2.BASE_URI;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.data.meta.AttributeType.BOOL;
@@ -70,6 +71,7 @@ import java.util.Set;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -80,6 +82,8 @@ import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.api.data.RestService;
 import org.molgenis.api.data.ServletUriComponentsBuilderFactory;
+import org.molgenis.api.data.TotalCounter;
+import org.molgenis.api.data.TotalModeConverter;
 import org.molgenis.api.data.v2.RestControllerV2Test.RestControllerV2Config;
 import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.DataService;
@@ -133,6 +137,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.servlet.LocaleResolver;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurerAdapter;
 import org.springframework.web.util.NestedServletException;
@@ -194,6 +199,8 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
 
   @Autowired private DataService dataService;
 
+  @Autowired private TotalCounter totalCounter;
+
   @Autowired private LocaleResolver localeResolver;
 
   private MockMvc mockMvc;
@@ -222,10 +229,18 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
     MessageSourceHolder.setMessageSource(null);
   }
 
+  @AfterEach
+  void afterMethod() {
+    TransactionSynchronizationManager.clearSynchronization();
+  }
+
   @BeforeEach
   void beforeMethod() {
+    // the update endpoints hold locks until the end of the transaction
+    TransactionSynchronizationManager.initSynchronization();
     reset(dataService);
     reset(repoCopier);
+    reset(totalCounter);
 
     EntityType refRefEntityType =
         entityTypeFactory
@@ -739,6 +754,24 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
         .andExpect(jsonPath("$.total").value(2L));
   }
 
+  @Test
+  void retrieveEntityCollectionTotalNone() throws Exception {
+    Entity entity = dataService.findOneById(ENTITY_NAME, ENTITY_ID);
+    Query<Entity> pageQuery = new QueryImpl<>().offset(0).pageSize(101);
+    when(dataService.findAll(ENTITY_NAME, pageQuery)).thenReturn(Stream.of(entity));
+    Query<Entity> q = new QueryImpl<>().offset(0).pageSize(100);
+    when(totalCounter.getTotal(any(), eq(q), eq(NONE), eq(0), eq(100), eq(1), eq(false)))
+        .thenReturn(1L);
+
+    mockMvc
+        .perform(get(HREF_ENTITY_COLLECTION).param("total", "none"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.items", hasSize(1)))
+        .andExpect(jsonPath("$.total").value(1L))
+        .andExpect(jsonPath("$.nextHref").doesNotExist());
+    verify(dataService, times(0)).count(anyString(), any());
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   void testCreateEntities() throws Exception {
@@ -1384,7 +1417,7 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
       FormattingConversionServiceFactoryBean conversionServiceFactoryBean =
           new FormattingConversionServiceFactoryBean();
       conversionServiceFactoryBean.setConverters(
-          Collections.singleton(new AttributeFilterConverter()));
+          Set.of(new AttributeFilterConverter(), new TotalModeConverter()));
       conversionServiceFactoryBean.afterPropertiesSet();
       return conversionServiceFactoryBean.getObject();
     }
@@ -1453,6 +1486,11 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
       return mock(ServletUriComponentsBuilderFactory.class);
     }
 
+    @Bean
+    TotalCounter totalCounter() {
+      return mock(TotalCounter.class);
+    }
+
     @Bean
     RestControllerV2 restController() {
       return new RestControllerV2(
@@ -1467,7 +1505,8 @@ class RestControllerV2Test extends AbstractMolgenisSpringTest {
               servletUriComponentsBuilderFactory()),
           localizationService(),
           permissionSystemService(),
-          repositoryCopier());
+          repositoryCopier(),
+          totalCounter());
     }
   }
 }
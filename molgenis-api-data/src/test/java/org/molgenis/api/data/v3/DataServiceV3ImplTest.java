@@ -11,6 +11,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.api.data.TotalMode.EXACT;
 import static org.molgenis.data.meta.AttributeType.MREF;
 import static org.molgenis.data.meta.AttributeType.STRING;
 
@@ -25,6 +26,7 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.molgenis.api.data.QueryMapper;
 import org.molgenis.api.data.SortMapper;
+import org.molgenis.api.data.TotalCounter;
 import org.molgenis.api.model.Order.Direction;
 import org.molgenis.api.model.Query;
 import org.molgenis.api.model.Query.Operator;
@@ -53,6 +55,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
   @Mock private SortMapper sortMapper;
   @Mock private FetchMapper fetchMapper;
   @Mock private EntityValidator entityValidator;
+  @Mock private TotalCounter totalCounter;
   private DataServiceV3Impl dataServiceV3Impl;
 
   @BeforeEach
@@ -64,7 +67,8 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
             queryMapper,
             sortMapper,
             fetchMapper,
-            entityValidator);
+            entityValidator,
+            totalCounter);
   }
 
   @Test
@@ -240,21 +244,20 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>(findAllQuery);
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(findAllQuery);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     when(repository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
-    when(repository.count(countQuery)).thenReturn(100L);
+    when(totalCounter.getTotal(repository, findAllQuery, EXACT, 10, 10, 2, false)).thenReturn(100L);
     when(queryMapper.map(q, repository)).thenReturn(findAllQuery).thenReturn(countQuery);
     when(sortMapper.map(sort, entityType)).thenReturn(dataSort);
 
     when(metaDataService.getRepository(entityTypeId)).thenReturn(Optional.of(repository));
 
-    Entities actual = dataServiceV3Impl.findAll(entityTypeId, q, filter, expand, sort, 10, 1);
+    Entities actual =
+        dataServiceV3Impl.findAll(entityTypeId, q, filter, expand, sort, 10, 1, EXACT);
 
     assertEquals(
         actual, Entities.builder().setEntities(asList(entity1, entity2)).setTotal(100).build());
@@ -316,16 +319,15 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     findQuery.in("id", Arrays.asList("entity1", "entity2", "entity3"));
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(findAllQuery);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     when(queryMapper.map(q, refRepository)).thenReturn(findAllQuery).thenReturn(countQuery);
     countQuery.in("id", Arrays.asList("entity1", "entity2", "entity3"));
-    when(refRepository.count(countQuery)).thenReturn(100L);
+    when(totalCounter.getTotal(refRepository, countQuery, EXACT, 10, 10, 2, false))
+        .thenReturn(100L);
     when(refRepository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
     when(sortMapper.map(sort, refEntityType)).thenReturn(dataSort);
 
@@ -334,7 +336,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     Entities actual =
         dataServiceV3Impl.findSubresources(
-            entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1);
+            entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1, EXACT);
 
     assertEquals(
         actual, Entities.builder().setEntities(asList(entity1, entity2)).setTotal(100).build());
@@ -398,17 +400,16 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     findQuery.in("id", Arrays.asList("entity1", "entity2", "entity3"));
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>();
     countQuery.nest().eq("field1", "value1").or().eq("field2", "value2").unnest().and();
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     when(queryMapper.map(q, refRepository)).thenReturn(findAllQuery).thenReturn(countQuery);
     countQuery.in("id", Arrays.asList("entity1", "entity2", "entity3"));
-    when(refRepository.count(countQuery)).thenReturn(100L);
+    when(totalCounter.getTotal(refRepository, countQuery, EXACT, 10, 10, 2, false))
+        .thenReturn(100L);
     when(refRepository.findAll(findQuery)).thenReturn(Stream.of(entity1, entity2));
     when(sortMapper.map(sort, refEntityType)).thenReturn(dataSort);
 
@@ -417,7 +418,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     Entities actual =
         dataServiceV3Impl.findSubresources(
-            entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1);
+            entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1, EXACT);
 
     assertEquals(
         actual, Entities.builder().setEntities(asList(entity1, entity2)).setTotal(100).build());
@@ -468,12 +469,10 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>(findAllQuery);
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(findAllQuery);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     when(queryMapper.map(q, refRepository)).thenReturn(findAllQuery).thenReturn(countQuery);
 
@@ -482,7 +481,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     Entities actual =
         dataServiceV3Impl.findSubresources(
-            entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1);
+            entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1, EXACT);
 
     assertEquals(
         actual, Entities.builder().setEntities(Collections.emptyList()).setTotal(0).build());
@@ -530,12 +529,10 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>(findAllQuery);
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(findAllQuery);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     doReturn(Optional.of(repository)).when(metaDataService).getRepository(entityTypeId);
 
@@ -543,7 +540,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
         UnknownEntityException.class,
         () ->
             dataServiceV3Impl.findSubresources(
-                entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1));
+                entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1, EXACT));
   }
 
   @SuppressWarnings("unchecked")
@@ -576,12 +573,10 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>(findAllQuery);
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(findAllQuery);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     doReturn(Optional.of(repository)).when(metaDataService).getRepository(entityTypeId);
 
@@ -589,7 +584,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
         UnsupportedAttributeTypeException.class,
         () ->
             dataServiceV3Impl.findSubresources(
-                entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1));
+                entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1, EXACT));
   }
 
   @SuppressWarnings("unchecked")
@@ -619,12 +614,10 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
     org.molgenis.data.Query<Entity> findQuery = new QueryImpl<>(findAllQuery);
     findQuery.fetch(fetch);
     findQuery.offset(10);
-    findQuery.pageSize(10);
+    findQuery.pageSize(11);
     findQuery.sort(dataSort);
 
     org.molgenis.data.Query<Entity> countQuery = new QueryImpl<>(findAllQuery);
-    countQuery.offset(0);
-    countQuery.pageSize(Integer.MAX_VALUE);
 
     doReturn(Optional.of(repository)).when(metaDataService).getRepository(entityTypeId);
 
@@ -632,7 +625,7 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
         UnknownAttributeException.class,
         () ->
             dataServiceV3Impl.findSubresources(
-                entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1));
+                entityTypeId, entityId, fieldId, q, filter, expand, sort, 10, 1, EXACT));
   }
 
   @Test
@@ -645,7 +638,9 @@ class DataServiceV3ImplTest extends AbstractMockitoTest {
 
     assertThrows(
         UnknownRepositoryException.class,
-        () -> dataServiceV3Impl.findAll(entityTypeId, null, filter, expand, Sort.EMPTY_SORT, 1, 1));
+        () ->
+            dataServiceV3Impl.findAll(
+                entityTypeId, null, filter, expand, Sort.EMPTY_SORT, 1, 1, EXACT));
   }
 
   @Test
@@ -5,6 +5,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.api.data.TotalMode.EXACT;
 
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -104,7 +105,7 @@ class EntityControllerTest extends AbstractMockitoTest {
     entityRequest.setPage(2);
 
     Entities entities = Entities.create(emptyList(), 30);
-    when(dataServiceV3.findAll(entityTypeId, query, filter, expand, sort, 10, 2))
+    when(dataServiceV3.findAll(entityTypeId, query, filter, expand, sort, 10, 2, EXACT))
         .thenReturn(entities);
 
     EntityCollection entityCollection =
@@ -144,7 +145,7 @@ class EntityControllerTest extends AbstractMockitoTest {
 
     Entities entities = Entities.create(emptyList(), 30);
     when(dataServiceV3.findSubresources(
-            entityTypeId, entityId, fieldId, query, filter, expand, sort, 10, 2))
+            entityTypeId, entityId, fieldId, query, filter, expand, sort, 10, 2, EXACT))
         .thenReturn(entities);
 
     EntityCollection entityCollection =
@@ -4,7 +4,16 @@ import static java.util.Objects.requireNonNull;
 import static net.logstash.logback.marker.Markers.append;
 import static net.logstash.logback.marker.Markers.appendEntries;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,27 +21,109 @@ import org.springframework.context.event.EventListener;
 import org.springframework.lang.NonNull;
 import org.springframework.stereotype.Component;
 
+/**
+ * Writes audit events to the audit log off the publishing thread. Events are put on a bounded queue
+ * that is drained in batches by a single writer thread, so they are logged in the order in which
+ * they were published. If the queue is full, publishing blocks until the writer has caught up:
+ * events are never dropped.
+ */
 @Component
 public class AuditEventLogger {
 
   private static final Logger logger = LoggerFactory.getLogger(AuditEventLogger.class);
   private final String molgenisVersion;
+  private final BlockingQueue<AuditEvent> queue;
+  private final int batchSize;
+  private final ExecutorService executorService;
+  private final AtomicBoolean draining = new AtomicBoolean();
 
-  public AuditEventLogger(@Value("${molgenis.version:@null}") String molgenisVersion) {
+  public AuditEventLogger(
+      @Value("${molgenis.version:@null}") String molgenisVersion,
+      @Value("${audit.log.queue.capacity:8192}") int queueCapacity,
+      @Value("${audit.log.batch.size:256}") int batchSize) {
     this.molgenisVersion = requireNonNull(molgenisVersion);
+    this.queue = new ArrayBlockingQueue<>(queueCapacity);
+    this.batchSize = batchSize;
+    this.executorService =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "molgenis-audit-log");
+              thread.setDaemon(true);
+              return thread;
+            });
   }
 
   @EventListener
   public void onAuditApplicationEvent(@NonNull AuditApplicationEvent auditApplicationEvent) {
-    AuditEvent event = auditApplicationEvent.getAuditEvent();
-    if (logger.isInfoEnabled()) {
-      logger.info(
-          append("timestamp", event.getTimestamp().toString())
-              .and(append("molgenisVersion", molgenisVersion))
-              .and(append("principal", event.getPrincipal()))
-              .and(append("type", event.getType()))
-              .and(appendEntries(Map.of("data", event.getData()))),
-          event.toString());
+    if (!logger.isInfoEnabled()) {
+      return;
     }
+
+    try {
+      queue.put(auditApplicationEvent.getAuditEvent());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      // don't lose the event, log it on the publishing thread instead
+      log(auditApplicationEvent.getAuditEvent());
+      return;
+    }
+    scheduleDrain();
+  }
+
+  /** Logs the queued events and waits for the writer thread to finish. */
+  @PreDestroy
+  void preDestroy() {
+    executorService.shutdown();
+    try {
+      if (!executorService.awaitTermination(60, TimeUnit.SECONDS)) {
+        executorService.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      executorService.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    drain();
+  }
+
+  private void scheduleDrain() {
+    if (draining.compareAndSet(false, true)) {
+      try {
+        executorService.execute(this::drainAndReschedule);
+      } catch (RuntimeException e) {
+        // the writer is shutting down, log on the publishing thread instead
+        draining.set(false);
+        drain();
+      }
+    }
+  }
+
+  private void drainAndReschedule() {
+    try {
+      drain();
+    } finally {
+      draining.set(false);
+    }
+    // an event might have been queued after the last drain but before the flag was reset
+    if (!queue.isEmpty()) {
+      scheduleDrain();
+    }
+  }
+
+  private synchronized void drain() {
+    List<AuditEvent> batch = new ArrayList<>(batchSize);
+    while (queue.drainTo(batch, batchSize) > 0) {
+      batch.forEach(this::log);
+      batch.clear();
+    }
+  }
+
+  private void log(AuditEvent event) {
+    logger.info(
+        append("timestamp", event.getTimestamp().toString())
+            .and(append("molgenisVersion", molgenisVersion))
+            .and(append("principal", event.getPrincipal()))
+            .and(append("type", event.getType()))
+            .and(appendEntries(Map.of("data", event.getData()))),
+        event.toString());
   }
 }
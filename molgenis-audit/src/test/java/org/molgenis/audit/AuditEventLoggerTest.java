@@ -1,5 +1,6 @@
 package org.molgenis.audit;
 
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import ch.qos.logback.classic.Logger;
@@ -11,7 +12,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.time.Instant;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.IntStream;
 import net.logstash.logback.marker.LogstashMarker;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,7 +28,7 @@ class AuditEventLoggerTest {
 
   @BeforeEach
   void beforeEach() {
-    auditEventLogger = new AuditEventLogger("8.7.0");
+    auditEventLogger = new AuditEventLogger("8.7.0", 2, 2);
   }
 
   @Test
@@ -42,6 +45,7 @@ class AuditEventLoggerTest {
                 "TYPE",
                 Map.of("detail", Map.of("foo", "bar"))));
     auditEventLogger.onAuditApplicationEvent(event);
+    auditEventLogger.preDestroy();
 
     appender.stop();
     logger.detachAppender(appender);
@@ -52,6 +56,33 @@ class AuditEventLoggerTest {
         writeMarkersToString(loggingEvent.getMarker()));
   }
 
+  @Test
+  void testEventsAreLoggedInOrder() {
+    ListAppender<ILoggingEvent> appender = new ListAppender<>();
+    appender.start();
+    logger.addAppender(appender);
+
+    List<AuditEvent> events =
+        IntStream.range(0, 100)
+            .mapToObj(
+                i ->
+                    AuditEvent.create(
+                        Instant.parse("2021-01-06T11:35:02.781470Z"),
+                        "principal",
+                        "TYPE",
+                        Map.of("index", i)))
+            .collect(toList());
+    events.forEach(
+        event -> auditEventLogger.onAuditApplicationEvent(new AuditApplicationEvent(event)));
+    auditEventLogger.preDestroy();
+
+    appender.stop();
+    logger.detachAppender(appender);
+    assertEquals(
+        events.stream().map(AuditEvent::toString).collect(toList()),
+        appender.list.stream().map(ILoggingEvent::getMessage).collect(toList()));
+  }
+
   private String writeMarkersToString(Marker marker) throws IOException {
     StringWriter writer = new StringWriter();
     JsonGenerator generator = new JsonFactory().createGenerator(writer);
@@ -28,7 +28,9 @@ import org.slf4j.Logger;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
-/** In-memory Query cache containing Queries and resulting ids from cacheable repositories */
+/**
+ * In-memory Query cache containing Queries and resulting ids or counts from cacheable repositories
+ */
 @Service
 public class L3Cache implements TransactionListener {
   private static final Logger LOG = getLogger(L3Cache.class);
@@ -38,6 +40,10 @@ public class L3Cache implements TransactionListener {
   private final ConcurrentMap<String, LoadingCache<Query<Entity>, List<Object>>> caches =
       newConcurrentMap();
 
+  /** maps entity name to the loading cache with query rules key and count */
+  private final ConcurrentMap<String, LoadingCache<Query<Entity>, Long>> countCaches =
+      newConcurrentMap();
+
   private final TransactionInformation transactionInformation;
 
   private final MeterRegistry meterRegistry;
@@ -53,7 +59,13 @@ public class L3Cache implements TransactionListener {
 
   @Override
   public void afterCommitTransaction(String transactionId) {
-    transactionInformation.getDirtyRepositories().forEach(caches::remove);
+    transactionInformation
+        .getDirtyRepositories()
+        .forEach(
+            entityTypeId -> {
+              caches.remove(entityTypeId);
+              countCaches.remove(entityTypeId);
+            });
   }
 
   public List<Object> get(Repository<Entity> repository, Query<Entity> query) {
@@ -64,6 +76,46 @@ public class L3Cache implements TransactionListener {
     return cache.getUnchecked(fetchlessQuery);
   }
 
+  /**
+   * Returns the number of entities matching the query. Offset, page size, sort and fetch do not
+   * influence the count, so the count is cached per combination of entity type and query rules.
+   */
+  public long getCount(Repository<Entity> repository, Query<Entity> query) {
+    LoadingCache<Query<Entity>, Long> cache = getCountCache(repository);
+    Query<Entity> countQuery = new QueryImpl<>(query.getRules());
+    return cache.getUnchecked(countQuery);
+  }
+
+  @SuppressWarnings("java:S2201") // ignore return values
+  private LoadingCache<Query<Entity>, Long> getCountCache(Repository<Entity> repository) {
+    String id = repository.getEntityType().getId();
+    if (!countCaches.containsKey(id)) {
+      countCaches.putIfAbsent(id, createCountCache(repository));
+    }
+    return countCaches.get(id);
+  }
+
+  private LoadingCache<Query<Entity>, Long> createCountCache(Repository<Entity> repository) {
+    LOG.trace("Creating count cache for repository {}", repository.getName());
+    String repositoryName = repository.getName();
+    LoadingCache<Query<Entity>, Long> cache =
+        CaffeinatedGuava.build(
+            Caffeine.newBuilder()
+                .recordStats()
+                .maximumSize(MAX_CACHE_SIZE_PER_QUERY)
+                .expireAfterAccess(10, MINUTES),
+            new CacheLoader<Query<Entity>, Long>() {
+              @Override
+              public Long load(@Nonnull Query<Entity> query) {
+                LOG.trace("Loading count from repository {} for query {}", repositoryName, query);
+                return repository.count(query);
+              }
+            });
+    GuavaCacheMetrics.monitor(
+        meterRegistry, cache, "l3.count." + repository.getEntityType().getId());
+    return cache;
+  }
+
   @SuppressWarnings("java:S2201") // ignore return values
   private LoadingCache<Query<Entity>, List<Object>> getQueryCache(Repository<Entity> repository) {
     String id = repository.getEntityType().getId();
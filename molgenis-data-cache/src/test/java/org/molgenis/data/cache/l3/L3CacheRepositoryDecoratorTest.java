@@ -13,12 +13,14 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.EntityManager.CreationMode.NO_POPULATE;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.molgenis.data.meta.AttributeType.INT;
 import static org.molgenis.data.meta.model.EntityType.AttributeRole.ROLE_ID;
 
 import com.google.common.collect.Sets;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -31,7 +33,9 @@ import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.PermissionFilter;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.Sort;
 import org.molgenis.data.meta.model.AttributeFactory;
@@ -178,6 +182,27 @@ class L3CacheRepositoryDecoratorTest extends AbstractMolgenisSpringTest {
     verifyNoMoreInteractions(l3Cache);
   }
 
+  @Test
+  void testFindAllPermitted() {
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(true);
+    QueryImpl<Entity> permittedQuery = new QueryImpl<>(query);
+    permittedQuery.and();
+    permittedQuery.addRule(
+        new QueryRule(
+            PERMITTED,
+            PermissionFilter.create("entity-TestRepository", Set.of("user"), Set.of(), 4)));
+
+    List<Entity> expectedEntities = newArrayList(entity3);
+
+    when(delegateRepository.findAll(permittedQuery)).thenReturn(expectedEntities.stream());
+
+    List<Entity> actualEntities =
+        l3CacheRepositoryDecorator.findAll(permittedQuery).collect(toList());
+
+    assertEquals(expectedEntities, actualEntities);
+    verifyNoMoreInteractions(l3Cache);
+  }
+
   @Test
   void testFindAllRepositoryDirty() {
     when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(false);
@@ -196,6 +221,25 @@ class L3CacheRepositoryDecoratorTest extends AbstractMolgenisSpringTest {
     verifyNoMoreInteractions(l3Cache);
   }
 
+  @Test
+  void testCountRepositoryClean() {
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(true);
+    when(l3Cache.getCount(delegateRepository, query)).thenReturn(3L);
+
+    assertEquals(3L, l3CacheRepositoryDecorator.count(query));
+    verify(delegateRepository, atLeast(0)).getEntityType();
+    verifyNoMoreInteractions(delegateRepository);
+  }
+
+  @Test
+  void testCountRepositoryDirty() {
+    when(transactionInformation.isRepositoryCompletelyClean(entityType)).thenReturn(false);
+    when(delegateRepository.count(query)).thenReturn(3L);
+
+    assertEquals(3L, l3CacheRepositoryDecorator.count(query));
+    verifyNoMoreInteractions(l3Cache);
+  }
+
   @Configuration
   static class Config {
     @Bean
@@ -190,4 +190,36 @@ class L3CacheTest extends AbstractMolgenisSpringTest {
     verify(decoratedRepository, atLeast(0)).getEntityType();
     verifyNoMoreInteractions(decoratedRepository);
   }
+
+  @Test
+  void testGetCount() {
+    Query<Entity> countQuery = new QueryImpl<>().eq(COUNTRY, "NL");
+    when(decoratedRepository.count(countQuery)).thenReturn(2L);
+
+    Query<Entity> query = new QueryImpl<>().eq(COUNTRY, "NL").offset(10).pageSize(10);
+    Query<Entity> otherPageQuery = new QueryImpl<>().eq(COUNTRY, "NL").offset(20).pageSize(10);
+
+    assertEquals(2L, l3Cache.getCount(decoratedRepository, query));
+    assertEquals(2L, l3Cache.getCount(decoratedRepository, otherPageQuery));
+
+    verify(decoratedRepository, times(1)).count(countQuery);
+    verify(decoratedRepository, atLeast(0)).getName();
+    verify(decoratedRepository, atLeast(0)).getEntityType();
+    verifyNoMoreInteractions(decoratedRepository);
+  }
+
+  @Test
+  void testGetCountAfterCommitTransactionDirtyRepository() {
+    Query<Entity> query = new QueryImpl<>().eq(COUNTRY, "NL");
+    when(decoratedRepository.count(query)).thenReturn(2L, 3L);
+
+    assertEquals(2L, l3Cache.getCount(decoratedRepository, query));
+
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(Collections.singleton(repositoryName));
+    l3Cache.afterCommitTransaction("ABCDE");
+
+    assertEquals(3L, l3Cache.getCount(decoratedRepository, query));
+    verify(decoratedRepository, times(2)).count(query);
+  }
 }
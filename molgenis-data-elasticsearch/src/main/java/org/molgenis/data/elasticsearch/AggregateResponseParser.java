@@ -3,7 +3,6 @@ package org.molgenis.data.elasticsearch;
 import com.google.common.collect.Iterables;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +17,7 @@ import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.aggregations.metrics.cardinality.Cardinality;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.aggregation.AggregateLabelComparator;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
@@ -47,14 +47,14 @@ class AggregateResponseParser {
     }
 
     List<Object> xLabels = new ArrayList<>(xLabelsIdx.keySet());
-    xLabels.sort(new AggregateLabelComparable());
+    xLabels.sort(new AggregateLabelComparator());
     int nrXLabels = xLabels.size();
     for (int i = 0; i < nrXLabels; ++i) xLabelsIdx.put(xLabels.get(i), i);
 
     List<Object> yLabels;
     if (aggAttr2 != null) {
       yLabels = new ArrayList<>(yLabelsIdx.keySet());
-      yLabels.sort(new AggregateLabelComparable());
+      yLabels.sort(new AggregateLabelComparator());
       int nrYLabels = yLabels.size();
       for (int i = 0; i < nrYLabels; ++i) yLabelsIdx.put(yLabels.get(i), i);
     } else yLabels = Collections.emptyList();
@@ -333,17 +333,4 @@ class AggregateResponseParser {
       }
     }
   }
-
-  private static class AggregateLabelComparable implements Comparator<Object> {
-    @Override
-    public int compare(Object o1, Object o2) {
-      if (o1 == null) {
-        return 1;
-      } else {
-        return o2 == null
-            ? -1
-            : o1.toString().compareTo(o2.toString()); // FIXME check if this is allowed?
-      }
-    }
-  }
 }
@@ -1,26 +1,45 @@
 package org.molgenis.data.elasticsearch;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 import static org.molgenis.data.util.EntityTypeUtils.createFetchForReindexing;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Streams;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import org.apache.lucene.search.Explanation;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregations;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
+import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.elasticsearch.client.ClientFacade;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
-import org.molgenis.data.elasticsearch.client.model.SearchHits;
 import org.molgenis.data.elasticsearch.generator.ContentGenerators;
 import org.molgenis.data.elasticsearch.generator.model.Document;
 import org.molgenis.data.elasticsearch.generator.model.DocumentAction;
@@ -30,9 +49,16 @@ import org.molgenis.data.elasticsearch.generator.model.Mapping;
 import org.molgenis.data.elasticsearch.generator.model.Sort;
 import org.molgenis.data.index.IndexService;
 import org.molgenis.data.index.SearchService;
+import org.molgenis.data.index.exception.IndexException;
+import org.molgenis.data.index.exception.UnknownIndexException;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 import org.springframework.stereotype.Component;
 
 /**
@@ -42,24 +68,73 @@ import org.springframework.stereotype.Component;
 public class ElasticsearchService implements SearchService, IndexService {
   private static final int BATCH_SIZE = 1000;
   public static final int MAX_BATCH_SIZE = 10000;
+  private static final char GENERATION_SEPARATOR = '_';
+  /** Number of entities per slice of a repository that is read in parallel during a rebuild */
+  private static final int REINDEX_SLICE_SIZE = 100000;
 
   private final ClientFacade clientFacade;
   private final ContentGenerators contentGenerators;
   private final DataService dataService;
-
+  private final EntityManager entityManager;
+  @Nullable private final ExecutorService reindexExecutorService;
+
+  /**
+   * @param reindexWorkers number of threads that read and index slices of a repository in parallel
+   *     during a rebuild, 1 to read the repository with a single cursor
+   */
+  @Autowired
   public ElasticsearchService(
-      ClientFacade clientFacade, ContentGenerators contentGenerators, DataService dataService) {
+      ClientFacade clientFacade,
+      ContentGenerators contentGenerators,
+      DataService dataService,
+      EntityManager entityManager,
+      @Value(
+              "${elasticsearch.reindex.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+          int reindexWorkers) {
+    this(
+        clientFacade,
+        contentGenerators,
+        dataService,
+        entityManager,
+        reindexWorkers > 1 ? createReindexExecutorService(reindexWorkers) : null);
+  }
+
+  ElasticsearchService(
+      ClientFacade clientFacade,
+      ContentGenerators contentGenerators,
+      DataService dataService,
+      EntityManager entityManager,
+      @Nullable ExecutorService reindexExecutorService) {
     this.clientFacade = requireNonNull(clientFacade);
     this.contentGenerators = requireNonNull(contentGenerators);
     this.dataService = requireNonNull(dataService);
+    this.entityManager = requireNonNull(entityManager);
+    this.reindexExecutorService = reindexExecutorService;
+  }
+
+  private static ExecutorService createReindexExecutorService(int reindexWorkers) {
+    return new DelegatingSecurityContextExecutorService(
+        newFixedThreadPool(
+            reindexWorkers,
+            new ThreadFactoryBuilder().setNameFormat("molgenis-reindex-%d").build()));
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    if (reindexExecutorService != null) {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(reindexExecutorService);
+    }
   }
 
+  /**
+   * Creates a physical index for the entity type behind an alias with the entity type index name.
+   */
   @Override
   public void createIndex(EntityType entityType) {
-    Index index = contentGenerators.createIndex(entityType);
+    Index alias = contentGenerators.createIndex(entityType);
     IndexSettings indexSettings = IndexSettings.create();
     Mapping mapping = contentGenerators.createMapping(entityType);
-    clientFacade.createIndex(index, indexSettings, Stream.of(mapping));
+    clientFacade.createIndex(createGeneration(alias), indexSettings, Stream.of(mapping), alias);
   }
 
   @Override
@@ -70,23 +145,193 @@ public class ElasticsearchService implements SearchService, IndexService {
 
   @Override
   public void deleteIndex(EntityType entityType) {
-    Index index = contentGenerators.createIndex(entityType);
-    clientFacade.deleteIndex(index);
+    Index alias = contentGenerators.createIndex(entityType);
+    List<Index> indexes = getGenerations(alias);
+    if (indexes.isEmpty()) {
+      throw new UnknownIndexException(alias.getName());
+    }
+    clientFacade.deleteIndexes(indexes);
   }
 
+  /**
+   * Rebuilds the index of the repository in a new physical index. The alias keeps pointing to the
+   * current index until the new index is complete so that searches are not interrupted, after which
+   * previous indexes are deleted.
+   */
   @Override
   public void rebuildIndex(Repository<? extends Entity> repository) {
     EntityType entityType = repository.getEntityType();
+    Index alias = contentGenerators.createIndex(entityType);
+    List<Index> previousIndexes = getGenerations(alias);
+    List<Index> aliasedIndexes = clientFacade.getIndexes(alias);
 
-    if (hasIndex(entityType)) {
-      deleteIndex(entityType);
+    Index index = createGeneration(alias);
+    IndexSettings indexSettings = IndexSettings.create();
+    // replicas and refreshes are of no use until the index is complete and only slow down writes
+    IndexSettings bulkIndexSettings =
+        indexSettings.toBuilder().setNumberOfReplicas(0).setRefreshInterval("-1").build();
+    Mapping mapping = contentGenerators.createMapping(entityType);
+    clientFacade.createIndex(index, bulkIndexSettings, Stream.of(mapping));
+    try {
+      if (reindexExecutorService != null && isSliceable(repository)) {
+        indexSlices(repository, index);
+      } else {
+        repository.forEachBatched(
+            createFetchForReindexing(entityType),
+            entities -> index(index, entities.stream()),
+            BATCH_SIZE);
+      }
+      clientFacade.updateIndexSettings(index, indexSettings);
+      clientFacade.refreshIndex(index);
+      clientFacade.swapAlias(alias, index, aliasedIndexes);
+    } catch (RuntimeException e) {
+      deleteFailedGeneration(index, e);
+      throw e;
     }
 
-    createIndex(entityType);
-    repository.forEachBatched(
-        createFetchForReindexing(entityType),
-        entities -> index(entityType, entities.stream()),
-        BATCH_SIZE);
+    // a concrete index with the alias name is deleted by the alias swap
+    List<Index> obsoleteIndexes =
+        previousIndexes.stream()
+            .filter(previousIndex -> !previousIndex.equals(alias))
+            .collect(toList());
+    if (!obsoleteIndexes.isEmpty()) {
+      clientFacade.deleteIndexes(obsoleteIndexes);
+    }
+  }
+
+  /**
+   * Returns whether the repository can be read in slices: ranges of identifiers that are each read
+   * in identifier order. The capabilities of the backend repository are checked, because the
+   * decorated repository is queryable through the index.
+   */
+  private boolean isSliceable(Repository<? extends Entity> repository) {
+    EntityType entityType = repository.getEntityType();
+    RepositoryCollection backend = dataService.getMeta().getBackend(entityType);
+    Repository<Entity> backendRepository = backend.getRepository(entityType);
+    return backendRepository.getCapabilities().contains(QUERYABLE)
+        && entityType.getIdAttribute().getExpression() == null;
+  }
+
+  /**
+   * Indexes the repository in slices of consecutive identifiers. The slice boundaries are
+   * determined by reading only the identifiers in order. Each slice is read with its own query and
+   * turned into documents on a reindex worker, all documents are indexed by one bulk processor.
+   */
+  private <E extends Entity> void indexSlices(Repository<E> repository, Index index) {
+    clientFacade.processDocumentActionsConcurrently(
+        documentActionConsumer -> {
+          List<Future<?>> slices = new ArrayList<>();
+          try {
+            forEachSlice(
+                repository,
+                (lowerBound, upperBound) ->
+                    slices.add(
+                        reindexExecutorService.submit(
+                            () ->
+                                indexSlice(
+                                    repository,
+                                    index,
+                                    lowerBound,
+                                    upperBound,
+                                    documentActionConsumer))));
+            for (Future<?> slice : slices) {
+              getUnchecked(slice);
+            }
+          } finally {
+            // on failure, do not start the remaining slices
+            slices.forEach(slice -> slice.cancel(false));
+          }
+        });
+  }
+
+  /**
+   * Calls the consumer with the lower bound (inclusive) and upper bound (exclusive) of each slice
+   * of the repository. The first slice has no lower bound and the last slice has no upper bound.
+   */
+  private static <E extends Entity> void forEachSlice(
+      Repository<E> repository, BiConsumer<Object, Object> sliceConsumer) {
+    String idAttributeName = repository.getEntityType().getIdAttribute().getName();
+    Query<E> query = new QueryImpl<>();
+    query.fetch(new Fetch().field(idAttributeName));
+    query.sort(new org.molgenis.data.Sort(idAttributeName));
+
+    Object lowerBound = null;
+    long nrEntities = 0;
+    for (Iterator<E> it = repository.findAll(query).iterator(); it.hasNext(); ) {
+      Object entityId = it.next().getIdValue();
+      if (nrEntities > 0 && nrEntities % REINDEX_SLICE_SIZE == 0) {
+        sliceConsumer.accept(lowerBound, entityId);
+        lowerBound = entityId;
+      }
+      nrEntities++;
+    }
+    sliceConsumer.accept(lowerBound, null);
+  }
+
+  private <E extends Entity> void indexSlice(
+      Repository<E> repository,
+      Index index,
+      @Nullable Object lowerBound,
+      @Nullable Object upperBound,
+      Consumer<DocumentAction> documentActionConsumer) {
+    EntityType entityType = repository.getEntityType();
+    String idAttributeName = entityType.getIdAttribute().getName();
+    Query<E> query = new QueryImpl<>();
+    if (lowerBound != null) {
+      query.ge(idAttributeName, lowerBound);
+    }
+    if (upperBound != null) {
+      if (lowerBound != null) {
+        query.and();
+      }
+      query.lt(idAttributeName, upperBound);
+    }
+    query.fetch(createFetchForReindexing(entityType));
+    query.sort(new org.molgenis.data.Sort(idAttributeName));
+    repository
+        .findAll(query)
+        .map(entity -> toDocumentAction(index, entity))
+        .forEach(documentActionConsumer);
+  }
+
+  private static void getUnchecked(Future<?> future) {
+    try {
+      future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IndexException("Interrupted while indexing");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new UncheckedExecutionException(cause);
+    }
+  }
+
+  private void deleteFailedGeneration(Index index, RuntimeException cause) {
+    try {
+      clientFacade.deleteIndex(index);
+    } catch (RuntimeException e) {
+      cause.addSuppressed(e);
+    }
+  }
+
+  /**
+   * Returns all physical indexes of the alias: the indexes it points to, indexes left behind by
+   * failed rebuilds and a concrete index with the alias name that predates versioned indexes.
+   */
+  private List<Index> getGenerations(Index alias) {
+    Index generationsIndex = Index.create(alias.getName() + GENERATION_SEPARATOR + '*');
+    return Stream.concat(
+            clientFacade.getIndexes(alias).stream(),
+            clientFacade.getIndexes(generationsIndex).stream())
+        .distinct()
+        .collect(toList());
+  }
+
+  private static Index createGeneration(Index alias) {
+    return Index.create(alias.getName() + GENERATION_SEPARATOR + System.currentTimeMillis());
   }
 
   @Override
@@ -114,32 +359,104 @@ public class ElasticsearchService implements SearchService, IndexService {
     return search(entityType, q, from, q.getPageSize());
   }
 
+  @Override
+  public boolean isEntitySearchEnabled() {
+    return clientFacade.isSourceStored();
+  }
+
+  @Override
+  public Stream<Entity> searchEntities(EntityType entityType, Query<Entity> q) {
+    Fetch fetch = q.getFetch();
+    List<String> sourceFields = contentGenerators.createSourceFields(entityType, fetch);
+    return searchHits(entityType, q, q.getOffset(), q.getPageSize(), sourceFields)
+        .map(searchHit -> toEntity(entityType, fetch, searchHit));
+  }
+
+  /**
+   * Creates an entity from the document source of a search hit. Falls back to a lazy entity
+   * reference if the document has no source, e.g. because it was indexed before sources were
+   * stored.
+   */
+  private Entity toEntity(EntityType entityType, Fetch fetch, SearchHit searchHit) {
+    Object entityId = toEntityId(entityType, searchHit.getId());
+    Map<String, Object> source = searchHit.getSource();
+    if (source == null) {
+      return entityManager.getReference(entityType, entityId);
+    }
+
+    Entity entity = entityManager.createFetch(entityType, fetch);
+    entity.setIdValue(entityId);
+    contentGenerators.populateEntity(entity, source, fetch);
+    return entity;
+  }
+
   private Stream<Object> search(EntityType entityType, Query<Entity> q, int offset, int pageSize) {
+    return toEntityIds(
+        entityType, searchHits(entityType, q, offset, pageSize, null).map(SearchHit::getId));
+  }
+
+  /**
+   * Searches the index with from/size paging if the requested page fits in the maximum result
+   * window. Larger or unbounded pages are retrieved lazily in batches with search after.
+   *
+   * @param sourceFields document source fields to retrieve or <code>null</code> to only retrieve
+   *     document identifiers
+   */
+  private Stream<SearchHit> searchHits(
+      EntityType entityType,
+      Query<Entity> q,
+      int offset,
+      int pageSize,
+      @Nullable @CheckForNull List<String> sourceFields) {
     QueryBuilder query = contentGenerators.createQuery(q, entityType);
     Sort sort = q.getSort() != null ? contentGenerators.createSorts(q.getSort(), entityType) : null;
     Index index = contentGenerators.createIndex(entityType);
-    Stream<SearchHit> searchHits = Stream.empty();
-
-    boolean done = false;
-    int currentOffset;
-    int i = 0;
-    while (!done) {
-      int batchSize = pageSize < MAX_BATCH_SIZE && pageSize != 0 ? pageSize : MAX_BATCH_SIZE;
-      currentOffset = offset + (i * MAX_BATCH_SIZE);
 
-      SearchHits currentSearchHits =
-          clientFacade.search(query, currentOffset, batchSize, sort, index);
-      searchHits = Streams.concat(searchHits, currentSearchHits.getHits().stream());
-
-      if (currentSearchHits.getHits().size() < MAX_BATCH_SIZE) {
-        done = true;
+    Stream<SearchHit> searchHits;
+    if (pageSize != 0 && offset + pageSize <= MAX_BATCH_SIZE) {
+      searchHits =
+          clientFacade.search(query, offset, pageSize, sort, index, sourceFields).getHits()
+              .stream();
+    } else {
+      searchHits = searchAfter(query, sort, index, sourceFields).skip(offset);
+      if (pageSize != 0) {
+        searchHits = searchHits.limit(pageSize);
       }
-
-      if (pageSize != 0) pageSize -= MAX_BATCH_SIZE;
-      i++;
     }
+    return searchHits;
+  }
 
-    return toEntityIds(entityType, searchHits.map(SearchHit::getId));
+  /**
+   * Retrieves all hits in batches with search after. The first batch is retrieved immediately, so
+   * that errors like an unknown index are thrown by the search itself and can be handled by the
+   * caller. The other batches are retrieved while the stream is consumed.
+   */
+  private Stream<SearchHit> searchAfter(
+      QueryBuilder query, Sort sort, Index index, @Nullable List<String> sourceFields) {
+    List<SearchHit> firstBatch =
+        clientFacade.searchAfter(query, null, MAX_BATCH_SIZE, sort, index, sourceFields).getHits();
+    Iterator<List<SearchHit>> batches =
+        new AbstractIterator<List<SearchHit>>() {
+          private List<SearchHit> previousBatch = null;
+
+          @Override
+          protected List<SearchHit> computeNext() {
+            if (previousBatch == null) {
+              previousBatch = firstBatch;
+            } else if (previousBatch.size() < MAX_BATCH_SIZE) {
+              return endOfData();
+            } else {
+              List<Object> searchAfter =
+                  previousBatch.get(previousBatch.size() - 1).getSortValues();
+              previousBatch =
+                  clientFacade
+                      .searchAfter(query, searchAfter, MAX_BATCH_SIZE, sort, index, sourceFields)
+                      .getHits();
+            }
+            return previousBatch;
+          }
+        };
+    return Streams.stream(batches).flatMap(List::stream);
   }
 
   private static Stream<Object> toEntityIds(
@@ -205,6 +522,10 @@ public class ElasticsearchService implements SearchService, IndexService {
   @Override
   public long index(EntityType entityType, Stream<? extends Entity> entities) {
     Index index = contentGenerators.createIndex(entityType);
+    return index(index, entities);
+  }
+
+  private long index(Index index, Stream<? extends Entity> entities) {
     Stream<DocumentAction> documentActionStream =
         entities.map(entity -> this.toDocumentAction(index, entity));
 
@@ -237,7 +558,15 @@ public class ElasticsearchService implements SearchService, IndexService {
 
   @Override
   public void deleteAll(EntityType entityType, Stream<Object> entityIds) {
-    entityIds.forEach(entityId -> deleteById(entityType, entityId));
+    Index index = contentGenerators.createIndex(entityType);
+    Stream<DocumentAction> documentActionStream =
+        entityIds.map(
+            entityId ->
+                DocumentAction.create(
+                    index,
+                    contentGenerators.createDocument(entityId),
+                    DocumentAction.Operation.DELETE));
+    clientFacade.processDocumentActions(documentActionStream);
   }
 
   @Override
@@ -0,0 +1,34 @@
+package org.molgenis.data.elasticsearch.client;
+
+import static java.util.Collections.unmodifiableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Failures of the bulk requests of one bulk processor, retried requests only fail once. */
+class BulkFailures {
+  private static final int MAX_MESSAGES = 10;
+
+  private int nrFailedActions;
+  private final List<String> messages = new ArrayList<>();
+
+  synchronized void add(int nrActions, String message) {
+    nrFailedActions += nrActions;
+    if (messages.size() < MAX_MESSAGES) {
+      messages.add(message);
+    }
+  }
+
+  synchronized boolean isEmpty() {
+    return nrFailedActions == 0;
+  }
+
+  synchronized int getNrFailedActions() {
+    return nrFailedActions;
+  }
+
+  /** Returns the messages of the first failures */
+  synchronized List<String> getMessages() {
+    return unmodifiableList(new ArrayList<>(messages));
+  }
+}
@@ -1,39 +1,205 @@
 package org.molgenis.data.elasticsearch.client;
 
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static org.elasticsearch.common.unit.TimeValue.timeValueMillis;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.elasticsearch.action.bulk.BackoffPolicy;
+import org.elasticsearch.action.bulk.BulkItemResponse;
 import org.elasticsearch.action.bulk.BulkProcessor;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.rest.RestStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Creates Elasticsearch bulk processors that log bulk updates. */
+/**
+ * Creates Elasticsearch bulk processors that log bulk updates and record bulk metrics.
+ *
+ * <p>If a target latency is configured, the number of actions per bulk request grows while bulk
+ * requests complete well within the target latency and shrinks when they take longer or are
+ * rejected.
+ */
 class BulkProcessorFactory {
   private static final Logger LOG = LoggerFactory.getLogger(BulkProcessorFactory.class);
 
-  BulkProcessor create(Client client) {
-    return BulkProcessor.builder(
-            client,
-            new BulkProcessor.Listener() {
-              @Override
-              public void beforeBulk(long executionId, BulkRequest request) {
-                LOG.trace(
-                    "Going to execute new bulk composed of {} actions", request.numberOfActions());
-              }
+  private static final int MIN_ADAPTIVE_BULK_ACTIONS = 100;
+  private static final int MAX_ADAPTIVE_BULK_ACTIONS_FACTOR = 10;
 
-              @Override
-              public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
-                if (response.hasFailures()) {
-                  LOG.error("Error executing bulk: {}", response.buildFailureMessage());
-                }
-                LOG.trace("Executed bulk composed of {} actions", request.numberOfActions());
-              }
+  private final BulkProcessorSettings settings;
+  private final int minBulkActions;
+  private final int maxBulkActions;
+  private final AtomicInteger bulkActions;
+  private final AtomicInteger nrExecutingBulks = new AtomicInteger();
+
+  private final Timer bulkLatency;
+  private final DistributionSummary bulkSize;
+  private final Counter bulkRetries;
+  private final Counter rejectedItems;
+  private final Counter failedItems;
+  private final Counter failedBulks;
+
+  BulkProcessorFactory() {
+    this(BulkProcessorSettings.create(), new SimpleMeterRegistry());
+  }
+
+  BulkProcessorFactory(BulkProcessorSettings settings, MeterRegistry meterRegistry) {
+    this.settings = requireNonNull(settings);
+    this.bulkActions = new AtomicInteger(settings.getBulkActions());
+    this.minBulkActions = Math.min(MIN_ADAPTIVE_BULK_ACTIONS, settings.getBulkActions());
+    this.maxBulkActions = settings.getBulkActions() * MAX_ADAPTIVE_BULK_ACTIONS_FACTOR;
+
+    bulkLatency =
+        Timer.builder("elasticsearch.bulk.latency")
+            .description("Time it takes to execute a bulk request")
+            .register(meterRegistry);
+    bulkSize =
+        DistributionSummary.builder("elasticsearch.bulk.size")
+            .description("Estimated size of bulk requests")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    bulkRetries =
+        Counter.builder("elasticsearch.bulk.retries")
+            .description("Number of bulk request retries after Elasticsearch rejected items")
+            .register(meterRegistry);
+    rejectedItems =
+        Counter.builder("elasticsearch.bulk.items.failed")
+            .description("Number of bulk items that failed")
+            .tag("reason", "rejected")
+            .register(meterRegistry);
+    failedItems =
+        Counter.builder("elasticsearch.bulk.items.failed")
+            .description("Number of bulk items that failed")
+            .tag("reason", "error")
+            .register(meterRegistry);
+    failedBulks =
+        Counter.builder("elasticsearch.bulk.failed")
+            .description("Number of bulk requests that failed")
+            .register(meterRegistry);
+    Gauge.builder("elasticsearch.bulk.queue", nrExecutingBulks, AtomicInteger::get)
+        .description("Number of bulk requests that are executing")
+        .register(meterRegistry);
+    Gauge.builder("elasticsearch.bulk.actions", bulkActions, AtomicInteger::get)
+        .description("Number of actions after which a bulk request is executed")
+        .register(meterRegistry);
+  }
+
+  DocumentBulkProcessor create(Client client) {
+    BackoffPolicy backoffPolicy =
+        BackoffPolicy.exponentialBackoff(
+            timeValueMillis(settings.getBackoffInitialDelayMillis()),
+            settings.getBackoffMaxRetries());
+    long flushIntervalMillis = settings.getFlushIntervalMillis();
+    BulkFailures bulkFailures = new BulkFailures();
+    BulkProcessor bulkProcessor =
+        BulkProcessor.builder(client, new BulkListener(bulkFailures))
+            // the document bulk processor executes bulk requests based on the number of actions
+            .setBulkActions(-1)
+            .setBulkSize(new ByteSizeValue(settings.getBulkSizeBytes()))
+            .setConcurrentRequests(settings.getConcurrentRequests())
+            .setFlushInterval(flushIntervalMillis > 0 ? timeValueMillis(flushIntervalMillis) : null)
+            .setBackoffPolicy(BackoffPolicy.wrap(backoffPolicy, bulkRetries::increment))
+            .build();
+    return new DocumentBulkProcessor(bulkProcessor, bulkActions::get, bulkFailures);
+  }
+
+  int getBulkActions() {
+    return bulkActions.get();
+  }
 
-              @Override
-              public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
-                LOG.warn("Error executing bulk", failure);
+  /** Grows or shrinks the number of actions per bulk request towards the target latency. */
+  void adapt(long latencyMillis, boolean rejected) {
+    long targetLatencyMillis = settings.getTargetLatencyMillis();
+    if (targetLatencyMillis <= 0) {
+      return;
+    }
+    int newBulkActions =
+        bulkActions.updateAndGet(
+            current -> {
+              if (rejected || latencyMillis > targetLatencyMillis) {
+                return Math.max(minBulkActions, current / 2);
+              } else if (latencyMillis < targetLatencyMillis / 2) {
+                return Math.min(maxBulkActions, current + Math.max(1, current / 4));
+              } else {
+                return current;
               }
-            })
-        .build();
+            });
+    LOG.trace("Bulk latency {}ms, using {} actions per bulk", latencyMillis, newBulkActions);
+  }
+
+  /**
+   * Listens to the bulk requests of one bulk processor, execution ids are unique per processor.
+   * Failed actions are recorded so that the processor can report them once it is closed.
+   */
+  class BulkListener implements BulkProcessor.Listener {
+    private final Map<Long, Long> bulkStartTimes = new ConcurrentHashMap<>();
+    private final BulkFailures bulkFailures;
+
+    BulkListener(BulkFailures bulkFailures) {
+      this.bulkFailures = requireNonNull(bulkFailures);
+    }
+
+    @Override
+    public void beforeBulk(long executionId, BulkRequest request) {
+      LOG.trace("Going to execute new bulk composed of {} actions", request.numberOfActions());
+      nrExecutingBulks.incrementAndGet();
+      bulkStartTimes.put(executionId, System.nanoTime());
+      bulkSize.record(request.estimatedSizeInBytes());
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
+      long latencyMillis = recordLatency(executionId);
+      boolean rejected = false;
+      if (response.hasFailures()) {
+        LOG.error("Error executing bulk: {}", response.buildFailureMessage());
+        for (BulkItemResponse item : response.getItems()) {
+          if (item.isFailed()) {
+            bulkFailures.add(
+                1, format("[%s][%s]: %s", item.getIndex(), item.getId(), item.getFailureMessage()));
+            if (item.getFailure().getStatus() == RestStatus.TOO_MANY_REQUESTS) {
+              rejectedItems.increment();
+              rejected = true;
+            } else {
+              failedItems.increment();
+            }
+          }
+        }
+      }
+      adapt(latencyMillis, rejected);
+      LOG.trace("Executed bulk composed of {} actions", request.numberOfActions());
+    }
+
+    @Override
+    public void afterBulk(long executionId, BulkRequest request, Throwable failure) {
+      long latencyMillis = recordLatency(executionId);
+      failedBulks.increment();
+      bulkFailures.add(request.numberOfActions(), failure.getMessage());
+      adapt(latencyMillis, true);
+      LOG.warn("Error executing bulk", failure);
+    }
+
+    private long recordLatency(long executionId) {
+      Long startTime = bulkStartTimes.remove(executionId);
+      if (startTime == null) {
+        return 0L;
+      }
+      nrExecutingBulks.decrementAndGet();
+      long latencyNanos = System.nanoTime() - startTime;
+      bulkLatency.record(latencyNanos, TimeUnit.NANOSECONDS);
+      return TimeUnit.NANOSECONDS.toMillis(latencyNanos);
+    }
   }
 }
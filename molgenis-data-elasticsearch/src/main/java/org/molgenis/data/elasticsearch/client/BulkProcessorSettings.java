@@ -0,0 +1,72 @@
+package org.molgenis.data.elasticsearch.client;
+
+import com.google.auto.value.AutoValue;
+
+/** Throughput settings of the bulk processors that write documents to Elasticsearch. */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+abstract class BulkProcessorSettings {
+  private static final int DEFAULT_BULK_ACTIONS = 1000;
+  private static final long DEFAULT_BULK_SIZE_BYTES = 5L * 1024 * 1024;
+  private static final int DEFAULT_CONCURRENT_REQUESTS = 1;
+  private static final long DEFAULT_BACKOFF_INITIAL_DELAY_MILLIS = 50;
+  private static final int DEFAULT_BACKOFF_MAX_RETRIES = 8;
+
+  /** The number of actions after which a bulk request is executed. */
+  abstract int getBulkActions();
+
+  /** The size of the actions after which a bulk request is executed. */
+  abstract long getBulkSizeBytes();
+
+  /** The number of bulk requests that may be executing while new actions are added. */
+  abstract int getConcurrentRequests();
+
+  /** The interval after which pending actions are executed, 0 to only flush on count or size. */
+  abstract long getFlushIntervalMillis();
+
+  /** The delay before the first retry of a bulk request that Elasticsearch rejected. */
+  abstract long getBackoffInitialDelayMillis();
+
+  /** The number of times a rejected bulk request is retried with an exponentially growing delay. */
+  abstract int getBackoffMaxRetries();
+
+  /**
+   * The bulk request latency to aim for by growing or shrinking the number of actions per bulk
+   * request, 0 to keep the number of actions fixed.
+   */
+  abstract long getTargetLatencyMillis();
+
+  static BulkProcessorSettings create() {
+    return builder().build();
+  }
+
+  static Builder builder() {
+    return new AutoValue_BulkProcessorSettings.Builder()
+        .setBulkActions(DEFAULT_BULK_ACTIONS)
+        .setBulkSizeBytes(DEFAULT_BULK_SIZE_BYTES)
+        .setConcurrentRequests(DEFAULT_CONCURRENT_REQUESTS)
+        .setFlushIntervalMillis(0)
+        .setBackoffInitialDelayMillis(DEFAULT_BACKOFF_INITIAL_DELAY_MILLIS)
+        .setBackoffMaxRetries(DEFAULT_BACKOFF_MAX_RETRIES)
+        .setTargetLatencyMillis(0);
+  }
+
+  @AutoValue.Builder
+  abstract static class Builder {
+    abstract Builder setBulkActions(int newBulkActions);
+
+    abstract Builder setBulkSizeBytes(long newBulkSizeBytes);
+
+    abstract Builder setConcurrentRequests(int newConcurrentRequests);
+
+    abstract Builder setFlushIntervalMillis(long newFlushIntervalMillis);
+
+    abstract Builder setBackoffInitialDelayMillis(long newBackoffInitialDelayMillis);
+
+    abstract Builder setBackoffMaxRetries(int newBackoffMaxRetries);
+
+    abstract Builder setTargetLatencyMillis(long newTargetLatencyMillis);
+
+    abstract BulkProcessorSettings build();
+  }
+}
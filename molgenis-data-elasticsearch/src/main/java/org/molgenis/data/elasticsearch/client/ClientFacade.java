@@ -1,6 +1,7 @@
 package org.molgenis.data.elasticsearch.client;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Arrays.stream;
 import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
@@ -15,22 +16,31 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.lucene.search.Explanation;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.ResourceNotFoundException;
 import org.elasticsearch.action.DocWriteRequest;
 import org.elasticsearch.action.ShardOperationFailedException;
+import org.elasticsearch.action.admin.indices.alias.Alias;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexResponse;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsRequestBuilder;
 import org.elasticsearch.action.admin.indices.exists.indices.IndicesExistsResponse;
+import org.elasticsearch.action.admin.indices.get.GetIndexRequestBuilder;
+import org.elasticsearch.action.admin.indices.get.GetIndexResponse;
 import org.elasticsearch.action.admin.indices.refresh.RefreshRequestBuilder;
 import org.elasticsearch.action.admin.indices.refresh.RefreshResponse;
-import org.elasticsearch.action.bulk.BulkProcessor;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
+import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.explain.ExplainRequestBuilder;
@@ -40,10 +50,13 @@ import org.elasticsearch.action.index.IndexResponse;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.search.ShardSearchFailure;
+import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.action.support.replication.ReplicationResponse;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.Aggregations;
@@ -78,22 +91,52 @@ public class ClientFacade implements Closeable {
   private final MappingContentBuilder mappingSourceBuilder;
   private final SortContentBuilder sortContentBuilder;
   private final BulkProcessorFactory bulkProcessorFactory;
+  private final boolean storeSource;
 
   public ClientFacade(Client client) {
+    this(client, false);
+  }
+
+  /**
+   * @param storeSource whether created indexes store document sources that can be retrieved with
+   *     search requests
+   */
+  public ClientFacade(Client client, boolean storeSource) {
+    this(client, storeSource, new BulkProcessorFactory());
+  }
+
+  ClientFacade(Client client, boolean storeSource, BulkProcessorFactory bulkProcessorFactory) {
     this.client = requireNonNull(client);
+    this.storeSource = storeSource;
     this.settingsBuilder = new SettingsContentBuilder();
-    this.mappingSourceBuilder = new MappingContentBuilder();
+    this.mappingSourceBuilder = new MappingContentBuilder(XContentType.JSON, storeSource);
     this.sortContentBuilder = new SortContentBuilder();
-    this.bulkProcessorFactory = new BulkProcessorFactory();
+    this.bulkProcessorFactory = requireNonNull(bulkProcessorFactory);
   }
 
   public void createIndex(Index index, IndexSettings indexSettings, Stream<Mapping> mappingStream) {
+    createIndex(index, indexSettings, mappingStream, null);
+  }
+
+  /**
+   * Creates an index that is reachable through the given alias.
+   *
+   * @param alias alias to create for the index, null to create no alias
+   */
+  public void createIndex(
+      Index index,
+      IndexSettings indexSettings,
+      Stream<Mapping> mappingStream,
+      @Nullable @CheckForNull Index alias) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Creating index '{}' ...", index.getName());
     }
 
     CreateIndexRequestBuilder createIndexRequest =
         createIndexRequest(index, indexSettings, mappingStream);
+    if (alias != null) {
+      createIndexRequest.addAlias(new Alias(alias.getName()));
+    }
 
     CreateIndexResponse createIndexResponse;
     try {
@@ -164,11 +207,126 @@ public class ClientFacade implements Closeable {
     return exists;
   }
 
+  /**
+   * Returns the concrete indexes matching the given index name, alias or wildcard expression.
+   * Returns an empty list if nothing matches.
+   */
+  public List<Index> getIndexes(Index index) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Retrieving concrete index(es) for '{}' ...", index.getName());
+    }
+
+    GetIndexRequestBuilder getIndexRequest =
+        client
+            .admin()
+            .indices()
+            .prepareGetIndex()
+            .setIndices(index.getName())
+            .setIndicesOptions(IndicesOptions.lenientExpandOpen());
+
+    GetIndexResponse getIndexResponse;
+    try {
+      getIndexResponse = getIndexRequest.get();
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(
+          format("Error retrieving concrete index(es) for '%s'.", index.getName()));
+    }
+
+    List<Index> indexes =
+        stream(getIndexResponse.getIndices()).map(Index::create).collect(toList());
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Retrieved concrete index(es) '{}' for '{}'.", toString(indexes), index.getName());
+    }
+    return indexes;
+  }
+
+  /**
+   * Updates the dynamic settings, the number of replicas and the refresh interval, of an existing
+   * index.
+   */
+  public void updateIndexSettings(Index index, IndexSettings indexSettings) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Updating settings of index '{}' ...", index.getName());
+    }
+
+    Settings.Builder settings =
+        Settings.builder().put("index.number_of_replicas", indexSettings.getNumberOfReplicas());
+    String refreshInterval = indexSettings.getRefreshInterval();
+    if (refreshInterval != null) {
+      settings.put("index.refresh_interval", refreshInterval);
+    } else {
+      settings.putNull("index.refresh_interval");
+    }
+    UpdateSettingsRequestBuilder updateSettingsRequest =
+        client.admin().indices().prepareUpdateSettings(index.getName()).setSettings(settings);
+
+    UpdateSettingsResponse updateSettingsResponse;
+    try {
+      updateSettingsResponse = updateSettingsRequest.get();
+    } catch (ResourceNotFoundException e) {
+      LOG.debug("", e);
+      throw new UnknownIndexException(index.getName());
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(format("Error updating settings of index '%s'.", index.getName()));
+    }
+
+    if (!updateSettingsResponse.isAcknowledged()) {
+      throw new IndexException(format("Error updating settings of index '%s'.", index.getName()));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Updated settings of index '{}'.", index.getName());
+    }
+  }
+
+  /**
+   * Atomically points the alias to the given index instead of to the previous indexes. A previous
+   * index with the same name as the alias is a concrete index that predates the alias and is
+   * deleted in the same request, other previous indexes are left for the caller to delete.
+   */
+  public void swapAlias(Index alias, Index index, List<Index> previousIndexes) {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Pointing alias '{}' to index '{}' ...", alias.getName(), index.getName());
+    }
+
+    IndicesAliasesRequestBuilder aliasesRequest = client.admin().indices().prepareAliases();
+    previousIndexes.forEach(
+        previousIndex -> {
+          if (previousIndex.equals(alias)) {
+            aliasesRequest.removeIndex(previousIndex.getName());
+          } else {
+            aliasesRequest.removeAlias(previousIndex.getName(), alias.getName());
+          }
+        });
+    aliasesRequest.addAlias(index.getName(), alias.getName());
+
+    IndicesAliasesResponse aliasesResponse;
+    try {
+      aliasesResponse = aliasesRequest.get();
+    } catch (ResourceNotFoundException e) {
+      LOG.debug("", e);
+      throw new UnknownIndexException(index.getName());
+    } catch (ElasticsearchException e) {
+      LOG.error("", e);
+      throw new IndexException(
+          format("Error pointing alias '%s' to index '%s'.", alias.getName(), index.getName()));
+    }
+
+    if (!aliasesResponse.isAcknowledged()) {
+      throw new IndexException(
+          format("Error pointing alias '%s' to index '%s'.", alias.getName(), index.getName()));
+    }
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Pointed alias '{}' to index '{}'.", alias.getName(), index.getName());
+    }
+  }
+
   public void deleteIndex(Index index) {
     deleteIndexes(singletonList(index));
   }
 
-  private void deleteIndexes(List<Index> indexes) {
+  public void deleteIndexes(List<Index> indexes) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Deleting index(es) '{}' ...", toString(indexes));
     }
@@ -200,6 +358,10 @@ public class ClientFacade implements Closeable {
     refreshIndexes(singletonList(Index.create("_all")));
   }
 
+  public void refreshIndex(Index index) {
+    refreshIndexes(singletonList(index));
+  }
+
   private void refreshIndexes(List<Index> indexes) {
     if (LOG.isTraceEnabled()) {
       LOG.trace("Refreshing index(es) '{}' ...", toString(indexes));
@@ -307,11 +469,98 @@ public class ClientFacade implements Closeable {
   }
 
   public SearchHits search(QueryBuilder query, int from, int size, Sort sort, Index index) {
-    return search(query, from, size, sort, singletonList(index));
+    return search(query, from, size, sort, index, null);
+  }
+
+  /**
+   * Searches docs and retrieves the given fields from the document sources.
+   *
+   * @param sourceFields document source fields to include in the hits, null to retrieve no source
+   */
+  public SearchHits search(
+      QueryBuilder query,
+      int from,
+      int size,
+      @Nullable @CheckForNull Sort sort,
+      Index index,
+      @Nullable @CheckForNull List<String> sourceFields) {
+    List<Index> indexes = singletonList(index);
+    SearchRequestBuilder searchRequest =
+        createSearchRequest(query, from, size, sort, null, indexes);
+    setFetchSource(searchRequest, sourceFields);
+    return search(searchRequest, query, from, size, sort, indexes);
+  }
+
+  public boolean isSourceStored() {
+    return storeSource;
+  }
+
+  /**
+   * Searches docs that come after the doc with the given sort values. Unlike from/size paging this
+   * is not limited by the maximum result window and does not slow down for deep pages. Hits are
+   * sorted by the given sort, or by score when unsorted, and the document uid as tiebreaker.
+   *
+   * @param searchAfter sort values of the last hit of the previous page, null for the first page
+   * @return hits including their sort values
+   */
+  public SearchHits searchAfter(
+      QueryBuilder query,
+      @Nullable @CheckForNull List<Object> searchAfter,
+      int size,
+      @Nullable @CheckForNull Sort sort,
+      Index index) {
+    return searchAfter(query, searchAfter, size, sort, index, null);
+  }
+
+  /**
+   * Searches docs that come after the doc with the given sort values and retrieves the given fields
+   * from the document sources.
+   *
+   * @param sourceFields document source fields to include in the hits, null to retrieve no source
+   * @see #searchAfter(QueryBuilder, List, int, Sort, Index)
+   */
+  public SearchHits searchAfter(
+      QueryBuilder query,
+      @Nullable @CheckForNull List<Object> searchAfter,
+      int size,
+      @Nullable @CheckForNull Sort sort,
+      Index index,
+      @Nullable @CheckForNull List<String> sourceFields) {
+    List<Index> indexes = singletonList(index);
+    SearchRequestBuilder searchRequest =
+        createSearchRequest(query, null, size, null, null, indexes);
+    sortContentBuilder.createSearchAfterSorts(sort).forEach(searchRequest::addSort);
+    if (searchAfter != null) {
+      searchRequest.searchAfter(searchAfter.toArray());
+    }
+    setFetchSource(searchRequest, sourceFields);
+    return search(searchRequest, query, 0, size, sort, indexes);
   }
 
   private SearchHits search(
       QueryBuilder query, int from, int size, Sort sort, List<Index> indexes) {
+    SearchRequestBuilder searchRequest =
+        createSearchRequest(query, from, size, sort, null, indexes);
+    setFetchSource(searchRequest, null);
+    return search(searchRequest, query, from, size, sort, indexes);
+  }
+
+  private static void setFetchSource(
+      SearchRequestBuilder searchRequest, @Nullable @CheckForNull List<String> sourceFields) {
+    if (sourceFields != null) {
+      searchRequest.setFetchSource(sourceFields.toArray(new String[0]), null);
+    } else {
+      searchRequest.setFetchSource(false);
+    }
+  }
+
+  private SearchHits search(
+      SearchRequestBuilder searchRequest,
+      QueryBuilder query,
+      int from,
+      int size,
+      Sort sort,
+      List<Index> indexes) {
     if (size > 10000) {
       throw new MolgenisQueryException(
           String.format(
@@ -338,9 +587,6 @@ public class ClientFacade implements Closeable {
       }
     }
 
-    SearchRequestBuilder searchRequest =
-        createSearchRequest(query, from, size, sort, null, indexes);
-
     SearchResponse searchResponse;
     try {
       searchResponse = searchRequest.get();
@@ -423,12 +669,20 @@ public class ClientFacade implements Closeable {
   private SearchHits createSearchResponse(SearchResponse searchResponse) {
     org.elasticsearch.search.SearchHits searchHits = searchResponse.getHits();
     List<SearchHit> searchHitList =
-        stream(searchHits.getHits())
-            .map(hit -> SearchHit.create(hit.getId(), hit.getIndex()))
-            .collect(toList());
+        stream(searchHits.getHits()).map(ClientFacade::createSearchHit).collect(toList());
     return SearchHits.create(searchHits.getTotalHits(), searchHitList);
   }
 
+  private static SearchHit createSearchHit(org.elasticsearch.search.SearchHit hit) {
+    Object[] sortValues = hit.getSortValues();
+    return SearchHit.builder()
+        .setId(hit.getId())
+        .setIndex(hit.getIndex())
+        .setSortValues(sortValues.length > 0 ? asList(sortValues) : null)
+        .setSource(hit.hasSource() ? hit.getSourceAsMap() : null)
+        .build();
+  }
+
   public Aggregations aggregate(
       List<AggregationBuilder> aggregations, QueryBuilder query, Index index) {
     return aggregate(aggregations, query, singletonList(index));
@@ -613,10 +867,22 @@ public class ClientFacade implements Closeable {
   }
 
   public void processDocumentActions(Stream<DocumentAction> documentActions) {
+    processDocumentActionsConcurrently(documentActions::forEachOrdered);
+  }
+
+  /**
+   * Processes document actions in bulk requests of one bulk processor. The producer passes its
+   * document actions to the given consumer, which may be called from multiple threads. Returns when
+   * the producer has returned and all bulk requests have completed.
+   *
+   * @throws IndexException if one or more document actions failed
+   */
+  public void processDocumentActionsConcurrently(
+      Consumer<Consumer<DocumentAction>> documentActionProducer) {
     LOG.trace("Processing document actions ...");
-    BulkProcessor bulkProcessor = bulkProcessorFactory.create(client);
+    DocumentBulkProcessor bulkProcessor = bulkProcessorFactory.create(client);
     try {
-      documentActions.forEachOrdered(
+      documentActionProducer.accept(
           documentAction -> {
             DocWriteRequest docWriteRequest = toDocWriteRequest(documentAction);
             bulkProcessor.add(docWriteRequest);
@@ -625,6 +891,14 @@ public class ClientFacade implements Closeable {
       waitForCompletion(bulkProcessor);
       LOG.debug("Processed document actions.");
     }
+
+    BulkFailures bulkFailures = bulkProcessor.getFailures();
+    if (!bulkFailures.isEmpty()) {
+      throw new IndexException(
+          format(
+              "Failed to process %d document actions: %s",
+              bulkFailures.getNrFailedActions(), String.join(", ", bulkFailures.getMessages())));
+    }
   }
 
   private DocWriteRequest toDocWriteRequest(DocumentAction documentAction) {
@@ -655,7 +929,7 @@ public class ClientFacade implements Closeable {
     return docWriteRequest;
   }
 
-  private void waitForCompletion(BulkProcessor bulkProcessor) {
+  private void waitForCompletion(DocumentBulkProcessor bulkProcessor) {
     try {
       boolean isCompleted = bulkProcessor.awaitClose(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
       if (!isCompleted) {
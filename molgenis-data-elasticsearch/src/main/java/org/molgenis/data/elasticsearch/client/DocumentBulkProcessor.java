@@ -0,0 +1,50 @@
+package org.molgenis.data.elasticsearch.client;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import org.elasticsearch.action.DocWriteRequest;
+import org.elasticsearch.action.bulk.BulkProcessor;
+
+/**
+ * Adds document write requests to a bulk processor and executes a bulk request each time the
+ * current number of bulk actions has been added. Unlike the bulk actions setting of the bulk
+ * processor itself, this number can change while the processor is in use.
+ */
+class DocumentBulkProcessor {
+  private final BulkProcessor bulkProcessor;
+  private final IntSupplier bulkActions;
+  private final BulkFailures bulkFailures;
+  private int nrPendingActions;
+
+  DocumentBulkProcessor(
+      BulkProcessor bulkProcessor, IntSupplier bulkActions, BulkFailures bulkFailures) {
+    this.bulkProcessor = requireNonNull(bulkProcessor);
+    this.bulkActions = requireNonNull(bulkActions);
+    this.bulkFailures = requireNonNull(bulkFailures);
+  }
+
+  synchronized void add(DocWriteRequest<?> docWriteRequest) {
+    bulkProcessor.add(docWriteRequest);
+    nrPendingActions++;
+    if (nrPendingActions >= bulkActions.getAsInt()) {
+      bulkProcessor.flush();
+      nrPendingActions = 0;
+    }
+  }
+
+  /**
+   * Executes the pending actions and waits for all bulk requests to complete.
+   *
+   * @return true if all bulk requests completed, false if the waiting time elapsed
+   */
+  boolean awaitClose(long timeout, TimeUnit unit) throws InterruptedException {
+    return bulkProcessor.awaitClose(timeout, unit);
+  }
+
+  /** Returns the failures of the bulk requests that completed so far */
+  BulkFailures getFailures() {
+    return bulkFailures;
+  }
+}
@@ -3,6 +3,7 @@ package org.molgenis.data.elasticsearch.client;
 import static java.lang.String.format;
 import static java.util.stream.Collectors.toList;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import java.net.InetSocketAddress;
 import java.util.List;
 import org.molgenis.data.index.IndexConfig;
@@ -30,6 +31,37 @@ public class ElasticsearchConfig {
   @Value("${elasticsearch.transport.addresses:127.0.0.1:9300}")
   private List<String> transportAddresses;
 
+  /**
+   * Store document sources so that index search results do not have to be read from the database
+   */
+  @Value("${elasticsearch.index.source:false}")
+  private boolean storeSource;
+
+  @Value("${elasticsearch.bulk.actions:1000}")
+  private int bulkActions;
+
+  @Value("${elasticsearch.bulk.size.bytes:5242880}")
+  private long bulkSizeBytes;
+
+  @Value("${elasticsearch.bulk.concurrent.requests:1}")
+  private int bulkConcurrentRequests;
+
+  /**
+   * Flush pending bulk actions after this interval, 0 to only flush on number of actions or size
+   */
+  @Value("${elasticsearch.bulk.flush.interval.ms:0}")
+  private long bulkFlushIntervalMillis;
+
+  @Value("${elasticsearch.bulk.backoff.initial.delay.ms:50}")
+  private long bulkBackoffInitialDelayMillis;
+
+  @Value("${elasticsearch.bulk.backoff.retries:8}")
+  private int bulkBackoffRetries;
+
+  /** Adapt the number of bulk actions to reach this bulk latency, 0 to use a fixed number */
+  @Value("${elasticsearch.bulk.target.latency.ms:0}")
+  private long bulkTargetLatencyMillis;
+
   final RetryTemplate retryTemplate;
 
   @Autowired
@@ -38,8 +70,22 @@ public class ElasticsearchConfig {
   }
 
   @Bean(destroyMethod = "close")
-  public ClientFacade elasticsearchClientFacade() throws InterruptedException {
-    return new ClientFacade(clientFactory().createClient());
+  public ClientFacade elasticsearchClientFacade(MeterRegistry meterRegistry)
+      throws InterruptedException {
+    BulkProcessorSettings bulkProcessorSettings =
+        BulkProcessorSettings.builder()
+            .setBulkActions(bulkActions)
+            .setBulkSizeBytes(bulkSizeBytes)
+            .setConcurrentRequests(bulkConcurrentRequests)
+            .setFlushIntervalMillis(bulkFlushIntervalMillis)
+            .setBackoffInitialDelayMillis(bulkBackoffInitialDelayMillis)
+            .setBackoffMaxRetries(bulkBackoffRetries)
+            .setTargetLatencyMillis(bulkTargetLatencyMillis)
+            .build();
+    return new ClientFacade(
+        clientFactory().createClient(),
+        storeSource,
+        new BulkProcessorFactory(bulkProcessorSettings, meterRegistry));
   }
 
   @Bean
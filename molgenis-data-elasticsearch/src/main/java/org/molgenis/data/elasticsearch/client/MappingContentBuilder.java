@@ -31,13 +31,23 @@ class MappingContentBuilder {
   public static final String INDEX = "index";
 
   private final XContentType xContentType;
+  private final boolean storeSource;
 
   MappingContentBuilder() {
     this(XContentType.JSON);
   }
 
   MappingContentBuilder(XContentType xContentType) {
+    this(xContentType, false);
+  }
+
+  /**
+   * @param storeSource whether documents sources are stored, which allows entities to be created
+   *     from search results at the cost of index size
+   */
+  MappingContentBuilder(XContentType xContentType, boolean storeSource) {
     this.xContentType = requireNonNull(xContentType);
+    this.storeSource = storeSource;
   }
 
   XContentBuilder createMapping(Mapping mapping) {
@@ -51,7 +61,7 @@ class MappingContentBuilder {
 
   private void createMapping(Mapping mapping, XContentBuilder contentBuilder) throws IOException {
     contentBuilder.startObject();
-    contentBuilder.startObject("_source").field("enabled", false).endObject();
+    contentBuilder.startObject("_source").field("enabled", storeSource).endObject();
     createFieldMappings(mapping.getFieldMappings(), contentBuilder);
     contentBuilder.endObject();
   }
@@ -1,6 +1,10 @@
 package org.molgenis.data.elasticsearch.client.model;
 
 import com.google.auto.value.AutoValue;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 @AutoValue
 @SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
@@ -9,6 +13,16 @@ public abstract class SearchHit {
 
   public abstract String getIndex();
 
+  /** Sort values of this hit, only available for searches that continue after a previous hit */
+  @Nullable
+  @CheckForNull
+  public abstract List<Object> getSortValues();
+
+  /** Document source fields, only available for searches that requested them */
+  @Nullable
+  @CheckForNull
+  public abstract Map<String, Object> getSource();
+
   public static SearchHit create(String newId, String newIndex) {
     return builder().setId(newId).setIndex(newIndex).build();
   }
@@ -23,6 +37,10 @@ public abstract class SearchHit {
 
     public abstract Builder setIndex(String newIndex);
 
+    public abstract Builder setSortValues(List<Object> newSortValues);
+
+    public abstract Builder setSource(Map<String, Object> newSource);
+
     public abstract SearchHit build();
   }
 }
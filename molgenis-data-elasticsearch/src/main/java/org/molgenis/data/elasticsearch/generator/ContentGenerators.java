@@ -3,9 +3,11 @@ package org.molgenis.data.elasticsearch.generator;
 import static java.util.Objects.requireNonNull;
 
 import java.util.List;
+import java.util.Map;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.elasticsearch.generator.model.Document;
 import org.molgenis.data.elasticsearch.generator.model.Index;
@@ -22,16 +24,19 @@ public class ContentGenerators {
   private final MappingGenerator mappingGenerator;
   private final QueryContentGenerators queryGenerators;
   private final DocumentContentBuilder documentGenerator;
+  private final DocumentSourceParser documentSourceParser;
 
   public ContentGenerators(
       IndexGenerator indexGenerator,
       MappingGenerator mappingGenerator,
       QueryContentGenerators queryGenerators,
-      DocumentContentBuilder documentGenerator) {
+      DocumentContentBuilder documentGenerator,
+      DocumentSourceParser documentSourceParser) {
     this.indexGenerator = requireNonNull(indexGenerator);
     this.mappingGenerator = requireNonNull(mappingGenerator);
     this.queryGenerators = requireNonNull(queryGenerators);
     this.documentGenerator = requireNonNull(documentGenerator);
+    this.documentSourceParser = requireNonNull(documentSourceParser);
   }
 
   public Index createIndex(EntityType entityType) {
@@ -62,4 +67,13 @@ public class ContentGenerators {
   public Document createDocument(Entity entity) {
     return documentGenerator.createDocument(entity);
   }
+
+  public List<String> createSourceFields(EntityType entityType, Fetch fetch) {
+    return documentSourceParser.createSourceFields(entityType, fetch);
+  }
+
+  /** Sets the values of the attributes in the fetch from a document source. */
+  public void populateEntity(Entity entity, Map<String, Object> source, Fetch fetch) {
+    documentSourceParser.parseSource(source, entity, fetch);
+  }
 }
@@ -0,0 +1,101 @@
+package org.molgenis.data.elasticsearch.generator;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.meta.AttributeType;
+import org.molgenis.data.meta.IllegalAttributeTypeException;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.util.UnexpectedEnumException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sets entity values from Elasticsearch document sources created by {@link DocumentContentBuilder}.
+ * Only supports non-reference attributes since documents do not contain complete referenced
+ * entities.
+ */
+@Component
+class DocumentSourceParser {
+  private final DocumentIdGenerator documentIdGenerator;
+
+  DocumentSourceParser(DocumentIdGenerator documentIdGenerator) {
+    this.documentIdGenerator = requireNonNull(documentIdGenerator);
+  }
+
+  /**
+   * Returns the document source fields of the attributes in the fetch.
+   *
+   * @param entityType entity type of the documents
+   * @param fetch fetch with non-reference attributes
+   * @return document source field names
+   */
+  List<String> createSourceFields(EntityType entityType, Fetch fetch) {
+    return fetch.getFields().stream()
+        .map(entityType::getAttribute)
+        .map(documentIdGenerator::generateId)
+        .collect(toList());
+  }
+
+  /**
+   * Sets the values of the attributes in the fetch from a document source.
+   *
+   * @param source document source
+   * @param entity the entity to set the values of
+   * @param fetch fetch with non-reference attributes
+   */
+  void parseSource(Map<String, Object> source, Entity entity, Fetch fetch) {
+    EntityType entityType = entity.getEntityType();
+    for (String attributeName : fetch.getFields()) {
+      Attribute attribute = entityType.getAttribute(attributeName);
+      Object sourceValue = source.get(documentIdGenerator.generateId(attribute));
+      entity.set(attributeName, toValue(attribute, sourceValue));
+    }
+  }
+
+  private static Object toValue(Attribute attribute, Object sourceValue) {
+    if (sourceValue == null) {
+      return null;
+    }
+
+    AttributeType attrType = attribute.getDataType();
+    switch (attrType) {
+      case BOOL:
+        return sourceValue;
+      case DECIMAL:
+        return ((Number) sourceValue).doubleValue();
+      case INT:
+        return ((Number) sourceValue).intValue();
+      case LONG:
+        return ((Number) sourceValue).longValue();
+      case EMAIL:
+      case ENUM:
+      case HTML:
+      case HYPERLINK:
+      case SCRIPT:
+      case STRING:
+      case TEXT:
+        return sourceValue.toString();
+      case DATE:
+        return LocalDate.parse(sourceValue.toString());
+      case DATE_TIME:
+        return Instant.parse(sourceValue.toString());
+      case CATEGORICAL:
+      case CATEGORICAL_MREF:
+      case COMPOUND:
+      case FILE:
+      case MREF:
+      case ONE_TO_MANY:
+      case XREF:
+        throw new IllegalAttributeTypeException(attrType);
+      default:
+        throw new UnexpectedEnumException(attrType);
+    }
+  }
+}
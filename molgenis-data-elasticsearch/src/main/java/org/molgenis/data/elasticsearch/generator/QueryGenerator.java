@@ -144,6 +144,10 @@ public class QueryGenerator {
       case NOT:
         throw new MolgenisQueryException(
             format("Unexpected query operator [%s]", queryOperator.toString()));
+      case PERMITTED:
+        // the index does not contain access control lists
+        throw new MolgenisQueryException(
+            format("Query operator [%s] not supported by index", queryOperator.toString()));
       default:
         QueryClauseGenerator queryClauseGenerator = queryClauseGeneratorMap.get(queryOperator);
         if (queryClauseGenerator == null) {
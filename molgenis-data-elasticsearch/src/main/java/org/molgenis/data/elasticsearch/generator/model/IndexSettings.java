@@ -1,6 +1,8 @@
 package org.molgenis.data.elasticsearch.generator.model;
 
 import com.google.auto.value.AutoValue;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 
 @AutoValue
 @SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
@@ -14,6 +16,16 @@ public abstract class IndexSettings {
   /** The number of replica shards. */
   public abstract int getNumberOfReplicas();
 
+  /**
+   * How often to make recent changes visible to search, e.g. '1s' or '-1' to disable refreshes.
+   * Null means the Elasticsearch default.
+   */
+  @Nullable
+  @CheckForNull
+  public abstract String getRefreshInterval();
+
+  public abstract Builder toBuilder();
+
   public static IndexSettings create() {
     return builder().build();
   }
@@ -37,6 +49,8 @@ public abstract class IndexSettings {
 
     public abstract Builder setNumberOfReplicas(int newNumberOfReplicas);
 
+    public abstract Builder setRefreshInterval(String newRefreshInterval);
+
     public abstract IndexSettings build();
   }
 }
@@ -0,0 +1,49 @@
+package org.molgenis.data.elasticsearch;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.Mockito.mock;
+
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.DataService;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.elasticsearch.client.ClientFacade;
+import org.molgenis.data.elasticsearch.generator.ContentGenerators;
+import org.molgenis.test.AbstractMockitoSpringContextTests;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.ContextConfiguration;
+
+@ContextConfiguration(
+    classes = {ElasticsearchService.class, ElasticsearchServiceContextTest.Config.class})
+class ElasticsearchServiceContextTest extends AbstractMockitoSpringContextTests {
+  @Autowired private ElasticsearchService elasticsearchService;
+
+  @Test
+  void testElasticsearchService() {
+    assertNotNull(elasticsearchService);
+  }
+
+  @Configuration
+  static class Config {
+    @Bean
+    ClientFacade clientFacade() {
+      return mock(ClientFacade.class);
+    }
+
+    @Bean
+    ContentGenerators contentGenerators() {
+      return mock(ContentGenerators.class);
+    }
+
+    @Bean
+    DataService dataService() {
+      return mock(DataService.class);
+    }
+
+    @Bean
+    EntityManager entityManager() {
+      return mock(EntityManager.class);
+    }
+  }
+}
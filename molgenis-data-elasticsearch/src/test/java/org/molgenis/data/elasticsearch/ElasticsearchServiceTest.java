@@ -1,27 +1,65 @@
 package org.molgenis.data.elasticsearch;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
+import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 import static org.molgenis.data.elasticsearch.ElasticsearchService.MAX_BATCH_SIZE;
+import static org.molgenis.data.meta.AttributeType.STRING;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
+import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.Repository;
+import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.RepositoryCollection;
+import org.molgenis.data.Sort;
 import org.molgenis.data.elasticsearch.client.ClientFacade;
 import org.molgenis.data.elasticsearch.client.model.SearchHit;
 import org.molgenis.data.elasticsearch.client.model.SearchHits;
 import org.molgenis.data.elasticsearch.generator.ContentGenerators;
+import org.molgenis.data.elasticsearch.generator.model.Document;
+import org.molgenis.data.elasticsearch.generator.model.DocumentAction;
+import org.molgenis.data.elasticsearch.generator.model.Index;
+import org.molgenis.data.elasticsearch.generator.model.IndexSettings;
+import org.molgenis.data.elasticsearch.generator.model.Mapping;
+import org.molgenis.data.index.exception.IndexException;
+import org.molgenis.data.index.exception.UnknownIndexException;
+import org.molgenis.data.meta.MetaDataService;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.test.AbstractMockitoTest;
@@ -36,36 +74,235 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
 
   @Mock private DataService dataService;
 
+  @Mock private EntityManager entityManager;
+
   @Mock private EntityType entityType;
 
   @BeforeEach
   void setUpBeforeMethod() {
-    elasticsearchService = new ElasticsearchService(clientFacade, contentGenerators, dataService);
+    elasticsearchService =
+        new ElasticsearchService(clientFacade, contentGenerators, dataService, entityManager, 1);
+  }
+
+  @Test
+  void testRebuildIndex() {
+    Index alias = Index.create("entity");
+    Index previousIndex = Index.create("entity_1");
+    Index orphanedIndex = Index.create("entity_0");
+    Mapping mapping = mock(Mapping.class);
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    when(contentGenerators.createMapping(entityType)).thenReturn(mapping);
+    when(clientFacade.getIndexes(alias)).thenReturn(singletonList(previousIndex));
+    when(clientFacade.getIndexes(Index.create("entity_*")))
+        .thenReturn(asList(orphanedIndex, previousIndex));
+
+    elasticsearchService.rebuildIndex(repository);
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    ArgumentCaptor<IndexSettings> indexSettingsCaptor =
+        ArgumentCaptor.forClass(IndexSettings.class);
+    verify(clientFacade)
+        .createIndex(
+            indexCaptor.capture(),
+            indexSettingsCaptor.capture(),
+            ArgumentMatchers.<Stream<Mapping>>any());
+    Index index = indexCaptor.getValue();
+    assertTrue(index.getName().startsWith("entity_"));
+    assertEquals("-1", indexSettingsCaptor.getValue().getRefreshInterval());
+    verify(clientFacade).updateIndexSettings(index, IndexSettings.create());
+    verify(clientFacade).refreshIndex(index);
+    verify(clientFacade).swapAlias(alias, index, singletonList(previousIndex));
+    verify(clientFacade).deleteIndexes(asList(previousIndex, orphanedIndex));
+  }
+
+  @Test
+  void testRebuildIndexFailureKeepsPreviousIndex() {
+    Index alias = Index.create("entity");
+    Index previousIndex = Index.create("entity_1");
+    @SuppressWarnings("unchecked")
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    when(clientFacade.getIndexes(alias)).thenReturn(singletonList(previousIndex));
+    when(clientFacade.getIndexes(Index.create("entity_*")))
+        .thenReturn(singletonList(previousIndex));
+    IndexException indexException = new IndexException("error");
+    doThrow(indexException).when(repository).forEachBatched(any(), any(), anyInt());
+
+    assertThrows(IndexException.class, () -> elasticsearchService.rebuildIndex(repository));
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade)
+        .createIndex(indexCaptor.capture(), any(), ArgumentMatchers.<Stream<Mapping>>any());
+    verify(clientFacade).deleteIndex(indexCaptor.getValue());
+    verify(clientFacade, never()).swapAlias(any(), any(), any());
+    verify(clientFacade, never()).deleteIndexes(any());
   }
 
   @Test
   @SuppressWarnings("unchecked")
-  void testBatchingSearchPageSizeZero() {
+  void testRebuildIndexSlices() {
+    elasticsearchService =
+        new ElasticsearchService(
+            clientFacade,
+            contentGenerators,
+            dataService,
+            entityManager,
+            MoreExecutors.newDirectExecutorService());
+    Index alias = Index.create("entity");
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    mockBackendCapabilities(Set.of(QUERYABLE));
+    Attribute idAttribute = mock(Attribute.class);
+    when(idAttribute.getName()).thenReturn("id");
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    Entity entity = mock(Entity.class);
+    when(entity.getIdValue()).thenReturn("0");
+    when(repository.findAll(any(Query.class))).thenReturn(Stream.of(entity), Stream.of(entity));
+    Document document = Document.builder().setId("0").build();
+    when(contentGenerators.createDocument(entity)).thenReturn(document);
+    List<DocumentAction> documentActions = new ArrayList<>();
+    doAnswer(
+            invocation -> {
+              Consumer<Consumer<DocumentAction>> producer = invocation.getArgument(0);
+              producer.accept(documentActions::add);
+              return null;
+            })
+        .when(clientFacade)
+        .processDocumentActionsConcurrently(any());
+
+    elasticsearchService.rebuildIndex(repository);
+
+    ArgumentCaptor<Query<Entity>> queryCaptor = ArgumentCaptor.forClass(Query.class);
+    verify(repository, times(2)).findAll(queryCaptor.capture());
+    Query<Entity> sliceQuery = queryCaptor.getAllValues().get(1);
+    assertEquals(emptyList(), sliceQuery.getRules());
+    assertEquals(new Sort("id"), sliceQuery.getSort());
+    verify(repository, never()).forEachBatched(any(), any(), anyInt());
+
+    ArgumentCaptor<Index> indexCaptor = ArgumentCaptor.forClass(Index.class);
+    verify(clientFacade)
+        .createIndex(indexCaptor.capture(), any(), ArgumentMatchers.<Stream<Mapping>>any());
+    assertEquals(
+        singletonList(
+            DocumentAction.create(
+                indexCaptor.getValue(), document, DocumentAction.Operation.INDEX)),
+        documentActions);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testRebuildIndexBackendNotQueryable() {
+    elasticsearchService =
+        new ElasticsearchService(
+            clientFacade,
+            contentGenerators,
+            dataService,
+            entityManager,
+            MoreExecutors.newDirectExecutorService());
+    Repository<Entity> repository = mock(Repository.class);
+    when(repository.getEntityType()).thenReturn(entityType);
+    // the decorated repository is queryable through the index
+    when(repository.getCapabilities()).thenReturn(Set.of(QUERYABLE));
+    mockBackendCapabilities(Set.of());
+    when(contentGenerators.createIndex(entityType)).thenReturn(Index.create("entity"));
+
+    elasticsearchService.rebuildIndex(repository);
+
+    verify(repository).forEachBatched(any(), any(), anyInt());
+    verify(repository, never()).findAll(any(Query.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockBackendCapabilities(Set<RepositoryCapability> capabilities) {
+    MetaDataService metaDataService = mock(MetaDataService.class);
+    RepositoryCollection backend = mock(RepositoryCollection.class);
+    Repository<Entity> backendRepository = mock(Repository.class);
+    when(dataService.getMeta()).thenReturn(metaDataService);
+    when(metaDataService.getBackend(entityType)).thenReturn(backend);
+    when(backend.getRepository(entityType)).thenReturn(backendRepository);
+    when(backendRepository.getCapabilities()).thenReturn(capabilities);
+    when(entityType.getIdAttribute()).thenReturn(mock(Attribute.class));
+  }
+
+  @Test
+  void testDeleteIndex() {
+    Index alias = Index.create("entity");
+    Index index = Index.create("entity_1");
+    when(contentGenerators.createIndex(entityType)).thenReturn(alias);
+    when(clientFacade.getIndexes(alias)).thenReturn(singletonList(index));
+    when(clientFacade.getIndexes(Index.create("entity_*"))).thenReturn(singletonList(index));
+
+    elasticsearchService.deleteIndex(entityType);
+
+    verify(clientFacade).deleteIndexes(singletonList(index));
+  }
+
+  @Test
+  void testIsEntitySearchEnabled() {
+    when(clientFacade.isSourceStored()).thenReturn(true);
+    assertTrue(elasticsearchService.isEntitySearchEnabled());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSearchEntities() {
+    Fetch fetch = new Fetch().field("id").field("label");
     QueryImpl<Entity> query = mock(QueryImpl.class);
-    when(query.getPageSize()).thenReturn(0);
+    when(query.getPageSize()).thenReturn(2);
     when(query.getOffset()).thenReturn(0);
+    when(query.getFetch()).thenReturn(fetch);
+    setUpIdAttribute();
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[10000]));
+    List<String> sourceFields = asList("id", "label");
+    when(contentGenerators.createSourceFields(entityType, fetch)).thenReturn(sourceFields);
+    Map<String, Object> source = Map.of("id", "0", "label", "zero");
+    SearchHit sourceHit =
+        SearchHit.builder().setId("0").setIndex("index").setSource(source).build();
+    SearchHit hit = SearchHit.builder().setId("1").setIndex("index").build();
+    when(clientFacade.search(any(), eq(0), eq(2), any(), any(), eq(sourceFields)))
+        .thenReturn(SearchHits.create(2, asList(sourceHit, hit)));
 
-    SearchHits finalSearchHitsBatch = mock(SearchHits.class);
-    when(finalSearchHitsBatch.getHits()).thenReturn(asList(new SearchHit[5000]));
+    Entity entity = mock(Entity.class);
+    when(entityManager.createFetch(entityType, fetch)).thenReturn(entity);
+    Entity entityReference = mock(Entity.class);
+    when(entityManager.getReference(entityType, "1")).thenReturn(entityReference);
 
-    when(clientFacade.search(any(), eq(0), eq(10000), any(), any())).thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(10000), anyInt(), any(), any())).thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(20000), anyInt(), any(), any()))
-        .thenReturn(finalSearchHitsBatch);
+    assertEquals(
+        asList(entity, entityReference),
+        elasticsearchService.searchEntities(entityType, query).collect(toList()));
+    verify(entity).setIdValue("0");
+    verify(contentGenerators).populateEntity(entity, source, fetch);
+  }
 
-    elasticsearchService.search(entityType, query);
+  @Test
+  @SuppressWarnings("unchecked")
+  void testBatchingSearchPageSizeZero() {
+    QueryImpl<Entity> query = mock(QueryImpl.class);
+    when(query.getPageSize()).thenReturn(0);
+    when(query.getOffset()).thenReturn(0);
+    setUpIdAttribute();
+
+    List<SearchHit> hits = createSearchHits(0, MAX_BATCH_SIZE);
+    List<Object> searchAfter = hits.get(MAX_BATCH_SIZE - 1).getSortValues();
+    List<Object> finalSearchAfter = singletonList(2 * MAX_BATCH_SIZE - 1);
+    when(clientFacade.searchAfter(any(), isNull(), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(25000, hits));
+    when(clientFacade.searchAfter(
+            any(), eq(searchAfter), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(25000, createSearchHits(MAX_BATCH_SIZE, MAX_BATCH_SIZE)));
+    when(clientFacade.searchAfter(
+            any(), eq(finalSearchAfter), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(25000, createSearchHits(2 * MAX_BATCH_SIZE, 5000)));
+
+    assertEquals(25000, elasticsearchService.search(entityType, query).count());
 
-    verify(clientFacade, times(1)).search(any(), eq(0), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(10000), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(20000), eq(MAX_BATCH_SIZE), any(), any());
+    verify(clientFacade, times(3))
+        .searchAfter(any(), any(), eq(MAX_BATCH_SIZE), any(), any(), isNull());
     verifyNoMoreInteractions(clientFacade);
   }
 
@@ -79,11 +316,12 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     SearchHits searchHitsBatch = mock(SearchHits.class);
     when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[50]));
 
-    when(clientFacade.search(any(), eq(20), eq(50), any(), any())).thenReturn(searchHitsBatch);
+    when(clientFacade.search(any(), eq(20), eq(50), any(), any(), isNull()))
+        .thenReturn(searchHitsBatch);
 
     elasticsearchService.search(entityType, query);
 
-    verify(clientFacade, times(1)).search(any(), eq(20), eq(50), any(), any());
+    verify(clientFacade, times(1)).search(any(), eq(20), eq(50), any(), any(), isNull());
     verifyNoMoreInteractions(clientFacade);
   }
 
@@ -93,22 +331,76 @@ class ElasticsearchServiceTest extends AbstractMockitoTest {
     QueryImpl<Entity> query = mock(QueryImpl.class);
     when(query.getPageSize()).thenReturn(10001);
     when(query.getOffset()).thenReturn(5000);
+    setUpIdAttribute();
 
-    SearchHits searchHitsBatch = mock(SearchHits.class);
-    when(searchHitsBatch.getHits()).thenReturn(asList(new SearchHit[10000]));
+    List<SearchHit> hits = createSearchHits(0, MAX_BATCH_SIZE);
+    List<Object> searchAfter = hits.get(MAX_BATCH_SIZE - 1).getSortValues();
+    when(clientFacade.searchAfter(any(), isNull(), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(30000, hits));
+    when(clientFacade.searchAfter(
+            any(), eq(searchAfter), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(30000, createSearchHits(MAX_BATCH_SIZE, MAX_BATCH_SIZE)));
 
-    SearchHits finalSearchHitsBatch = mock(SearchHits.class);
-    when(finalSearchHitsBatch.getHits()).thenReturn(asList(new SearchHit[1]));
+    List<Object> entityIds = elasticsearchService.search(entityType, query).collect(toList());
+    assertEquals(10001, entityIds.size());
+    assertEquals("5000", entityIds.get(0));
+    assertEquals("15000", entityIds.get(10000));
 
-    when(clientFacade.search(any(), eq(5000), eq(MAX_BATCH_SIZE), any(), any()))
-        .thenReturn(searchHitsBatch);
-    when(clientFacade.search(any(), eq(15000), eq(1), any(), any()))
-        .thenReturn(finalSearchHitsBatch);
+    verify(clientFacade, times(2))
+        .searchAfter(any(), any(), eq(MAX_BATCH_SIZE), any(), any(), isNull());
+    verifyNoMoreInteractions(clientFacade);
+  }
 
-    elasticsearchService.search(entityType, query);
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSearchOffsetBeyondMaxResultWindow() {
+    QueryImpl<Entity> query = mock(QueryImpl.class);
+    when(query.getPageSize()).thenReturn(100);
+    when(query.getOffset()).thenReturn(MAX_BATCH_SIZE);
+    setUpIdAttribute();
 
-    verify(clientFacade, times(1)).search(any(), eq(5000), eq(MAX_BATCH_SIZE), any(), any());
-    verify(clientFacade, times(1)).search(any(), eq(15000), eq(1), any(), any());
-    verifyNoMoreInteractions(clientFacade);
+    List<SearchHit> hits = createSearchHits(0, MAX_BATCH_SIZE);
+    List<Object> searchAfter = hits.get(MAX_BATCH_SIZE - 1).getSortValues();
+    when(clientFacade.searchAfter(any(), isNull(), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(10100, hits));
+    when(clientFacade.searchAfter(
+            any(), eq(searchAfter), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenReturn(SearchHits.create(10100, createSearchHits(MAX_BATCH_SIZE, 100)));
+
+    List<Object> entityIds = elasticsearchService.search(entityType, query).collect(toList());
+    assertEquals(100, entityIds.size());
+    assertEquals("10000", entityIds.get(0));
+
+    verify(clientFacade, never()).search(any(), anyInt(), anyInt(), any(), any(Index.class), any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testSearchAfterUnknownIndex() {
+    QueryImpl<Entity> query = mock(QueryImpl.class);
+    when(query.getPageSize()).thenReturn(0);
+    when(query.getOffset()).thenReturn(0);
+    when(clientFacade.searchAfter(any(), isNull(), eq(MAX_BATCH_SIZE), any(), any(), isNull()))
+        .thenThrow(new UnknownIndexException("index"));
+
+    assertThrows(UnknownIndexException.class, () -> elasticsearchService.search(entityType, query));
+  }
+
+  private void setUpIdAttribute() {
+    Attribute idAttribute = mock(Attribute.class);
+    when(idAttribute.getDataType()).thenReturn(STRING);
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+  }
+
+  private static List<SearchHit> createSearchHits(int start, int count) {
+    return IntStream.range(start, start + count)
+        .mapToObj(
+            i ->
+                SearchHit.builder()
+                    .setId(String.valueOf(i))
+                    .setIndex("index")
+                    .setSortValues(singletonList(i))
+                    .build())
+        .collect(toList());
   }
 }
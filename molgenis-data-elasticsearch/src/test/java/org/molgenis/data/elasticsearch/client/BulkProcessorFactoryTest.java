@@ -0,0 +1,110 @@
+package org.molgenis.data.elasticsearch.client;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import org.elasticsearch.action.DocWriteRequest.OpType;
+import org.elasticsearch.action.bulk.BulkItemResponse;
+import org.elasticsearch.action.bulk.BulkItemResponse.Failure;
+import org.elasticsearch.action.bulk.BulkRequest;
+import org.elasticsearch.action.bulk.BulkResponse;
+import org.elasticsearch.action.delete.DeleteRequest;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.elasticsearch.client.BulkProcessorFactory.BulkListener;
+
+class BulkProcessorFactoryTest {
+  @Test
+  void testAdaptDisabled() {
+    BulkProcessorFactory bulkProcessorFactory =
+        new BulkProcessorFactory(BulkProcessorSettings.create(), new SimpleMeterRegistry());
+    bulkProcessorFactory.adapt(10000L, true);
+    assertEquals(1000, bulkProcessorFactory.getBulkActions());
+  }
+
+  @Test
+  void testAdaptGrows() {
+    BulkProcessorFactory bulkProcessorFactory = createAdaptiveBulkProcessorFactory();
+    bulkProcessorFactory.adapt(100L, false);
+    assertEquals(1250, bulkProcessorFactory.getBulkActions());
+  }
+
+  @Test
+  void testAdaptKeeps() {
+    BulkProcessorFactory bulkProcessorFactory = createAdaptiveBulkProcessorFactory();
+    bulkProcessorFactory.adapt(750L, false);
+    assertEquals(1000, bulkProcessorFactory.getBulkActions());
+  }
+
+  @Test
+  void testAdaptShrinks() {
+    BulkProcessorFactory bulkProcessorFactory = createAdaptiveBulkProcessorFactory();
+    bulkProcessorFactory.adapt(2000L, false);
+    assertEquals(500, bulkProcessorFactory.getBulkActions());
+  }
+
+  @Test
+  void testAdaptShrinksOnRejection() {
+    BulkProcessorFactory bulkProcessorFactory = createAdaptiveBulkProcessorFactory();
+    bulkProcessorFactory.adapt(100L, true);
+    assertEquals(500, bulkProcessorFactory.getBulkActions());
+  }
+
+  @Test
+  void testAdaptBounds() {
+    BulkProcessorFactory bulkProcessorFactory = createAdaptiveBulkProcessorFactory();
+    for (int i = 0; i < 20; i++) {
+      bulkProcessorFactory.adapt(2000L, false);
+    }
+    assertEquals(100, bulkProcessorFactory.getBulkActions());
+    for (int i = 0; i < 50; i++) {
+      bulkProcessorFactory.adapt(100L, false);
+    }
+    assertEquals(10000, bulkProcessorFactory.getBulkActions());
+  }
+
+  @Test
+  void testBulkListenerRecordsFailedItems() {
+    BulkProcessorFactory bulkProcessorFactory = new BulkProcessorFactory();
+    BulkFailures bulkFailures = new BulkFailures();
+    BulkListener bulkListener = bulkProcessorFactory.new BulkListener(bulkFailures);
+    BulkRequest request = new BulkRequest();
+    BulkItemResponse failedItem =
+        new BulkItemResponse(
+            0,
+            OpType.INDEX,
+            new Failure("index", "index", "id", new IllegalStateException("boom")));
+    BulkResponse response = new BulkResponse(new BulkItemResponse[] {failedItem}, 1L);
+
+    bulkListener.beforeBulk(1L, request);
+    bulkListener.afterBulk(1L, request, response);
+
+    assertEquals(1, bulkFailures.getNrFailedActions());
+    assertEquals(1, bulkFailures.getMessages().size());
+    assertTrue(bulkFailures.getMessages().get(0).startsWith("[index][id]"));
+  }
+
+  @Test
+  void testBulkListenerRecordsFailedBulk() {
+    BulkProcessorFactory bulkProcessorFactory = new BulkProcessorFactory();
+    BulkFailures bulkFailures = new BulkFailures();
+    BulkListener bulkListener = bulkProcessorFactory.new BulkListener(bulkFailures);
+    BulkRequest request =
+        new BulkRequest()
+            .add(new DeleteRequest("index", "index", "id0"))
+            .add(new DeleteRequest("index", "index", "id1"));
+
+    bulkListener.beforeBulk(1L, request);
+    bulkListener.afterBulk(1L, request, new IllegalStateException("boom"));
+
+    assertEquals(2, bulkFailures.getNrFailedActions());
+    assertEquals(List.of("boom"), bulkFailures.getMessages());
+  }
+
+  private static BulkProcessorFactory createAdaptiveBulkProcessorFactory() {
+    BulkProcessorSettings settings =
+        BulkProcessorSettings.builder().setTargetLatencyMillis(1000L).build();
+    return new BulkProcessorFactory(settings, new SimpleMeterRegistry());
+  }
+}
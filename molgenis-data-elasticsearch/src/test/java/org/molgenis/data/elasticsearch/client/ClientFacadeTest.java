@@ -4,6 +4,7 @@ import static ch.qos.logback.classic.Level.DEBUG;
 import static ch.qos.logback.classic.Level.ERROR;
 import static ch.qos.logback.classic.Level.TRACE;
 import static ch.qos.logback.classic.Level.WARN;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -24,6 +25,8 @@ import java.util.stream.Stream;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ResourceAlreadyExistsException;
 import org.elasticsearch.ResourceNotFoundException;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesRequestBuilder;
+import org.elasticsearch.action.admin.indices.alias.IndicesAliasesResponse;
 import org.elasticsearch.action.admin.indices.create.CreateIndexRequestBuilder;
 import org.elasticsearch.action.admin.indices.create.CreateIndexResponse;
 import org.elasticsearch.action.admin.indices.delete.DeleteIndexRequestBuilder;
@@ -91,6 +94,10 @@ class ClientFacadeTest {
 
   @Mock private RefreshRequestBuilder refreshRequestBuilder;
 
+  @Mock private IndicesAliasesRequestBuilder indicesAliasesRequestBuilder;
+
+  @Mock private IndicesAliasesResponse indicesAliasesResponse;
+
   @Mock private RefreshResponse refreshResponse;
 
   @Mock private SearchRequestBuilder searchRequestBuilder;
@@ -166,6 +173,8 @@ class ClientFacadeTest {
         deleteIndexResponse,
         refreshRequestBuilder,
         refreshResponse,
+        indicesAliasesRequestBuilder,
+        indicesAliasesResponse,
         searchRequestBuilder,
         searchResponse,
         queryBuilder,
@@ -302,6 +311,38 @@ class ClientFacadeTest {
     assertThat(exception.getMessage()).containsPattern("Error deleting index\\(es\\) 'index'\\.");
   }
 
+  @Test
+  void testSwapAlias() {
+    Index alias = Index.create("alias");
+    Index index = Index.create("alias_2");
+    Index previousIndex = Index.create("alias_1");
+
+    when(indicesAdminClient.prepareAliases()).thenReturn(indicesAliasesRequestBuilder);
+    when(indicesAliasesRequestBuilder.get()).thenReturn(indicesAliasesResponse);
+    when(indicesAliasesResponse.isAcknowledged()).thenReturn(true);
+
+    clientFacade.swapAlias(alias, index, asList(alias, previousIndex));
+
+    verify(indicesAliasesRequestBuilder).removeIndex("alias");
+    verify(indicesAliasesRequestBuilder).removeAlias("alias_1", "alias");
+    verify(indicesAliasesRequestBuilder).addAlias("alias_2", "alias");
+  }
+
+  @Test
+  void testSwapAliasNotAcknowledged() {
+    Index alias = Index.create("alias");
+    Index index = Index.create("alias_2");
+
+    when(indicesAdminClient.prepareAliases()).thenReturn(indicesAliasesRequestBuilder);
+    when(indicesAliasesRequestBuilder.get()).thenReturn(indicesAliasesResponse);
+    when(indicesAliasesResponse.isAcknowledged()).thenReturn(false);
+
+    Exception exception =
+        assertThrows(IndexException.class, () -> clientFacade.swapAlias(alias, index, emptyList()));
+    assertThat(exception.getMessage())
+        .containsPattern("Error pointing alias 'alias' to index 'alias_2'\\.");
+  }
+
   @Test
   void testRefreshIndicesThrowsException() {
     when(indicesAdminClient.prepareRefresh("_all")).thenReturn(refreshRequestBuilder);
@@ -77,6 +77,15 @@ class MappingContentBuilderTest {
     assertEquals(JSON_NESTED, xContentBuilder.string());
   }
 
+  @Test
+  void testCreateMappingStoreSource() throws IOException {
+    Mapping mapping =
+        createMapping(FieldMapping.builder().setName("field").setType(MappingType.LONG).build());
+    XContentBuilder xContentBuilder =
+        new MappingContentBuilder(XContentType.JSON, true).createMapping(mapping);
+    assertEquals(JSON_LONG_STORE_SOURCE, xContentBuilder.string());
+  }
+
   private static Mapping createMapping(FieldMapping fieldMapping) {
     return Mapping.builder().setType("id").setFieldMappings(singletonList(fieldMapping)).build();
   }
@@ -93,6 +102,8 @@ class MappingContentBuilderTest {
       "{\"_source\":{\"enabled\":false},\"properties\":{\"field\":{\"type\":\"integer\",\"doc_values\":true}}}";
   private static final String JSON_LONG =
       "{\"_source\":{\"enabled\":false},\"properties\":{\"field\":{\"type\":\"long\"}}}";
+  private static final String JSON_LONG_STORE_SOURCE =
+      "{\"_source\":{\"enabled\":true},\"properties\":{\"field\":{\"type\":\"long\"}}}";
   private static final String JSON_TEXT =
       "{\"_source\":{\"enabled\":false},\"properties\":{\"field\":{\"type\":\"text\",\"norms\":true,\"fields\":{\"raw\":{\"type\":\"keyword\",\"index\":true,\"ignore_above\":8191}}}}}";
   private static final String JSON_KEYWORD =
@@ -1,5 +1,6 @@
 package org.molgenis.data.elasticsearch.client;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -35,6 +36,20 @@ class SortContentBuilderTest {
     assertSortsEqual(sorts, singletonList(JSON_SORT_DESC));
   }
 
+  @Test
+  void createSearchAfterSorts() {
+    List<SortBuilder> sorts =
+        sortContentBuilder.createSearchAfterSorts(
+            Sort.create(singletonList(SortOrder.create("field", ASC))));
+    assertSortsEqual(sorts, asList(JSON_SORT_ASC, JSON_SORT_TIEBREAKER));
+  }
+
+  @Test
+  void createSearchAfterSortsUnsorted() {
+    List<SortBuilder> sorts = sortContentBuilder.createSearchAfterSorts(null);
+    assertSortsEqual(sorts, asList(JSON_SORT_SCORE, JSON_SORT_TIEBREAKER));
+  }
+
   private void assertSortsEqual(List<SortBuilder> sorts, List<String> contentStrings) {
     assertEquals(contentStrings, sorts.stream().map(SortBuilder::toString).collect(toList()));
   }
@@ -53,4 +68,8 @@ class SortContentBuilderTest {
           + "    \"mode\" : \"min\"\n"
           + "  }\n"
           + "}";
+  private static final String JSON_SORT_SCORE =
+      "{\n" + "  \"_score\" : {\n" + "    \"order\" : \"desc\"\n" + "  }\n" + "}";
+  private static final String JSON_SORT_TIEBREAKER =
+      "{\n" + "  \"_uid\" : {\n" + "    \"order\" : \"asc\"\n" + "  }\n" + "}";
 }
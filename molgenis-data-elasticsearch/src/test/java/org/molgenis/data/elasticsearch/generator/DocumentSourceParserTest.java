@@ -0,0 +1,97 @@
+package org.molgenis.data.elasticsearch.generator;
+
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.meta.AttributeType;
+import org.molgenis.data.meta.IllegalAttributeTypeException;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+
+class DocumentSourceParserTest {
+  private DocumentIdGenerator documentIdGenerator;
+  private DocumentSourceParser documentSourceParser;
+
+  @BeforeEach
+  void setUpBeforeMethod() {
+    documentIdGenerator = mock(DocumentIdGenerator.class);
+    documentSourceParser = new DocumentSourceParser(documentIdGenerator);
+  }
+
+  @Test
+  void testCreateSourceFields() {
+    EntityType entityType = mock(EntityType.class);
+    Attribute attribute = mock(Attribute.class);
+    when(entityType.getAttribute("attr")).thenReturn(attribute);
+    when(documentIdGenerator.generateId(attribute)).thenReturn("attr_12345678");
+
+    assertEquals(
+        singletonList("attr_12345678"),
+        documentSourceParser.createSourceFields(entityType, new Fetch().field("attr")));
+  }
+
+  static Iterator<Object[]> parseSourceProvider() {
+    List<Object[]> dataItems = new ArrayList<>();
+    dataItems.add(new Object[] {AttributeType.BOOL, true, true});
+    dataItems.add(new Object[] {AttributeType.DECIMAL, 1.5, 1.5});
+    dataItems.add(new Object[] {AttributeType.DECIMAL, 2, 2d});
+    dataItems.add(new Object[] {AttributeType.INT, 3, 3});
+    dataItems.add(new Object[] {AttributeType.LONG, 4, 4L});
+    dataItems.add(new Object[] {AttributeType.STRING, "str", "str"});
+    dataItems.add(new Object[] {AttributeType.ENUM, "enum", "enum"});
+    dataItems.add(new Object[] {AttributeType.DATE, "2018-09-10", LocalDate.parse("2018-09-10")});
+    dataItems.add(
+        new Object[] {
+          AttributeType.DATE_TIME, "2018-09-10T12:34:56Z", Instant.parse("2018-09-10T12:34:56Z")
+        });
+    dataItems.add(new Object[] {AttributeType.TEXT, null, null});
+    return dataItems.iterator();
+  }
+
+  @ParameterizedTest
+  @MethodSource("parseSourceProvider")
+  void testParseSource(AttributeType attributeType, Object sourceValue, Object expectedValue) {
+    Entity entity = createEntity(attributeType);
+    documentSourceParser.parseSource(
+        Collections.singletonMap("attr_12345678", sourceValue), entity, new Fetch().field("attr"));
+    verify(entity).set("attr", expectedValue);
+  }
+
+  @Test
+  void testParseSourceReference() {
+    Entity entity = createEntity(AttributeType.XREF);
+    Map<String, Object> source = Map.of("attr_12345678", "refId");
+    Fetch fetch = new Fetch().field("attr");
+    assertThrows(
+        IllegalAttributeTypeException.class,
+        () -> documentSourceParser.parseSource(source, entity, fetch));
+  }
+
+  private Entity createEntity(AttributeType attributeType) {
+    Attribute attribute = mock(Attribute.class);
+    when(attribute.getDataType()).thenReturn(attributeType);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getAttribute("attr")).thenReturn(attribute);
+    when(documentIdGenerator.generateId(attribute)).thenReturn("attr_12345678");
+    Entity entity = mock(Entity.class);
+    when(entity.getEntityType()).thenReturn(entityType);
+    return entity;
+  }
+}
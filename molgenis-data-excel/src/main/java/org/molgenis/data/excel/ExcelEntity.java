@@ -3,9 +3,9 @@ package org.molgenis.data.excel;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import org.apache.poi.ss.usermodel.Cell;
 import org.apache.poi.ss.usermodel.Row;
 import org.molgenis.data.Entity;
+import org.molgenis.data.file.processor.AbstractCellProcessor;
 import org.molgenis.data.file.processor.CellProcessor;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.DynamicEntity;
@@ -16,7 +16,7 @@ import org.molgenis.data.support.DynamicEntity;
  * <p>All attributes are of type String, values are processed using the given CellProcessors
  */
 public class ExcelEntity extends DynamicEntity {
-  private final transient Row row;
+  private final transient ExcelRow row;
   private final Map<String, Integer> colNamesMap;
   private final List<CellProcessor> cellProcessors;
 
@@ -27,6 +27,14 @@ public class ExcelEntity extends DynamicEntity {
       Map<String, Integer> colNamesMap,
       List<CellProcessor> cellProcessors,
       EntityType entityType) {
+    this(row != null ? new PoiExcelRow(row) : null, colNamesMap, cellProcessors, entityType);
+  }
+
+  ExcelEntity(
+      ExcelRow row,
+      Map<String, Integer> colNamesMap,
+      List<CellProcessor> cellProcessors,
+      EntityType entityType) {
     super(entityType);
 
     if (row == null) throw new IllegalArgumentException("row is null");
@@ -54,9 +62,8 @@ public class ExcelEntity extends DynamicEntity {
     } else {
       Integer col = colNamesMap.get(attributeName);
       if (col != null) {
-        Cell cell = row.getCell(col);
-        if (cell != null) {
-          value = ExcelUtils.toValue(cell, cellProcessors);
+        if (row.hasCell(col)) {
+          value = AbstractCellProcessor.processCell(row.getCellValue(col), false, cellProcessors);
         } else {
           value = null;
         }
@@ -1,6 +1,7 @@
 package org.molgenis.data.excel;
 
 import static java.lang.String.format;
+import static java.util.Collections.emptyIterator;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.meta.AttributeType.STRING;
 
@@ -14,8 +15,6 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.poi.ss.usermodel.Cell;
-import org.apache.poi.ss.usermodel.Row;
 import org.apache.poi.ss.usermodel.Sheet;
 import org.apache.poi.ss.util.CellReference;
 import org.molgenis.data.Entity;
@@ -27,6 +26,7 @@ import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.meta.model.EntityTypeFactory;
 import org.molgenis.data.support.AbstractRepository;
+import org.molgenis.util.CloseableIterator;
 
 /**
  * ExcelSheet {@link org.molgenis.data.Repository} implementation
@@ -38,7 +38,7 @@ import org.molgenis.data.support.AbstractRepository;
  * <p>The url of this Repository is defined as excel://${filename}/${sheetname}
  */
 public class ExcelRepository extends AbstractRepository {
-  private final Sheet sheet;
+  private final ExcelSheet sheet;
   private final EntityTypeFactory entityTypeFactory;
   private final AttributeFactory attrMetaFactory;
 
@@ -59,35 +59,48 @@ public class ExcelRepository extends AbstractRepository {
       EntityTypeFactory entityTypeFactory,
       AttributeFactory attrMetaFactory,
       List<CellProcessor> cellProcessors) {
+    this(new PoiExcelSheet(sheet), entityTypeFactory, attrMetaFactory, cellProcessors);
+  }
+
+  ExcelRepository(
+      ExcelSheet sheet,
+      EntityTypeFactory entityTypeFactory,
+      AttributeFactory attrMetaFactory,
+      List<CellProcessor> cellProcessors) {
     this.sheet = requireNonNull(sheet);
-    if (sheet.getNumMergedRegions() > 0) {
-      throw new MolgenisDataException(
-          format(
-              "Sheet [%s] contains merged regions which is not supported", sheet.getSheetName()));
-    }
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.cellProcessors = cellProcessors;
   }
 
   public int getNrRows() {
-    return sheet.getLastRowNum() + 1; // getLastRowNum is 0-based
+    return sheet.getNrRows();
   }
 
+  /**
+   * Returns an iterator over the non-empty rows of the sheet. The iterator is a {@link
+   * CloseableIterator} that releases the sheet if it is exhausted; close it if you stop iterating
+   * before that.
+   */
   @Override
   public Iterator<Entity> iterator() {
-    final Iterator<Row> it = sheet.iterator();
-    if (!it.hasNext()) return Collections.<Entity>emptyList().iterator();
+    final CloseableIterator<ExcelRow> it = sheet.iterator();
+    try {
+      if (!it.hasNext()) return emptyIterator();
 
-    // create column header index once and reuse
-    Row headerRow = it.next();
-    if (colNamesMap == null) {
-      colNamesMap = toColNamesMap(headerRow);
-    }
+      // create column header index once and reuse
+      ExcelRow headerRow = it.next();
+      if (colNamesMap == null) {
+        colNamesMap = toColNamesMap(headerRow);
+      }
 
-    if (!it.hasNext()) return Collections.<Entity>emptyList().iterator();
+      if (!it.hasNext()) return emptyIterator();
+    } catch (RuntimeException e) {
+      it.close();
+      throw e;
+    }
 
-    return new Iterator<Entity>() {
+    return new CloseableIterator<Entity>() {
       ExcelEntity next = null;
 
       @Override
@@ -112,9 +125,14 @@ public class ExcelRepository extends AbstractRepository {
         throw new UnsupportedOperationException();
       }
 
+      @Override
+      public void close() {
+        it.close();
+      }
+
       private void getAndUpdateNext() {
         // iterator skips empty lines.
-        if (it.hasNext() && next == null) {
+        while (it.hasNext() && next == null) {
           ExcelEntity entity =
               new ExcelEntity(it.next(), colNamesMap, cellProcessors, getEntityType());
 
@@ -125,10 +143,6 @@ public class ExcelRepository extends AbstractRepository {
               break;
             }
           }
-          // next line not empty?
-          if (next == null) {
-            getAndUpdateNext();
-          }
         }
       }
     };
@@ -141,14 +155,18 @@ public class ExcelRepository extends AbstractRepository {
 
   public EntityType getEntityType() {
     if (entityType == null) {
-      String sheetName = sheet.getSheetName();
+      String sheetName = sheet.getName();
       EntityType newEntityType = entityTypeFactory.create(sheetName).setLabel(sheetName);
 
       if (colNamesMap == null) {
-        Iterator<Row> it = sheet.iterator();
-        if (it.hasNext()) {
-          // First row contains the headers
-          colNamesMap = toColNamesMap(it.next());
+        CloseableIterator<ExcelRow> it = sheet.iterator();
+        try {
+          if (it.hasNext()) {
+            // First row contains the headers
+            colNamesMap = toColNamesMap(it.next());
+          }
+        } finally {
+          it.close();
         }
       }
 
@@ -163,21 +181,20 @@ public class ExcelRepository extends AbstractRepository {
     return entityType;
   }
 
-  private Map<String, Integer> toColNamesMap(Row headerRow) {
+  private Map<String, Integer> toColNamesMap(ExcelRow headerRow) {
     if (headerRow == null) return null;
 
     Map<String, Integer> columnIdx = new LinkedHashMap<>();
     int i = 0;
-    for (Iterator<Cell> it = headerRow.cellIterator(); it.hasNext(); ) {
+    for (Iterator<String> it = headerRow.getCellValues().iterator(); it.hasNext(); ) {
       try {
-        String header =
-            AbstractCellProcessor.processCell(ExcelUtils.toValue(it.next()), true, cellProcessors);
+        String header = AbstractCellProcessor.processCell(it.next(), true, cellProcessors);
         if (header != null) {
           if (columnIdx.containsKey(header)) {
             throw new MolgenisDataException(
                 format(
                     "Duplicate column header '%s' in sheet '%s' not allowed",
-                    header, headerRow.getSheet().getSheetName()));
+                    header, sheet.getName()));
           }
           columnIdx.put(header, i++);
         }
@@ -185,7 +202,7 @@ public class ExcelRepository extends AbstractRepository {
         final int row = headerRow.getRowNum();
         final String column = CellReference.convertNumToColString(i);
         throw new IllegalStateException(
-            "Invalid value at [" + sheet.getSheetName() + "] " + column + row + 1, ex);
+            "Invalid value at [" + sheet.getName() + "] " + column + row + 1, ex);
       }
     }
     return columnIdx;
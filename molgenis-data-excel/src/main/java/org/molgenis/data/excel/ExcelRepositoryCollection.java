@@ -7,8 +7,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.Iterator;
 import java.util.List;
-import org.apache.poi.ss.usermodel.Sheet;
-import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.poifs.filesystem.FileMagic;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Repository;
@@ -25,12 +24,14 @@ import org.springframework.beans.factory.annotation.Autowired;
  *
  * <p>A sheet is exposed as a {@link org.molgenis.data.Repository} with the sheetname as the
  * Repository name
+ *
+ * <p>Rows of .xlsx files are streamed from the file, other workbooks are read into memory.
  */
 public class ExcelRepositoryCollection extends FileRepositoryCollection {
 
   private static final String REPOSITORY_COLLECTION_NAME = "EXCEL";
 
-  private final Workbook workbook;
+  private final ExcelWorkbook workbook;
 
   private EntityTypeFactory entityTypeFactory;
   private AttributeFactory attributeFactory;
@@ -40,13 +41,23 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
   }
 
   public ExcelRepositoryCollection(File file, CellProcessor... cellProcessors) throws IOException {
-    this(new FileInputStream(file), cellProcessors);
+    super(ExcelFileExtensions.getExcel(), cellProcessors);
+    workbook = createWorkbook(file);
   }
 
   public ExcelRepositoryCollection(InputStream in, CellProcessor... cellProcessors)
       throws IOException {
     super(ExcelFileExtensions.getExcel(), cellProcessors);
-    workbook = WorkbookFactory.create(in);
+    workbook = new PoiExcelWorkbook(WorkbookFactory.create(in));
+  }
+
+  private static ExcelWorkbook createWorkbook(File file) throws IOException {
+    if (FileMagic.valueOf(file) == FileMagic.OOXML) {
+      return new XlsxStreamingWorkbook(file);
+    }
+    try (InputStream in = new FileInputStream(file)) {
+      return new PoiExcelWorkbook(WorkbookFactory.create(in));
+    }
   }
 
   @Override
@@ -68,12 +79,12 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
 
   @Override
   public Repository<Entity> getRepository(String name) {
-    Sheet poiSheet = workbook.getSheet(name);
-    if (poiSheet == null) {
+    ExcelSheet sheet = workbook.getSheet(name);
+    if (sheet == null) {
       return null;
     }
 
-    return new ExcelRepository(poiSheet, entityTypeFactory, attributeFactory, cellProcessors);
+    return new ExcelRepository(sheet, entityTypeFactory, attributeFactory, cellProcessors);
   }
 
   public int getNumberOfSheets() {
@@ -85,12 +96,12 @@ public class ExcelRepositoryCollection extends FileRepositoryCollection {
   }
 
   public ExcelRepository getSheet(int i) {
-    Sheet poiSheet = workbook.getSheetAt(i);
-    if (poiSheet == null) {
+    ExcelSheet sheet = workbook.getSheetAt(i);
+    if (sheet == null) {
       return null;
     }
 
-    return new ExcelRepository(poiSheet, entityTypeFactory, attributeFactory, cellProcessors);
+    return new ExcelRepository(sheet, entityTypeFactory, attributeFactory, cellProcessors);
   }
 
   @Override
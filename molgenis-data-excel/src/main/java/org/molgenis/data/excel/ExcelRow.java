@@ -0,0 +1,16 @@
+package org.molgenis.data.excel;
+
+/** Row of an {@link ExcelSheet}, cell values are converted to string but not yet processed */
+interface ExcelRow {
+  /** Returns the 0-based row number */
+  int getRowNum();
+
+  /** Returns the values of the cells that are present in this row, in column order */
+  Iterable<String> getCellValues();
+
+  /** Returns whether a cell is present at the given 0-based column index */
+  boolean hasCell(int column);
+
+  /** Returns the value of the cell at the given 0-based column index */
+  String getCellValue(int column);
+}
@@ -0,0 +1,13 @@
+package org.molgenis.data.excel;
+
+import org.molgenis.util.CloseableIterator;
+
+/** Sheet of an {@link ExcelWorkbook} that is read row by row */
+interface ExcelSheet {
+  String getName();
+
+  int getNrRows();
+
+  /** Returns an iterator over the rows that are present in this sheet, starting at the first row */
+  CloseableIterator<ExcelRow> iterator();
+}
@@ -54,13 +54,7 @@ public class ExcelUtils {
             LocaleUtil.resetUserTimeZone();
           }
         } else {
-          // excel stores integer values as double values
-          // read an integer if the double value equals the
-          // integer value
-          double x = cell.getNumericCellValue();
-          if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x))
-            value = String.valueOf((long) x);
-          else value = String.valueOf(x);
+          value = toNumericValue(cell.getNumericCellValue());
         }
         break;
       case BOOLEAN:
@@ -96,13 +90,7 @@ public class ExcelUtils {
                 LocaleUtil.resetUserTimeZone();
               }
             } else {
-              // excel stores integer values as double values
-              // read an integer if the double value equals the
-              // integer value
-              double x = cellValue.getNumberValue();
-              if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x))
-                value = String.valueOf((long) x);
-              else value = String.valueOf(x);
+              value = toNumericValue(cellValue.getNumberValue());
             }
             break;
           case STRING:
@@ -149,6 +137,17 @@ public class ExcelUtils {
     return ExcelFileExtensions.getExcel().contains(extension);
   }
 
+  static String toNumericValue(double x) {
+    // excel stores integer values as double values
+    // read an integer if the double value equals the
+    // integer value
+    if (x == Math.rint(x) && !Double.isNaN(x) && !Double.isInfinite(x)) {
+      return String.valueOf((long) x);
+    } else {
+      return String.valueOf(x);
+    }
+  }
+
   /**
    * Formats parsed Date as LocalDateTime string at zone UTC to express that we don't know the
    * timezone.
@@ -156,7 +155,7 @@ public class ExcelUtils {
    * @param javaDate Parsed Date representing start of day in UTC
    * @return Formatted {@link LocalDateTime} string of the java.util.Date
    */
-  private static String formatUTCDateAsLocalDateTime(Date javaDate) {
+  static String formatUTCDateAsLocalDateTime(Date javaDate) {
     // Now back from start of day in UTC to LocalDateTime to express that we don't know the
     // timezone.
     LocalDateTime localDateTime = javaDate.toInstant().atZone(UTC).toLocalDateTime();
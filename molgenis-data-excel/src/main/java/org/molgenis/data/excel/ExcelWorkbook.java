@@ -0,0 +1,14 @@
+package org.molgenis.data.excel;
+
+/** Workbook that exposes its sheets by name or index */
+interface ExcelWorkbook {
+  int getNumberOfSheets();
+
+  String getSheetName(int index);
+
+  /** Returns the sheet with the given name or <code>null</code> if the sheet does not exist */
+  ExcelSheet getSheet(String name);
+
+  /** @throws IllegalArgumentException if the index is out of range */
+  ExcelSheet getSheetAt(int index);
+}
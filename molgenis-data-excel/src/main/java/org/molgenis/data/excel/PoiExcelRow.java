@@ -0,0 +1,37 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.collect.Iterators;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.Row;
+
+/** {@link ExcelRow} backed by a POI {@link Row} */
+class PoiExcelRow implements ExcelRow {
+  private final Row row;
+
+  PoiExcelRow(Row row) {
+    this.row = requireNonNull(row);
+  }
+
+  @Override
+  public int getRowNum() {
+    return row.getRowNum();
+  }
+
+  @Override
+  public Iterable<String> getCellValues() {
+    return () -> Iterators.transform(row.cellIterator(), ExcelUtils::toValue);
+  }
+
+  @Override
+  public boolean hasCell(int column) {
+    return row.getCell(column) != null;
+  }
+
+  @Override
+  public String getCellValue(int column) {
+    Cell cell = row.getCell(column);
+    return cell != null ? ExcelUtils.toValue(cell) : null;
+  }
+}
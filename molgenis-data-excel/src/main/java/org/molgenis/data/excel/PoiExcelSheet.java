@@ -0,0 +1,55 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Iterator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.util.CloseableIterator;
+
+/** {@link ExcelSheet} backed by a POI {@link Sheet} */
+class PoiExcelSheet implements ExcelSheet {
+  private final Sheet sheet;
+
+  PoiExcelSheet(Sheet sheet) {
+    this.sheet = requireNonNull(sheet);
+    if (sheet.getNumMergedRegions() > 0) {
+      throw new MolgenisDataException(
+          format(
+              "Sheet [%s] contains merged regions which is not supported", sheet.getSheetName()));
+    }
+  }
+
+  @Override
+  public String getName() {
+    return sheet.getSheetName();
+  }
+
+  @Override
+  public int getNrRows() {
+    return sheet.getLastRowNum() + 1; // getLastRowNum is 0-based
+  }
+
+  @Override
+  public CloseableIterator<ExcelRow> iterator() {
+    Iterator<Row> it = sheet.iterator();
+    return new CloseableIterator<ExcelRow>() {
+      @Override
+      public boolean hasNext() {
+        return it.hasNext();
+      }
+
+      @Override
+      public ExcelRow next() {
+        return new PoiExcelRow(it.next());
+      }
+
+      @Override
+      public void close() {
+        // no operation
+      }
+    };
+  }
+}
@@ -0,0 +1,36 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+
+/** {@link ExcelWorkbook} backed by a POI {@link Workbook} that is completely kept in memory */
+class PoiExcelWorkbook implements ExcelWorkbook {
+  private final Workbook workbook;
+
+  PoiExcelWorkbook(Workbook workbook) {
+    this.workbook = requireNonNull(workbook);
+  }
+
+  @Override
+  public int getNumberOfSheets() {
+    return workbook.getNumberOfSheets();
+  }
+
+  @Override
+  public String getSheetName(int index) {
+    return workbook.getSheetName(index);
+  }
+
+  @Override
+  public ExcelSheet getSheet(String name) {
+    Sheet sheet = workbook.getSheet(name);
+    return sheet != null ? new PoiExcelSheet(sheet) : null;
+  }
+
+  @Override
+  public ExcelSheet getSheetAt(int index) {
+    return new PoiExcelSheet(workbook.getSheetAt(index));
+  }
+}
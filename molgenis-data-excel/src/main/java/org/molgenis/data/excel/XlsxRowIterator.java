@@ -0,0 +1,292 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static javax.xml.stream.XMLStreamConstants.END_ELEMENT;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+import static org.molgenis.data.excel.ExcelUtils.formatUTCDateAsLocalDateTime;
+import static org.molgenis.data.excel.ExcelUtils.toNumericValue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.LocaleUtil;
+import org.apache.poi.util.StaxHelper;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.util.CloseableIterator;
+
+/**
+ * Iterator that pulls the rows of a {@link XlsxStreamingSheet} from the sheet XML. Cell values are
+ * converted like {@link ExcelUtils#toValue} does, except that formula cells get their cached value
+ * instead of being evaluated. Closes the sheet stream if the iterator is exhausted.
+ */
+class XlsxRowIterator implements CloseableIterator<ExcelRow> {
+  private final XlsxStreamingWorkbook workbook;
+  private final String sheetName;
+  private final InputStream inputStream;
+  private final XMLStreamReader reader;
+
+  private XlsxRow next;
+  private int lastRowNum = -1;
+  private boolean closed;
+
+  XlsxRowIterator(XlsxStreamingWorkbook workbook, String sheetName) {
+    this.workbook = workbook;
+    this.sheetName = sheetName;
+    this.inputStream = workbook.openSheet(sheetName);
+    try {
+      this.reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(inputStream);
+    } catch (XMLStreamException e) {
+      closeQuietly(inputStream);
+      throw new MolgenisDataException(format("Exception reading sheet [%s]", sheetName), e);
+    }
+  }
+
+  @Override
+  public boolean hasNext() {
+    if (next == null && !closed) {
+      try {
+        next = readNextRow();
+      } catch (XMLStreamException e) {
+        close();
+        throw new MolgenisDataException(format("Exception reading sheet [%s]", sheetName), e);
+      } catch (RuntimeException e) {
+        close();
+        throw e;
+      }
+      if (next == null) {
+        close();
+      }
+    }
+    return next != null;
+  }
+
+  @Override
+  public ExcelRow next() {
+    if (!hasNext()) {
+      throw new NoSuchElementException();
+    }
+    XlsxRow row = next;
+    next = null;
+    return row;
+  }
+
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      try {
+        reader.close();
+      } catch (XMLStreamException e) {
+        // ignore
+      }
+      closeQuietly(inputStream);
+    }
+  }
+
+  private XlsxRow readNextRow() throws XMLStreamException {
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == START_ELEMENT && "row".equals(reader.getLocalName())) {
+        return readRow();
+      } else if (event == END_ELEMENT && "sheetData".equals(reader.getLocalName())) {
+        validateNoMergedCells();
+        return null;
+      }
+    }
+    return null;
+  }
+
+  private XlsxRow readRow() throws XMLStreamException {
+    String rowReference = reader.getAttributeValue(null, "r");
+    int rowNum = rowReference != null ? Integer.parseInt(rowReference) - 1 : lastRowNum + 1;
+    XlsxRow row = new XlsxRow(rowNum);
+
+    int column = -1;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == START_ELEMENT) {
+        if ("c".equals(reader.getLocalName())) {
+          String cellReference = reader.getAttributeValue(null, "r");
+          column = cellReference != null ? toColumnIndex(cellReference) : column + 1;
+          row.addCell(column, readCell());
+        } else {
+          skipElement();
+        }
+      } else if (event == END_ELEMENT) {
+        break;
+      }
+    }
+
+    lastRowNum = rowNum;
+    return row;
+  }
+
+  private String readCell() throws XMLStreamException {
+    String type = reader.getAttributeValue(null, "t");
+    String styleIndex = reader.getAttributeValue(null, "s");
+
+    String value = null;
+    String inlineString = null;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == START_ELEMENT) {
+        switch (reader.getLocalName()) {
+          case "v":
+            value = reader.getElementText();
+            break;
+          case "is":
+            inlineString = readInlineString();
+            break;
+          default:
+            skipElement();
+            break;
+        }
+      } else if (event == END_ELEMENT) {
+        break;
+      }
+    }
+
+    return toValue(
+        type != null ? type : "n",
+        styleIndex != null ? Integer.parseInt(styleIndex) : 0,
+        value,
+        inlineString);
+  }
+
+  private String toValue(String type, int styleIndex, String value, String inlineString) {
+    switch (type) {
+      case "s":
+        return value != null ? workbook.getSharedString(Integer.parseInt(value.trim())) : null;
+      case "inlineStr":
+        return inlineString;
+      case "str":
+        return value;
+      case "b":
+        return value != null ? String.valueOf("1".equals(value) || "true".equals(value)) : null;
+      case "e":
+        throw new MolgenisDataException("unsupported cell type: ERROR");
+      case "n":
+        return toNumericCellValue(styleIndex, value);
+      default:
+        throw new MolgenisDataException("unsupported cell type: " + type);
+    }
+  }
+
+  private String toNumericCellValue(int styleIndex, String value) {
+    if (value == null || value.isEmpty()) {
+      return null;
+    }
+
+    double x = Double.parseDouble(value);
+    if (DateUtil.isValidExcelDate(x) && workbook.isDateFormatted(styleIndex)) {
+      // Excel dates are LocalDateTime, stored without timezone.
+      // Interpret them as UTC to prevent ambiguous DST overlaps which happen in other
+      // timezones.
+      return formatUTCDateAsLocalDateTime(
+          DateUtil.getJavaDate(x, workbook.isDate1904(), LocaleUtil.TIMEZONE_UTC));
+    }
+    return toNumericValue(x);
+  }
+
+  private String readInlineString() throws XMLStreamException {
+    StringBuilder stringBuilder = new StringBuilder();
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == START_ELEMENT) {
+        if ("t".equals(reader.getLocalName())) {
+          stringBuilder.append(reader.getElementText());
+        } else if ("rPh".equals(reader.getLocalName())) {
+          // skip phonetic runs
+          skipElement();
+        } else {
+          depth++;
+        }
+      } else if (event == END_ELEMENT) {
+        depth--;
+      }
+    }
+    return stringBuilder.toString();
+  }
+
+  private void validateNoMergedCells() throws XMLStreamException {
+    while (reader.hasNext()) {
+      if (reader.next() == START_ELEMENT && "mergeCell".equals(reader.getLocalName())) {
+        throw new MolgenisDataException(
+            format("Sheet [%s] contains merged regions which is not supported", sheetName));
+      }
+    }
+  }
+
+  private void skipElement() throws XMLStreamException {
+    int depth = 1;
+    while (depth > 0) {
+      int event = reader.next();
+      if (event == START_ELEMENT) {
+        depth++;
+      } else if (event == END_ELEMENT) {
+        depth--;
+      }
+    }
+  }
+
+  /** Returns the 0-based column index of a cell reference such as 'AB12' */
+  static int toColumnIndex(String cellReference) {
+    int column = 0;
+    for (int i = 0; i < cellReference.length(); i++) {
+      char c = Character.toUpperCase(cellReference.charAt(i));
+      if (c < 'A' || c > 'Z') {
+        break;
+      }
+      column = column * 26 + (c - 'A' + 1);
+    }
+    return column - 1;
+  }
+
+  private static void closeQuietly(InputStream inputStream) {
+    try {
+      inputStream.close();
+    } catch (IOException e) {
+      // ignore
+    }
+  }
+
+  /** Row with the values of the cells that are present, in column order */
+  private static class XlsxRow implements ExcelRow {
+    private final int rowNum;
+    private final Map<Integer, String> cellValues = new LinkedHashMap<>();
+
+    XlsxRow(int rowNum) {
+      this.rowNum = rowNum;
+    }
+
+    void addCell(int column, String value) {
+      cellValues.put(column, value);
+    }
+
+    @Override
+    public int getRowNum() {
+      return rowNum;
+    }
+
+    @Override
+    public Iterable<String> getCellValues() {
+      return cellValues.values();
+    }
+
+    @Override
+    public boolean hasCell(int column) {
+      return cellValues.containsKey(column);
+    }
+
+    @Override
+    public String getCellValue(int column) {
+      return cellValues.get(column);
+    }
+  }
+}
@@ -0,0 +1,37 @@
+package org.molgenis.data.excel;
+
+import static java.util.Objects.requireNonNull;
+
+import org.molgenis.util.CloseableIterator;
+
+/**
+ * {@link ExcelSheet} of a {@link XlsxStreamingWorkbook}. Each iterator streams the rows from the
+ * workbook file, so iterating a sheet uses memory proportional to a single row.
+ *
+ * <p>Merged regions are stored after the rows of a sheet, so a sheet with merged regions is
+ * rejected once an iterator reaches the end of the rows.
+ */
+class XlsxStreamingSheet implements ExcelSheet {
+  private final XlsxStreamingWorkbook workbook;
+  private final String name;
+
+  XlsxStreamingSheet(XlsxStreamingWorkbook workbook, String name) {
+    this.workbook = requireNonNull(workbook);
+    this.name = requireNonNull(name);
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public int getNrRows() {
+    return workbook.getNrRows(name);
+  }
+
+  @Override
+  public CloseableIterator<ExcelRow> iterator() {
+    return new XlsxRowIterator(workbook, name);
+  }
+}
@@ -0,0 +1,206 @@
+package org.molgenis.data.excel;
+
+import static java.lang.String.format;
+import static javax.xml.stream.XMLStreamConstants.START_ELEMENT;
+
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.StaxHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.molgenis.data.MolgenisDataException;
+import org.xml.sax.SAXException;
+
+/**
+ * {@link ExcelWorkbook} for Office Open XML (.xlsx) files that streams the rows of its sheets from
+ * the file instead of materializing the workbook in memory. Only the shared strings table and the
+ * cell styles are kept in memory.
+ *
+ * <p>The workbook does not keep the file open: each sheet stream opens the file and closes it when
+ * the stream is closed.
+ */
+class XlsxStreamingWorkbook implements ExcelWorkbook {
+  private final File file;
+  private final ReadOnlySharedStringsTable sharedStringsTable;
+  private final StylesTable stylesTable;
+  private final Map<Integer, Boolean> dateFormattedStyles = new ConcurrentHashMap<>();
+  private final Map<String, Integer> nrRows = new ConcurrentHashMap<>();
+  private final List<String> sheetNames = new ArrayList<>();
+  private final Map<String, String> sheetRelationshipIds = new LinkedHashMap<>();
+  private boolean date1904;
+
+  XlsxStreamingWorkbook(File file) throws IOException {
+    this.file = file;
+    OPCPackage opcPackage = openPackage();
+    try {
+      XSSFReader xssfReader = new XSSFReader(opcPackage);
+      sharedStringsTable = new ReadOnlySharedStringsTable(opcPackage, false);
+      stylesTable = xssfReader.getStylesTable();
+      readWorkbook(xssfReader);
+    } catch (OpenXML4JException | SAXException | XMLStreamException | RuntimeException e) {
+      throw new IOException(e);
+    } finally {
+      // the shared strings and styles have been read, read-only packages are closed by reverting
+      opcPackage.revert();
+    }
+  }
+
+  private OPCPackage openPackage() throws IOException {
+    try {
+      return OPCPackage.open(file, PackageAccess.READ);
+    } catch (OpenXML4JException e) {
+      throw new IOException(e);
+    }
+  }
+
+  @Override
+  public int getNumberOfSheets() {
+    return sheetNames.size();
+  }
+
+  @Override
+  public String getSheetName(int index) {
+    return sheetNames.get(index);
+  }
+
+  /** Returns the sheet with the given case-insensitive name, like POI workbooks do */
+  @Override
+  public ExcelSheet getSheet(String name) {
+    return sheetNames.stream()
+        .filter(sheetName -> sheetName.equalsIgnoreCase(name))
+        .findFirst()
+        .map(sheetName -> new XlsxStreamingSheet(this, sheetName))
+        .orElse(null);
+  }
+
+  @Override
+  public ExcelSheet getSheetAt(int index) {
+    if (index < 0 || index >= sheetNames.size()) {
+      throw new IllegalArgumentException(
+          format("Sheet index (%d) is out of range (0..%d)", index, sheetNames.size() - 1));
+    }
+    return new XlsxStreamingSheet(this, sheetNames.get(index));
+  }
+
+  /** Opens a stream of the sheet XML, closing the stream closes the workbook file */
+  InputStream openSheet(String name) {
+    OPCPackage opcPackage = null;
+    try {
+      opcPackage = openPackage();
+      InputStream sheetInputStream =
+          new XSSFReader(opcPackage).getSheet(sheetRelationshipIds.get(name));
+      OPCPackage sheetPackage = opcPackage;
+      return new FilterInputStream(sheetInputStream) {
+        @Override
+        public void close() throws IOException {
+          try {
+            super.close();
+          } finally {
+            sheetPackage.revert();
+          }
+        }
+      };
+    } catch (IOException | OpenXML4JException | RuntimeException e) {
+      if (opcPackage != null) {
+        opcPackage.revert();
+      }
+      throw new MolgenisDataException(
+          format("Exception reading sheet [%s] of [%s]", name, file.getName()), e);
+    }
+  }
+
+  /** Returns the number of rows of a sheet, which is only counted once */
+  int getNrRows(String name) {
+    return nrRows.computeIfAbsent(name, this::countRows);
+  }
+
+  private int countRows(String name) {
+    int lastRowNum = 0;
+    XlsxRowIterator it = new XlsxRowIterator(this, name);
+    try {
+      while (it.hasNext()) {
+        lastRowNum = it.next().getRowNum();
+      }
+    } finally {
+      it.close();
+    }
+    return lastRowNum + 1; // row numbers are 0-based
+  }
+
+  String getSharedString(int index) {
+    return sharedStringsTable.getEntryAt(index);
+  }
+
+  boolean isDate1904() {
+    return date1904;
+  }
+
+  /** Returns whether cells with the given style index have a date format */
+  boolean isDateFormatted(int styleIndex) {
+    if (stylesTable == null || styleIndex >= stylesTable.getNumCellStyles()) {
+      return false;
+    }
+    return dateFormattedStyles.computeIfAbsent(
+        styleIndex,
+        index -> {
+          XSSFCellStyle style = stylesTable.getStyleAt(index);
+          return style != null
+              && DateUtil.isADateFormat(style.getDataFormat(), style.getDataFormatString());
+        });
+  }
+
+  private void readWorkbook(XSSFReader xssfReader)
+      throws IOException, OpenXML4JException, XMLStreamException {
+    try (InputStream inputStream = xssfReader.getWorkbookData()) {
+      XMLStreamReader reader = StaxHelper.newXMLInputFactory().createXMLStreamReader(inputStream);
+      try {
+        while (reader.hasNext()) {
+          if (reader.next() == START_ELEMENT) {
+            switch (reader.getLocalName()) {
+              case "workbookPr":
+                String date1904Value = reader.getAttributeValue(null, "date1904");
+                date1904 = "1".equals(date1904Value) || "true".equals(date1904Value);
+                break;
+              case "sheet":
+                String name = reader.getAttributeValue(null, "name");
+                sheetNames.add(name);
+                sheetRelationshipIds.put(name, getRelationshipId(reader));
+                break;
+              default:
+                break;
+            }
+          }
+        }
+      } finally {
+        reader.close();
+      }
+    }
+  }
+
+  private static String getRelationshipId(XMLStreamReader reader) {
+    for (int i = 0; i < reader.getAttributeCount(); i++) {
+      String namespace = reader.getAttributeNamespace(i);
+      if ("id".equals(reader.getAttributeLocalName(i))
+          && namespace != null
+          && !namespace.isEmpty()) {
+        return reader.getAttributeValue(i);
+      }
+    }
+    throw new MolgenisDataException("Sheet without relationship id");
+  }
+}
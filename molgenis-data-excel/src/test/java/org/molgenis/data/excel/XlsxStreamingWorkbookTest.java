@@ -0,0 +1,167 @@
+package org.molgenis.data.excel;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.AbstractMolgenisSpringTest;
+import org.molgenis.data.Entity;
+import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.Repository;
+import org.molgenis.data.meta.model.AttributeFactory;
+import org.molgenis.data.meta.model.EntityTypeFactory;
+import org.molgenis.util.CloseableIterator;
+import org.springframework.beans.factory.annotation.Autowired;
+
+class XlsxStreamingWorkbookTest extends AbstractMolgenisSpringTest {
+  @Autowired private EntityTypeFactory entityTypeFactory;
+  @Autowired private AttributeFactory attributeFactory;
+
+  @Test
+  void testStreamingMatchesWorkbook() throws IOException, URISyntaxException {
+    ExcelRepositoryCollection streamingCollection = createCollection(getFile("/test.xlsx"));
+    ExcelRepositoryCollection workbookCollection;
+    try (InputStream inputStream = getClass().getResourceAsStream("/test.xlsx")) {
+      workbookCollection = new ExcelRepositoryCollection(inputStream);
+    }
+    workbookCollection.setEntityTypeFactory(entityTypeFactory);
+    workbookCollection.setAttributeFactory(attributeFactory);
+
+    assertEquals(workbookCollection.getEntityTypeIds(), streamingCollection.getEntityTypeIds());
+    for (String entityTypeId : workbookCollection.getEntityTypeIds()) {
+      ExcelRepository workbookRepository =
+          (ExcelRepository) workbookCollection.getRepository(entityTypeId);
+      ExcelRepository streamingRepository =
+          (ExcelRepository) streamingCollection.getRepository(entityTypeId);
+      assertEquals(toValues(workbookRepository), toValues(streamingRepository), entityTypeId);
+      assertEquals(workbookRepository.getNrRows(), streamingRepository.getNrRows());
+    }
+  }
+
+  @Test
+  void testGetRepositoryCaseInsensitive() throws IOException, URISyntaxException {
+    ExcelRepositoryCollection collection = createCollection(getFile("/test.xlsx"));
+    assertNotNull(collection.getRepository("ATTRIBUTES"));
+  }
+
+  @Test
+  void testGetRepositoryNotExists() throws IOException, URISyntaxException {
+    ExcelRepositoryCollection collection = createCollection(getFile("/test.xlsx"));
+    assertNull(collection.getRepository("blaat"));
+  }
+
+  @Test
+  void testGetSheetNotExists() throws IOException, URISyntaxException {
+    ExcelRepositoryCollection collection = createCollection(getFile("/test.xlsx"));
+    assertThrows(IllegalArgumentException.class, () -> collection.getSheet(123));
+  }
+
+  @Test
+  void testDuplicateSheetHeader() throws IOException, URISyntaxException {
+    ExcelRepositoryCollection collection =
+        createCollection(getFile("/duplicate-sheet-header.xlsx"));
+    Repository<Entity> repository = collection.getSheet(0);
+    assertThrows(MolgenisDataException.class, repository::iterator);
+  }
+
+  @Test
+  void testGetNrRows() throws IOException, URISyntaxException {
+    ExcelRepositoryCollection collection = createCollection(getFile("/test.xlsx"));
+    ExcelSheet sheet = new XlsxStreamingWorkbook(getFile("/test.xlsx")).getSheetAt(0);
+    List<Integer> rowNums = new ArrayList<>();
+    sheet.iterator().forEachRemaining(row -> rowNums.add(row.getRowNum()));
+    assertTrue(rowNums.size() > 1);
+    assertEquals(collection.getSheet(0).getNrRows(), rowNums.get(rowNums.size() - 1) + 1);
+  }
+
+  @Test
+  void testIteratorsAreIndependent() throws IOException, URISyntaxException {
+    ExcelSheet sheet = new XlsxStreamingWorkbook(getFile("/test.xlsx")).getSheetAt(0);
+    CloseableIterator<ExcelRow> it = sheet.iterator();
+    CloseableIterator<ExcelRow> otherIt = sheet.iterator();
+    try {
+      while (it.hasNext()) {
+        assertTrue(otherIt.hasNext());
+        assertEquals(it.next().getRowNum(), otherIt.next().getRowNum());
+      }
+      assertFalse(otherIt.hasNext());
+    } finally {
+      it.close();
+      otherIt.close();
+    }
+  }
+
+  @Test
+  void testFileClosed() throws IOException, URISyntaxException {
+    Path fileDescriptors = Paths.get("/proc/self/fd");
+    assumeTrue(Files.isDirectory(fileDescriptors));
+    File file = getFile("/test.xlsx");
+    ExcelRepositoryCollection collection = createCollection(file);
+    for (String entityTypeId : collection.getEntityTypeIds()) {
+      ExcelRepository repository = (ExcelRepository) collection.getRepository(entityTypeId);
+      repository.forEach(entity -> {});
+      repository.getNrRows();
+    }
+    assertFalse(isOpen(fileDescriptors, file.toPath()));
+  }
+
+  @Test
+  void testToColumnIndex() {
+    assertEquals(0, XlsxRowIterator.toColumnIndex("A1"));
+    assertEquals(25, XlsxRowIterator.toColumnIndex("Z12"));
+    assertEquals(26, XlsxRowIterator.toColumnIndex("AA3"));
+    assertEquals(27, XlsxRowIterator.toColumnIndex("AB100"));
+  }
+
+  private ExcelRepositoryCollection createCollection(File file) throws IOException {
+    ExcelRepositoryCollection collection = new ExcelRepositoryCollection(file);
+    collection.setEntityTypeFactory(entityTypeFactory);
+    collection.setAttributeFactory(attributeFactory);
+    return collection;
+  }
+
+  private static boolean isOpen(Path fileDescriptors, Path file) throws IOException {
+    try (Stream<Path> links = Files.list(fileDescriptors)) {
+      return links.anyMatch(
+          link -> {
+            try {
+              return Files.readSymbolicLink(link).equals(file);
+            } catch (IOException e) {
+              // the file descriptor was closed while listing
+              return false;
+            }
+          });
+    }
+  }
+
+  private File getFile(String name) throws URISyntaxException {
+    return new File(getClass().getResource(name).toURI());
+  }
+
+  private static List<Map<String, Object>> toValues(ExcelRepository repository) {
+    List<Map<String, Object>> values = new ArrayList<>();
+    for (Entity entity : repository) {
+      Map<String, Object> entityValues = new LinkedHashMap<>();
+      entity.getAttributeNames().forEach(name -> entityValues.put(name, entity.get(name)));
+      values.add(entityValues);
+    }
+    return values;
+  }
+}
@@ -1,5 +1,6 @@
 package org.molgenis.data.index;
 
+import java.util.Collection;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.security.core.runas.RunAsSystem;
 
@@ -22,6 +23,13 @@ public interface IndexActionRegisterService {
    */
   void register(EntityType entityType, Object entityId);
 
+  /**
+   * Log and create locks for an add/update/delete operation on a batch of entities of a Repository
+   *
+   * @param entityIds the IDs of the entities
+   */
+  void registerAll(EntityType entityType, Collection<Object> entityIds);
+
   /**
    * Stores the index actions in the repository. Creates a ReindexActionJob to group them by.
    * storeIndexActions uses a set as optimization to remove the double index actions before the
@@ -1,14 +1,15 @@
 package org.molgenis.data.index;
 
 import static com.google.common.collect.Lists.newArrayList;
-import static com.google.common.collect.Multimaps.synchronizedSetMultimap;
 import static com.google.common.collect.Streams.mapWithIndex;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
 import static org.molgenis.data.index.Impact.createSingleEntityImpact;
+import static org.molgenis.data.index.Impact.createWholeRepositoryImpact;
 import static org.molgenis.data.index.IndexDependencyModel.ENTITY_TYPE_FETCH;
 import static org.molgenis.data.index.meta.IndexActionGroupMetadata.INDEX_ACTION_GROUP;
 import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
@@ -18,12 +19,12 @@ import static org.molgenis.data.meta.model.AttributeMetadata.REF_ENTITY_TYPE;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
 import static org.molgenis.data.transaction.TransactionConstants.TRANSACTION_ID_RESOURCE_NAME;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Stream;
 import org.molgenis.data.DataService;
 import org.molgenis.data.EntityKey;
@@ -45,6 +46,9 @@ import org.springframework.transaction.support.TransactionSynchronizationManager
 /**
  * Registers changes made to an indexed repository that need to be fixed by indexing the relevant
  * data.
+ *
+ * <p>The changes of each transaction are kept in their own concurrent set, so registering changes
+ * in one transaction does not contend with registering changes in other transactions.
  */
 @Component
 public class IndexActionRegisterServiceImpl
@@ -53,8 +57,8 @@ public class IndexActionRegisterServiceImpl
   private static final int LOG_EVERY = 1000;
   private static final int ENTITY_FETCH_PAGE_SIZE = 1000;
 
-  private final SetMultimap<String, Impact> changesPerTransaction =
-      synchronizedSetMultimap(HashMultimap.create());
+  private final ConcurrentMap<String, TransactionChanges> changesPerTransaction =
+      new ConcurrentHashMap<>();
 
   private final DataService dataService;
   private final IndexActionFactory indexActionFactory;
@@ -84,22 +88,18 @@ public class IndexActionRegisterServiceImpl
 
   @Transactional
   @Override
-  public synchronized void register(EntityType entityType, Object entityId) {
-    String transactionId =
-        (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
+  public void register(EntityType entityType, Object entityId) {
+    String transactionId = getTransactionId();
     if (transactionId != null) {
-      Impact impact = createSingleEntityImpact(entityType.getId(), entityId);
+      Impact impact =
+          entityId != null
+              ? createSingleEntityImpact(entityType.getId(), entityId)
+              : createWholeRepositoryImpact(entityType.getId());
       LOG.debug("register({})", impact);
 
-      final boolean newlyRegistered = changesPerTransaction.put(transactionId, impact);
-      if (newlyRegistered && LOG.isWarnEnabled()) {
-        final int size = changesPerTransaction.get(transactionId).size();
-        if (size >= LOG_EVERY && size % LOG_EVERY == 0) {
-          LOG.warn(
-              "Transaction {} has caused {} IndexActions to be created. Consider streaming your data manipulations.",
-              transactionId,
-              size);
-        }
+      TransactionChanges changes = getOrCreateChanges(transactionId);
+      if (changes.add(impact)) {
+        warnIfLarge(transactionId, changes.size(), 1);
       }
     } else {
       LOG.error(
@@ -109,6 +109,49 @@ public class IndexActionRegisterServiceImpl
     }
   }
 
+  @Transactional
+  @Override
+  public void registerAll(EntityType entityType, Collection<Object> entityIds) {
+    if (entityIds.isEmpty()) {
+      return;
+    }
+    String transactionId = getTransactionId();
+    if (transactionId != null) {
+      String entityTypeId = entityType.getId();
+      LOG.debug("registerAll(entityTypeId={}, nrEntityIds={})", entityTypeId, entityIds.size());
+
+      TransactionChanges changes = getOrCreateChanges(transactionId);
+      int nrAdded = 0;
+      for (Object entityId : entityIds) {
+        if (changes.add(createSingleEntityImpact(entityTypeId, entityId))) {
+          nrAdded++;
+        }
+      }
+      if (nrAdded > 0) {
+        warnIfLarge(transactionId, changes.size(), nrAdded);
+      }
+    } else {
+      LOG.error(
+          "Transaction id is unknown, register of entityFullName [{}], {} entity ids",
+          entityType.getId(),
+          entityIds.size());
+    }
+  }
+
+  private TransactionChanges getOrCreateChanges(String transactionId) {
+    return changesPerTransaction.computeIfAbsent(transactionId, id -> new TransactionChanges());
+  }
+
+  /** Logs a warning each time the number of changes passes a multiple of LOG_EVERY */
+  private static void warnIfLarge(String transactionId, int size, int nrAdded) {
+    if (LOG.isWarnEnabled() && size >= LOG_EVERY && size % LOG_EVERY < nrAdded) {
+      LOG.warn(
+          "Transaction {} has caused {} IndexActions to be created. Consider streaming your data manipulations.",
+          transactionId,
+          size - size % LOG_EVERY);
+    }
+  }
+
   @Override
   @RunAsSystem
   public void storeIndexActions(String transactionId) {
@@ -188,25 +231,36 @@ public class IndexActionRegisterServiceImpl
   @Override
   public boolean forgetIndexActions(String transactionId) {
     LOG.debug("Forget index actions for transaction {}", transactionId);
-    return !changesPerTransaction.removeAll(transactionId).stream()
-        .map(Impact::getEntityTypeId)
-        .allMatch(excludedEntities::contains);
+    if (transactionId == null) {
+      return false;
+    }
+    TransactionChanges changes = changesPerTransaction.remove(transactionId);
+    return changes != null
+        && !changes.getImpacts().stream()
+            .map(Impact::getEntityTypeId)
+            .allMatch(excludedEntities::contains);
   }
 
   private Set<Impact> getChangesForCurrentTransaction() {
-    String transactionId =
-        (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
-    return Optional.of(changesPerTransaction.get(transactionId)).orElse(emptySet());
+    String transactionId = getTransactionId();
+    TransactionChanges changes =
+        transactionId != null ? changesPerTransaction.get(transactionId) : null;
+    return changes != null ? changes.getImpacts() : emptySet();
+  }
+
+  private static String getTransactionId() {
+    return (String) TransactionSynchronizationManager.getResource(TRANSACTION_ID_RESOURCE_NAME);
   }
 
   /* TransactionInformation implementation */
 
   @Override
   public boolean isEntityDirty(EntityKey entityKey) {
-    return getChangesForCurrentTransaction().stream()
-        .filter(Impact::isSingleEntity)
-        .map(Impact::toEntityKey)
-        .anyMatch(entityKey::equals);
+    Set<Impact> changes = getChangesForCurrentTransaction();
+    // single entity impacts are dropped once the whole repository is dirty
+    return changes.contains(
+            createSingleEntityImpact(entityKey.getEntityTypeId(), entityKey.getId()))
+        || changes.contains(createWholeRepositoryImpact(entityKey.getEntityTypeId()));
   }
 
   @Override
@@ -242,4 +296,36 @@ public class IndexActionRegisterServiceImpl
   public Set<String> getDirtyRepositories() {
     return getChangesForCurrentTransaction().stream().map(Impact::getEntityTypeId).collect(toSet());
   }
+
+  /**
+   * Changes registered in one transaction. Single entity impacts of a repository are dropped as
+   * soon as the whole repository is impacted, because they no longer add anything to the index
+   * actions that will be created.
+   */
+  private static class TransactionChanges {
+    private final Set<Impact> impacts = ConcurrentHashMap.newKeySet();
+
+    /** @return whether the changes grew because of the impact */
+    boolean add(Impact impact) {
+      String entityTypeId = impact.getEntityTypeId();
+      if (impact.isWholeRepository()) {
+        if (!impacts.add(impact)) {
+          return false;
+        }
+        impacts.removeIf(
+            other -> other.isSingleEntity() && other.getEntityTypeId().equals(entityTypeId));
+        return true;
+      } else {
+        return !impacts.contains(createWholeRepositoryImpact(entityTypeId)) && impacts.add(impact);
+      }
+    }
+
+    int size() {
+      return impacts.size();
+    }
+
+    Set<Impact> getImpacts() {
+      return unmodifiableSet(impacts);
+    }
+  }
 }
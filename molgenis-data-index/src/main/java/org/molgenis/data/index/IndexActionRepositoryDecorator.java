@@ -1,8 +1,11 @@
 package org.molgenis.data.index;
 
+import static com.google.common.collect.Streams.stream;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.molgenis.data.AbstractRepositoryDecorator;
@@ -129,12 +132,11 @@ public class IndexActionRepositoryDecorator extends AbstractRepositoryDecorator<
         .forEach(
             mappedByAttr -> {
               EntityType mappedByAttrRefEntity = mappedByAttr.getRefEntity();
-              entity
-                  .getEntities(mappedByAttr.getName())
-                  .forEach(
-                      refEntity ->
-                          indexActionRegisterService.register(
-                              mappedByAttrRefEntity, refEntity.getIdValue()));
+              List<Object> refEntityIds =
+                  stream(entity.getEntities(mappedByAttr.getName()))
+                      .map(Entity::getIdValue)
+                      .collect(toList());
+              indexActionRegisterService.registerAll(mappedByAttrRefEntity, refEntityIds);
             });
 
     getEntityType()
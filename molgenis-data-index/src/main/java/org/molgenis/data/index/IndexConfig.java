@@ -3,7 +3,11 @@ package org.molgenis.data.index;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.index.job.IndexJobExecutionMetadata.INDEX_JOB_EXECUTION;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import org.molgenis.data.DataService;
 import org.molgenis.data.index.job.IndexJobExecution;
 import org.molgenis.data.index.job.IndexJobExecutionFactory;
@@ -24,9 +28,12 @@ import org.molgenis.jobs.JobExecutor;
 import org.molgenis.jobs.JobFactory;
 import org.molgenis.jobs.model.JobExecutionMetaData;
 import org.molgenis.jobs.model.JobPackage;
+import org.molgenis.util.ExecutorServiceUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
+import org.springframework.security.concurrent.DelegatingSecurityContextExecutorService;
 
 // TODO: These imported classes should be in separate config and this is the IndexJobConfig
 @Import({
@@ -52,6 +59,12 @@ public class IndexConfig {
   private final EntityTypeFactory entityTypeFactory;
   private final JobExecutor jobExecutor;
 
+  /** Number of threads that perform the index actions of an index job in parallel */
+  @Value("${index.job.workers:#{T(java.lang.Runtime).getRuntime().availableProcessors()}}")
+  private int indexJobWorkers;
+
+  private ExecutorService indexActionExecutorService;
+
   public IndexConfig(
       IndexActionRegisterService indexActionRegisterService,
       TransactionManager transactionManager,
@@ -74,6 +87,13 @@ public class IndexConfig {
     indexActionRegisterService.addExcludedEntity(INDEX_JOB_EXECUTION);
   }
 
+  @PreDestroy
+  void preDestroy() {
+    if (indexActionExecutorService != null) {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(indexActionExecutorService);
+    }
+  }
+
   @Bean
   public IndexTransactionListener indexTransactionListener() {
     final IndexTransactionListener indexTransactionListener =
@@ -89,7 +109,19 @@ public class IndexConfig {
 
   @Bean
   public IndexJobService indexJobService() {
-    return new IndexJobService(dataService, indexService, entityTypeFactory);
+    return new IndexJobService(
+        dataService, indexService, entityTypeFactory, indexActionExecutorService());
+  }
+
+  private synchronized ExecutorService indexActionExecutorService() {
+    if (indexActionExecutorService == null) {
+      indexActionExecutorService =
+          new DelegatingSecurityContextExecutorService(
+              Executors.newFixedThreadPool(
+                  indexJobWorkers,
+                  new ThreadFactoryBuilder().setNameFormat("molgenis-index-%d").build()));
+    }
+    return indexActionExecutorService;
   }
 
   @Bean
@@ -2,7 +2,9 @@ package org.molgenis.data.index;
 
 import static com.google.common.collect.Maps.uniqueIndex;
 import static com.google.common.collect.Streams.stream;
-import static java.util.Collections.emptySet;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toSet;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ATTRIBUTES;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.EXTENDS;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.ID;
@@ -10,6 +12,8 @@ import static org.molgenis.data.meta.model.EntityTypeMetadata.INDEXING_DEPTH;
 import static org.molgenis.data.meta.model.EntityTypeMetadata.IS_ABSTRACT;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -54,22 +58,52 @@ class IndexDependencyModel {
   }
 
   private Set<String> getReferencingEntities(String entityTypeId) {
-    ImmutableSet.Builder<String> result = ImmutableSet.builder();
+    return getReferencingAttributes(entityTypeId).keySet();
+  }
+
+  /**
+   * Returns the non-abstract entity types that reference an entity type, with for each of them the
+   * names of the attributes that hold the references.
+   *
+   * @param entityTypeId the ID of the referenced entity type
+   * @return map of referencing entity type ID to referencing attribute names
+   */
+  Map<String, Set<String>> getReferencingAttributes(String entityTypeId) {
     EntityType entityType = entityTypes.get(entityTypeId);
     if (entityType == null) {
-      return emptySet();
+      return emptyMap();
     }
+    Map<String, Set<String>> result = new LinkedHashMap<>();
     for (Map.Entry<String, EntityType> candidate : entityTypes.entrySet()) {
-      EntityType candidateEntityType = candidate.getValue();
-      if (hasAttributeThatReferences(candidateEntityType, entityTypeId)) {
-        if (candidateEntityType.isAbstract()) {
-          result.addAll(getDescendants(candidate.getKey()));
-        } else {
-          result.add(candidate.getKey());
-        }
+      Set<String> attributeNames =
+          getAttributesThatReference(candidate.getValue(), entityTypeId).collect(toSet());
+      if (!attributeNames.isEmpty()) {
+        // descendants inherit the referencing attributes of an abstract entity type
+        Set<String> referencingEntityTypeIds =
+            candidate.getValue().isAbstract()
+                ? getDescendants(candidate.getKey())
+                : singleton(candidate.getKey());
+        referencingEntityTypeIds.forEach(
+            referencingEntityTypeId ->
+                result
+                    .computeIfAbsent(referencingEntityTypeId, id -> new LinkedHashSet<>())
+                    .addAll(attributeNames));
       }
     }
-    return result.build();
+    return result;
+  }
+
+  /**
+   * Returns the indexing depth of an entity type: how deep references are resolved in the documents
+   * of the entity type.
+   */
+  int getIndexingDepth(String entityTypeId) {
+    return entityTypes.get(entityTypeId).getIndexingDepth();
+  }
+
+  /** Returns the maximum indexing depth of all entity types. */
+  int getMaxIndexingDepth() {
+    return entityTypes.values().stream().mapToInt(EntityType::getIndexingDepth).max().orElse(0);
   }
 
   private Set<String> getDescendants(String entityTypeId) {
@@ -94,26 +128,23 @@ class IndexDependencyModel {
   }
 
   /**
-   * Determines if an entityType has an attribute that references another entity
+   * Returns the attributes of an entityType that reference another entity
    *
    * @param candidate the EntityType that is examined
    * @param entityTypeId the ID of the entity that may be referenced
-   * @return indication if candidate references entityTypeID
+   * @return names of the attributes of candidate that reference entityTypeID
    */
-  private boolean hasAttributeThatReferences(EntityType candidate, String entityTypeId) {
+  private Stream<String> getAttributesThatReference(EntityType candidate, String entityTypeId) {
     Iterable<Attribute> attributes = candidate.getOwnAtomicAttributes();
     return stream(attributes)
         .filter(Attribute::hasRefEntity)
-        .map(attribute -> attribute.getRefEntity().getId())
-        .anyMatch(entityTypeId::equals);
+        .filter(attribute -> entityTypeId.equals(attribute.getRefEntity().getId()))
+        .map(Attribute::getName);
   }
 
   Stream<String> getEntityTypesDependentOn(String entityTypeId) {
     return genericDependencyResolver
-        .getAllDependants(
-            entityTypeId,
-            id -> entityTypes.get(id).getIndexingDepth(),
-            this::getReferencingEntities)
+        .getAllDependants(entityTypeId, this::getIndexingDepth, this::getReferencingEntities)
         .stream();
   }
 }
@@ -1,24 +1,39 @@
 package org.molgenis.data.index;
 
+import static com.google.common.collect.Iterators.partition;
+import static com.google.common.collect.Streams.stream;
 import static java.lang.String.format;
 import static java.util.Collections.unmodifiableSet;
 import static java.util.Objects.requireNonNull;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryUtils.containsAnyOperator;
 import static org.molgenis.data.QueryUtils.containsComputedAttribute;
 import static org.molgenis.data.QueryUtils.containsNestedQueryRuleField;
+import static org.molgenis.data.QueryUtils.containsOperator;
 import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
+import static org.molgenis.data.meta.AttributeType.COMPOUND;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.molgenis.data.AbstractRepositoryDecorator;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
@@ -26,6 +41,10 @@ import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.index.exception.UnknownIndexException;
 import org.molgenis.data.index.job.IndexJobScheduler;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.TransactionInformation;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -37,9 +56,14 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
   private static final Logger LOG = LoggerFactory.getLogger(IndexedRepositoryDecorator.class);
   private static final String INDEX_REPOSITORY = "Index Repository";
   private static final String DECORATED_REPOSITORY = "Decorated Repository";
+  private static final String INDEX_AND_DECORATED_REPOSITORY =
+      "Index Repository and Decorated Repository";
+  private static final String INDEX_SOURCE = "Index Source";
+  private static final int PERMITTED_BATCH_SIZE = 1000;
 
   private final SearchService searchService;
   private final IndexJobScheduler indexJobScheduler;
+  private final TransactionInformation transactionInformation;
 
   /** Operators NOT supported by the decorated repository. */
   private Set<Operator> unsupportedOperators;
@@ -47,10 +71,12 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
   IndexedRepositoryDecorator(
       Repository<Entity> delegateRepository,
       SearchService searchService,
-      IndexJobScheduler indexJobScheduler) {
+      IndexJobScheduler indexJobScheduler,
+      TransactionInformation transactionInformation) {
     super(delegateRepository);
     this.searchService = requireNonNull(searchService);
     this.indexJobScheduler = requireNonNull(indexJobScheduler);
+    this.transactionInformation = requireNonNull(transactionInformation);
     Set<Operator> operators = getQueryOperators();
     operators.removeAll(delegate().getQueryOperators());
     unsupportedOperators = Collections.unmodifiableSet(operators);
@@ -65,6 +91,13 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
           getEntityType().getId(),
           DECORATED_REPOSITORY);
       return delegate().findOne(q);
+    } else if (containsOperator(q, PERMITTED)) {
+      LOG.debug(
+          "public Entity findOne({}) entityTypeId: [{}] repository: [{}]",
+          q,
+          getEntityType().getId(),
+          INDEX_AND_DECORATED_REPOSITORY);
+      return findAllPermitted(q).findFirst().orElse(null);
     } else {
       LOG.debug(
           "public Entity findOne({}) entityTypeId: [{}] repository: [{}]",
@@ -85,6 +118,20 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
           getEntityType().getId(),
           DECORATED_REPOSITORY);
       return delegate().findAll(q);
+    } else if (containsOperator(q, PERMITTED)) {
+      LOG.debug(
+          "public Entity findAll({}) entityTypeId: [{}] repository: [{}]",
+          q,
+          getEntityType().getId(),
+          INDEX_AND_DECORATED_REPOSITORY);
+      return findAllPermitted(q);
+    } else if (isIndexSourced(q)) {
+      LOG.debug(
+          "public Entity findAll({}) entityTypeId: [{}] repository: [{}]",
+          q,
+          getEntityType().getId(),
+          INDEX_SOURCE);
+      return tryTwice(() -> searchService.searchEntities(getEntityType(), q));
     } else {
       LOG.debug(
           "public Entity findAll({}) entityTypeId: [{}] repository: [{}]",
@@ -110,9 +157,17 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
     return unmodifiableSet(capabilities);
   }
 
+  /**
+   * Returns all operators supported by the index and the {@link Operator#PERMITTED} operator if it
+   * is supported by the underlying repository.
+   */
   @Override
   public Set<Operator> getQueryOperators() {
-    return EnumSet.allOf(Operator.class);
+    Set<Operator> operators = EnumSet.allOf(Operator.class);
+    if (!delegate().getQueryOperators().contains(PERMITTED)) {
+      operators.remove(PERMITTED);
+    }
+    return operators;
   }
 
   @Override
@@ -126,6 +181,13 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
           getEntityType().getId(),
           DECORATED_REPOSITORY);
       return delegate().count(q);
+    } else if (containsOperator(q, PERMITTED)) {
+      LOG.debug(
+          "public long count({}) entityTypeId: [{}] repository: [{}]",
+          q,
+          getEntityType().getId(),
+          INDEX_AND_DECORATED_REPOSITORY);
+      return countPermitted(q);
     } else {
       LOG.debug(
           "public long count({}) entityTypeId: [{}] repository: [{}]",
@@ -138,13 +200,143 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
 
   @Override
   public AggregateResult aggregate(AggregateQuery aggregateQuery) {
-    return tryTwice(() -> searchService.aggregate(getEntityType(), aggregateQuery));
+    if (aggregateSupported(aggregateQuery)) {
+      LOG.debug(
+          "public AggregateResult aggregate({}) entityTypeId: [{}] repository: [{}]",
+          aggregateQuery,
+          getEntityType().getId(),
+          DECORATED_REPOSITORY);
+      return delegate().aggregate(aggregateQuery);
+    } else {
+      LOG.debug(
+          "public AggregateResult aggregate({}) entityTypeId: [{}] repository: [{}]",
+          aggregateQuery,
+          getEntityType().getId(),
+          INDEX_REPOSITORY);
+      return tryTwice(() -> searchService.aggregate(getEntityType(), aggregateQuery));
+    }
+  }
+
+  /**
+   * Finds entities for a query with top-level {@link Operator#PERMITTED} rules that requires the
+   * index. The index does not contain access control lists, so the index is queried without these
+   * rules and the decorated repository applies them to batches of the found identifiers.
+   */
+  private Stream<Entity> findAllPermitted(Query<Entity> q) {
+    List<QueryRule> permittedRules = new ArrayList<>();
+    QueryImpl<Entity> indexQuery =
+        new QueryImpl<>(removePermittedRules(q.getRules(), permittedRules));
+    indexQuery.setSort(q.getSort());
+
+    Stream<Object> entityIds = tryTwice(() -> searchService.search(getEntityType(), indexQuery));
+    Stream<Entity> entities =
+        stream(partition(entityIds.iterator(), PERMITTED_BATCH_SIZE))
+            .flatMap(batch -> findAllPermitted(batch, permittedRules, q.getFetch()));
+    if (q.getOffset() > 0) {
+      entities = entities.skip(q.getOffset());
+    }
+    if (q.getPageSize() > 0) {
+      entities = entities.limit(q.getPageSize());
+    }
+    return entities;
+  }
+
+  private Stream<Entity> findAllPermitted(
+      List<Object> entityIds, List<QueryRule> permittedRules, Fetch fetch) {
+    QueryImpl<Entity> query = createPermittedQuery(entityIds, permittedRules);
+    query.setFetch(fetch);
+
+    // retain the index order
+    Map<Object, Entity> entityMap =
+        delegate().findAll(query).collect(toMap(Entity::getIdValue, identity()));
+    return entityIds.stream().map(entityMap::get).filter(Objects::nonNull);
+  }
+
+  /**
+   * Counts entities for a query with top-level {@link Operator#PERMITTED} rules that requires the
+   * index. Like {@link #findAllPermitted(Query)}, but the decorated repository counts the permitted
+   * entities of each batch of found identifiers instead of returning them.
+   */
+  private long countPermitted(Query<Entity> q) {
+    List<QueryRule> permittedRules = new ArrayList<>();
+    Query<Entity> indexQuery = new QueryImpl<>(removePermittedRules(q.getRules(), permittedRules));
+
+    Stream<Object> entityIds = tryTwice(() -> searchService.search(getEntityType(), indexQuery));
+    return stream(partition(entityIds.iterator(), PERMITTED_BATCH_SIZE))
+        .mapToLong(batch -> delegate().count(createPermittedQuery(batch, permittedRules)))
+        .sum();
+  }
+
+  private QueryImpl<Entity> createPermittedQuery(
+      List<Object> entityIds, List<QueryRule> permittedRules) {
+    QueryImpl<Entity> query = new QueryImpl<>();
+    query.in(getEntityType().getIdAttribute().getName(), entityIds);
+    permittedRules.forEach(
+        permittedRule -> {
+          query.and();
+          query.addRule(permittedRule);
+        });
+    return query;
+  }
+
+  /**
+   * Checks if the entities for a query that requires the index can be created from the index
+   * documents instead of being read from the decorated repository. This is the case if the index
+   * stores document sources, the fetch only contains attributes whose values are stored as is and
+   * the index is up-to-date: the current transaction did not change the repository and no index
+   * actions are outstanding.
+   */
+  private boolean isIndexSourced(Query<Entity> q) {
+    EntityType entityType = getEntityType();
+    return searchService.isEntitySearchEnabled()
+        && isShallowFetch(q.getFetch(), entityType)
+        && transactionInformation.isRepositoryCompletelyClean(entityType)
+        && indexJobScheduler.isIndexStableIncludingReferences(entityType);
+  }
+
+  private static boolean isShallowFetch(Fetch fetch, EntityType entityType) {
+    if (fetch == null) {
+      return false;
+    }
+    for (String attributeName : fetch.getFields()) {
+      Attribute attribute = entityType.getAttribute(attributeName);
+      if (attribute == null
+          || isReferenceType(attribute)
+          || attribute.getDataType() == COMPOUND
+          || attribute.hasExpression()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the query rules without the top-level {@link Operator#PERMITTED} rules and the {@link
+   * Operator#AND} rules that combine them with other rules.
+   */
+  private static List<QueryRule> removePermittedRules(
+      List<QueryRule> rules, List<QueryRule> permittedRules) {
+    List<QueryRule> otherRules = new ArrayList<>(rules.size());
+    for (QueryRule rule : rules) {
+      Operator operator = rule.getOperator();
+      if (operator == PERMITTED) {
+        permittedRules.add(rule);
+        if (!otherRules.isEmpty() && otherRules.get(otherRules.size() - 1).getOperator() == AND) {
+          otherRules.remove(otherRules.size() - 1);
+        }
+      } else if (operator != AND || !otherRules.isEmpty()) {
+        otherRules.add(rule);
+      }
+    }
+    return otherRules;
   }
 
   /**
    * Executes an action on an index that may be unstable.
    *
-   * <p>If the Index was unknown, waits for the index to be stable and then tries again.
+   * <p>If the Index was unknown, waits for the index to be stable and then tries again. Search
+   * results are streamed in batches: only the retrieval of the first batch is retried, later
+   * batches are retrieved while the stream is consumed.
    *
    * @param action the action that gets executed
    * @param <R> the result type of the action
@@ -179,6 +371,32 @@ class IndexedRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
         && !containsNestedQueryRuleField(q);
   }
 
+  /**
+   * Checks if the underlying repository should handle this aggregate query. This is the case if it
+   * is able to aggregate the query and either the query is simple, so that it performs well, or the
+   * index is being updated, so that the index would have to be waited for.
+   */
+  private boolean aggregateSupported(AggregateQuery aggregateQuery) {
+    if (!delegate().getCapabilities().contains(AGGREGATEABLE)
+        || Stream.of(
+                aggregateQuery.getAttributeX(),
+                aggregateQuery.getAttributeY(),
+                aggregateQuery.getAttributeDistinct())
+            .filter(Objects::nonNull)
+            .anyMatch(Attribute::hasExpression)) {
+      return false;
+    }
+
+    Query<Entity> q = aggregateQuery.getQuery();
+    if (q == null || q.getRules().isEmpty()) {
+      return true;
+    }
+    EntityType entityType = getEntityType();
+    return querySupported(q)
+        && (!transactionInformation.isRepositoryCompletelyClean(entityType)
+            || !indexJobScheduler.isIndexStableIncludingReferences(entityType));
+  }
+
   private void waitForIndexToBeStable() {
     try {
       indexJobScheduler.waitForIndexToBeStableIncludingReferences(getEntityType());
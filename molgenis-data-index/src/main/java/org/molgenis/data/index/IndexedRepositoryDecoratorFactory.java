@@ -5,20 +5,26 @@ import static java.util.Objects.requireNonNull;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Repository;
 import org.molgenis.data.index.job.IndexJobScheduler;
+import org.molgenis.data.transaction.TransactionInformation;
 import org.springframework.stereotype.Component;
 
 @Component
 public class IndexedRepositoryDecoratorFactory {
   private final SearchService searchService;
   private final IndexJobScheduler indexJobScheduler;
+  private final TransactionInformation transactionInformation;
 
   IndexedRepositoryDecoratorFactory(
-      SearchService searchService, IndexJobScheduler indexJobScheduler) {
+      SearchService searchService,
+      IndexJobScheduler indexJobScheduler,
+      TransactionInformation transactionInformation) {
     this.searchService = requireNonNull(searchService);
     this.indexJobScheduler = requireNonNull(indexJobScheduler);
+    this.transactionInformation = requireNonNull(transactionInformation);
   }
 
   public IndexedRepositoryDecorator create(Repository<Entity> delegateRepository) {
-    return new IndexedRepositoryDecorator(delegateRepository, searchService, indexJobScheduler);
+    return new IndexedRepositoryDecorator(
+        delegateRepository, searchService, indexJobScheduler, transactionInformation);
   }
 }
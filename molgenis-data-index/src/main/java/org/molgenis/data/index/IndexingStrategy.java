@@ -2,21 +2,58 @@ package org.molgenis.data.index;
 
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Sets.union;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.partitioningBy;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
+import org.molgenis.data.Query;
+import org.molgenis.data.support.QueryImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-/** Determines the impact of changes. */
+/**
+ * Determines the impact of changes.
+ *
+ * <p>Changes to specific entities only impact the entities that reference them. These dependent
+ * entities are looked up, unless there are more than a configurable maximum, in which case the
+ * impact falls back to the whole repositories of the dependent entity types.
+ */
 @Component
 public class IndexingStrategy {
   private static final Logger LOG = LoggerFactory.getLogger(IndexingStrategy.class);
+  private static final int ENTITY_ID_BATCH_SIZE = 1000;
+
+  private final DataService dataService;
+  private final int maxDependentEntities;
+
+  /**
+   * @param maxDependentEntities maximum number of dependent entities to look up for the changed
+   *     entities of one entity type, 0 to always reindex dependent entity types as a whole
+   */
+  IndexingStrategy(
+      DataService dataService,
+      @Value("${index.dependent.entities.max:10000}") int maxDependentEntities) {
+    this.dataService = requireNonNull(dataService);
+    this.maxDependentEntities = maxDependentEntities;
+  }
 
   /**
    * Determines which {@link Impact}s follow from a set of changes.
@@ -30,23 +67,152 @@ public class IndexingStrategy {
     Stopwatch sw = Stopwatch.createStarted();
     Map<Boolean, List<Impact>> split =
         changes.stream().collect(partitioningBy(Impact::isWholeRepository));
-    ImmutableSet<String> allEntityTypeIds =
-        changes.stream().map(Impact::getEntityTypeId).collect(toImmutableSet());
-    Set<String> dependentEntities =
-        allEntityTypeIds.stream()
-            .flatMap(dependencyModel::getEntityTypesDependentOn)
-            .collect(toImmutableSet());
-    Set<Impact> result = collectResult(split.get(false), split.get(true), dependentEntities);
+    Set<String> wholeRepoEntityTypeIds =
+        split.get(true).stream().map(Impact::getEntityTypeId).collect(toImmutableSet());
+    Map<String, Set<Object>> changedEntityIds =
+        split.get(false).stream()
+            .filter(impact -> !wholeRepoEntityTypeIds.contains(impact.getEntityTypeId()))
+            .collect(
+                groupingBy(
+                    Impact::getEntityTypeId, LinkedHashMap::new, mapping(Impact::getId, toSet())));
+
+    Set<String> dependentEntityTypeIds = new LinkedHashSet<>();
+    Set<Impact> dependentEntityChanges = new LinkedHashSet<>();
+    wholeRepoEntityTypeIds.forEach(
+        entityTypeId ->
+            dependencyModel
+                .getEntityTypesDependentOn(entityTypeId)
+                .forEach(dependentEntityTypeIds::add));
+    changedEntityIds.forEach(
+        (entityTypeId, entityIds) -> {
+          Set<Impact> dependentEntities =
+              maxDependentEntities > 0
+                  ? determineDependentEntities(entityTypeId, entityIds, dependencyModel)
+                  : null;
+          if (dependentEntities != null) {
+            dependentEntityChanges.addAll(dependentEntities);
+          } else {
+            dependencyModel
+                .getEntityTypesDependentOn(entityTypeId)
+                .forEach(dependentEntityTypeIds::add);
+          }
+        });
+
+    Set<Impact> result =
+        collectResult(
+            split.get(false), dependentEntityChanges, split.get(true), dependentEntityTypeIds);
     if (LOG.isDebugEnabled()) {
       LOG.debug("Determined {} necessary actions in {}", result.size(), sw);
     }
     return result;
   }
 
+  /**
+   * Looks up the entities that depend on the changed entities of an entity type, taking the
+   * indexing depth of the dependent entity types into account. Entities are visited once, at the
+   * shortest reference distance from the changed entities, so that an entity type that is reachable
+   * through multiple paths is searched for referrers of every entity on those paths.
+   *
+   * @return {@link Impact}s for the dependent entities or null if there are more than the maximum
+   *     number of dependent entities
+   */
+  private Set<Impact> determineDependentEntities(
+      String entityTypeId, Set<Object> entityIds, IndexDependencyModel dependencyModel) {
+    Set<Impact> result = new LinkedHashSet<>();
+    Map<String, Set<Object>> visited = new HashMap<>();
+    visited.put(entityTypeId, new HashSet<>(entityIds));
+    Map<String, Set<Object>> currentGeneration = Map.of(entityTypeId, entityIds);
+    int maxIndexingDepth = dependencyModel.getMaxIndexingDepth();
+    int nrDependentEntities = 0;
+    // entities found at a depth beyond the maximum indexing depth are never part of a document
+    for (int depth = 0; !currentGeneration.isEmpty() && depth < maxIndexingDepth; depth++) {
+      Map<String, Set<Object>> nextGeneration = new LinkedHashMap<>();
+      for (Map.Entry<String, Set<Object>> entry : currentGeneration.entrySet()) {
+        Map<String, Set<String>> referencingAttributes =
+            dependencyModel.getReferencingAttributes(entry.getKey());
+        for (Map.Entry<String, Set<String>> referencing : referencingAttributes.entrySet()) {
+          String referencingEntityTypeId = referencing.getKey();
+          Set<Object> referencingEntityIds =
+              findReferencingEntityIds(
+                  referencingEntityTypeId,
+                  referencing.getValue(),
+                  entry.getValue(),
+                  maxDependentEntities - nrDependentEntities);
+          if (referencingEntityIds == null) {
+            LOG.debug(
+                "More than {} entities depend on changed entities of '{}', falling back to whole repository impact",
+                maxDependentEntities,
+                entityTypeId);
+            return null;
+          }
+          Set<Object> visitedEntityIds =
+              visited.computeIfAbsent(referencingEntityTypeId, id -> new HashSet<>());
+          referencingEntityIds.removeAll(visitedEntityIds);
+          nrDependentEntities += referencingEntityIds.size();
+          if (!referencingEntityIds.isEmpty()) {
+            visitedEntityIds.addAll(referencingEntityIds);
+            nextGeneration
+                .computeIfAbsent(referencingEntityTypeId, id -> new HashSet<>())
+                .addAll(referencingEntityIds);
+          }
+        }
+      }
+
+      for (Map.Entry<String, Set<Object>> entry : nextGeneration.entrySet()) {
+        // only entity types that index references this deep contain the changed values
+        if (dependencyModel.getIndexingDepth(entry.getKey()) > depth) {
+          entry.getValue().stream()
+              .map(id -> Impact.createSingleEntityImpact(entry.getKey(), id))
+              .forEach(result::add);
+        }
+      }
+      currentGeneration = nextGeneration;
+    }
+    return result;
+  }
+
+  /**
+   * Finds the ids of the entities that reference one or more of the given entity ids. The lookup is
+   * cut off after maxEntityIds rows. Rows are counted before removing duplicate ids, so a cut off
+   * lookup is never mistaken for a complete one.
+   *
+   * @param maxEntityIds the number of rows after which to stop looking
+   * @return the referencing entity ids or null if the lookup was cut off
+   */
+  private Set<Object> findReferencingEntityIds(
+      String entityTypeId, Set<String> attributeNames, Set<Object> refEntityIds, int maxEntityIds) {
+    String idAttributeName = dataService.getEntityType(entityTypeId).getIdAttribute().getName();
+    Set<Object> entityIds = new LinkedHashSet<>();
+    int nrRows = 0;
+    for (List<Object> refEntityIdBatch : Iterables.partition(refEntityIds, ENTITY_ID_BATCH_SIZE)) {
+      Query<Entity> query = new QueryImpl<>();
+      attributeNames.forEach(
+          attributeName -> {
+            if (!query.getRules().isEmpty()) {
+              query.or();
+            }
+            query.in(attributeName, refEntityIdBatch);
+          });
+      query.fetch(new Fetch().field(idAttributeName));
+      int pageSize = maxEntityIds - nrRows + 1;
+      query.pageSize(pageSize);
+      List<Object> batchEntityIds =
+          dataService.findAll(entityTypeId, query).map(Entity::getIdValue).collect(toList());
+      if (batchEntityIds.size() == pageSize) {
+        return null;
+      }
+      nrRows += batchEntityIds.size();
+      entityIds.addAll(batchEntityIds);
+    }
+    return entityIds;
+  }
+
   /**
    * Combines the results.
    *
    * @param singleEntityChanges {@link Impact}s for changes made to specific Entity instances
+   * @param dependentEntityChanges {@link Impact}s for entities that are dependent on one or more of
+   *     the changes
    * @param wholeRepoActions {@link Impact}s for changes made to entire repositories
    * @param dependentEntityIds {@link Impact}s for entitytypes that are dependent on one or more of
    *     the changes
@@ -54,6 +220,7 @@ public class IndexingStrategy {
    */
   private Set<Impact> collectResult(
       List<Impact> singleEntityChanges,
+      Set<Impact> dependentEntityChanges,
       List<Impact> wholeRepoActions,
       Set<String> dependentEntityIds) {
     Set<String> wholeRepoIds =
@@ -67,6 +234,9 @@ public class IndexingStrategy {
     singleEntityChanges.stream()
         .filter(action -> !wholeRepoIds.contains(action.getEntityTypeId()))
         .forEach(result::add);
+    dependentEntityChanges.stream()
+        .filter(action -> !wholeRepoIds.contains(action.getEntityTypeId()))
+        .forEach(result::add);
     return result.build();
   }
 }
@@ -16,5 +16,21 @@ public interface SearchService {
 
   Stream<Object> search(EntityType entityType, Query<Entity> q);
 
+  /**
+   * Returns whether the index stores document sources so that {@link #searchEntities(EntityType,
+   * Query)} can create entities without reading them from the repository.
+   */
+  boolean isEntitySearchEnabled();
+
+  /**
+   * Searches the index and creates the entities from the document sources. The entities contain the
+   * values of the non-reference attributes in the query fetch as they were indexed, other attribute
+   * values are loaded from the repository on demand.
+   *
+   * @param q query with a fetch that only contains non-reference attributes
+   * @return entities created from the index documents
+   */
+  Stream<Entity> searchEntities(EntityType entityType, Query<Entity> q);
+
   AggregateResult aggregate(EntityType entityType, AggregateQuery aggregateQuery);
 }
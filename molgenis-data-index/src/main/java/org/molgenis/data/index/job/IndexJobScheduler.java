@@ -16,5 +16,11 @@ public interface IndexJobScheduler {
 
   void waitForIndexToBeStableIncludingReferences(EntityType entityType) throws InterruptedException;
 
+  /**
+   * Returns whether there are no outstanding index actions for the entity type and the entity types
+   * it references.
+   */
+  boolean isIndexStableIncludingReferences(EntityType entityType);
+
   void cleanupJobExecutions();
 }
@@ -36,7 +36,8 @@ public class IndexJobSchedulerImpl implements IndexJobScheduler {
 
   private final DataService dataService;
   private final IndexJobExecutionFactory indexJobExecutionFactory;
-  // the executor for the index jobs.
+  // the executor for the index jobs, jobs are executed one by one in transaction commit order.
+  // IndexJobService performs the actions of a job in parallel.
   private ExecutorService executorService = Executors.newSingleThreadExecutor();
   private final JobExecutor jobExecutor;
   private final IndexStatus indexStatus = new IndexStatus();
@@ -96,6 +97,11 @@ public class IndexJobSchedulerImpl implements IndexJobScheduler {
     indexStatus.waitForIndexToBeStableIncludingReferences(entityType);
   }
 
+  @Override
+  public boolean isIndexStableIncludingReferences(EntityType entityType) {
+    return indexStatus.isIndexStableIncludingReferences(entityType);
+  }
+
   /**
    * Cleans up successful IndexJobExecutions that finished longer than five minutes ago. delay for a
    * minute to allow the transaction manager to become available
@@ -2,16 +2,30 @@ package org.molgenis.data.index.job;
 
 import static java.text.MessageFormat.format;
 import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.index.meta.IndexActionGroupMetadata.INDEX_ACTION_GROUP;
 import static org.molgenis.data.index.meta.IndexActionMetadata.ACTION_ORDER;
 import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
 import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION_GROUP_ATTR;
+import static org.molgenis.data.util.EntityTypeUtils.createFetchForReindexing;
 import static org.molgenis.data.util.EntityUtils.getTypedValue;
 
 import io.micrometer.core.annotation.Timed;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.MolgenisDataException;
@@ -30,19 +44,35 @@ import org.molgenis.jobs.Progress;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-/** Executes the {@link IndexAction}s stored in an {@link IndexActionGroup}. */
+/**
+ * Executes the {@link IndexAction}s stored in an {@link IndexActionGroup}.
+ *
+ * <p>Index actions for different entity types are performed in parallel on the given executor,
+ * index actions for the same entity type are performed one by one in action order. Consecutive
+ * index actions for single entities of the same entity type are performed in bulk.
+ */
 public class IndexJobService {
   private static final Logger LOG = LoggerFactory.getLogger(IndexJobService.class);
+  private static final int ENTITY_BATCH_SIZE = 1000;
 
   private final DataService dataService;
   private final IndexService indexService;
   private final EntityTypeFactory entityTypeFactory;
+  private final ExecutorService executorService;
 
+  /**
+   * @param executorService executor that performs the index actions, must propagate the security
+   *     context of the submitting thread
+   */
   public IndexJobService(
-      DataService dataService, IndexService indexService, EntityTypeFactory entityTypeFactory) {
+      DataService dataService,
+      IndexService indexService,
+      EntityTypeFactory entityTypeFactory,
+      ExecutorService executorService) {
     this.dataService = requireNonNull(dataService);
     this.indexService = requireNonNull(indexService);
     this.entityTypeFactory = requireNonNull(entityTypeFactory);
+    this.executorService = requireNonNull(executorService);
   }
 
   @Timed(
@@ -75,16 +105,17 @@ public class IndexJobService {
             .findAll(INDEX_ACTION, createQueryGetAllIndexActions(transactionId), IndexAction.class)
             .collect(toList());
     try {
-      boolean success = true;
-      int count = 0;
-      for (IndexAction indexAction : indexActions) {
-        success &= performAction(progress, count++, indexAction);
-      }
+      updateIndexActionStatus(indexActions, IndexActionMetadata.IndexStatus.STARTED);
+      boolean success = performActions(progress, indexActions);
+      int count = indexActions.size();
       if (success) {
         progress.progress(count, "Executed all index actions, cleaning up the actions...");
         dataService.delete(INDEX_ACTION, indexActions.stream());
         dataService.deleteById(INDEX_ACTION_GROUP, transactionId);
         progress.progress(count, "Cleaned up the actions.");
+      } else {
+        // keep the actions, with their final status, for inspection
+        dataService.update(INDEX_ACTION, indexActions.stream());
       }
     } catch (Exception ex) {
       LOG.error("Error performing index actions", ex);
@@ -96,6 +127,104 @@ public class IndexJobService {
     }
   }
 
+  /**
+   * Performs the IndexActions in parallel. Each entity type has its own index, so only the actions
+   * for the same entity type depend on each other and are performed in action order. Dependencies
+   * between entity types were resolved when the actions were registered.
+   *
+   * @return boolean indicating success or failure of all actions
+   */
+  private boolean performActions(Progress progress, List<IndexAction> indexActions) {
+    Map<String, List<IndexAction>> indexActionsPerEntityType =
+        indexActions.stream()
+            .collect(groupingBy(IndexAction::getEntityTypeId, LinkedHashMap::new, toList()));
+
+    AtomicInteger progressCount = new AtomicInteger();
+    List<CompletableFuture<Boolean>> results =
+        indexActionsPerEntityType.values().stream()
+            .map(
+                entityTypeIndexActions ->
+                    supplyAsync(
+                        () -> performActions(progress, progressCount, entityTypeIndexActions),
+                        executorService))
+            .collect(toList());
+    try {
+      allOf(results.toArray(new CompletableFuture[0])).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+    return results.stream().allMatch(CompletableFuture::join);
+  }
+
+  /**
+   * Performs the IndexActions for one entity type in action order. Consecutive actions for single
+   * entities are performed in bulk.
+   */
+  private boolean performActions(
+      Progress progress, AtomicInteger progressCount, List<IndexAction> indexActions) {
+    String entityTypeId = indexActions.get(0).getEntityTypeId();
+    boolean bulk = dataService.hasEntityType(entityTypeId);
+    boolean success = true;
+    List<IndexAction> entityIndexActions = new ArrayList<>();
+    for (IndexAction indexAction : indexActions) {
+      if (bulk && indexAction.getEntityId() != null) {
+        entityIndexActions.add(indexAction);
+        if (entityIndexActions.size() == ENTITY_BATCH_SIZE) {
+          success &= performEntityActions(progress, progressCount, entityIndexActions);
+          entityIndexActions = new ArrayList<>();
+        }
+      } else {
+        if (!entityIndexActions.isEmpty()) {
+          success &= performEntityActions(progress, progressCount, entityIndexActions);
+          entityIndexActions = new ArrayList<>();
+        }
+        success &= performAction(progress, progressCount.getAndIncrement(), indexAction);
+      }
+    }
+    if (!entityIndexActions.isEmpty()) {
+      success &= performEntityActions(progress, progressCount, entityIndexActions);
+    }
+    return success;
+  }
+
+  /**
+   * Performs IndexActions for single entities of an existing entity type in bulk: the entities are
+   * retrieved with one query and indexed or deleted with one request. If the bulk fails, the
+   * actions are performed one by one so that only the failing actions are marked as failed.
+   *
+   * @return boolean indicating success or failure
+   */
+  private boolean performEntityActions(
+      Progress progress, AtomicInteger progressCount, List<IndexAction> indexActions) {
+    if (indexActions.size() == 1) {
+      return performAction(progress, progressCount.getAndIncrement(), indexActions.get(0));
+    }
+
+    int firstProgressCount = progressCount.getAndAdd(indexActions.size());
+    String entityTypeId = indexActions.get(0).getEntityTypeId();
+    try {
+      EntityType entityType = dataService.getEntityType(entityTypeId);
+      progress(
+          progress,
+          firstProgressCount,
+          format("Indexing {0} entities of {1}", indexActions.size(), entityType.getId()));
+      rebuildIndexEntities(entityType, indexActions);
+      indexActions.forEach(
+          indexAction -> indexAction.setIndexStatus(IndexActionMetadata.IndexStatus.FINISHED));
+      return true;
+    } catch (Exception ex) {
+      LOG.warn("Bulk index of {} failed, indexing entities one by one", entityTypeId, ex);
+      boolean success = true;
+      for (int i = 0; i < indexActions.size(); i++) {
+        success &= performAction(progress, firstProgressCount + i, indexActions.get(i));
+      }
+      return success;
+    }
+  }
+
   /**
    * Performs a single IndexAction
    *
@@ -107,53 +236,63 @@ public class IndexJobService {
   private boolean performAction(Progress progress, int progressCount, IndexAction indexAction) {
     requireNonNull(indexAction);
     String entityTypeId = indexAction.getEntityTypeId();
-    updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.STARTED);
     try {
       if (dataService.hasEntityType(entityTypeId)) {
         EntityType entityType = dataService.getEntityType(entityTypeId);
         if (indexAction.getEntityId() != null) {
-          progress.progress(
+          progress(
+              progress,
               progressCount,
               format("Indexing {0}.{1}", entityType.getId(), indexAction.getEntityId()));
           rebuildIndexOneEntity(entityTypeId, indexAction.getEntityId());
         } else {
-          progress.progress(progressCount, format("Indexing {0}", entityType.getId()));
+          progress(progress, progressCount, format("Indexing {0}", entityType.getId()));
           final Repository<Entity> repository = dataService.getRepository(entityType.getId());
           indexService.rebuildIndex(repository);
         }
       } else {
         EntityType entityType = getEntityType(indexAction);
         if (indexService.hasIndex(entityType)) {
-          progress.progress(
-              progressCount, format("Dropping entityType with id: {0}", entityType.getId()));
+          progress(
+              progress,
+              progressCount,
+              format("Dropping entityType with id: {0}", entityType.getId()));
           indexService.deleteIndex(entityType);
         } else {
           // Index Job is finished, here we concluded that we don't have enough info to continue the
           // index job
-          progress.progress(
+          progress(
+              progress,
               progressCount,
               format("Skip index entity {0}.{1}", entityType.getId(), indexAction.getEntityId()));
         }
       }
-      updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.FINISHED);
+      indexAction.setIndexStatus(IndexActionMetadata.IndexStatus.FINISHED);
       return true;
     } catch (Exception ex) {
       LOG.error("Index job failed", ex);
-      updateIndexActionStatus(indexAction, IndexActionMetadata.IndexStatus.FAILED);
+      indexAction.setIndexStatus(IndexActionMetadata.IndexStatus.FAILED);
       return false;
     }
   }
 
+  /** {@link Progress} is not thread-safe, report progress of parallel actions one at a time. */
+  private static void progress(Progress progress, int progressCount, String message) {
+    synchronized (progress) {
+      progress.progress(progressCount, message);
+    }
+  }
+
   /**
-   * Updates the {@link IndexStatus} of a IndexAction and stores the change.
+   * Updates the {@link IndexStatus} of IndexActions and stores the changes in one batch.
    *
-   * @param indexAction the IndexAction of which the status is updated
+   * @param indexActions the IndexActions of which the status is updated
    * @param status the new {@link IndexStatus}
    */
   private void updateIndexActionStatus(
-      IndexAction indexAction, IndexActionMetadata.IndexStatus status) {
-    indexAction.setIndexStatus(status);
-    dataService.update(INDEX_ACTION, indexAction);
+      List<IndexAction> indexActions, IndexActionMetadata.IndexStatus status) {
+    indexActions.forEach(indexAction -> indexAction.setIndexStatus(status));
+    dataService.update(INDEX_ACTION, indexActions.stream());
   }
 
   /**
@@ -193,6 +332,47 @@ public class IndexJobService {
     }
   }
 
+  /**
+   * Indexes the entity instances of IndexActions of one entity type, deletes the entity instances
+   * that no longer exist from the index.
+   *
+   * @param entityType the entity type of the IndexActions
+   * @param indexActions IndexActions for single entity instances
+   */
+  private void rebuildIndexEntities(EntityType entityType, List<IndexAction> indexActions) {
+    LOG.trace("Indexing [{}] entities of [{}]... ", indexActions.size(), entityType.getId());
+
+    // convert entity id strings to typed entity ids
+    Set<Object> entityIds =
+        indexActions.stream()
+            .map(
+                indexAction ->
+                    getTypedValue(indexAction.getEntityId(), entityType.getIdAttribute()))
+            .collect(toCollection(LinkedHashSet::new));
+
+    List<Entity> entities =
+        dataService
+            .findAll(entityType.getId(), entityIds.stream(), createFetchForReindexing(entityType))
+            .collect(toList());
+
+    if (!indexService.hasIndex(entityType)) {
+      LOG.debug(
+          "Create mapping of repository [{}] because it was not exist yet", entityType.getId());
+      indexService.createIndex(entityType);
+    }
+
+    if (!entities.isEmpty()) {
+      LOG.debug("Index [{}] entities of [{}].", entities.size(), entityType.getId());
+      indexService.index(entityType, entities.stream());
+    }
+
+    entities.forEach(entity -> entityIds.remove(entity.getIdValue()));
+    if (!entityIds.isEmpty()) {
+      LOG.debug("Index delete [{}] entities of [{}].", entityIds.size(), entityType.getId());
+      indexService.deleteAll(entityType, entityIds.stream());
+    }
+  }
+
   /** Retrieves the query to get all index actions sorted */
   static Query<IndexAction> createQueryGetAllIndexActions(String transactionId) {
     QueryRule rule = new QueryRule(INDEX_ACTION_GROUP_ATTR, EQUALS, transactionId);
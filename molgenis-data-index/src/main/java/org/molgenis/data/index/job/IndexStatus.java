@@ -72,17 +72,22 @@ public class IndexStatus {
     }
   }
 
-  private boolean isIndexStableIncludingReferences(EntityType emd) {
-    if (isAllIndicesStable()) {
-      return true;
+  boolean isIndexStableIncludingReferences(EntityType emd) {
+    lock.lock();
+    try {
+      if (isAllIndicesStable()) {
+        return true;
+      }
+      Set<String> referencedEntityIds =
+          stream(emd.getAtomicAttributes())
+              .filter(Attribute::hasRefEntity)
+              .map(attribute -> attribute.getRefEntity().getId())
+              .collect(toSet());
+      referencedEntityIds.add(emd.getId());
+      return referencedEntityIds.stream().noneMatch(actionCountsPerEntity::containsKey);
+    } finally {
+      lock.unlock();
     }
-    Set<String> referencedEntityIds =
-        stream(emd.getAtomicAttributes())
-            .filter(Attribute::hasRefEntity)
-            .map(attribute -> attribute.getRefEntity().getId())
-            .collect(toSet());
-    referencedEntityIds.add(emd.getId());
-    return referencedEntityIds.stream().noneMatch(actionCountsPerEntity::containsKey);
   }
 
   void waitForIndexToBeStableIncludingReferences(EntityType emd) throws InterruptedException {
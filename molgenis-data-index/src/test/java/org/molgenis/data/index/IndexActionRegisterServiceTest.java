@@ -1,6 +1,7 @@
 package org.molgenis.data.index;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -18,6 +19,8 @@ import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
 import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.PENDING;
 import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
 
+import java.util.List;
+import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -54,7 +57,10 @@ class IndexActionRegisterServiceTest extends AbstractMockitoTest {
         TransactionConstants.TRANSACTION_ID_RESOURCE_NAME, "1");
     indexActionRegisterServiceImpl =
         new IndexActionRegisterServiceImpl(
-            dataService, indexActionFactory, indexActionGroupFactory, new IndexingStrategy());
+            dataService,
+            indexActionFactory,
+            indexActionGroupFactory,
+            new IndexingStrategy(dataService, 0));
   }
 
   @AfterEach
@@ -143,4 +149,30 @@ class IndexActionRegisterServiceTest extends AbstractMockitoTest {
     EntityKey entityKey = EntityKey.create(entityTypeId, otherId);
     assertFalse(indexActionRegisterServiceImpl.isEntityDirty(entityKey));
   }
+
+  @Test
+  void testRegisterAll() {
+    String entityTypeId = "myEntityTypeId";
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn(entityTypeId);
+    indexActionRegisterServiceImpl.registerAll(entityType, List.of("id0", "id1"));
+    assertEquals(
+        Set.of(EntityKey.create(entityTypeId, "id0"), EntityKey.create(entityTypeId, "id1")),
+        indexActionRegisterServiceImpl.getDirtyEntities());
+  }
+
+  @Test
+  void testRegisterWholeRepositoryCollapsesEntities() {
+    String entityTypeId = "myEntityTypeId";
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getId()).thenReturn(entityTypeId);
+    indexActionRegisterServiceImpl.registerAll(entityType, List.of("id0", "id1"));
+    indexActionRegisterServiceImpl.register(entityType, null);
+    indexActionRegisterServiceImpl.register(entityType, "id2");
+
+    assertEquals(emptySet(), indexActionRegisterServiceImpl.getDirtyEntities());
+    assertEquals(
+        singleton(entityTypeId), indexActionRegisterServiceImpl.getEntirelyDirtyRepositories());
+    assertTrue(indexActionRegisterServiceImpl.isEntityDirty(EntityKey.create(entityTypeId, "id0")));
+  }
 }
@@ -12,6 +12,7 @@ import static org.mockito.internal.verification.VerificationModeFactory.times;
 import static org.molgenis.data.RepositoryCapability.INDEXABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 
+import java.util.List;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -124,7 +125,7 @@ class IndexActionRepositoryDecoratorTest {
     indexActionRepositoryDecorator.delete(entity0);
     verify(delegateRepository, times(1)).delete(entity0);
     verify(indexActionRegisterService).register(entityType, 1);
-    verify(indexActionRegisterService).register(mappedByEntity, 2);
+    verify(indexActionRegisterService).registerAll(mappedByEntity, List.of(2));
     verify(indexActionRegisterService).register(inversedByEntity, 3);
     verifyNoMoreInteractions(indexActionRegisterService);
   }
@@ -253,7 +254,7 @@ class IndexActionRepositoryDecoratorTest {
     indexActionRepositoryDecorator.add(entity0);
     verify(delegateRepository, times(1)).add(entity0);
     verify(indexActionRegisterService).register(entityType, 1);
-    verify(indexActionRegisterService).register(mappedByEntity, "mappedBy0");
+    verify(indexActionRegisterService).registerAll(mappedByEntity, List.of("mappedBy0"));
     verify(indexActionRegisterService).register(inversedByEntity, "inversedBy0");
     verifyNoMoreInteractions(indexActionRegisterService);
   }
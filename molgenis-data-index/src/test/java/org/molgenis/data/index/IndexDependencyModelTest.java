@@ -48,6 +48,18 @@ class IndexDependencyModelTest extends AbstractMockitoTest {
     assertEquals(of("1", "3", "4"), dependencies);
   }
 
+  @Test
+  void testGetMaxIndexingDepth() {
+    when(entity0.getId()).thenReturn("0");
+    when(entity1.getId()).thenReturn("1");
+    when(entity0.getIndexingDepth()).thenReturn(1);
+    when(entity1.getIndexingDepth()).thenReturn(3);
+
+    IndexDependencyModel dependencyModel =
+        new IndexDependencyModel(ImmutableList.of(entity0, entity1));
+    assertEquals(3, dependencyModel.getMaxIndexingDepth());
+  }
+
   @Test
   void testGetEntityTypesDependentOnDeepExtension() {
     when(entity0.getId()).thenReturn("0");
@@ -4,6 +4,7 @@ import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.EnumSet.allOf;
+import static java.util.EnumSet.complementOf;
 import static java.util.EnumSet.of;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -23,22 +24,28 @@ import static org.molgenis.data.QueryRule.Operator.FUZZY_MATCH;
 import static org.molgenis.data.QueryRule.Operator.IN;
 import static org.molgenis.data.QueryRule.Operator.LESS;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
 import static org.molgenis.data.RepositoryCapability.VALIDATE_NOTNULL_CONSTRAINT;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.meta.AttributeType.XREF;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.PermissionFilter;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
@@ -51,10 +58,14 @@ import org.molgenis.data.index.job.IndexJobScheduler;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.AggregateQueryImpl;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.data.transaction.TransactionInformation;
 
 class IndexedRepositoryDecoratorTest {
   private IndexedRepositoryDecorator indexedRepositoryDecorator;
   private SearchService searchService;
+  private IndexJobScheduler indexJobScheduler;
+  private TransactionInformation transactionInformation;
   private Repository<Entity> delegateRepository;
   private EntityType repositoryEntityType;
   private String idAttrName;
@@ -80,9 +91,11 @@ class IndexedRepositoryDecoratorTest {
     when(delegateRepository.getCapabilities())
         .thenReturn(EnumSet.of(QUERYABLE, MANAGABLE, VALIDATE_NOTNULL_CONSTRAINT));
     when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(IN, LESS, EQUALS, AND, OR));
-    IndexJobScheduler indexJobScheduler = mock(IndexJobScheduler.class);
+    indexJobScheduler = mock(IndexJobScheduler.class);
+    transactionInformation = mock(TransactionInformation.class);
     indexedRepositoryDecorator =
-        new IndexedRepositoryDecorator(delegateRepository, searchService, indexJobScheduler);
+        new IndexedRepositoryDecorator(
+            delegateRepository, searchService, indexJobScheduler, transactionInformation);
 
     when(repositoryEntityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr));
 
@@ -105,7 +118,7 @@ class IndexedRepositoryDecoratorTest {
   @Test
   void indexedRepositoryDecorator() {
     assertThrows(
-        NullPointerException.class, () -> new IndexedRepositoryDecorator(null, null, null));
+        NullPointerException.class, () -> new IndexedRepositoryDecorator(null, null, null, null));
   }
 
   @Test
@@ -143,6 +156,56 @@ class IndexedRepositoryDecoratorTest {
     verify(searchService).aggregate(repositoryEntityType, aggregateQuery);
   }
 
+  @Test
+  void aggregateDecoratedRepository() {
+    when(delegateRepository.getCapabilities()).thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE));
+    Attribute xAttr = mock(Attribute.class);
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr);
+    AggregateResult aggregateResult = mock(AggregateResult.class);
+    when(delegateRepository.aggregate(aggregateQuery)).thenReturn(aggregateResult);
+
+    assertEquals(aggregateResult, indexedRepositoryDecorator.aggregate(aggregateQuery));
+    verifyZeroInteractions(searchService);
+  }
+
+  @Test
+  void aggregateDecoratedRepositoryIndexUnstable() {
+    when(delegateRepository.getCapabilities()).thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE));
+    when(transactionInformation.isRepositoryCompletelyClean(repositoryEntityType)).thenReturn(true);
+    Attribute xAttr = mock(Attribute.class);
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr).query(query);
+    AggregateResult aggregateResult = mock(AggregateResult.class);
+    when(delegateRepository.aggregate(aggregateQuery)).thenReturn(aggregateResult);
+
+    assertEquals(aggregateResult, indexedRepositoryDecorator.aggregate(aggregateQuery));
+    verifyZeroInteractions(searchService);
+  }
+
+  @Test
+  void aggregateIndexStable() {
+    when(delegateRepository.getCapabilities()).thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE));
+    when(transactionInformation.isRepositoryCompletelyClean(repositoryEntityType)).thenReturn(true);
+    when(indexJobScheduler.isIndexStableIncludingReferences(repositoryEntityType)).thenReturn(true);
+    Attribute xAttr = mock(Attribute.class);
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr).query(query);
+    AggregateResult aggregateResult = mock(AggregateResult.class);
+    when(searchService.aggregate(repositoryEntityType, aggregateQuery)).thenReturn(aggregateResult);
+
+    assertEquals(aggregateResult, indexedRepositoryDecorator.aggregate(aggregateQuery));
+    verify(delegateRepository, never()).aggregate(aggregateQuery);
+  }
+
+  @Test
+  void aggregateComputedAttribute() {
+    when(delegateRepository.getCapabilities()).thenReturn(EnumSet.of(QUERYABLE, AGGREGATEABLE));
+    Attribute xAttr = when(mock(Attribute.class).hasExpression()).thenReturn(true).getMock();
+    AggregateQuery aggregateQuery = new AggregateQueryImpl().attrX(xAttr);
+
+    indexedRepositoryDecorator.aggregate(aggregateQuery);
+    verify(searchService).aggregate(repositoryEntityType, aggregateQuery);
+    verify(delegateRepository, never()).aggregate(aggregateQuery);
+  }
+
   @Test
   void aggregateUnknownIndexExceptionRecoverable() {
     AggregateQuery aggregateQuery = mock(AggregateQuery.class);
@@ -381,6 +444,69 @@ class IndexedRepositoryDecoratorTest {
     verify(delegateRepository).findAll(any(Stream.class), isNull());
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void findAllQueryUnsupportedIndexSourced() {
+    Attribute attr = setUpIndexSourcedQuery();
+    when(attr.getDataType()).thenReturn(STRING);
+    Entity entity = mock(Entity.class);
+    when(searchService.searchEntities(repositoryEntityType, unsupportedQuery))
+        .thenReturn(Stream.of(entity));
+
+    assertEquals(
+        singletonList(entity),
+        indexedRepositoryDecorator.findAll(unsupportedQuery).collect(toList()));
+    verify(searchService, never()).search(repositoryEntityType, unsupportedQuery);
+    verify(delegateRepository, never()).findAll(any(Stream.class), any(Fetch.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void findAllQueryUnsupportedIndexSourcedReferenceFetch() {
+    Attribute attr = setUpIndexSourcedQuery();
+    when(attr.getDataType()).thenReturn(XREF);
+
+    indexedRepositoryDecorator.findAll(unsupportedQuery);
+    verify(searchService).search(repositoryEntityType, unsupportedQuery);
+    verify(delegateRepository).findAll(any(Stream.class), any(Fetch.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void findAllQueryUnsupportedIndexSourcedRepositoryDirty() {
+    Attribute attr = setUpIndexSourcedQuery();
+    when(attr.getDataType()).thenReturn(STRING);
+    when(transactionInformation.isRepositoryCompletelyClean(repositoryEntityType))
+        .thenReturn(false);
+
+    indexedRepositoryDecorator.findAll(unsupportedQuery);
+    verify(searchService).search(repositoryEntityType, unsupportedQuery);
+    verify(delegateRepository).findAll(any(Stream.class), any(Fetch.class));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  void findAllQueryUnsupportedIndexSourcedIndexUnstable() {
+    Attribute attr = setUpIndexSourcedQuery();
+    when(attr.getDataType()).thenReturn(STRING);
+    when(indexJobScheduler.isIndexStableIncludingReferences(repositoryEntityType))
+        .thenReturn(false);
+
+    indexedRepositoryDecorator.findAll(unsupportedQuery);
+    verify(searchService).search(repositoryEntityType, unsupportedQuery);
+    verify(delegateRepository).findAll(any(Stream.class), any(Fetch.class));
+  }
+
+  private Attribute setUpIndexSourcedQuery() {
+    Attribute attr = mock(Attribute.class);
+    when(repositoryEntityType.getAttribute("attr")).thenReturn(attr);
+    when(unsupportedQuery.getFetch()).thenReturn(new Fetch().field("attr"));
+    when(searchService.isEntitySearchEnabled()).thenReturn(true);
+    when(transactionInformation.isRepositoryCompletelyClean(repositoryEntityType)).thenReturn(true);
+    when(indexJobScheduler.isIndexStableIncludingReferences(repositoryEntityType)).thenReturn(true);
+    return attr;
+  }
+
   @SuppressWarnings("unchecked")
   @Test
   void findAllUnknownIndexExceptionRecoverable() {
@@ -431,9 +557,94 @@ class IndexedRepositoryDecoratorTest {
 
   @Test
   void getQueryOperators() {
+    assertEquals(complementOf(of(PERMITTED)), indexedRepositoryDecorator.getQueryOperators());
+  }
+
+  @Test
+  void getQueryOperatorsPermitted() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
     assertEquals(allOf(Operator.class), indexedRepositoryDecorator.getQueryOperators());
   }
 
+  @Test
+  void findAllPermittedQuerySupported() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
+    indexedRepositoryDecorator =
+        new IndexedRepositoryDecorator(
+            delegateRepository,
+            searchService,
+            mock(IndexJobScheduler.class),
+            mock(TransactionInformation.class));
+    Attribute idAttr = repositoryEntityType.getIdAttribute();
+    when(repositoryEntityType.getAttribute(idAttrName)).thenReturn(idAttr);
+    Query<Entity> permittedQuery = createPermittedQuery(new QueryRule(idAttrName, EQUALS, "1"));
+
+    indexedRepositoryDecorator.findAll(permittedQuery);
+    verify(delegateRepository).findAll(permittedQuery);
+    verifyZeroInteractions(searchService);
+  }
+
+  @Test
+  void findAllPermittedQueryUnsupported() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
+    indexedRepositoryDecorator =
+        new IndexedRepositoryDecorator(
+            delegateRepository,
+            searchService,
+            mock(IndexJobScheduler.class),
+            mock(TransactionInformation.class));
+    QueryRule fuzzyRule = new QueryRule(idAttrName, FUZZY_MATCH, "1");
+    Query<Entity> permittedQuery = createPermittedQuery(fuzzyRule);
+    permittedQuery.offset(1).pageSize(1);
+
+    when(searchService.search(repositoryEntityType, new QueryImpl<>(fuzzyRule)))
+        .thenReturn(Stream.of("2", "1", "0"));
+    Entity entity0 = when(mock(Entity.class).getIdValue()).thenReturn("0").getMock();
+    Entity entity2 = when(mock(Entity.class).getIdValue()).thenReturn("2").getMock();
+    QueryImpl<Entity> delegateQuery = new QueryImpl<>();
+    delegateQuery.in(idAttrName, asList("2", "1", "0")).and();
+    delegateQuery.addRule(permittedQuery.getRules().get(2));
+    when(delegateRepository.findAll(delegateQuery)).thenReturn(Stream.of(entity0, entity2));
+
+    assertEquals(
+        singletonList(entity0),
+        indexedRepositoryDecorator.findAll(permittedQuery).collect(toList()));
+  }
+
+  @Test
+  void countPermittedQueryUnsupported() {
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
+    indexedRepositoryDecorator =
+        new IndexedRepositoryDecorator(
+            delegateRepository,
+            searchService,
+            mock(IndexJobScheduler.class),
+            mock(TransactionInformation.class));
+    QueryRule fuzzyRule = new QueryRule(idAttrName, FUZZY_MATCH, "1");
+    Query<Entity> permittedQuery = createPermittedQuery(fuzzyRule);
+
+    when(searchService.search(repositoryEntityType, new QueryImpl<>(fuzzyRule)))
+        .thenReturn(Stream.of("2", "1"));
+    QueryImpl<Entity> delegateQuery = new QueryImpl<>();
+    delegateQuery.in(idAttrName, asList("2", "1")).and();
+    delegateQuery.addRule(permittedQuery.getRules().get(2));
+    when(delegateRepository.count(delegateQuery)).thenReturn(1L);
+
+    assertEquals(1L, indexedRepositoryDecorator.count(permittedQuery));
+    verify(searchService, never())
+        .count(any(EntityType.class), ArgumentMatchers.<Query<Entity>>any());
+    verify(delegateRepository, never()).findAll(ArgumentMatchers.<Query<Entity>>any());
+  }
+
+  private static Query<Entity> createPermittedQuery(QueryRule queryRule) {
+    PermissionFilter permissionFilter =
+        PermissionFilter.create("entity-entity", Set.of("user"), Set.of(), 4);
+    QueryImpl<Entity> query = new QueryImpl<>(queryRule);
+    query.and();
+    query.addRule(new QueryRule(PERMITTED, permissionFilter));
+    return query;
+  }
+
   @Test
   void query() {
     assertEquals(indexedRepositoryDecorator, indexedRepositoryDecorator.query().getRepository());
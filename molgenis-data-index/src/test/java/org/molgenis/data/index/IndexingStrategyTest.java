@@ -3,31 +3,44 @@ package org.molgenis.data.index;
 import static com.google.common.collect.ImmutableSet.of;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.index.Impact.createSingleEntityImpact;
 import static org.molgenis.data.index.Impact.createWholeRepositoryImpact;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
+import org.molgenis.data.DataService;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
 import org.molgenis.data.index.config.IndexTestConfig;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.test.AbstractMockitoTest;
 import org.springframework.test.context.ContextConfiguration;
 
 @ContextConfiguration(classes = {IndexTestConfig.class})
 class IndexingStrategyTest extends AbstractMockitoTest {
   @Mock private IndexDependencyModel dependencyModel;
+  @Mock private DataService dataService;
 
   IndexingStrategy indexingStrategy;
 
   @BeforeEach
   private void beforeMethod() {
-    indexingStrategy = new IndexingStrategy();
+    indexingStrategy = new IndexingStrategy(dataService, 0);
     reset(dependencyModel);
   }
 
@@ -76,4 +89,118 @@ class IndexingStrategyTest extends AbstractMockitoTest {
     Set<Impact> actual = indexingStrategy.determineImpact(registeredIndexActions, dependencyModel);
     assertEquals(of(createSingleEntityImpact("A", "6")), actual);
   }
+
+  @Test
+  void testDetermineImpactDependentEntities() {
+    indexingStrategy = new IndexingStrategy(dataService, 2);
+    Set<Impact> changes = ImmutableSet.of(createSingleEntityImpact("A", "a1"));
+    when(dependencyModel.getMaxIndexingDepth()).thenReturn(1);
+    when(dependencyModel.getReferencingAttributes("A")).thenReturn(Map.of("B", Set.of("refA")));
+    when(dependencyModel.getIndexingDepth("B")).thenReturn(1);
+    mockReferencingEntities("B", "b1", "b2");
+
+    Set<Impact> actual = indexingStrategy.determineImpact(changes, dependencyModel);
+    assertEquals(
+        of(
+            createSingleEntityImpact("A", "a1"),
+            createSingleEntityImpact("B", "b1"),
+            createSingleEntityImpact("B", "b2")),
+        actual);
+  }
+
+  @Test
+  void testDetermineImpactDependentEntitiesBeyondIndexingDepth() {
+    indexingStrategy = new IndexingStrategy(dataService, 2);
+    Set<Impact> changes = ImmutableSet.of(createSingleEntityImpact("A", "a1"));
+    // another entity type indexes references two levels deep
+    when(dependencyModel.getMaxIndexingDepth()).thenReturn(2);
+    when(dependencyModel.getReferencingAttributes("A")).thenReturn(Map.of("B", Set.of("refA")));
+    when(dependencyModel.getReferencingAttributes("B")).thenReturn(Map.of("C", Set.of("refB")));
+    when(dependencyModel.getIndexingDepth("B")).thenReturn(1);
+    when(dependencyModel.getIndexingDepth("C")).thenReturn(1);
+    mockReferencingEntities("B", "b1");
+    mockReferencingEntities("C", "c1");
+
+    Set<Impact> actual = indexingStrategy.determineImpact(changes, dependencyModel);
+    assertEquals(
+        of(createSingleEntityImpact("A", "a1"), createSingleEntityImpact("B", "b1")), actual);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testDetermineImpactDependentEntitiesMultiplePaths() {
+    indexingStrategy = new IndexingStrategy(dataService, 10);
+    Set<Impact> changes = ImmutableSet.of(createSingleEntityImpact("C", "c1"));
+    when(dependencyModel.getMaxIndexingDepth()).thenReturn(2);
+    when(dependencyModel.getReferencingAttributes("C"))
+        .thenReturn(Map.of("A", Set.of("refC"), "B", Set.of("refC")));
+    when(dependencyModel.getReferencingAttributes("B")).thenReturn(Map.of("A", Set.of("refB")));
+    when(dependencyModel.getReferencingAttributes("A")).thenReturn(Map.of());
+    when(dependencyModel.getIndexingDepth("A")).thenReturn(2);
+    when(dependencyModel.getIndexingDepth("B")).thenReturn(1);
+    mockReferencingEntities("B", "b1");
+    mockEntityType("A");
+    // a1 references c1, a2 references b1 which references c1
+    Entity a1 = createEntity("a1");
+    Entity a2 = createEntity("a2");
+    when(dataService.findAll(eq("A"), any(Query.class))).thenReturn(Stream.of(a1), Stream.of(a2));
+
+    Set<Impact> actual = indexingStrategy.determineImpact(changes, dependencyModel);
+    assertEquals(
+        Set.of(
+            createSingleEntityImpact("C", "c1"),
+            createSingleEntityImpact("A", "a1"),
+            createSingleEntityImpact("B", "b1"),
+            createSingleEntityImpact("A", "a2")),
+        actual);
+  }
+
+  @Test
+  void testDetermineImpactTooManyDependentEntities() {
+    indexingStrategy = new IndexingStrategy(dataService, 2);
+    Set<Impact> changes = ImmutableSet.of(createSingleEntityImpact("A", "a1"));
+    when(dependencyModel.getMaxIndexingDepth()).thenReturn(1);
+    when(dependencyModel.getReferencingAttributes("A")).thenReturn(Map.of("B", Set.of("refA")));
+    mockReferencingEntities("B", "b1", "b2", "b3");
+    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(Stream.of("B"));
+
+    Set<Impact> actual = indexingStrategy.determineImpact(changes, dependencyModel);
+    assertEquals(of(createWholeRepositoryImpact("B"), createSingleEntityImpact("A", "a1")), actual);
+  }
+
+  @Test
+  void testDetermineImpactTooManyDependentEntitiesIncludingVisited() {
+    indexingStrategy = new IndexingStrategy(dataService, 2);
+    Set<Impact> changes = ImmutableSet.of(createSingleEntityImpact("A", "a1"));
+    when(dependencyModel.getMaxIndexingDepth()).thenReturn(1);
+    when(dependencyModel.getReferencingAttributes("A")).thenReturn(Map.of("A", Set.of("refA")));
+    // the lookup is cut off after three rows, one of which is the already visited changed entity
+    mockReferencingEntities("A", "a1", "a2", "a3");
+    when(dependencyModel.getEntityTypesDependentOn("A")).thenReturn(Stream.of("A"));
+
+    Set<Impact> actual = indexingStrategy.determineImpact(changes, dependencyModel);
+    assertEquals(of(createWholeRepositoryImpact("A")), actual);
+  }
+
+  @SuppressWarnings("unchecked")
+  private void mockReferencingEntities(String entityTypeId, String... entityIds) {
+    mockEntityType(entityTypeId);
+    List<Entity> entities =
+        Arrays.stream(entityIds).map(IndexingStrategyTest::createEntity).collect(toList());
+    when(dataService.findAll(eq(entityTypeId), any(Query.class))).thenReturn(entities.stream());
+  }
+
+  private void mockEntityType(String entityTypeId) {
+    EntityType entityType = mock(EntityType.class);
+    Attribute idAttribute = mock(Attribute.class);
+    when(idAttribute.getName()).thenReturn("id");
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+    when(dataService.getEntityType(entityTypeId)).thenReturn(entityType);
+  }
+
+  private static Entity createEntity(String entityId) {
+    Entity entity = mock(Entity.class);
+    when(entity.getIdValue()).thenReturn(entityId);
+    return entity;
+  }
 }
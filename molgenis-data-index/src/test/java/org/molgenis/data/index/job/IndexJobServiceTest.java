@@ -1,13 +1,14 @@
 package org.molgenis.data.index.job;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Stream.empty;
 import static java.util.stream.Stream.of;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.mockito.Mockito.any;
-import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.mock;
@@ -21,11 +22,13 @@ import static org.molgenis.data.index.meta.IndexActionMetadata.INDEX_ACTION;
 import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.FAILED;
 import static org.molgenis.data.index.meta.IndexActionMetadata.IndexStatus.FINISHED;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -34,6 +37,7 @@ import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityTestHarness;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.TestHarnessConfig;
@@ -80,7 +84,9 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
   @BeforeEach
   void beforeMethod() {
     config.resetMocks();
-    indexJobService = new IndexJobService(dataService, indexService, entityTypeFactory);
+    indexJobService =
+        new IndexJobService(
+            dataService, indexService, entityTypeFactory, newDirectExecutorService());
     indexActionGroup = indexActionGroupFactory.create(transactionId).setCount(0);
     when(dataService.findOneById(INDEX_ACTION_GROUP, transactionId, IndexActionGroup.class))
         .thenReturn(indexActionGroup);
@@ -160,7 +166,8 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
     verify(indexService).refreshIndex();
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(newArrayList(indexAction), streamCaptor.getValue().collect(toList()));
   }
 
   @Test
@@ -190,7 +197,48 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(newArrayList(indexAction), streamCaptor.getValue().collect(toList()));
+  }
+
+  @Test
+  void rebuildIndexEntitiesTest() {
+    Object entityId = toIndexEntity.getIdValue();
+    IndexAction indexAction1 =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId(entityId.toString())
+            .setActionOrder(0)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    IndexAction indexAction2 =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId("deletedEntityId")
+            .setActionOrder(1)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    mockGetAllIndexActions(of(indexAction1, indexAction2));
+    indexActionGroup.setCount(2);
+    when(dataService.findAll(
+            eq("TypeTestRefDynamic"), ArgumentMatchers.<Stream<Object>>any(), any(Fetch.class)))
+        .thenReturn(of(toIndexEntity));
+    when(indexService.hasIndex(testEntityType)).thenReturn(true);
+
+    indexJobService.executeJob(progress, transactionId);
+    assertEquals(FINISHED, indexAction1.getIndexStatus());
+    assertEquals(FINISHED, indexAction2.getIndexStatus());
+
+    verify(indexService).index(eq(testEntityType), streamCaptor.capture());
+    assertEquals(List.of(toIndexEntity), streamCaptor.getValue().collect(toList()));
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<Stream<Object>> entityIdsCaptor = ArgumentCaptor.forClass(Stream.class);
+    verify(indexService).deleteAll(eq(testEntityType), entityIdsCaptor.capture());
+    assertEquals(List.of("deletedEntityId"), entityIdsCaptor.getValue().collect(toList()));
+    verify(indexService, never()).index(testEntityType, toIndexEntity);
+    verify(progress).progress(0, "Indexing 2 entities of TypeTestRefDynamic");
   }
 
   @Test
@@ -221,7 +269,8 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(newArrayList(indexAction), streamCaptor.getValue().collect(toList()));
 
     // make sure both the actions and the action job got deleted
     verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
@@ -255,7 +304,8 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(newArrayList(indexAction), streamCaptor.getValue().collect(toList()));
 
     // make sure both the actions and the action job got deleted
     verify(dataService).delete(eq(INDEX_ACTION), streamCaptor.capture());
@@ -304,7 +354,8 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     verify(progress).status("Refresh index done");
     verify(progress).status("Finished indexing for transaction id: [aabbcc]");
 
-    verify(dataService, times(2)).update(INDEX_ACTION, indexAction);
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(newArrayList(indexAction), streamCaptor.getValue().collect(toList()));
   }
 
   @Test
@@ -340,6 +391,7 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     indexActionGroup.setCount(3);
 
     MolgenisDataException mde = new MolgenisDataException("Random unrecoverable exception");
+    doThrow(mde).when(indexService).deleteAll(eq(testEntityType), any());
     doThrow(mde).when(indexService).deleteById(testEntityType, "entityId2");
 
     when(dataService.hasRepository("TypeTestRefDynamic")).thenReturn(true);
@@ -350,6 +402,8 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
       assertSame(expected, mde);
     }
 
+    // the bulk delete fails, after which the entities are deleted one by one
+    verify(indexService).deleteAll(eq(testEntityType), any());
     verify(indexService).deleteById(testEntityType, "entityId1");
     verify(indexService).deleteById(testEntityType, "entityId2");
     verify(indexService).deleteById(testEntityType, "entityId3");
@@ -359,11 +413,64 @@ class IndexJobServiceTest extends AbstractMolgenisSpringTest {
     // Make sure the action status got updated and that the actionJob didn't get deleted
     assertEquals(FINISHED, indexAction1.getIndexStatus());
     assertEquals(FAILED, indexAction2.getIndexStatus());
-    verify(dataService, atLeast(1)).update(INDEX_ACTION, indexAction1);
-    verify(dataService, atLeast(1)).update(INDEX_ACTION, indexAction2);
+    assertEquals(FINISHED, indexAction3.getIndexStatus());
+    verify(dataService, times(2)).update(eq(INDEX_ACTION), streamCaptor.capture());
+    assertEquals(
+        asList(indexAction1, indexAction2, indexAction3),
+        streamCaptor.getValue().collect(toList()));
     verify(dataService, never()).delete(INDEX_ACTION_GROUP, indexActionGroup);
   }
 
+  @Test
+  void performIndexActionsForMultipleEntityTypes() {
+    IndexAction indexAction1 =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId("entityId1")
+            .setActionOrder(0)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    IndexAction indexAction2 =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("otherEntityType")
+            .setEntityId(null)
+            .setActionOrder(1)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    IndexAction indexAction3 =
+        indexActionFactory
+            .create()
+            .setIndexActionGroup(indexActionGroup)
+            .setEntityTypeId("entityType")
+            .setEntityId("entityId2")
+            .setActionOrder(2)
+            .setIndexStatus(IndexActionMetadata.IndexStatus.PENDING);
+    mockGetAllIndexActions(of(indexAction1, indexAction2, indexAction3));
+    indexActionGroup.setCount(3);
+
+    EntityType otherEntityType = mock(EntityType.class);
+    when(otherEntityType.getId()).thenReturn("otherEntityType");
+    when(dataService.hasEntityType("otherEntityType")).thenReturn(true);
+    when(dataService.getEntityType("otherEntityType")).thenReturn(otherEntityType);
+
+    indexJobService.executeJob(progress, transactionId);
+
+    verify(progress).progress(0, "Indexing 2 entities of TypeTestRefDynamic");
+    verify(progress).progress(2, "Indexing otherEntityType");
+    verify(indexService).rebuildIndex(dataService.getRepository("otherEntityType"));
+    assertEquals(FINISHED, indexAction1.getIndexStatus());
+    assertEquals(FINISHED, indexAction2.getIndexStatus());
+    assertEquals(FINISHED, indexAction3.getIndexStatus());
+
+    // a single batched status update before the actions are performed
+    verify(dataService).update(eq(INDEX_ACTION), streamCaptor.capture());
+    List<Entity> updatedIndexActions = streamCaptor.getValue().collect(toList());
+    assertEquals(asList(indexAction1, indexAction2, indexAction3), updatedIndexActions);
+    verify(dataService).deleteById(INDEX_ACTION_GROUP, transactionId);
+  }
+
   @SuppressWarnings("java:S5979") // mocks are initialized
   @Configuration
   @Import({IndexTestConfig.class, TestHarnessConfig.class})
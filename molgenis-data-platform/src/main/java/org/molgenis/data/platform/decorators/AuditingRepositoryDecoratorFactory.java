@@ -38,22 +38,24 @@ public class AuditingRepositoryDecoratorFactory {
   }
 
   public Repository<Entity> create(Repository<Entity> repository) {
-    var entityType = repository.getEntityType();
+    if (isAudited(repository.getEntityType())) {
+      return new AuditingRepositoryDecorator(repository, auditEventPublisher);
+    } else {
+      return repository;
+    }
+  }
 
-    var decorate = false;
+  /** Returns whether repositories of the given entity type are decorated by this factory. */
+  public boolean isAudited(EntityType entityType) {
+    var audited = false;
     if (!EXCLUDED.contains(entityType.getId()) && bootstrappingDone) {
       if (isSystemEntity(entityType)) {
-        decorate = auditSettings.getSystemAuditEnabled();
+        audited = auditSettings.getSystemAuditEnabled();
       } else {
-        decorate = isAuditedDataEntityType(entityType);
+        audited = isAuditedDataEntityType(entityType);
       }
     }
-
-    if (decorate) {
-      return new AuditingRepositoryDecorator(repository, auditEventPublisher);
-    } else {
-      return repository;
-    }
+    return audited;
   }
 
   public void excludeEntityType(String entityTypeId) {
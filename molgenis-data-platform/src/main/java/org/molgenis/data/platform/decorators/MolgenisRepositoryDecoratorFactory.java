@@ -11,6 +11,7 @@ import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.EntityReferenceResolverDecorator;
+import org.molgenis.data.ReferenceJoinPolicy;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryDecoratorFactory;
 import org.molgenis.data.SystemRepositoryDecoratorRegistry;
@@ -73,6 +74,8 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
   private final AuditingRepositoryDecoratorFactory auditingRepositoryDecoratorFactory;
   private final SettingsAuditingRepositoryDecoratorFactory
       settingsAuditingRepositoryDecoratorFactory;
+  private final RepositoryPipelineCache repositoryPipelineCache;
+  private final ReferenceJoinPolicy referenceJoinPolicy;
 
   public MolgenisRepositoryDecoratorFactory(
       EntityManager entityManager,
@@ -97,7 +100,9 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
       RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory,
       L1CacheJanitor l1CacheJanitor,
       AuditingRepositoryDecoratorFactory auditingRepositoryDecoratorFactory,
-      SettingsAuditingRepositoryDecoratorFactory settingsAuditingRepositoryDecoratorFactory) {
+      SettingsAuditingRepositoryDecoratorFactory settingsAuditingRepositoryDecoratorFactory,
+      RepositoryPipelineCache repositoryPipelineCache,
+      ReferenceJoinPolicy referenceJoinPolicy) {
 
     this.entityManager = requireNonNull(entityManager);
     this.entityAttributesValidator = requireNonNull(entityAttributesValidator);
@@ -124,6 +129,8 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
     this.auditingRepositoryDecoratorFactory = requireNonNull(auditingRepositoryDecoratorFactory);
     this.settingsAuditingRepositoryDecoratorFactory =
         requireNonNull(settingsAuditingRepositoryDecoratorFactory);
+    this.repositoryPipelineCache = requireNonNull(repositoryPipelineCache);
+    this.referenceJoinPolicy = requireNonNull(referenceJoinPolicy);
 
     dynamicRepositoryDecoratorRegistry.excludeEntityType(AUDIT_SETTINGS);
 
@@ -134,6 +141,11 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
 
   @Override
   public Repository<Entity> createDecoratedRepository(Repository<Entity> repository) {
+    return repositoryPipelineCache.getDecoratedRepository(
+        repository, this::createDecoratedRepositoryPipeline);
+  }
+
+  private Repository<Entity> createDecoratedRepositoryPipeline(Repository<Entity> repository) {
     Repository<Entity> decoratedRepository = repository;
 
     // Query the L2 cache before querying the database
@@ -166,7 +178,9 @@ public class MolgenisRepositoryDecoratorFactory implements RepositoryDecoratorFa
         rowLevelSecurityRepositoryDecoratorFactory.createDecoratedRepository(decoratedRepository);
 
     // Entity reference resolver decorator
-    decoratedRepository = new EntityReferenceResolverDecorator(decoratedRepository, entityManager);
+    decoratedRepository =
+        new EntityReferenceResolverDecorator(
+            decoratedRepository, entityManager, referenceJoinPolicy);
 
     // Entity listener
     decoratedRepository =
@@ -0,0 +1,48 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
+import static org.molgenis.data.util.EntityTypeUtils.isSystemEntity;
+
+import org.molgenis.data.ReferenceJoinPolicy;
+import org.molgenis.data.decorator.DynamicRepositoryDecoratorRegistry;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Allows joining references to entity types of which the repository pipeline does not apply
+ * decorators that affect reading data other than the entity type permission check, which is
+ * performed by this policy instead.
+ */
+@Component
+class ReferenceJoinPolicyImpl implements ReferenceJoinPolicy {
+  private final UserPermissionEvaluator permissionService;
+  private final RowLevelSecurityRepositoryDecoratorFactory
+      rowLevelSecurityRepositoryDecoratorFactory;
+  private final AuditingRepositoryDecoratorFactory auditingRepositoryDecoratorFactory;
+  private final DynamicRepositoryDecoratorRegistry dynamicRepositoryDecoratorRegistry;
+
+  ReferenceJoinPolicyImpl(
+      UserPermissionEvaluator permissionService,
+      RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory,
+      AuditingRepositoryDecoratorFactory auditingRepositoryDecoratorFactory,
+      DynamicRepositoryDecoratorRegistry dynamicRepositoryDecoratorRegistry) {
+    this.permissionService = requireNonNull(permissionService);
+    this.rowLevelSecurityRepositoryDecoratorFactory =
+        requireNonNull(rowLevelSecurityRepositoryDecoratorFactory);
+    this.auditingRepositoryDecoratorFactory = requireNonNull(auditingRepositoryDecoratorFactory);
+    this.dynamicRepositoryDecoratorRegistry = requireNonNull(dynamicRepositoryDecoratorRegistry);
+  }
+
+  @Override
+  public boolean isJoinable(EntityType refEntityType) {
+    return !isSystemEntity(refEntityType)
+        && !rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(refEntityType)
+        && !auditingRepositoryDecoratorFactory.isAudited(refEntityType)
+        && permissionService.hasPermission(new EntityTypeIdentity(refEntityType), READ_DATA)
+        && !dynamicRepositoryDecoratorRegistry.isDecorated(refEntityType);
+  }
+}
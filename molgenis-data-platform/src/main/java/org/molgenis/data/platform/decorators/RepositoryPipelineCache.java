@@ -0,0 +1,218 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.decorator.meta.DecoratorConfigurationMetadata.DECORATOR_CONFIGURATION;
+import static org.molgenis.data.decorator.meta.DecoratorParametersMetadata.DECORATOR_PARAMETERS;
+import static org.molgenis.data.event.BootstrappingEvent.BootstrappingStatus.FINISHED;
+import static org.molgenis.data.meta.model.AttributeMetadata.ATTRIBUTE_META_DATA;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+import static org.molgenis.data.meta.model.PackageMetadata.PACKAGE;
+import static org.molgenis.data.meta.model.TagMetadata.TAG;
+import static org.molgenis.security.audit.AuditSettingsImpl.AUDIT_SETTINGS;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.event.BootstrappingEvent;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionListener;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.data.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Caches decorated repositories per entity type so that the repository decorator pipeline is not
+ * rebuilt on every repository request.
+ *
+ * <p>Which decorators are applied depends on entity type metadata, decorator configurations, audit
+ * settings and row level security. Cached pipelines are tagged with a metadata version that is
+ * incremented after commit of a transaction that changed any of these entity types. Within a
+ * transaction that changed them the cache is bypassed.
+ *
+ * <p>A cached pipeline decorates the repository it was created for. It is only returned for a
+ * repository of the same class with an equal entity type, otherwise the pipeline is rebuilt.
+ */
+@Component
+public class RepositoryPipelineCache implements TransactionListener {
+  private static final Logger LOG = LoggerFactory.getLogger(RepositoryPipelineCache.class);
+
+  /** Entity types whose data determines how a repository is decorated */
+  private static final Set<String> PIPELINE_ENTITY_TYPE_IDS =
+      Set.of(
+          ENTITY_TYPE_META_DATA,
+          ATTRIBUTE_META_DATA,
+          PACKAGE,
+          TAG,
+          DECORATOR_CONFIGURATION,
+          DECORATOR_PARAMETERS,
+          AUDIT_SETTINGS);
+
+  private final ConcurrentMap<PipelineKey, Pipeline> pipelines = new ConcurrentHashMap<>();
+  private final AtomicLong metadataVersion = new AtomicLong();
+
+  private final TransactionInformation transactionInformation;
+  private final RowLevelSecurityRepositoryDecoratorFactory
+      rowLevelSecurityRepositoryDecoratorFactory;
+  private final Counter hitCounter;
+  private final Counter missCounter;
+  private final Counter rebuildCounter;
+  private volatile boolean bootstrappingDone = false;
+
+  RepositoryPipelineCache(
+      TransactionManager transactionManager,
+      TransactionInformation transactionInformation,
+      RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory,
+      MeterRegistry meterRegistry) {
+    this.transactionInformation = requireNonNull(transactionInformation);
+    this.rowLevelSecurityRepositoryDecoratorFactory =
+        requireNonNull(rowLevelSecurityRepositoryDecoratorFactory);
+    this.hitCounter = createCounter(meterRegistry, "hit");
+    this.missCounter = createCounter(meterRegistry, "miss");
+    this.rebuildCounter = createCounter(meterRegistry, "rebuild");
+    requireNonNull(transactionManager).addTransactionListener(this);
+  }
+
+  private static Counter createCounter(MeterRegistry meterRegistry, String result) {
+    return Counter.builder("repository.pipeline.cache")
+        .description("Number of decorated repository requests")
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Returns the cached decorated repository for the entity type of the given repository or creates
+   * and caches a new one.
+   *
+   * @param repository undecorated repository
+   * @param pipelineFactory creates the decorated repository for an undecorated repository
+   * @return decorated repository
+   */
+  public Repository<Entity> getDecoratedRepository(
+      Repository<Entity> repository, UnaryOperator<Repository<Entity>> pipelineFactory) {
+    if (!bootstrappingDone || !isPipelineDataClean()) {
+      return pipelineFactory.apply(repository);
+    }
+
+    EntityType entityType = repository.getEntityType();
+    PipelineKey key =
+        new PipelineKey(
+            entityType.getId(),
+            rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(entityType));
+    long version = metadataVersion.get();
+
+    Pipeline pipeline = pipelines.get(key);
+    if (pipeline != null && pipeline.getVersion() == version && pipeline.decorates(repository)) {
+      hitCounter.increment();
+      return pipeline.getRepository();
+    }
+
+    if (pipeline == null) {
+      missCounter.increment();
+    } else {
+      rebuildCounter.increment();
+    }
+    Repository<Entity> decoratedRepository = pipelineFactory.apply(repository);
+    pipelines.put(key, new Pipeline(version, repository, decoratedRepository));
+    return decoratedRepository;
+  }
+
+  private boolean isPipelineDataClean() {
+    return transactionInformation.getDirtyRepositories().stream()
+        .noneMatch(PIPELINE_ENTITY_TYPE_IDS::contains);
+  }
+
+  @Override
+  public void afterCommitTransaction(String transactionId) {
+    if (!isPipelineDataClean()) {
+      LOG.debug("Invalidating repository pipeline cache after commit of {}", transactionId);
+      metadataVersion.incrementAndGet();
+    }
+  }
+
+  /** Runs after the bootstrapping listeners of the decorator factories that build the pipeline */
+  @EventListener
+  @Order
+  public void onBootstrappingEvent(BootstrappingEvent event) {
+    this.bootstrappingDone = event.getStatus() == FINISHED;
+    metadataVersion.incrementAndGet();
+    pipelines.clear();
+  }
+
+  private static class PipelineKey {
+    private final String entityTypeId;
+    private final boolean rowLevelSecured;
+
+    PipelineKey(String entityTypeId, boolean rowLevelSecured) {
+      this.entityTypeId = requireNonNull(entityTypeId);
+      this.rowLevelSecured = rowLevelSecured;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      PipelineKey that = (PipelineKey) o;
+      return rowLevelSecured == that.rowLevelSecured && entityTypeId.equals(that.entityTypeId);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(entityTypeId, rowLevelSecured);
+    }
+  }
+
+  private static class Pipeline {
+    private final long version;
+    private final Repository<Entity> undecoratedRepository;
+    private final Repository<Entity> repository;
+
+    Pipeline(
+        long version, Repository<Entity> undecoratedRepository, Repository<Entity> repository) {
+      this.version = version;
+      this.undecoratedRepository = requireNonNull(undecoratedRepository);
+      this.repository = requireNonNull(repository);
+    }
+
+    long getVersion() {
+      return version;
+    }
+
+    /**
+     * Returns whether this pipeline can be used for the given undecorated repository. Backends
+     * create a new repository on every request, so repositories are compared by class and entity
+     * type instead of by instance.
+     */
+    boolean decorates(Repository<Entity> otherUndecoratedRepository) {
+      if (undecoratedRepository == otherUndecoratedRepository) {
+        return true;
+      }
+      if (undecoratedRepository.getClass() != otherUndecoratedRepository.getClass()) {
+        return false;
+      }
+      EntityType entityType = undecoratedRepository.getEntityType();
+      EntityType otherEntityType = otherUndecoratedRepository.getEntityType();
+      return entityType == otherEntityType || EntityUtils.equals(entityType, otherEntityType);
+    }
+
+    Repository<Entity> getRepository() {
+      return repository;
+    }
+  }
+}
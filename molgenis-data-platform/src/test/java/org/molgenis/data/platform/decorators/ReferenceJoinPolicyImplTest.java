@@ -0,0 +1,83 @@
+package org.molgenis.data.platform.decorators;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
+import static org.molgenis.data.system.model.RootSystemPackage.PACKAGE_SYSTEM;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.decorator.DynamicRepositoryDecoratorRegistry;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.meta.model.Package;
+import org.molgenis.data.security.EntityTypeIdentity;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
+import org.molgenis.security.core.UserPermissionEvaluator;
+import org.molgenis.test.AbstractMockitoTest;
+
+class ReferenceJoinPolicyImplTest extends AbstractMockitoTest {
+  @Mock private UserPermissionEvaluator permissionService;
+
+  @Mock
+  private RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory;
+
+  @Mock private AuditingRepositoryDecoratorFactory auditingRepositoryDecoratorFactory;
+  @Mock private DynamicRepositoryDecoratorRegistry dynamicRepositoryDecoratorRegistry;
+  @Mock private EntityType entityType;
+  private ReferenceJoinPolicyImpl referenceJoinPolicy;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    referenceJoinPolicy =
+        new ReferenceJoinPolicyImpl(
+            permissionService,
+            rowLevelSecurityRepositoryDecoratorFactory,
+            auditingRepositoryDecoratorFactory,
+            dynamicRepositoryDecoratorRegistry);
+  }
+
+  @Test
+  void isJoinable() {
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(permissionService.hasPermission(new EntityTypeIdentity("MyEntityType"), READ_DATA))
+        .thenReturn(true);
+    assertTrue(referenceJoinPolicy.isJoinable(entityType));
+  }
+
+  @Test
+  void isJoinableSystemEntityType() {
+    Package systemPackage = when(mock(Package.class).getId()).thenReturn(PACKAGE_SYSTEM).getMock();
+    when(entityType.getPackage()).thenReturn(systemPackage);
+    assertFalse(referenceJoinPolicy.isJoinable(entityType));
+  }
+
+  @Test
+  void isJoinableRowLevelSecured() {
+    when(rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(entityType)).thenReturn(true);
+    assertFalse(referenceJoinPolicy.isJoinable(entityType));
+  }
+
+  @Test
+  void isJoinableAudited() {
+    when(auditingRepositoryDecoratorFactory.isAudited(entityType)).thenReturn(true);
+    assertFalse(referenceJoinPolicy.isJoinable(entityType));
+  }
+
+  @Test
+  void isJoinableNoReadPermission() {
+    when(entityType.getId()).thenReturn("MyEntityType");
+    assertFalse(referenceJoinPolicy.isJoinable(entityType));
+  }
+
+  @Test
+  void isJoinableDynamicallyDecorated() {
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(permissionService.hasPermission(new EntityTypeIdentity("MyEntityType"), READ_DATA))
+        .thenReturn(true);
+    when(dynamicRepositoryDecoratorRegistry.isDecorated(entityType)).thenReturn(true);
+    assertFalse(referenceJoinPolicy.isJoinable(entityType));
+  }
+}
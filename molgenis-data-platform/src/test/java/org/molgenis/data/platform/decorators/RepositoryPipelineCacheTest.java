@@ -0,0 +1,207 @@
+package org.molgenis.data.platform.decorators;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.event.BootstrappingEvent.BootstrappingStatus.FINISHED;
+import static org.molgenis.data.event.BootstrappingEvent.BootstrappingStatus.STARTED;
+import static org.molgenis.data.meta.model.EntityTypeMetadata.ENTITY_TYPE_META_DATA;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.AbstractRepositoryDecorator;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Repository;
+import org.molgenis.data.event.BootstrappingEvent;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.security.owned.RowLevelSecurityRepositoryDecoratorFactory;
+import org.molgenis.data.transaction.TransactionInformation;
+import org.molgenis.data.transaction.TransactionManager;
+import org.molgenis.test.AbstractMockitoTest;
+
+class RepositoryPipelineCacheTest extends AbstractMockitoTest {
+  @Mock private TransactionManager transactionManager;
+  @Mock private TransactionInformation transactionInformation;
+
+  @Mock
+  private RowLevelSecurityRepositoryDecoratorFactory rowLevelSecurityRepositoryDecoratorFactory;
+
+  @Mock private Repository<Entity> repository;
+  @Mock private EntityType entityType;
+  @Mock private Repository<Entity> otherRepository;
+  @Mock private EntityType otherEntityType;
+
+  private final UnaryOperator<Repository<Entity>> pipelineFactory =
+      repo -> new AbstractRepositoryDecorator<>(repo) {};
+
+  private MeterRegistry meterRegistry;
+  private RepositoryPipelineCache repositoryPipelineCache;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    meterRegistry = new SimpleMeterRegistry();
+    repositoryPipelineCache =
+        new RepositoryPipelineCache(
+            transactionManager,
+            transactionInformation,
+            rowLevelSecurityRepositoryDecoratorFactory,
+            meterRegistry);
+    repositoryPipelineCache.onBootstrappingEvent(new BootstrappingEvent(FINISHED));
+  }
+
+  @Test
+  void testRegistersTransactionListener() {
+    verify(transactionManager).addTransactionListener(repositoryPipelineCache);
+  }
+
+  @Test
+  void testGetDecoratedRepositoryCached() {
+    setUpRepository();
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    assertSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory));
+    assertEquals(1, count("miss"));
+    assertEquals(1, count("hit"));
+    assertEquals(0, count("rebuild"));
+  }
+
+  @Test
+  void testGetDecoratedRepositoryOtherRepositoryInstance() {
+    setUpRepository();
+    when(otherRepository.getEntityType()).thenReturn(entityType);
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    assertSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(otherRepository, pipelineFactory));
+    assertEquals(1, count("hit"));
+  }
+
+  @Test
+  void testGetDecoratedRepositoryOtherRepositoryClass() {
+    setUpRepository();
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    Repository<Entity> otherClassRepository = new AbstractRepositoryDecorator<>(repository) {};
+    Repository<Entity> otherDecoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(otherClassRepository, pipelineFactory);
+    assertNotSame(decoratedRepository, otherDecoratedRepository);
+    assertEquals(1, count("rebuild"));
+  }
+
+  @Test
+  void testGetDecoratedRepositoryOtherEntityType() {
+    setUpRepository();
+    when(otherRepository.getEntityType()).thenReturn(otherEntityType);
+    when(otherEntityType.getId()).thenReturn("MyEntityType");
+    when(otherEntityType.getLabel()).thenReturn("My updated entity type");
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    assertNotSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(otherRepository, pipelineFactory));
+    assertEquals(1, count("rebuild"));
+  }
+
+  @Test
+  void testGetDecoratedRepositoryRowLevelSecurityChanged() {
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(entityType.getId()).thenReturn("MyEntityType");
+    when(rowLevelSecurityRepositoryDecoratorFactory.isRowLevelSecured(entityType))
+        .thenReturn(false, true);
+    when(transactionInformation.getDirtyRepositories()).thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    Repository<Entity> rowLevelSecuredRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    assertNotSame(decoratedRepository, rowLevelSecuredRepository);
+    assertEquals(2, count("miss"));
+  }
+
+  @Test
+  void testGetDecoratedRepositoryMetadataDirty() {
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(singleton(ENTITY_TYPE_META_DATA));
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    assertNotSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory));
+    assertEquals(0, count("miss"));
+    assertEquals(0, count("hit"));
+  }
+
+  @Test
+  void testGetDecoratedRepositoryBootstrapping() {
+    repositoryPipelineCache.onBootstrappingEvent(new BootstrappingEvent(STARTED));
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    assertNotSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory));
+  }
+
+  @Test
+  void testAfterCommitTransactionMetadataChanged() {
+    setUpRepository();
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(emptySet())
+        .thenReturn(singleton(ENTITY_TYPE_META_DATA))
+        .thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    repositoryPipelineCache.afterCommitTransaction("transactionId");
+    assertNotSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory));
+    assertEquals(1, count("miss"));
+    assertEquals(1, count("rebuild"));
+  }
+
+  @Test
+  void testAfterCommitTransactionDataChanged() {
+    setUpRepository();
+    when(transactionInformation.getDirtyRepositories())
+        .thenReturn(emptySet())
+        .thenReturn(singleton("MyEntityType"))
+        .thenReturn(emptySet());
+
+    Repository<Entity> decoratedRepository =
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory);
+    repositoryPipelineCache.afterCommitTransaction("transactionId");
+    assertSame(
+        decoratedRepository,
+        repositoryPipelineCache.getDecoratedRepository(repository, pipelineFactory));
+  }
+
+  private void setUpRepository() {
+    when(repository.getEntityType()).thenReturn(entityType);
+    when(entityType.getId()).thenReturn("MyEntityType");
+  }
+
+  private double count(String result) {
+    return meterRegistry.get("repository.pipeline.cache").tag("result", result).counter().count();
+  }
+}
@@ -0,0 +1,126 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.GREATER;
+import static org.molgenis.data.QueryRule.Operator.LESS;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.Sort.Direction;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.support.QueryImpl;
+
+/**
+ * Iterable that batches a Query using keyset pagination.
+ *
+ * <p>Instead of increasing the offset of each batch, each batch after the first selects the rows
+ * that come after the value of the key attribute in the last row of the previous batch. The key
+ * attribute must be unique and non-nillable so that it defines a total order on the query result.
+ *
+ * @see <a href="https://use-the-index-luke.com/no-offset">No offset</a>
+ */
+abstract class KeysetBatchingQueryResult implements Iterable<Entity> {
+  private final int batchSize;
+  private final Query<Entity> query;
+  private final Attribute keyAttribute;
+  private final Direction direction;
+
+  KeysetBatchingQueryResult(
+      int batchSize, Query<Entity> query, Attribute keyAttribute, Direction direction) {
+    if (batchSize <= 0) {
+      throw new IllegalArgumentException("BatchSize must be greater than 0");
+    }
+    this.batchSize = batchSize;
+    this.query = requireNonNull(query);
+    this.keyAttribute = requireNonNull(keyAttribute);
+    this.direction = requireNonNull(direction);
+  }
+
+  @Override
+  public Iterator<Entity> iterator() {
+    return new Iterator<Entity>() {
+      /** Number of retrieved elements */
+      private int count = 0;
+      /** Last element of the previous batch, null for the first batch */
+      private Entity lastEntity;
+      /** Whether the previous batch was the last batch */
+      private boolean lastBatch;
+      /** Element iterator for the current batch */
+      private Iterator<Entity> it = Collections.emptyIterator();
+
+      @Override
+      public boolean hasNext() {
+        if (!it.hasNext() && !lastBatch) {
+          it = nextBatch();
+        }
+        return it.hasNext();
+      }
+
+      @Override
+      public Entity next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        return it.next();
+      }
+
+      private Iterator<Entity> nextBatch() {
+        int limit = query.getPageSize();
+        int nextBatchSize = limit == 0 ? batchSize : Math.min(batchSize, limit - count);
+        if (nextBatchSize <= 0) {
+          lastBatch = true;
+          return Collections.emptyIterator();
+        }
+
+        List<Entity> batch = getBatch(createBatchQuery(lastEntity, nextBatchSize));
+        if (batch.size() < nextBatchSize) {
+          lastBatch = true;
+        }
+        if (!batch.isEmpty()) {
+          lastEntity = batch.get(batch.size() - 1);
+          count += batch.size();
+        }
+        return batch.iterator();
+      }
+    };
+  }
+
+  /**
+   * Creates the query for the next batch. The first batch applies the offset of the original query,
+   * subsequent batches filter on the key attribute value of the last retrieved entity.
+   *
+   * @param lastEntity last entity of the previous batch or <code>null</code> for the first batch
+   * @param pageSize batch size
+   */
+  Query<Entity> createBatchQuery(Entity lastEntity, int pageSize) {
+    QueryImpl<Entity> batchQuery;
+    if (lastEntity == null) {
+      batchQuery = new QueryImpl<>(query);
+    } else {
+      List<QueryRule> rules = new ArrayList<>();
+      if (!query.getRules().isEmpty()) {
+        rules.add(new QueryRule(new ArrayList<>(query.getRules())));
+        rules.add(new QueryRule(AND));
+      }
+      Object keyValue = lastEntity.get(keyAttribute.getName());
+      rules.add(
+          new QueryRule(
+              keyAttribute.getName(), direction == Direction.ASC ? GREATER : LESS, keyValue));
+
+      batchQuery = new QueryImpl<>(rules);
+      batchQuery.setFetch(query.getFetch());
+      batchQuery.setSort(query.getSort());
+    }
+    batchQuery.setPageSize(pageSize);
+    return batchQuery;
+  }
+
+  protected abstract List<Entity> getBatch(Query<Entity> batchQuery);
+}
@@ -0,0 +1,116 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Collections.emptyList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.AGGREGATE_COUNT_COLUMN;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.AGGREGATE_X_COLUMN;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.AGGREGATE_Y_COLUMN;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
+import org.molgenis.data.Entity;
+import org.molgenis.data.aggregation.AggregateLabelComparator;
+import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.postgresql.PostgreSqlEntityFactory.EntityMapper;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+/**
+ * Collects the rows created by {@link PostgreSqlQueryGenerator#getSqlAggregate} into an {@link
+ * AggregateResult}. Labels are sorted by {@link AggregateLabelComparator}, like the labels of other
+ * backends. Labels of reference attributes are (lazy) referenced entities, labels of date and date
+ * time attributes are formatted as ISO-8601 strings.
+ */
+class PostgreSqlAggregateResultHandler implements RowCallbackHandler {
+  private static final Comparator<Object> LABEL_COMPARATOR = new AggregateLabelComparator();
+
+  private final PostgreSqlEntityFactory postgreSqlEntityFactory;
+  private final EntityMapper entityMapper;
+  private final Attribute xAttr;
+  @Nullable private final Attribute yAttr;
+  private final Map<Object, Map<Object, Long>> counts = new HashMap<>();
+
+  PostgreSqlAggregateResultHandler(
+      PostgreSqlEntityFactory postgreSqlEntityFactory,
+      EntityMapper entityMapper,
+      Attribute xAttr,
+      @Nullable Attribute yAttr) {
+    this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
+    this.entityMapper = requireNonNull(entityMapper);
+    this.xAttr = requireNonNull(xAttr);
+    this.yAttr = yAttr;
+  }
+
+  @Override
+  public void processRow(ResultSet resultSet) throws SQLException {
+    Object x = entityMapper.mapAggregateValue(resultSet, xAttr, AGGREGATE_X_COLUMN);
+    Object y =
+        yAttr != null ? entityMapper.mapAggregateValue(resultSet, yAttr, AGGREGATE_Y_COLUMN) : null;
+    long count = resultSet.getLong(AGGREGATE_COUNT_COLUMN);
+    counts.computeIfAbsent(x, key -> new HashMap<>()).put(y, count);
+  }
+
+  AggregateResult getAggregateResult() {
+    List<Object> xValues = sort(counts.keySet().stream());
+    List<Object> yValues =
+        yAttr != null
+            ? sort(counts.values().stream().flatMap(yCounts -> yCounts.keySet().stream()))
+            : emptyList();
+
+    List<List<Long>> matrix = new ArrayList<>(xValues.size());
+    for (Object x : xValues) {
+      Map<Object, Long> yCounts = counts.get(x);
+      List<Long> row;
+      if (yAttr != null) {
+        row = new ArrayList<>(yValues.size());
+        for (Object y : yValues) {
+          row.add(yCounts.getOrDefault(y, 0L));
+        }
+      } else {
+        row = new ArrayList<>(1);
+        row.add(yCounts.get(null));
+      }
+      matrix.add(row);
+    }
+
+    List<Object> yLabels = yAttr != null ? toLabels(yValues, yAttr) : emptyList();
+    return new AggregateResult(matrix, toLabels(xValues, xAttr), yLabels);
+  }
+
+  private static List<Object> sort(Stream<Object> values) {
+    return values.distinct().sorted(LABEL_COMPARATOR).collect(toList());
+  }
+
+  private List<Object> toLabels(List<Object> values, Attribute attr) {
+    if (isReferenceType(attr)) {
+      List<Object> refIds = values.stream().filter(Objects::nonNull).collect(toList());
+      Iterator<Entity> refEntities =
+          postgreSqlEntityFactory.getReferences(attr.getRefEntity(), refIds).iterator();
+      return values.stream()
+          .map(value -> value != null ? refEntities.next() : null)
+          .collect(toList());
+    } else {
+      return values.stream().map(PostgreSqlAggregateResultHandler::toLabel).collect(toList());
+    }
+  }
+
+  private static Object toLabel(Object value) {
+    if (value instanceof LocalDate || value instanceof Instant) {
+      return value.toString();
+    }
+    return value;
+  }
+}
@@ -0,0 +1,90 @@
+package org.molgenis.data.postgresql;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import org.molgenis.data.MolgenisDataException;
+
+/**
+ * Writes rows in the PostgreSQL binary COPY format for values created by {@link
+ * PostgreSqlUtils#getPostgreSqlValue}.
+ *
+ * @see <a href="https://www.postgresql.org/docs/current/sql-copy.html#id-1.9.3.55.9.4">Binary
+ *     format</a>
+ */
+class PostgreSqlBinaryCopyWriter {
+  private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', -1, '\r', '\n', 0};
+  /** Epoch of PostgreSQL date and timestamp values */
+  private static final LocalDate POSTGRESQL_EPOCH_DATE = LocalDate.of(2000, 1, 1);
+
+  private static final OffsetDateTime POSTGRESQL_EPOCH =
+      POSTGRESQL_EPOCH_DATE.atStartOfDay().atOffset(UTC);
+
+  private final DataOutputStream outputStream;
+
+  PostgreSqlBinaryCopyWriter(OutputStream outputStream) {
+    this.outputStream = new DataOutputStream(outputStream);
+  }
+
+  void writeHeader() throws IOException {
+    outputStream.write(SIGNATURE);
+    outputStream.writeInt(0); // flags
+    outputStream.writeInt(0); // header extension length
+  }
+
+  void writeRow(List<Object> values) throws IOException {
+    outputStream.writeShort(values.size());
+    for (Object value : values) {
+      writeValue(value);
+    }
+  }
+
+  void writeTrailer() throws IOException {
+    outputStream.writeShort(-1);
+    outputStream.flush();
+  }
+
+  private void writeValue(Object value) throws IOException {
+    if (value == null) {
+      outputStream.writeInt(-1);
+    } else if (value instanceof String) {
+      byte[] bytes = ((String) value).getBytes(UTF_8);
+      outputStream.writeInt(bytes.length);
+      outputStream.write(bytes);
+    } else if (value instanceof Integer) {
+      outputStream.writeInt(Integer.BYTES);
+      outputStream.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      outputStream.writeInt(Long.BYTES);
+      outputStream.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      outputStream.writeInt(Double.BYTES);
+      outputStream.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      outputStream.writeInt(1);
+      outputStream.writeBoolean((Boolean) value);
+    } else if (value instanceof LocalDate) {
+      // days since 2000-01-01
+      outputStream.writeInt(Integer.BYTES);
+      outputStream.writeInt(
+          (int) ChronoUnit.DAYS.between(POSTGRESQL_EPOCH_DATE, (LocalDate) value));
+    } else if (value instanceof OffsetDateTime) {
+      // microseconds since 2000-01-01T00:00:00Z
+      Duration duration = Duration.between(POSTGRESQL_EPOCH, (OffsetDateTime) value);
+      outputStream.writeInt(Long.BYTES);
+      outputStream.writeLong(duration.getSeconds() * 1_000_000L + duration.getNano() / 1000);
+    } else {
+      throw new MolgenisDataException(
+          format("Binary copy of value type [%s] is not supported", value.getClass().getName()));
+    }
+  }
+}
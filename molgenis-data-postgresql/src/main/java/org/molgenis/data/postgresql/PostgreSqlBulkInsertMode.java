@@ -0,0 +1,9 @@
+package org.molgenis.data.postgresql;
+
+/** How {@link PostgreSqlRepository} persists a stream of added entities. */
+public enum PostgreSqlBulkInsertMode {
+  /** JDBC batches of INSERT statements */
+  INSERT,
+  /** COPY ... FROM STDIN (FORMAT binary), faster for large numbers of entities */
+  COPY
+}
@@ -4,14 +4,19 @@ import static java.util.Objects.requireNonNull;
 
 import javax.sql.DataSource;
 import org.molgenis.data.DataService;
+import org.molgenis.data.EntityCountEstimator;
 import org.molgenis.data.RepositoryCollection;
 import org.molgenis.data.postgresql.identifier.EntityTypeRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.jdbc.core.JdbcTemplate;
 
 @Configuration
 public class PostgreSqlConfiguration {
+  @Value("${db_bulk_insert_mode:INSERT}")
+  private PostgreSqlBulkInsertMode bulkInsertMode;
+
   private final PostgreSqlEntityFactory postgreSqlEntityFactory;
   private final DataSource dataSource;
   private final DataService dataService;
@@ -42,7 +47,12 @@ public class PostgreSqlConfiguration {
   public RepositoryCollection postgreSqlRepositoryCollection() {
     return new PostgreSqlRepositoryCollectionDecorator(
         new PostgreSqlRepositoryCollection(
-            postgreSqlEntityFactory, dataSource, jdbcTemplate(), dataService),
+            postgreSqlEntityFactory, dataSource, jdbcTemplate(), dataService, bulkInsertMode),
         entityTypeRegistry);
   }
+
+  @Bean
+  public EntityCountEstimator entityCountEstimator() {
+    return new PostgreSqlEntityCountEstimator(jdbcTemplate());
+  }
 }
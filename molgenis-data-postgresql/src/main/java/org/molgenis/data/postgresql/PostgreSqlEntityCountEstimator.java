@@ -0,0 +1,44 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getTableName;
+import static org.molgenis.data.postgresql.PostgreSqlRepositoryCollection.POSTGRESQL;
+
+import java.util.List;
+import java.util.OptionalLong;
+import org.molgenis.data.EntityCountEstimator;
+import org.molgenis.data.meta.model.EntityType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Estimates entity counts based on the row count statistics of the PostgreSQL planner, which are
+ * updated by VACUUM, ANALYZE and CREATE INDEX.
+ */
+class PostgreSqlEntityCountEstimator implements EntityCountEstimator {
+  private static final String SQL_ESTIMATE_COUNT =
+      "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  PostgreSqlEntityCountEstimator(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = requireNonNull(jdbcTemplate);
+  }
+
+  /**
+   * Returns an empty optional for entity types that are not stored in PostgreSQL and for tables
+   * that have not been analyzed yet.
+   */
+  @Override
+  public OptionalLong estimateCount(EntityType entityType) {
+    if (!POSTGRESQL.equals(entityType.getBackend()) || entityType.isAbstract()) {
+      return OptionalLong.empty();
+    }
+
+    List<Long> estimates =
+        jdbcTemplate.queryForList(SQL_ESTIMATE_COUNT, Long.class, getTableName(entityType));
+    if (estimates.isEmpty() || estimates.get(0) == null || estimates.get(0) <= 0) {
+      return OptionalLong.empty();
+    }
+    return OptionalLong.of(estimates.get(0));
+  }
+}
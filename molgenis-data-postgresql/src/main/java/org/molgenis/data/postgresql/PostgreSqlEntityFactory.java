@@ -5,16 +5,25 @@ import static java.util.Arrays.asList;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getColumnName;
+import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.isJoinedAttribute;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
+import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 import static org.molgenis.data.util.MolgenisDateFormat.parseInstant;
 import static org.molgenis.data.util.MolgenisDateFormat.parseLocalDate;
 
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import java.math.BigDecimal;
 import java.sql.Array;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import javax.annotation.Nonnull;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
@@ -70,12 +79,138 @@ class PostgreSqlEntityFactory {
             continue;
           }
 
-          e.set(attr.getName(), mapValue(resultSet, attr));
+          Object value;
+          if (isJoinedAttribute(attr, fetch)) {
+            value = mapJoinedValue(resultSet.getString(getColumnName(attr, false)), attr);
+          } else {
+            value = mapValue(resultSet, attr);
+          }
+          e.set(attr.getName(), value);
         }
       }
       return e;
     }
 
+    /**
+     * Maps a result set value of a joined attribute, a JSON object or array of JSON objects, to
+     * entities that are hydrated with the attribute values in the JSON objects.
+     *
+     * @param json JSON value or null
+     * @param attr joined attribute
+     * @return entity or list of entities
+     */
+    private Object mapJoinedValue(String json, Attribute attr) {
+      return json != null ? mapJsonValue(JsonParser.parseString(json), attr, fetch) : null;
+    }
+
+    private Entity mapJsonEntity(JsonObject jsonObject, EntityType refEntityType, Fetch refFetch) {
+      Entity entity = entityManager.createFetch(refEntityType, refFetch);
+      for (Attribute attr : refEntityType.getAtomicAttributes()) {
+        String attrName = attr.getName();
+        if (attr.getExpression() == null && jsonObject.has(attrName)) {
+          entity.set(attrName, mapJsonValue(jsonObject.get(attrName), attr, refFetch));
+        }
+      }
+      return entity;
+    }
+
+    /**
+     * Maps a JSON value created by {@link PostgreSqlQueryGenerator} to an entity value.
+     *
+     * @param jsonValue JSON value
+     * @param attr attribute
+     * @param attrFetch fetch of the entity type that contains the attribute
+     * @return value for the given attribute in the type defined by the attribute type
+     */
+    private Object mapJsonValue(JsonElement jsonValue, Attribute attr, Fetch attrFetch) {
+      if (jsonValue.isJsonNull()) {
+        return null;
+      }
+
+      Object value;
+      switch (attr.getDataType()) {
+        case BOOL:
+          value = jsonValue.getAsBoolean();
+          break;
+        case CATEGORICAL:
+        case FILE:
+        case XREF:
+          value = mapJsonReference(jsonValue, attr, attrFetch);
+          break;
+        case CATEGORICAL_MREF:
+        case MREF:
+        case ONE_TO_MANY:
+          JsonArray jsonArray = jsonValue.getAsJsonArray();
+          List<Entity> refEntities = new ArrayList<>(jsonArray.size());
+          for (JsonElement jsonElement : jsonArray) {
+            refEntities.add(mapJsonReference(jsonElement, attr, attrFetch));
+          }
+          value = refEntities;
+          break;
+        case COMPOUND:
+          throw new IllegalAttributeTypeException(attr.getDataType());
+        case DATE:
+          value = LocalDate.parse(jsonValue.getAsString());
+          break;
+        case DATE_TIME:
+          value = OffsetDateTime.parse(jsonValue.getAsString()).toInstant();
+          break;
+        case DECIMAL:
+          value = jsonValue.getAsDouble();
+          break;
+        case EMAIL:
+        case ENUM:
+        case HTML:
+        case HYPERLINK:
+        case SCRIPT:
+        case STRING:
+        case TEXT:
+          value = jsonValue.getAsString();
+          break;
+        case INT:
+          value = jsonValue.getAsInt();
+          break;
+        case LONG:
+          value = jsonValue.getAsLong();
+          break;
+        default:
+          throw new UnexpectedEnumException(attr.getDataType());
+      }
+      return value;
+    }
+
+    private Entity mapJsonReference(JsonElement jsonValue, Attribute attr, Fetch attrFetch) {
+      EntityType refEntityType = attr.getRefEntity();
+      if (isJoinedAttribute(attr, attrFetch)) {
+        return mapJsonEntity(jsonValue.getAsJsonObject(), refEntityType, attrFetch.getFetch(attr));
+      } else {
+        // identifiers of entities with a reference as identifier are stored as the identifier of
+        // the entity referenced by that reference
+        Attribute refIdAttr = refEntityType.getIdAttribute();
+        while (isSingleReferenceType(refIdAttr)) {
+          refIdAttr = refIdAttr.getRefEntity().getIdAttribute();
+        }
+        Object refIdValue = mapJsonValue(jsonValue, refIdAttr, null);
+        return entityManager.getReference(refEntityType, refIdValue);
+      }
+    }
+
+    /**
+     * Maps a single result set value of an aggregate query: the attribute value or, for reference
+     * attributes, the identifier of the referenced entity.
+     *
+     * @param resultSet result set
+     * @param attr aggregated attribute
+     * @param colName column name in the result set
+     * @return value or referenced entity identifier
+     * @throws SQLException if an error occurs reading from the result set
+     */
+    Object mapAggregateValue(ResultSet resultSet, Attribute attr, String colName)
+        throws SQLException {
+      Attribute valueAttr = isReferenceType(attr) ? attr.getRefEntity().getIdAttribute() : attr;
+      return mapValue(resultSet, valueAttr, colName);
+    }
+
     /**
      * Maps a single results set value to an entity value. See the JDBC 4.0 specification appendix B
      * titled "Data Type Conversion Tables" for conversion rules.
@@ -16,6 +16,7 @@ import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.RANGE;
 import static org.molgenis.data.QueryUtils.isTaggedType;
 import static org.molgenis.data.meta.AttributeType.BOOL;
+import static org.molgenis.data.meta.AttributeType.COMPOUND;
 import static org.molgenis.data.meta.AttributeType.ENUM;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getCheckConstraintName;
@@ -33,12 +34,14 @@ import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getUpdateTrig
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.INCLUDE_DEFAULT_CONSTRAINT;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getPersistedAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getTableAttributes;
+import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.isJoinedAttribute;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.isPersistedInPostgreSql;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isStringType;
 import static org.molgenis.data.util.EntityTypeUtils.isTextType;
 
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import java.text.MessageFormat;
 import java.time.Instant;
@@ -47,17 +50,21 @@ import java.time.temporal.ChronoUnit;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.apache.commons.lang3.StringUtils;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.PermissionFilter;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Sort;
 import org.molgenis.data.UnknownAttributeException;
+import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
@@ -78,6 +85,14 @@ class PostgreSqlQueryGenerator {
 
   private static final Logger LOG = LoggerFactory.getLogger(PostgreSqlQueryGenerator.class);
 
+  // aggregate result set column names
+  static final String AGGREGATE_X_COLUMN = "x";
+  static final String AGGREGATE_Y_COLUMN = "y";
+  static final String AGGREGATE_COUNT_COLUMN = "count";
+
+  /** Maximum number of key/value pairs of a single jsonb_build_object call */
+  private static final int JSON_BUILD_OBJECT_MAX_KEY_VALUES = 50;
+
   private static final String UNSPECIFIED_ATTRIBUTE_MSG =
       "Can't use %s without specifying an attribute";
 
@@ -453,6 +468,27 @@ class PostgreSqlQueryGenerator {
         + ") VALUES (?,?,?)";
   }
 
+  static String getSqlCopy(EntityType entityType) {
+    String columns =
+        getTableAttributes(entityType)
+            .map(PostgreSqlNameGenerator::getColumnName)
+            .collect(joining(", "));
+    return "COPY " + getTableName(entityType) + " (" + columns + ") FROM STDIN (FORMAT binary)";
+  }
+
+  static String getSqlCopyJunction(EntityType entityType, Attribute attr) {
+    String junctionTableName = getJunctionTableName(entityType, attr);
+    return "COPY "
+        + junctionTableName
+        + " ("
+        + getJunctionTableOrderColumnName()
+        + ','
+        + getColumnName(entityType.getIdAttribute())
+        + ','
+        + getColumnName(attr)
+        + ") FROM STDIN (FORMAT binary)";
+  }
+
   static String getSqlDeleteAll(EntityType entityType) {
     return "DELETE FROM " + getTableName(entityType);
   }
@@ -550,6 +586,7 @@ class PostgreSqlQueryGenerator {
     }
     final StringBuilder group = new StringBuilder();
     final AtomicInteger count = new AtomicInteger();
+    final AtomicInteger aliasCount = new AtomicInteger();
     final Attribute idAttribute = entityType.getIdAttribute();
     getPersistedAttributes(entityType)
         .forEach(
@@ -561,7 +598,13 @@ class PostgreSqlQueryGenerator {
                   select.append(", ");
                 }
 
-                if (isPersistedInOtherTable(attr)) {
+                if (isJoinedAttribute(attr, q.getFetch())) {
+                  select
+                      .append(
+                          getSqlJoinedReference("this", entityType, attr, q.getFetch(), aliasCount))
+                      .append(" AS ")
+                      .append(getColumnName(attr));
+                } else if (isPersistedInOtherTable(attr)) {
                   if (includeMrefs || (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy())) {
                     if (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy()) {
                       Attribute refIdAttr = attr.getRefEntity().getIdAttribute();
@@ -636,6 +679,133 @@ class PostgreSqlQueryGenerator {
     return result.toString().trim();
   }
 
+  /**
+   * Returns a correlated sub-query that selects the entities referenced by a joined attribute as a
+   * JSON object or, for attributes referencing multiple entities, as a JSON array of objects.
+   *
+   * @param tableAlias alias of the table of the referring entities
+   * @param entityType referring entity type
+   * @param attr joined attribute
+   * @param fetch fetch of the referring entity type
+   * @param aliasCount counter used to create unique table aliases
+   */
+  private static String getSqlJoinedReference(
+      String tableAlias,
+      EntityType entityType,
+      Attribute attr,
+      Fetch fetch,
+      AtomicInteger aliasCount) {
+    EntityType refEntityType = attr.getRefEntity();
+    Fetch refFetch = fetch.getFetch(attr);
+    String refIdColumnName = getColumnName(refEntityType.getIdAttribute());
+    String refAlias = "r" + aliasCount.incrementAndGet();
+    String refObject = getSqlJsonObject(refAlias, refEntityType, refFetch, aliasCount);
+
+    if (isSingleReferenceType(attr)) {
+      return MessageFormat.format(
+          "(SELECT {0} FROM {1} AS {2} WHERE {2}.{3} = {4}.{5})",
+          refObject,
+          getTableName(refEntityType),
+          refAlias,
+          refIdColumnName,
+          tableAlias,
+          getColumnName(attr));
+    } else if (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy()) {
+      return MessageFormat.format(
+          "(SELECT jsonb_agg({0} {1}) FROM {2} AS {3} WHERE {3}.{4} = {5}.{6})",
+          refObject,
+          getSqlOneToManySort(attr),
+          getTableName(refEntityType),
+          refAlias,
+          getColumnName(attr.getMappedBy()),
+          tableAlias,
+          getColumnName(entityType.getIdAttribute()));
+    } else {
+      String junctionAlias = "j" + aliasCount.incrementAndGet();
+      return MessageFormat.format(
+          "(SELECT jsonb_agg({0} ORDER BY {1}.{2}) FROM {3} AS {1} JOIN {4} AS {5} ON {5}.{6} = {1}.{7} WHERE {1}.{8} = {9}.{8})",
+          refObject,
+          junctionAlias,
+          getJunctionTableOrderColumnName(),
+          getJunctionTableName(entityType, attr),
+          getTableName(refEntityType),
+          refAlias,
+          refIdColumnName,
+          getColumnName(attr),
+          getColumnName(entityType.getIdAttribute()),
+          tableAlias);
+    }
+  }
+
+  /**
+   * Returns an expression that builds a JSON object with the fetched attribute values of an entity,
+   * keyed by attribute name. Values of references that are not joined are entity identifiers.
+   */
+  private static String getSqlJsonObject(
+      String tableAlias, EntityType entityType, Fetch fetch, AtomicInteger aliasCount) {
+    List<String> keyValues =
+        getPersistedAttributes(entityType)
+            .filter(attr -> fetch.hasField(attr.getName()))
+            .map(
+                attr ->
+                    getSqlStringLiteral(attr.getName())
+                        + ", "
+                        + getSqlJsonValue(tableAlias, entityType, attr, fetch, aliasCount))
+            .collect(toList());
+
+    // jsonb_build_object accepts at most 100 arguments, concatenate objects for wide entity types
+    return stream(Iterables.partition(keyValues, JSON_BUILD_OBJECT_MAX_KEY_VALUES))
+        .map(partition -> "jsonb_build_object(" + String.join(", ", partition) + ')')
+        .collect(joining(" || "));
+  }
+
+  private static String getSqlJsonValue(
+      String tableAlias,
+      EntityType entityType,
+      Attribute attr,
+      Fetch fetch,
+      AtomicInteger aliasCount) {
+    if (isJoinedAttribute(attr, fetch)) {
+      return getSqlJoinedReference(tableAlias, entityType, attr, fetch, aliasCount);
+    } else if (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy()) {
+      EntityType refEntityType = attr.getRefEntity();
+      String refAlias = "r" + aliasCount.incrementAndGet();
+      return MessageFormat.format(
+          "(SELECT jsonb_agg({0}.{1} {2}) FROM {3} AS {0} WHERE {0}.{4} = {5}.{6})",
+          refAlias,
+          getColumnName(refEntityType.getIdAttribute()),
+          getSqlOneToManySort(attr),
+          getTableName(refEntityType),
+          getColumnName(attr.getMappedBy()),
+          tableAlias,
+          getColumnName(entityType.getIdAttribute()));
+    } else if (isMultipleReferenceType(attr)) {
+      String junctionAlias = "j" + aliasCount.incrementAndGet();
+      return MessageFormat.format(
+          "(SELECT jsonb_agg({0}.{1} ORDER BY {0}.{2}) FROM {3} AS {0} WHERE {0}.{4} = {5}.{4})",
+          junctionAlias,
+          getColumnName(attr),
+          getJunctionTableOrderColumnName(),
+          getJunctionTableName(entityType, attr),
+          getColumnName(entityType.getIdAttribute()),
+          tableAlias);
+    } else {
+      return tableAlias + '.' + getColumnName(attr);
+    }
+  }
+
+  private static String getSqlOneToManySort(Attribute attr) {
+    Sort orderBy = attr.getOrderBy();
+    if (orderBy == null) {
+      orderBy = new Sort(attr.getRefEntity().getIdAttribute().getName());
+    }
+    return getSqlSort(attr.getRefEntity(), new QueryImpl<>().sort(orderBy));
+  }
+
+  private static String getSqlStringLiteral(String value) {
+    return '\'' + value.replace("'", "''") + '\'';
+  }
+
   static String getSqlUpdate(EntityType entityType) {
     return getSqlUpdate(entityType, null);
   }
@@ -690,6 +860,95 @@ class PostgreSqlQueryGenerator {
     return sqlBuilder.toString();
   }
 
+  /**
+   * Produces SQL that groups the entities that match the aggregate query by the values of the x
+   * attribute and optional y attribute. Each group is counted by the number of distinct values of
+   * the optional distinct attribute or otherwise by the number of distinct entities. Multiple
+   * reference attributes are joined with their junction table or referencing table, so that an
+   * entity is part of the group of each of its references.
+   *
+   * <p>Result set columns: {@link #AGGREGATE_X_COLUMN}, {@link #AGGREGATE_Y_COLUMN} if the
+   * aggregate query has a y attribute and {@link #AGGREGATE_COUNT_COLUMN}.
+   *
+   * @param aggregateQuery aggregate query with at least a x attribute
+   * @param parameters prepared statement parameters
+   * @return SQL string
+   */
+  static String getSqlAggregate(
+      EntityType entityType, AggregateQuery aggregateQuery, List<Object> parameters) {
+    Attribute xAttr = aggregateQuery.getAttributeX();
+    if (xAttr == null) {
+      throw new MolgenisDataException("Aggregation requires at least one aggregatable attribute");
+    }
+    Attribute yAttr = aggregateQuery.getAttributeY();
+    Attribute distinctAttr = aggregateQuery.getAttributeDistinct();
+
+    StringBuilder from =
+        new StringBuilder(" FROM ").append(getTableName(entityType)).append(" AS this");
+    String xColumn = getSqlAggregateColumn(entityType, xAttr, "aggX", from);
+    String yColumn = yAttr != null ? getSqlAggregateColumn(entityType, yAttr, "aggY", from) : null;
+    String countColumn =
+        distinctAttr != null
+            ? getSqlAggregateColumn(entityType, distinctAttr, "aggDistinct", from)
+            : "this." + getColumnName(entityType.getIdAttribute());
+
+    StringBuilder sql = new StringBuilder("SELECT ").append(xColumn);
+    sql.append(" AS ").append(AGGREGATE_X_COLUMN);
+    if (yColumn != null) {
+      sql.append(", ").append(yColumn).append(" AS ").append(AGGREGATE_Y_COLUMN);
+    }
+    sql.append(", COUNT(DISTINCT ").append(countColumn).append(") AS ");
+    sql.append(AGGREGATE_COUNT_COLUMN).append(from);
+
+    Query<Entity> q = aggregateQuery.getQuery();
+    if (q != null && !q.getRules().isEmpty()) {
+      // filter in a sub-query to keep its joins separate from the aggregate joins
+      String idColumn = getColumnName(entityType.getIdAttribute());
+      String where = getSqlWhere(entityType, q, parameters, new AtomicInteger());
+      sql.append(" WHERE this.").append(idColumn).append(" IN (SELECT this.").append(idColumn);
+      sql.append(getSqlFrom(entityType, q)).append(" WHERE ").append(where).append(')');
+    }
+
+    sql.append(" GROUP BY ").append(xColumn);
+    if (yColumn != null) {
+      sql.append(", ").append(yColumn);
+    }
+    return sql.toString();
+  }
+
+  /**
+   * Returns the column that contains the values of the attribute to aggregate and appends the join
+   * required to select this column. The join is an outer join so that entities without references
+   * are counted in the missing value group.
+   */
+  private static String getSqlAggregateColumn(
+      EntityType entityType, Attribute attr, String alias, StringBuilder from) {
+    if (attr.hasExpression() || attr.getDataType() == COMPOUND) {
+      throw new MolgenisDataException(
+          format("Cannot aggregate attribute '%s' that is not persisted", attr.getName()));
+    }
+
+    if (!isPersistedInOtherTable(attr)) {
+      return "this." + getColumnName(attr);
+    }
+
+    String idColumn = getColumnName(entityType.getIdAttribute());
+    String quotedAlias = '"' + alias + '"';
+    if (attr.getDataType() == ONE_TO_MANY && attr.isMappedBy()) {
+      EntityType refEntityType = attr.getRefEntity();
+      from.append(" LEFT JOIN ").append(getTableName(refEntityType)).append(" AS ");
+      from.append(quotedAlias);
+      from.append(" ON (this.").append(idColumn).append(" = ").append(quotedAlias).append('.');
+      from.append(getColumnName(attr.getMappedBy())).append(')');
+      return quotedAlias + '.' + getColumnName(refEntityType.getIdAttribute());
+    } else {
+      from.append(" LEFT JOIN ").append(getJunctionTableName(entityType, attr)).append(" AS ");
+      from.append(quotedAlias).append(" ON (this.").append(idColumn).append(" = ");
+      from.append(quotedAlias).append('.').append(idColumn).append(')');
+      return quotedAlias + '.' + getColumnName(attr);
+    }
+  }
+
   private static String getSqlColumn(EntityType entityType, Attribute attr, ColumnMode columnMode) {
     StringBuilder sqlBuilder = new StringBuilder(getColumnName(attr)).append(' ');
 
@@ -913,6 +1172,9 @@ class PostgreSqlQueryGenerator {
         case IN:
           getSqlWhereForInQueryRule(r, entityType, attr, parameters, mrefFilterIndex, result);
           break;
+        case PERMITTED:
+          getSqlWhereForPermittedQueryRule(r, entityType, parameters, result);
+          break;
         case NOT:
           result.append(" NOT ");
           break;
@@ -1113,6 +1375,63 @@ class PostgreSqlQueryGenerator {
     result.append(" IN (").append(in).append(')');
   }
 
+  /**
+   * Appends an EXISTS predicate that matches rows with an access control entry that grants one of
+   * the permissions in the {@link PermissionFilter} mask to one of its security identities. Uses
+   * the unique (object_id_class, object_id_identity) index of the acl_object_identity table.
+   */
+  private static void getSqlWhereForPermittedQueryRule(
+      QueryRule r, EntityType entityType, List<Object> parameters, StringBuilder result) {
+    Object value = r.getValue();
+    if (!(value instanceof PermissionFilter)) {
+      throw new MolgenisDataException(
+          format(
+              "PERMITTED value is of type [%s] instead of [PermissionFilter]",
+              value != null ? value.getClass().getSimpleName() : null));
+    }
+    PermissionFilter permissionFilter = (PermissionFilter) value;
+    Set<String> principals = permissionFilter.getPrincipals();
+    Set<String> authorities = permissionFilter.getAuthorities();
+    if (principals.isEmpty() && authorities.isEmpty()) {
+      result.append("FALSE");
+      return;
+    }
+
+    result
+        .append("EXISTS (SELECT 1 FROM acl_object_identity")
+        .append(" JOIN acl_class ON acl_object_identity.object_id_class = acl_class.id")
+        .append(" JOIN acl_entry ON acl_entry.acl_object_identity = acl_object_identity.id")
+        .append(" JOIN acl_sid ON acl_entry.sid = acl_sid.id")
+        .append(" WHERE acl_class.class = ?")
+        .append(" AND acl_object_identity.object_id_identity = CAST(this.")
+        .append(getColumnName(entityType.getIdAttribute()))
+        .append(" AS VARCHAR)")
+        .append(" AND acl_entry.granting AND (acl_entry.mask & ?) <> 0 AND (");
+    parameters.add(permissionFilter.getObjectType());
+    parameters.add(permissionFilter.getMask());
+
+    if (!principals.isEmpty()) {
+      result.append("(acl_sid.principal AND acl_sid.sid IN (");
+      appendSqlParameters(principals, parameters, result);
+      result.append("))");
+    }
+    if (!authorities.isEmpty()) {
+      if (!principals.isEmpty()) {
+        result.append(" OR ");
+      }
+      result.append("(NOT acl_sid.principal AND acl_sid.sid IN (");
+      appendSqlParameters(authorities, parameters, result);
+      result.append("))");
+    }
+    result.append("))");
+  }
+
+  private static void appendSqlParameters(
+      Collection<?> values, List<Object> parameters, StringBuilder result) {
+    result.append(values.stream().map(v -> "?").collect(joining(",")));
+    parameters.addAll(values);
+  }
+
   /** Package-private for testability */
   static <E extends Entity> String getSqlSort(EntityType entityType, Query<E> q) {
     StringBuilder sortSql = new StringBuilder();
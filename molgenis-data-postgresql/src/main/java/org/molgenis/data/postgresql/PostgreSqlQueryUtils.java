@@ -3,10 +3,13 @@ package org.molgenis.data.postgresql;
 import static com.google.common.collect.Streams.stream;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 import static org.molgenis.util.ApplicationContextProvider.getApplicationContext;
 
 import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import org.molgenis.data.DataService;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 
@@ -81,4 +84,19 @@ class PostgreSqlQueryUtils {
     }
     return backend.equals(PostgreSqlRepositoryCollection.POSTGRESQL);
   }
+
+  /**
+   * Returns whether the entities referenced by the given attribute are selected as JSON together
+   * with the referring entities.
+   *
+   * @param attr attribute
+   * @param fetch fetch of the referring entity type
+   * @return true if the attribute is joined
+   */
+  static boolean isJoinedAttribute(Attribute attr, @Nullable Fetch fetch) {
+    return fetch != null
+        && fetch.isJoined(attr.getName())
+        && isReferenceType(attr)
+        && isPersistedInPostgreSql(attr.getRefEntity());
+  }
 }
@@ -22,7 +22,9 @@ import static org.molgenis.data.QueryRule.Operator.LIKE;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.NOT;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryRule.Operator.RANGE;
+import static org.molgenis.data.RepositoryCapability.AGGREGATEABLE;
 import static org.molgenis.data.RepositoryCapability.CACHEABLE;
 import static org.molgenis.data.RepositoryCapability.MANAGABLE;
 import static org.molgenis.data.RepositoryCapability.QUERYABLE;
@@ -31,9 +33,13 @@ import static org.molgenis.data.RepositoryCapability.VALIDATE_READONLY_CONSTRAIN
 import static org.molgenis.data.RepositoryCapability.VALIDATE_REFERENCE_CONSTRAINT;
 import static org.molgenis.data.RepositoryCapability.VALIDATE_UNIQUE_CONSTRAINT;
 import static org.molgenis.data.RepositoryCapability.WRITABLE;
+import static org.molgenis.data.meta.AttributeType.BOOL;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.postgresql.PostgreSqlExceptionTranslator.VALUE_TOO_LONG_MSG;
 import static org.molgenis.data.postgresql.PostgreSqlNameGenerator.getJunctionTableOrderColumnName;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlAggregate;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCopy;
+import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCopyJunction;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlCount;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlDelete;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlDeleteAll;
@@ -44,6 +50,7 @@ import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelect
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlUpdate;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getJunctionTableAttributes;
 import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.getTableAttributes;
+import static org.molgenis.data.postgresql.PostgreSqlQueryUtils.isTableAttribute;
 import static org.molgenis.data.postgresql.PostgreSqlUtils.getPostgreSqlValue;
 import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 
@@ -54,6 +61,8 @@ import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -67,12 +76,17 @@ import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import javax.sql.DataSource;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.RepositoryCapability;
+import org.molgenis.data.Sort;
+import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.aggregation.AggregateResult;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
@@ -83,9 +97,12 @@ import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.util.UnexpectedEnumException;
 import org.molgenis.validation.ConstraintViolation;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
@@ -105,6 +122,10 @@ class PostgreSqlRepository extends AbstractRepository {
 
   /** JDBC batch operation size */
   static final int BATCH_SIZE = 1000;
+  /** Number of entities per COPY operation */
+  static final int COPY_BATCH_SIZE = 10000;
+  /** COPY output stream buffer size in bytes */
+  private static final int COPY_BUFFER_SIZE = 65536;
   /** Repository capabilities */
   private static final Set<RepositoryCapability> REPO_CAPABILITIES =
       unmodifiableSet(
@@ -112,6 +133,7 @@ class PostgreSqlRepository extends AbstractRepository {
               WRITABLE,
               MANAGABLE,
               QUERYABLE,
+              AGGREGATEABLE,
               VALIDATE_REFERENCE_CONSTRAINT,
               VALIDATE_UNIQUE_CONSTRAINT,
               VALIDATE_NOTNULL_CONSTRAINT,
@@ -133,22 +155,39 @@ class PostgreSqlRepository extends AbstractRepository {
               NOT,
               AND,
               OR,
-              NESTED));
+              NESTED,
+              PERMITTED));
 
   private final PostgreSqlEntityFactory postgreSqlEntityFactory;
   private final JdbcTemplate jdbcTemplate;
   private final DataSource dataSource;
   private final EntityType entityType;
+  private final PostgreSqlBulkInsertMode bulkInsertMode;
 
   PostgreSqlRepository(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
       JdbcTemplate jdbcTemplate,
       DataSource dataSource,
       EntityType entityType) {
+    this(
+        postgreSqlEntityFactory,
+        jdbcTemplate,
+        dataSource,
+        entityType,
+        PostgreSqlBulkInsertMode.INSERT);
+  }
+
+  PostgreSqlRepository(
+      PostgreSqlEntityFactory postgreSqlEntityFactory,
+      JdbcTemplate jdbcTemplate,
+      DataSource dataSource,
+      EntityType entityType,
+      PostgreSqlBulkInsertMode bulkInsertMode) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
     this.jdbcTemplate = requireNonNull(jdbcTemplate);
     this.dataSource = requireNonNull(dataSource);
     this.entityType = requireNonNull(entityType);
+    this.bulkInsertMode = requireNonNull(bulkInsertMode);
   }
 
   @Override
@@ -192,6 +231,28 @@ class PostgreSqlRepository extends AbstractRepository {
     return stream(findAllBatching(q));
   }
 
+  @Override
+  public AggregateResult aggregate(AggregateQuery aggregateQuery) {
+    List<Object> parameters = Lists.newArrayList();
+    String sql = getSqlAggregate(entityType, aggregateQuery, parameters);
+
+    if (LOG.isDebugEnabled()) {
+      LOG.debug("Aggregating [{}] rows for query [{}]", getName(), aggregateQuery.getQuery());
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+      }
+    }
+
+    PostgreSqlAggregateResultHandler resultHandler =
+        new PostgreSqlAggregateResultHandler(
+            postgreSqlEntityFactory,
+            postgreSqlEntityFactory.createRowMapper(entityType, null),
+            aggregateQuery.getAttributeX(),
+            aggregateQuery.getAttributeY());
+    jdbcTemplate.query(sql, parameters.toArray(new Object[0]), resultHandler);
+    return resultHandler.getAggregateResult();
+  }
+
   @Override
   public Entity findOne(Query<Entity> q) {
     Iterator<Entity> iterator = findAll(q).iterator();
@@ -280,6 +341,9 @@ class PostgreSqlRepository extends AbstractRepository {
 
   @Override
   public Integer add(Stream<Entity> entities) {
+    if (bulkInsertMode == PostgreSqlBulkInsertMode.COPY) {
+      return copyBatching(entities.iterator());
+    }
     return addBatching(entities.iterator());
   }
 
@@ -448,25 +512,75 @@ class PostgreSqlRepository extends AbstractRepository {
     };
   }
 
-  private BatchingQueryResult<Entity> findAllBatching(Query<Entity> q) {
-    return new BatchingQueryResult<Entity>(BATCH_SIZE, q) {
-      @Override
-      protected List<Entity> getBatch(Query<Entity> batchQuery) {
-        List<Object> parameters = new ArrayList<>();
+  private Iterable<Entity> findAllBatching(Query<Entity> q) {
+    Sort.Order keysetOrder = getKeysetOrder(q);
+    if (keysetOrder != null) {
+      Attribute keysetAttr = entityType.getAttribute(keysetOrder.getAttr());
+      return new KeysetBatchingQueryResult(BATCH_SIZE, q, keysetAttr, keysetOrder.getDirection()) {
+        @Override
+        protected List<Entity> getBatch(Query<Entity> batchQuery) {
+          return findAllBatch(batchQuery);
+        }
+      };
+    } else {
+      return new BatchingQueryResult<Entity>(BATCH_SIZE, q) {
+        @Override
+        protected List<Entity> getBatch(Query<Entity> batchQuery) {
+          return findAllBatch(batchQuery);
+        }
+      };
+    }
+  }
 
-        String sql = getSqlSelect(getEntityType(), batchQuery, parameters, true);
-        RowMapper<Entity> entityMapper =
-            postgreSqlEntityFactory.createRowMapper(getEntityType(), batchQuery.getFetch());
-        LOG.debug("Fetching [{}] data for query [{}]", getName(), batchQuery);
-        LOG.trace("SQL: {}, parameters: {}", sql, parameters);
-        Stopwatch sw = createStarted();
-        List<Entity> result =
-            jdbcTemplate.query(
-                sql, parameters.toArray(new Object[parameters.size()]), entityMapper);
-        LOG.trace("That took {}", sw);
-        return result;
-      }
-    };
+  private List<Entity> findAllBatch(Query<Entity> batchQuery) {
+    List<Object> parameters = new ArrayList<>();
+
+    String sql = getSqlSelect(getEntityType(), batchQuery, parameters, true);
+    RowMapper<Entity> entityMapper =
+        postgreSqlEntityFactory.createRowMapper(getEntityType(), batchQuery.getFetch());
+    LOG.debug("Fetching [{}] data for query [{}]", getName(), batchQuery);
+    LOG.trace("SQL: {}, parameters: {}", sql, parameters);
+    Stopwatch sw = createStarted();
+    List<Entity> result =
+        jdbcTemplate.query(sql, parameters.toArray(new Object[parameters.size()]), entityMapper);
+    LOG.trace("That took {}", sw);
+    return result;
+  }
+
+  /**
+   * Returns the sort order to use for keyset pagination of the query results or <code>null</code>
+   * if the query results can only be paginated using offsets. Keyset pagination requires the first
+   * sort attribute to be unique, non-nillable and stored in the entity table. Queries without sort
+   * are sorted on the id attribute.
+   *
+   * <p>Package-private for testability
+   */
+  @Nullable
+  @CheckForNull
+  Sort.Order getKeysetOrder(Query<Entity> q) {
+    Sort sort = q.getSort();
+    Sort.Order order;
+    if (sort == null || !sort.iterator().hasNext()) {
+      order = new Sort.Order(entityType.getIdAttribute().getName());
+    } else {
+      order = sort.iterator().next();
+    }
+
+    Attribute attr = entityType.getAttribute(order.getAttr());
+    if (attr == null
+        || !attr.isUnique()
+        || attr.isNillable()
+        || attr.getExpression() != null
+        || !isTableAttribute(attr)
+        || attr.getDataType() == BOOL) {
+      return null;
+    }
+    // the key value of the last entity in a batch is read from the entity
+    Fetch fetch = q.getFetch();
+    if (fetch != null && !fetch.hasField(attr)) {
+      return null;
+    }
+    return order;
   }
 
   private Integer addBatching(Iterator<? extends Entity> entities) {
@@ -511,6 +625,124 @@ class PostgreSqlRepository extends AbstractRepository {
     return count.get();
   }
 
+  /**
+   * Adds entities with COPY ... FROM STDIN (FORMAT binary) instead of INSERT statements. Each batch
+   * of entities is copied to the entity table followed by the junction tables, since a connection
+   * can only perform one COPY operation at a time.
+   */
+  private Integer copyBatching(Iterator<? extends Entity> entities) {
+    AtomicInteger count = new AtomicInteger();
+
+    final Attribute idAttr = entityType.getIdAttribute();
+    final List<Attribute> tableAttrs = getTableAttributes(entityType).collect(toList());
+    final List<Attribute> junctionTableAttrs =
+        getJunctionTableAttributes(entityType).collect(toList());
+    final String copySql = getSqlCopy(entityType);
+
+    Iterators.partition(entities, COPY_BATCH_SIZE)
+        .forEachRemaining(
+            entitiesBatch -> {
+              if (LOG.isDebugEnabled()) {
+                LOG.debug("Copying {} [{}] entities", entitiesBatch.size(), getName());
+                if (LOG.isTraceEnabled()) {
+                  LOG.trace("SQL: {}", copySql);
+                }
+              }
+
+              // persist values in entity table
+              copyIn(
+                  copySql,
+                  copyWriter -> {
+                    List<Object> values = new ArrayList<>(tableAttrs.size());
+                    for (Entity entity : entitiesBatch) {
+                      values.clear();
+                      tableAttrs.forEach(attr -> values.add(getPostgreSqlValue(entity, attr)));
+                      copyWriter.writeRow(values);
+                    }
+                  });
+
+              // persist values in entity junction table
+              if (!junctionTableAttrs.isEmpty()) {
+                Map<String, List<Map<String, Object>>> mrefs =
+                    createMrefMap(idAttr, junctionTableAttrs, entitiesBatch);
+
+                for (Attribute attr : junctionTableAttrs) {
+                  List<Map<String, Object>> attrMrefs = mrefs.get(attr.getName());
+                  if (attrMrefs != null && !attrMrefs.isEmpty()) {
+                    copyMrefs(attrMrefs, attr);
+                  }
+                }
+              }
+
+              count.addAndGet(entitiesBatch.size());
+            });
+
+    return count.get();
+  }
+
+  private void copyMrefs(List<Map<String, Object>> mrefs, Attribute attr) {
+    Attribute idAttr = entityType.getIdAttribute();
+    String copyMrefSql = getSqlCopyJunction(entityType, attr);
+    if (LOG.isDebugEnabled()) {
+      LOG.debug(
+          "Copying junction table entries for entity [{}] attribute [{}]",
+          getName(),
+          attr.getName());
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("SQL: {}", copyMrefSql);
+      }
+    }
+
+    try {
+      copyIn(
+          copyMrefSql,
+          copyWriter -> {
+            for (Map<String, Object> mref : mrefs) {
+              copyWriter.writeRow(getJunctionTableRowValues(mref, attr, idAttr));
+            }
+          });
+    } catch (MolgenisValidationException mve) {
+      throw translateMrefValueTooLong(mve, attr);
+    }
+  }
+
+  /**
+   * Streams rows to the database using the PostgreSQL COPY protocol. Errors are translated by the
+   * exception translator of the JDBC template just like errors of other statements.
+   */
+  private void copyIn(String copySql, CopyRowsWriter copyRowsWriter) {
+    jdbcTemplate.execute(
+        (ConnectionCallback<Long>)
+            connection -> {
+              PGCopyOutputStream copyOutputStream =
+                  new PGCopyOutputStream(
+                      connection.unwrap(PGConnection.class), copySql, COPY_BUFFER_SIZE);
+              try {
+                PostgreSqlBinaryCopyWriter copyWriter =
+                    new PostgreSqlBinaryCopyWriter(copyOutputStream);
+                copyWriter.writeHeader();
+                copyRowsWriter.writeRows(copyWriter);
+                copyWriter.writeTrailer();
+                return copyOutputStream.endCopy();
+              } catch (IOException e) {
+                // writing to the copy stream fails with the cause of the failing copy operation
+                if (e.getCause() instanceof SQLException) {
+                  throw (SQLException) e.getCause();
+                }
+                throw new UncheckedIOException(e);
+              } finally {
+                if (copyOutputStream.isActive()) {
+                  copyOutputStream.cancelCopy();
+                }
+              }
+            });
+  }
+
+  @FunctionalInterface
+  private interface CopyRowsWriter {
+    void writeRows(PostgreSqlBinaryCopyWriter copyWriter) throws IOException;
+  }
+
   private static Map<String, List<Map<String, Object>>> createMrefMap(
       Attribute idAttr, List<Attribute> junctionTableAttrs, List<? extends Entity> entitiesBatch) {
     Map<String, List<Map<String, Object>>> mrefs =
@@ -652,18 +884,39 @@ class PostgreSqlRepository extends AbstractRepository {
           insertMrefSql, new BatchJunctionTableAddPreparedStatementSetter(mrefs, attr, idAttr));
 
     } catch (MolgenisValidationException mve) {
-      if (mve.getMessage().equals(VALUE_TOO_LONG_MSG)) {
-        mve =
-            new MolgenisValidationException(
-                new ConstraintViolation(
-                    format(
-                        "One of the mref values in entity type [%s] attribute [%s] is too long.",
-                        getEntityType().getId(), attr.getName())));
-      }
-      throw mve;
+      throw translateMrefValueTooLong(mve, attr);
     }
   }
 
+  private MolgenisValidationException translateMrefValueTooLong(
+      MolgenisValidationException mve, Attribute attr) {
+    if (mve.getMessage().equals(VALUE_TOO_LONG_MSG)) {
+      return new MolgenisValidationException(
+          new ConstraintViolation(
+              format(
+                  "One of the mref values in entity type [%s] attribute [%s] is too long.",
+                  getEntityType().getId(), attr.getName())));
+    }
+    return mve;
+  }
+
+  /** Returns the order, entity id and referenced entity id column values of a junction table row */
+  private static List<Object> getJunctionTableRowValues(
+      Map<String, Object> mref, Attribute attr, Attribute idAttr) {
+    Object idValue0;
+    Object idValue1;
+    if (attr.isMappedBy()) {
+      Entity mrefEntity = (Entity) mref.get(attr.getName());
+      idValue0 = getPostgreSqlValue(mrefEntity, attr.getRefEntity().getIdAttribute());
+      idValue1 = mref.get(idAttr.getName());
+    } else {
+      idValue0 = mref.get(idAttr.getName());
+      Entity mrefEntity = (Entity) mref.get(attr.getName());
+      idValue1 = getPostgreSqlValue(mrefEntity, mrefEntity.getEntityType().getIdAttribute());
+    }
+    return Arrays.asList(mref.get(getJunctionTableOrderColumnName()), idValue0, idValue1);
+  }
+
   private void removeMrefs(final List<Object> ids, final Attribute attr) {
     final Attribute idAttr = attr.isMappedBy() ? attr.getMappedBy() : entityType.getIdAttribute();
     String deleteMrefSql =
@@ -772,22 +1025,10 @@ class PostgreSqlRepository extends AbstractRepository {
 
     @Override
     public void setValues(PreparedStatement preparedStatement, int i) throws SQLException {
-      Map<String, Object> mref = mrefs.get(i);
-
-      Object idValue0;
-      Object idValue1;
-      if (attr.isMappedBy()) {
-        Entity mrefEntity = (Entity) mref.get(attr.getName());
-        idValue0 = getPostgreSqlValue(mrefEntity, attr.getRefEntity().getIdAttribute());
-        idValue1 = mref.get(idAttr.getName());
-      } else {
-        idValue0 = mref.get(idAttr.getName());
-        Entity mrefEntity = (Entity) mref.get(attr.getName());
-        idValue1 = getPostgreSqlValue(mrefEntity, mrefEntity.getEntityType().getIdAttribute());
-      }
-      preparedStatement.setInt(1, (int) mref.get(getJunctionTableOrderColumnName()));
-      preparedStatement.setObject(2, idValue0);
-      preparedStatement.setObject(3, idValue1);
+      List<Object> values = getJunctionTableRowValues(mrefs.get(i), attr, idAttr);
+      preparedStatement.setInt(1, (int) values.get(0));
+      preparedStatement.setObject(2, values.get(1));
+      preparedStatement.setObject(3, values.get(2));
     }
 
     @Override
@@ -96,16 +96,19 @@ public class PostgreSqlRepositoryCollection extends AbstractRepositoryCollection
   private final DataSource dataSource;
   private final JdbcTemplate jdbcTemplate;
   private final DataService dataService;
+  private final PostgreSqlBulkInsertMode bulkInsertMode;
 
   PostgreSqlRepositoryCollection(
       PostgreSqlEntityFactory postgreSqlEntityFactory,
       DataSource dataSource,
       JdbcTemplate jdbcTemplate,
-      DataService dataService) {
+      DataService dataService,
+      PostgreSqlBulkInsertMode bulkInsertMode) {
     this.postgreSqlEntityFactory = requireNonNull(postgreSqlEntityFactory);
     this.dataSource = requireNonNull(dataSource);
     this.jdbcTemplate = requireNonNull(jdbcTemplate);
     this.dataService = requireNonNull(dataService);
+    this.bulkInsertMode = requireNonNull(bulkInsertMode);
   }
 
   @Override
@@ -699,7 +702,8 @@ public class PostgreSqlRepositoryCollection extends AbstractRepositoryCollection
 
   /** Return a new PostgreSQL repository */
   private PostgreSqlRepository createPostgreSqlRepository(EntityType entityType) {
-    return new PostgreSqlRepository(postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType);
+    return new PostgreSqlRepository(
+        postgreSqlEntityFactory, jdbcTemplate, dataSource, entityType, bulkInsertMode);
   }
 
   private boolean isTableExists(EntityType entityType) {
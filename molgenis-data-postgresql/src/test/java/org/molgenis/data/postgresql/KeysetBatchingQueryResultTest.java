@@ -0,0 +1,142 @@
+package org.molgenis.data.postgresql;
+
+import static com.google.common.collect.Iterables.size;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.GREATER;
+import static org.molgenis.data.QueryRule.Operator.LESS;
+import static org.molgenis.data.QueryRule.Operator.NESTED;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.Entity;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.Sort.Direction;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.support.QueryImpl;
+
+class KeysetBatchingQueryResultTest {
+  @Test
+  void iterator() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+
+    Query<Entity> query = new QueryImpl<>().setOffset(1);
+    List<Query<Entity>> batchQueries = new ArrayList<>();
+    KeysetBatchingQueryResult result =
+        new KeysetBatchingQueryResult(2, query, idAttr, Direction.ASC) {
+          @Override
+          protected List<Entity> getBatch(Query<Entity> batchQuery) {
+            batchQueries.add(batchQuery);
+            switch (batchQueries.size()) {
+              case 1:
+                return asList(createEntity(1), createEntity(2));
+              case 2:
+                return asList(createEntity(3), createEntity(4));
+              default:
+                return emptyList();
+            }
+          }
+        };
+    assertEquals(4, size(result));
+    assertEquals(3, batchQueries.size());
+
+    Query<Entity> firstBatchQuery = batchQueries.get(0);
+    assertEquals(1, firstBatchQuery.getOffset());
+    assertEquals(2, firstBatchQuery.getPageSize());
+    assertEquals(emptyList(), firstBatchQuery.getRules());
+
+    Query<Entity> lastBatchQuery = batchQueries.get(2);
+    assertEquals(0, lastBatchQuery.getOffset());
+    assertEquals(2, lastBatchQuery.getPageSize());
+    assertEquals(asList(new QueryRule("id", GREATER, 4)), lastBatchQuery.getRules());
+  }
+
+  @Test
+  void iteratorLimit() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+
+    Query<Entity> query = new QueryImpl<>().setPageSize(3);
+    List<Integer> batchSizes = new ArrayList<>();
+    KeysetBatchingQueryResult result =
+        new KeysetBatchingQueryResult(2, query, idAttr, Direction.ASC) {
+          @Override
+          protected List<Entity> getBatch(Query<Entity> batchQuery) {
+            batchSizes.add(batchQuery.getPageSize());
+            return batchSizes.size() == 1
+                ? asList(createEntity(1), createEntity(2))
+                : asList(createEntity(3));
+          }
+        };
+    assertEquals(3, size(result));
+    assertEquals(asList(2, 1), batchSizes);
+  }
+
+  @Test
+  void createBatchQueryFirstBatch() {
+    Attribute idAttr = mock(Attribute.class);
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value").offset(10);
+    KeysetBatchingQueryResult result =
+        createKeysetBatchingQueryResult(query, idAttr, Direction.ASC);
+
+    Query<Entity> batchQuery = result.createBatchQuery(null, 1000);
+    assertEquals(query.getRules(), batchQuery.getRules());
+    assertEquals(10, batchQuery.getOffset());
+    assertEquals(1000, batchQuery.getPageSize());
+  }
+
+  @Test
+  void createBatchQueryNextBatch() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value").or().eq("attr", "otherValue");
+    KeysetBatchingQueryResult result =
+        createKeysetBatchingQueryResult(query, idAttr, Direction.DESC);
+
+    Query<Entity> batchQuery = result.createBatchQuery(createEntity(5), 1000);
+    List<QueryRule> rules = batchQuery.getRules();
+    assertEquals(3, rules.size());
+    assertEquals(NESTED, rules.get(0).getOperator());
+    assertEquals(query.getRules(), rules.get(0).getNestedRules());
+    assertEquals(AND, rules.get(1).getOperator());
+    assertEquals(new QueryRule("id", LESS, 5), rules.get(2));
+    assertEquals(0, batchQuery.getOffset());
+    assertEquals(1000, batchQuery.getPageSize());
+    assertNull(batchQuery.getSort());
+  }
+
+  @Test
+  void createBatchQueryNextBatchNoRules() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    KeysetBatchingQueryResult result =
+        createKeysetBatchingQueryResult(new QueryImpl<>(), idAttr, Direction.ASC);
+
+    Query<Entity> batchQuery = result.createBatchQuery(createEntity(5), 1000);
+    assertEquals(asList(new QueryRule("id", GREATER, 5)), batchQuery.getRules());
+  }
+
+  private static KeysetBatchingQueryResult createKeysetBatchingQueryResult(
+      Query<Entity> query, Attribute keyAttribute, Direction direction) {
+    return new KeysetBatchingQueryResult(1000, query, keyAttribute, direction) {
+      @Override
+      protected List<Entity> getBatch(Query<Entity> batchQuery) {
+        return emptyList();
+      }
+    };
+  }
+
+  private static Entity createEntity(int id) {
+    Entity entity = mock(Entity.class);
+    when(entity.get("id")).thenReturn(id);
+    return entity;
+  }
+}
@@ -0,0 +1,83 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.DATE;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.meta.AttributeType.XREF;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.Entity;
+import org.molgenis.data.aggregation.AggregateResult;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.data.postgresql.PostgreSqlEntityFactory.EntityMapper;
+
+class PostgreSqlAggregateResultHandlerTest {
+  @Test
+  void getAggregateResult() throws SQLException {
+    Attribute xAttr = mock(Attribute.class);
+    when(xAttr.getDataType()).thenReturn(DATE);
+
+    PostgreSqlEntityFactory postgreSqlEntityFactory = mock(PostgreSqlEntityFactory.class);
+    EntityMapper entityMapper = mock(EntityMapper.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(entityMapper.mapAggregateValue(resultSet, xAttr, "x"))
+        .thenReturn(LocalDate.parse("2020-02-02"), null, LocalDate.parse("2020-01-01"));
+    when(resultSet.getLong("count")).thenReturn(2L, 3L, 5L);
+
+    PostgreSqlAggregateResultHandler resultHandler =
+        new PostgreSqlAggregateResultHandler(postgreSqlEntityFactory, entityMapper, xAttr, null);
+    for (int i = 0; i < 3; i++) {
+      resultHandler.processRow(resultSet);
+    }
+
+    AggregateResult expected =
+        new AggregateResult(
+            asList(singletonList(5L), singletonList(2L), singletonList(3L)),
+            asList("2020-01-01", "2020-02-02", null),
+            emptyList());
+    assertEquals(expected, resultHandler.getAggregateResult());
+  }
+
+  @Test
+  void getAggregateResultXY() throws SQLException {
+    Attribute xAttr = mock(Attribute.class);
+    when(xAttr.getDataType()).thenReturn(STRING);
+    EntityType refEntityType = mock(EntityType.class);
+    Attribute yAttr = mock(Attribute.class);
+    when(yAttr.getDataType()).thenReturn(XREF);
+    when(yAttr.getRefEntity()).thenReturn(refEntityType);
+
+    PostgreSqlEntityFactory postgreSqlEntityFactory = mock(PostgreSqlEntityFactory.class);
+    EntityMapper entityMapper = mock(EntityMapper.class);
+    ResultSet resultSet = mock(ResultSet.class);
+    when(entityMapper.mapAggregateValue(resultSet, xAttr, "x")).thenReturn("b", "a", "b");
+    when(entityMapper.mapAggregateValue(resultSet, yAttr, "y")).thenReturn("ref0", "ref1", "ref1");
+    when(resultSet.getLong("count")).thenReturn(1L, 2L, 3L);
+    Entity refEntity0 = mock(Entity.class);
+    Entity refEntity1 = mock(Entity.class);
+    when(postgreSqlEntityFactory.getReferences(refEntityType, asList("ref0", "ref1")))
+        .thenReturn(asList(refEntity0, refEntity1));
+
+    PostgreSqlAggregateResultHandler resultHandler =
+        new PostgreSqlAggregateResultHandler(postgreSqlEntityFactory, entityMapper, xAttr, yAttr);
+    for (int i = 0; i < 3; i++) {
+      resultHandler.processRow(resultSet);
+    }
+
+    AggregateResult expected =
+        new AggregateResult(
+            asList(asList(0L, 2L), asList(1L, 3L)),
+            asList("a", "b"),
+            asList(refEntity0, refEntity1));
+    assertEquals(expected, resultHandler.getAggregateResult());
+  }
+}
@@ -0,0 +1,87 @@
+package org.molgenis.data.postgresql;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.time.ZoneOffset.UTC;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.molgenis.data.MolgenisDataException;
+
+class PostgreSqlBinaryCopyWriterTest {
+  private ByteArrayOutputStream outputStream;
+  private PostgreSqlBinaryCopyWriter copyWriter;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    outputStream = new ByteArrayOutputStream();
+    copyWriter = new PostgreSqlBinaryCopyWriter(outputStream);
+  }
+
+  @Test
+  void writeHeaderAndTrailer() throws IOException {
+    copyWriter.writeHeader();
+    copyWriter.writeTrailer();
+    assertArrayEquals(
+        new byte[] {
+          'P', 'G', 'C', 'O', 'P', 'Y', '\n', -1, '\r', '\n', 0, 0, 0, 0, 0, 0, 0, 0, 0, -1, -1
+        },
+        outputStream.toByteArray());
+  }
+
+  @Test
+  void writeRow() throws IOException {
+    copyWriter.writeRow(asList("é", 1, 2L, null, true));
+    byte[] expected =
+        ByteBuffer.allocate(37)
+            .putShort((short) 5)
+            .putInt(2)
+            .put("é".getBytes(UTF_8))
+            .putInt(4)
+            .putInt(1)
+            .putInt(8)
+            .putLong(2L)
+            .putInt(-1)
+            .putInt(1)
+            .put((byte) 1)
+            .array();
+    assertArrayEquals(expected, outputStream.toByteArray());
+  }
+
+  @Test
+  void writeRowDouble() throws IOException {
+    copyWriter.writeRow(singletonList(1.5d));
+    assertArrayEquals(
+        new byte[] {0, 1, 0, 0, 0, 8, 0x3f, (byte) 0xf8, 0, 0, 0, 0, 0, 0},
+        outputStream.toByteArray());
+  }
+
+  @Test
+  void writeRowDate() throws IOException {
+    copyWriter.writeRow(asList(LocalDate.of(2000, 1, 2), LocalDate.of(1999, 12, 31)));
+    assertArrayEquals(
+        new byte[] {0, 2, 0, 0, 0, 4, 0, 0, 0, 1, 0, 0, 0, 4, -1, -1, -1, -1},
+        outputStream.toByteArray());
+  }
+
+  @Test
+  void writeRowDateTime() throws IOException {
+    copyWriter.writeRow(singletonList(OffsetDateTime.of(2000, 1, 1, 0, 0, 1, 0, UTC)));
+    assertArrayEquals(
+        new byte[] {0, 1, 0, 0, 0, 8, 0, 0, 0, 0, 0, 0x0f, 0x42, 0x40}, outputStream.toByteArray());
+  }
+
+  @Test
+  void writeRowUnsupportedType() {
+    assertThrows(
+        MolgenisDataException.class, () -> copyWriter.writeRow(singletonList(new Object())));
+  }
+}
@@ -0,0 +1,74 @@
+package org.molgenis.data.postgresql;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.postgresql.PostgreSqlRepositoryCollection.POSTGRESQL;
+
+import java.util.OptionalLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.molgenis.data.meta.model.EntityType;
+import org.molgenis.test.AbstractMockitoTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class PostgreSqlEntityCountEstimatorTest extends AbstractMockitoTest {
+  private static final String SQL_ESTIMATE_COUNT =
+      "SELECT reltuples::bigint FROM pg_class WHERE oid = to_regclass(?)";
+
+  @Mock private JdbcTemplate jdbcTemplate;
+  @Mock private EntityType entityType;
+  private PostgreSqlEntityCountEstimator postgreSqlEntityCountEstimator;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    postgreSqlEntityCountEstimator = new PostgreSqlEntityCountEstimator(jdbcTemplate);
+  }
+
+  @Test
+  void testEstimateCount() {
+    setUpEntityType();
+    when(jdbcTemplate.queryForList(SQL_ESTIMATE_COUNT, Long.class, "\"MyEntityType#ebf6a9e3\""))
+        .thenReturn(singletonList(123L));
+    assertEquals(OptionalLong.of(123L), postgreSqlEntityCountEstimator.estimateCount(entityType));
+  }
+
+  @Test
+  void testEstimateCountNotAnalyzed() {
+    setUpEntityType();
+    when(jdbcTemplate.queryForList(SQL_ESTIMATE_COUNT, Long.class, "\"MyEntityType#ebf6a9e3\""))
+        .thenReturn(singletonList(-1L));
+    assertEquals(OptionalLong.empty(), postgreSqlEntityCountEstimator.estimateCount(entityType));
+  }
+
+  @Test
+  void testEstimateCountUnknownTable() {
+    setUpEntityType();
+    when(jdbcTemplate.queryForList(SQL_ESTIMATE_COUNT, Long.class, "\"MyEntityType#ebf6a9e3\""))
+        .thenReturn(emptyList());
+    assertEquals(OptionalLong.empty(), postgreSqlEntityCountEstimator.estimateCount(entityType));
+  }
+
+  @Test
+  void testEstimateCountOtherBackend() {
+    when(entityType.getBackend()).thenReturn("OtherBackend");
+    assertEquals(OptionalLong.empty(), postgreSqlEntityCountEstimator.estimateCount(entityType));
+    verifyZeroInteractions(jdbcTemplate);
+  }
+
+  @Test
+  void testEstimateCountAbstract() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.isAbstract()).thenReturn(true);
+    assertEquals(OptionalLong.empty(), postgreSqlEntityCountEstimator.estimateCount(entityType));
+    verifyZeroInteractions(jdbcTemplate);
+  }
+
+  private void setUpEntityType() {
+    when(entityType.getBackend()).thenReturn(POSTGRESQL);
+    when(entityType.getId()).thenReturn("MyEntityType");
+  }
+}
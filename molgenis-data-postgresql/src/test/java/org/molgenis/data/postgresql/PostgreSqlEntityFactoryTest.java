@@ -6,16 +6,22 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.DATE;
+import static org.molgenis.data.meta.AttributeType.INT;
+import static org.molgenis.data.meta.AttributeType.MREF;
 import static org.molgenis.data.meta.AttributeType.ONE_TO_MANY;
 import static org.molgenis.data.meta.AttributeType.STRING;
 import static org.molgenis.data.meta.AttributeType.XREF;
+import static org.molgenis.data.postgresql.PostgreSqlRepositoryCollection.POSTGRESQL;
 
 import java.sql.Array;
 import java.sql.ResultSet;
+import java.time.LocalDate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
@@ -124,4 +130,55 @@ class PostgreSqlEntityFactoryTest {
         entity, postgreSqlEntityFactory.createRowMapper(entityType, null).mapRow(rs, rowNum));
     verify(entity).set(xrefAttr, refEntity);
   }
+
+  @Test
+  void createRowMapperJoinedXref() throws Exception {
+    Attribute tagIdAttr = mock(Attribute.class);
+    when(tagIdAttr.getDataType()).thenReturn(INT);
+    EntityType tagEntityType = mock(EntityType.class);
+    when(tagEntityType.getIdAttribute()).thenReturn(tagIdAttr);
+
+    Attribute refIdAttr = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    when(refIdAttr.getDataType()).thenReturn(STRING);
+    Attribute refDateAttr = when(mock(Attribute.class).getName()).thenReturn("date").getMock();
+    when(refDateAttr.getDataType()).thenReturn(DATE);
+    Attribute refTagsAttr = when(mock(Attribute.class).getName()).thenReturn("tags").getMock();
+    when(refTagsAttr.getDataType()).thenReturn(MREF);
+    when(refTagsAttr.getRefEntity()).thenReturn(tagEntityType);
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getBackend()).thenReturn(POSTGRESQL);
+    when(refEntityType.getAtomicAttributes())
+        .thenReturn(newArrayList(refIdAttr, refDateAttr, refTagsAttr));
+
+    String xrefAttrName = "xrefAttr";
+    Attribute xrefAttr = mock(Attribute.class);
+    when(xrefAttr.getName()).thenReturn(xrefAttrName);
+    when(xrefAttr.getDataType()).thenReturn(XREF);
+    when(xrefAttr.getRefEntity()).thenReturn(refEntityType);
+
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getAtomicAttributes()).thenReturn(singleton(xrefAttr));
+    ResultSet rs = mock(ResultSet.class);
+    when(rs.getString(xrefAttrName))
+        .thenReturn("{\"id\": \"id0\", \"date\": \"2020-01-02\", \"tags\": [1, 2]}");
+    int rowNum = 0;
+
+    Fetch refFetch = new Fetch().field("id").field("date").field("tags");
+    Fetch fetch = new Fetch().join(xrefAttrName, refFetch);
+    Entity entity = mock(Entity.class);
+    when(entityManager.createFetch(entityType, fetch)).thenReturn(entity);
+    Entity refEntity = mock(Entity.class);
+    when(entityManager.createFetch(refEntityType, refFetch)).thenReturn(refEntity);
+    Entity tag1 = mock(Entity.class);
+    Entity tag2 = mock(Entity.class);
+    when(entityManager.getReference(tagEntityType, 1)).thenReturn(tag1);
+    when(entityManager.getReference(tagEntityType, 2)).thenReturn(tag2);
+
+    assertEquals(
+        entity, postgreSqlEntityFactory.createRowMapper(entityType, fetch).mapRow(rs, rowNum));
+    verify(entity).set(xrefAttrName, refEntity);
+    verify(refEntity).set("id", "id0");
+    verify(refEntity).set("date", LocalDate.of(2020, 1, 2));
+    verify(refEntity).set("tags", newArrayList(tag1, tag2));
+  }
 }
@@ -11,6 +11,7 @@ import static org.molgenis.data.QueryRule.Operator.AND;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.QueryRule.Operator.NESTED;
 import static org.molgenis.data.QueryRule.Operator.OR;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.meta.AttributeType.BOOL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL;
 import static org.molgenis.data.meta.AttributeType.CATEGORICAL_MREF;
@@ -36,12 +37,14 @@ import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.ColumnMode.I
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlJunctionTableSelect;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSelect;
 import static org.molgenis.data.postgresql.PostgreSqlQueryGenerator.getSqlSort;
+import static org.molgenis.data.postgresql.PostgreSqlRepositoryCollection.POSTGRESQL;
 
 import com.google.common.collect.Lists;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
@@ -49,9 +52,11 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
+import org.molgenis.data.PermissionFilter;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.Sort;
+import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.IllegalAttributeTypeException;
 import org.molgenis.data.meta.model.Attribute;
@@ -471,6 +476,39 @@ class PostgreSqlQueryGeneratorTest {
         PostgreSqlQueryGenerator.getSqlInsertJunction(entityType, attr));
   }
 
+  @Test
+  void getSqlCopy() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(XREF);
+    Attribute mrefAttr = mock(Attribute.class);
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, attr, mrefAttr));
+    assertEquals(
+        "COPY \"entityTypeId#c34894ba\" (\"idAttr\", \"attr\") FROM STDIN (FORMAT binary)",
+        PostgreSqlQueryGenerator.getSqlCopy(entityType));
+  }
+
+  @Test
+  void getSqlCopyJunction() {
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(MREF);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    assertEquals(
+        "COPY \"entityTypeId#c34894ba_attr\" (\"order\",\"idAttr\",\"attr\") FROM STDIN (FORMAT binary)",
+        PostgreSqlQueryGenerator.getSqlCopyJunction(entityType, attr));
+  }
+
   @Test
   void getSqlSelectXref() {
     Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
@@ -499,6 +537,87 @@ class PostgreSqlQueryGeneratorTest {
     assertEquals(emptyList(), parameters);
   }
 
+  @Test
+  void getSqlSelectJoinedXref() {
+    Attribute refIdAttr = when(mock(Attribute.class).getName()).thenReturn("refIdAttr").getMock();
+    when(refIdAttr.getIdentifier()).thenReturn("refIdAttrId");
+    when(refIdAttr.getDataType()).thenReturn(STRING);
+    Attribute refLabelAttr =
+        when(mock(Attribute.class).getName()).thenReturn("ref'Label").getMock();
+    when(refLabelAttr.getIdentifier()).thenReturn("refLabelAttrId");
+    when(refLabelAttr.getDataType()).thenReturn(STRING);
+    EntityType refEntityType =
+        when(mock(EntityType.class).getId()).thenReturn("refEntityTypeId").getMock();
+    when(refEntityType.getBackend()).thenReturn(POSTGRESQL);
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+    when(refEntityType.getAtomicAttributes()).thenReturn(newArrayList(refIdAttr, refLabelAttr));
+
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(XREF);
+    when(attr.getRefEntity()).thenReturn(refEntityType);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, attr));
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    Fetch fetch =
+        new Fetch().field("idAttr").join("attr", new Fetch().field("refIdAttr").field("ref'Label"));
+    Query<Entity> q = new QueryImpl<>().fetch(fetch);
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"idAttr\", (SELECT jsonb_build_object('refIdAttr', r1.\"refIdAttr\", 'ref''Label', r1.\"refLabel#be2eec5a\") FROM \"refEntityTypeId#49d91106\" AS r1 WHERE r1.\"refIdAttr\" = this.\"attr\") AS \"attr\" FROM \"entityTypeId#c34894ba\" AS this ORDER BY \"idAttr\" ASC",
+        getSqlSelect(entityType, q, parameters, true));
+    assertEquals(emptyList(), parameters);
+  }
+
+  @Test
+  void getSqlSelectJoinedMref() {
+    Attribute refIdAttr = when(mock(Attribute.class).getName()).thenReturn("refIdAttr").getMock();
+    when(refIdAttr.getIdentifier()).thenReturn("refIdAttrId");
+    when(refIdAttr.getDataType()).thenReturn(STRING);
+    Attribute refMrefAttr = when(mock(Attribute.class).getName()).thenReturn("refMref").getMock();
+    when(refMrefAttr.getIdentifier()).thenReturn("refMrefAttrId");
+    when(refMrefAttr.getDataType()).thenReturn(MREF);
+    EntityType refEntityType =
+        when(mock(EntityType.class).getId()).thenReturn("refEntityTypeId").getMock();
+    when(refEntityType.getBackend()).thenReturn(POSTGRESQL);
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+    when(refEntityType.getAtomicAttributes()).thenReturn(newArrayList(refIdAttr, refMrefAttr));
+
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(MREF);
+    when(attr.getRefEntity()).thenReturn(refEntityType);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("idAttr").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(idAttr.isUnique()).thenReturn(true);
+
+    EntityType entityType = when(mock(EntityType.class).getId()).thenReturn("entity").getMock();
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getAtomicAttributes()).thenReturn(newArrayList(idAttr, attr));
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("idAttr")).thenReturn(idAttr);
+
+    Fetch fetch =
+        new Fetch().field("idAttr").join("attr", new Fetch().field("refIdAttr").field("refMref"));
+    Query<Entity> q = new QueryImpl<>().fetch(fetch);
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"idAttr\", (SELECT jsonb_agg(jsonb_build_object('refIdAttr', r1.\"refIdAttr\", 'refMref', (SELECT jsonb_agg(j2.\"refMref\" ORDER BY j2.\"order\") FROM \"refEntityTypeId#49d91106_refMref\" AS j2 WHERE j2.\"refIdAttr\" = r1.\"refIdAttr\")) ORDER BY j3.\"order\") FROM \"entityTypeId#c34894ba_attr\" AS j3 JOIN \"refEntityTypeId#49d91106\" AS r1 ON r1.\"refIdAttr\" = j3.\"attr\" WHERE j3.\"idAttr\" = this.\"idAttr\") AS \"attr\" FROM \"entityTypeId#c34894ba\" AS this ORDER BY \"idAttr\" ASC",
+        getSqlSelect(entityType, q, parameters, true));
+    assertEquals(emptyList(), parameters);
+  }
+
   @Test
   void getSqlSelectXrefInversed() {
     Attribute refAttr = when(mock(Attribute.class).getName()).thenReturn("refAttr").getMock();
@@ -1380,6 +1499,51 @@ class PostgreSqlQueryGeneratorTest {
         sqlWhere);
   }
 
+  @Test
+  void getSqlWherePermitted() {
+    Attribute idAttribute = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    when(idAttribute.getDataType()).thenReturn(STRING);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getIdAttribute()).thenReturn(idAttribute);
+    when(entityType.getAttribute("id")).thenReturn(idAttribute);
+
+    PermissionFilter permissionFilter =
+        PermissionFilter.create("entity-MyEntityTypeId", Set.of("user"), Set.of("ROLE_USER"), 12);
+    QueryImpl<Entity> q = new QueryImpl<>();
+    q.eq("id", "0").and();
+    q.addRule(new QueryRule(PERMITTED, permissionFilter));
+    List<Object> parameters = Lists.newArrayList();
+
+    String sqlWhere =
+        PostgreSqlQueryGenerator.getSqlWhere(entityType, q, parameters, new AtomicInteger());
+    assertEquals(
+        "this.\"id\" = ?  AND EXISTS (SELECT 1 FROM acl_object_identity"
+            + " JOIN acl_class ON acl_object_identity.object_id_class = acl_class.id"
+            + " JOIN acl_entry ON acl_entry.acl_object_identity = acl_object_identity.id"
+            + " JOIN acl_sid ON acl_entry.sid = acl_sid.id"
+            + " WHERE acl_class.class = ?"
+            + " AND acl_object_identity.object_id_identity = CAST(this.\"id\" AS VARCHAR)"
+            + " AND acl_entry.granting AND (acl_entry.mask & ?) <> 0"
+            + " AND ((acl_sid.principal AND acl_sid.sid IN (?))"
+            + " OR (NOT acl_sid.principal AND acl_sid.sid IN (?))))",
+        sqlWhere);
+    assertEquals(asList("0", "entity-MyEntityTypeId", 12, "user", "ROLE_USER"), parameters);
+  }
+
+  @Test
+  void getSqlWherePermittedNoSids() {
+    EntityType entityType = mock(EntityType.class);
+    PermissionFilter permissionFilter =
+        PermissionFilter.create("entity-MyEntityTypeId", Set.of(), Set.of(), 12);
+    Query<Entity> q = new QueryImpl<>(new QueryRule(PERMITTED, permissionFilter));
+    List<Object> parameters = Lists.newArrayList();
+
+    String sqlWhere =
+        PostgreSqlQueryGenerator.getSqlWhere(entityType, q, parameters, new AtomicInteger());
+    assertEquals("FALSE", sqlWhere);
+    assertEquals(emptyList(), parameters);
+  }
+
   @Test
   void testGetSqlUpdate() {
     String idAttributeName = "MyIdAttribute";
@@ -1441,6 +1605,65 @@ class PostgreSqlQueryGeneratorTest {
     return result;
   }
 
+  @Test
+  void getSqlAggregate() {
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    Attribute attr = when(mock(Attribute.class).getName()).thenReturn("attr").getMock();
+    when(attr.getIdentifier()).thenReturn("attrId");
+    when(attr.getDataType()).thenReturn(STRING);
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+
+    AggregateQuery aggregateQuery = mock(AggregateQuery.class);
+    when(aggregateQuery.getAttributeX()).thenReturn(attr);
+
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT this.\"attr\" AS x, COUNT(DISTINCT this.\"id\") AS count FROM \"entityTypeId#c34894ba\" AS this GROUP BY this.\"attr\"",
+        PostgreSqlQueryGenerator.getSqlAggregate(entityType, aggregateQuery, parameters));
+    assertEquals(emptyList(), parameters);
+  }
+
+  @Test
+  void getSqlAggregateMrefDistinct() {
+    Attribute refIdAttr = when(mock(Attribute.class).getName()).thenReturn("refId").getMock();
+    when(refIdAttr.getIdentifier()).thenReturn("refIdAttrId");
+    EntityType refEntityType = when(mock(EntityType.class).getId()).thenReturn("ref").getMock();
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+
+    Attribute idAttr = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    when(idAttr.getIdentifier()).thenReturn("idAttrId");
+    Attribute mrefAttr = when(mock(Attribute.class).getName()).thenReturn("mref").getMock();
+    when(mrefAttr.getIdentifier()).thenReturn("mrefAttrId");
+    when(mrefAttr.getDataType()).thenReturn(MREF);
+    when(mrefAttr.getRefEntity()).thenReturn(refEntityType);
+    Attribute yAttr = when(mock(Attribute.class).getName()).thenReturn("y").getMock();
+    when(yAttr.getIdentifier()).thenReturn("yAttrId");
+    when(yAttr.getDataType()).thenReturn(BOOL);
+    Attribute distinctAttr = when(mock(Attribute.class).getName()).thenReturn("distinct").getMock();
+    when(distinctAttr.getIdentifier()).thenReturn("distinctAttrId");
+    when(distinctAttr.getDataType()).thenReturn(STRING);
+
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("y")).thenReturn(yAttr);
+
+    AggregateQuery aggregateQuery = mock(AggregateQuery.class);
+    when(aggregateQuery.getAttributeX()).thenReturn(mrefAttr);
+    when(aggregateQuery.getAttributeY()).thenReturn(yAttr);
+    when(aggregateQuery.getAttributeDistinct()).thenReturn(distinctAttr);
+    when(aggregateQuery.getQuery()).thenReturn(new QueryImpl<>().eq("y", true));
+
+    List<Object> parameters = Lists.newArrayList();
+    assertEquals(
+        "SELECT \"aggX\".\"mref\" AS x, this.\"y\" AS y, COUNT(DISTINCT this.\"distinct\") AS count FROM \"entityTypeId#c34894ba\" AS this LEFT JOIN \"entityTypeId#c34894ba_mref\" AS \"aggX\" ON (this.\"id\" = \"aggX\".\"id\") WHERE this.\"id\" IN (SELECT this.\"id\" FROM \"entityTypeId#c34894ba\" AS this WHERE this.\"y\" IS TRUE) GROUP BY \"aggX\".\"mref\", this.\"y\"",
+        PostgreSqlQueryGenerator.getSqlAggregate(entityType, aggregateQuery, parameters));
+    assertEquals(emptyList(), parameters);
+  }
+
   private Package createPackage(String packageName) {
     return when(mock(Package.class).getId()).thenReturn(packageName).getMock();
   }
@@ -53,7 +53,11 @@ class PostgreSqlRepositoryCollectionTest {
     dataService = mock(DataService.class);
     postgreSqlRepoCollection =
         new PostgreSqlRepositoryCollection(
-            postgreSqlEntityFactory, dataSource, jdbcTemplate, dataService);
+            postgreSqlEntityFactory,
+            dataSource,
+            jdbcTemplate,
+            dataService,
+            PostgreSqlBulkInsertMode.INSERT);
   }
 
   @Test
@@ -6,9 +6,11 @@ import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.eq;
 import static org.mockito.Mockito.isNull;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockitoSession;
@@ -17,6 +19,7 @@ import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.when;
 import static org.mockito.quality.Strictness.STRICT_STUBS;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
+import static org.molgenis.data.Sort.Direction.DESC;
 import static org.molgenis.data.meta.AttributeType.INT;
 import static org.molgenis.data.meta.AttributeType.LONG;
 import static org.molgenis.data.meta.AttributeType.MREF;
@@ -29,6 +32,7 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.HashMap;
@@ -44,16 +48,23 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
 import org.mockito.MockitoSession;
 import org.molgenis.data.Entity;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
+import org.molgenis.data.Sort;
 import org.molgenis.data.meta.AttributeType;
 import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.postgresql.PostgreSqlEntityFactory.EntityMapper;
+import org.molgenis.data.support.QueryImpl;
 import org.molgenis.data.validation.MolgenisValidationException;
 import org.molgenis.util.UnexpectedEnumException;
 import org.molgenis.validation.ConstraintViolation;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
 import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
@@ -240,6 +251,43 @@ class PostgreSqlRepositoryTest {
         .containsPattern("PostgreSqlRepository.add\\(\\) failed: entity was null");
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  void testAddStreamCopy() throws SQLException {
+    postgreSqlRepo =
+        new PostgreSqlRepository(
+            postgreSqlEntityFactory,
+            jdbcTemplate,
+            dataSource,
+            entityType,
+            PostgreSqlBulkInsertMode.COPY);
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(entityType.getId()).thenReturn("entityTypeId");
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAtomicAttributes()).thenReturn(singletonList(idAttr));
+    Entity entity = mock(Entity.class);
+    when(entity.getString("id")).thenReturn("0");
+
+    Connection connection = mock(Connection.class);
+    PGConnection pgConnection = mock(PGConnection.class);
+    CopyManager copyManager = mock(CopyManager.class);
+    CopyIn copyIn = mock(CopyIn.class);
+    when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+    when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+    when(copyManager.copyIn("COPY \"entityTypeId#c34894ba\" (\"id\") FROM STDIN (FORMAT binary)"))
+        .thenReturn(copyIn);
+    when(jdbcTemplate.execute(any(ConnectionCallback.class)))
+        .thenAnswer(
+            invocation ->
+                invocation.<ConnectionCallback<Long>>getArgument(0).doInConnection(connection));
+
+    assertEquals(1, postgreSqlRepo.add(Stream.of(entity)));
+    verify(copyIn).writeToCopy(any(byte[].class), eq(0), eq(28));
+    verify(copyIn).endCopy();
+  }
+
   static Object[][] provideValidMrefIds() throws SQLException {
     ResultSet stringRow = mock(ResultSet.class);
     doReturn("idValue").when(stringRow).getString(1);
@@ -315,4 +363,60 @@ class PostgreSqlRepositoryTest {
         UnexpectedEnumException.class,
         () -> mrefIdRowCallbackHandler.processRow(mock(ResultSet.class)));
   }
+
+  @Test
+  void testGetKeysetOrderNoSort() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    when(idAttr.isUnique()).thenReturn(true);
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("id")).thenReturn(idAttr);
+
+    assertEquals(new Sort.Order("id"), postgreSqlRepo.getKeysetOrder(new QueryImpl<>()));
+  }
+
+  @Test
+  void testGetKeysetOrderUniqueSort() {
+    Attribute attr = mock(Attribute.class);
+    when(attr.isUnique()).thenReturn(true);
+    when(attr.getDataType()).thenReturn(INT);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    Query<Entity> q = new QueryImpl<>().sort(new Sort("attr", DESC).on("otherAttr"));
+    assertEquals(new Sort.Order("attr", DESC), postgreSqlRepo.getKeysetOrder(q));
+  }
+
+  @Test
+  void testGetKeysetOrderNonUniqueSort() {
+    Attribute attr = mock(Attribute.class);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    Query<Entity> q = new QueryImpl<>().sort(new Sort("attr"));
+    assertNull(postgreSqlRepo.getKeysetOrder(q));
+  }
+
+  @Test
+  void testGetKeysetOrderNillableSort() {
+    Attribute attr = mock(Attribute.class);
+    when(attr.isUnique()).thenReturn(true);
+    when(attr.isNillable()).thenReturn(true);
+    when(entityType.getAttribute("attr")).thenReturn(attr);
+
+    Query<Entity> q = new QueryImpl<>().sort(new Sort("attr"));
+    assertNull(postgreSqlRepo.getKeysetOrder(q));
+  }
+
+  @Test
+  void testGetKeysetOrderSortAttributeNotFetched() {
+    Attribute idAttr = mock(Attribute.class);
+    when(idAttr.getName()).thenReturn("id");
+    when(idAttr.isUnique()).thenReturn(true);
+    when(idAttr.getDataType()).thenReturn(STRING);
+    when(entityType.getIdAttribute()).thenReturn(idAttr);
+    when(entityType.getAttribute("id")).thenReturn(idAttr);
+
+    Query<Entity> q = new QueryImpl<>().fetch(new Fetch().field("otherAttr"));
+    assertNull(postgreSqlRepo.getKeysetOrder(q));
+  }
 }
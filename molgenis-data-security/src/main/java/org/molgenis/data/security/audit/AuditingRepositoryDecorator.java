@@ -1,18 +1,23 @@
 package org.molgenis.data.security.audit;
 
 import static java.util.Objects.requireNonNull;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
 import static java.util.stream.Collectors.toList;
 import static org.molgenis.security.core.utils.SecurityUtils.currentUserIsRunningAsSystem;
 import static org.molgenis.security.core.utils.SecurityUtils.currentUserIsUser;
 import static org.molgenis.security.core.utils.SecurityUtils.getActualUsername;
 
 import com.google.common.collect.ForwardingIterator;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import javax.annotation.Nonnull;
 import org.molgenis.audit.AuditEventPublisher;
 import org.molgenis.data.AbstractRepositoryDecorator;
@@ -27,7 +32,7 @@ import org.molgenis.data.util.EntityTypeUtils;
 /**
  * Publishes audit events for CRUD actions. In the case of system entity types, does not publish
  * events for read actions. If the current user is SYSTEM (excluding elevated users running as
- * system), does not publish anything.
+ * system), does not publish anything. Bulk actions publish one event per batch of entity ids.
  */
 public class AuditingRepositoryDecorator extends AbstractRepositoryDecorator<Entity> {
 
@@ -39,6 +44,12 @@ public class AuditingRepositoryDecorator extends AbstractRepositoryDecorator<Ent
   static final String ENTITIES_COUNTED = "ENTITIES_COUNTED";
   static final String ENTITIES_AGGREGATED = "ENTITIES_AGGREGATED";
   static final String ALL_ENTITIES_DELETED = "ALL_ENTITIES_DELETED";
+  static final String ENTITIES_CREATED = "ENTITIES_CREATED";
+  static final String ENTITIES_UPDATED = "ENTITIES_UPDATED";
+  static final String ENTITIES_DELETED = "ENTITIES_DELETED";
+  /** Maximum number of entity ids in the audit event of a bulk action */
+  static final int AUDIT_BATCH_SIZE = 1000;
+
   private static final String ENTITY_TYPE_ID = "entityTypeId";
   private static final String ENTITY_ID = "entityId";
   private static final String ENTITY_IDS = "entityIds";
@@ -179,12 +190,10 @@ public class AuditingRepositoryDecorator extends AbstractRepositoryDecorator<Ent
   @Override
   public Integer add(Stream<Entity> entities) {
     if (currentUserIsUser()) {
-      entities =
-          entities.filter(
-              entity -> {
-                audit(ENTITY_CREATED, ENTITY_ID, entity.getIdValue());
-                return true;
-              });
+      var auditBatch = new AuditBatch(ENTITIES_CREATED);
+      Integer count = delegate().add(auditBatch.auditing(entities, Entity::getIdValue));
+      auditBatch.flush();
+      return count;
     }
 
     return delegate().add(entities);
@@ -202,15 +211,12 @@ public class AuditingRepositoryDecorator extends AbstractRepositoryDecorator<Ent
   @Override
   public void update(Stream<Entity> entities) {
     if (currentUserIsUser()) {
-      entities =
-          entities.filter(
-              entity -> {
-                audit(ENTITY_UPDATED, ENTITY_ID, entity.getIdValue());
-                return true;
-              });
+      var auditBatch = new AuditBatch(ENTITIES_UPDATED);
+      delegate().update(auditBatch.auditing(entities, Entity::getIdValue));
+      auditBatch.flush();
+    } else {
+      delegate().update(entities);
     }
-
-    delegate().update(entities);
   }
 
   @Override
@@ -225,29 +231,23 @@ public class AuditingRepositoryDecorator extends AbstractRepositoryDecorator<Ent
   @Override
   public void delete(Stream<Entity> entities) {
     if (currentUserIsUser()) {
-      entities =
-          entities.filter(
-              entity -> {
-                audit(ENTITY_DELETED, ENTITY_ID, entity.getIdValue());
-                return true;
-              });
+      var auditBatch = new AuditBatch(ENTITIES_DELETED);
+      delegate().delete(auditBatch.auditing(entities, Entity::getIdValue));
+      auditBatch.flush();
+    } else {
+      delegate().delete(entities);
     }
-
-    delegate().delete(entities);
   }
 
   @Override
   public void deleteAll(Stream<Object> ids) {
     if (currentUserIsUser()) {
-      ids =
-          ids.filter(
-              id -> {
-                audit(ENTITY_DELETED, ENTITY_ID, id);
-                return true;
-              });
+      var auditBatch = new AuditBatch(ENTITIES_DELETED);
+      delegate().deleteAll(auditBatch.auditing(ids, Function.identity()));
+      auditBatch.flush();
+    } else {
+      delegate().deleteAll(ids);
     }
-
-    delegate().deleteAll(ids);
   }
 
   @Override
@@ -285,6 +285,63 @@ public class AuditingRepositoryDecorator extends AbstractRepositoryDecorator<Ent
     return !EntityTypeUtils.isSystemEntity(delegate().getEntityType());
   }
 
+  /**
+   * Collects the ids of a bulk action while its stream is consumed and publishes one audit event
+   * per {@link #AUDIT_BATCH_SIZE} ids instead of one event per entity.
+   */
+  private class AuditBatch {
+    private final String type;
+    private List<Object> ids = new ArrayList<>();
+
+    AuditBatch(String type) {
+      this.type = type;
+    }
+
+    /** Returns a stream of the given elements that audits their ids as they are consumed */
+    <T> Stream<T> auditing(Stream<T> elements, Function<T, Object> idExtractor) {
+      var iterator = elements.iterator();
+      Iterator<T> auditingIterator =
+          new ForwardingIterator<>() {
+            @Override
+            protected Iterator<T> delegate() {
+              return iterator;
+            }
+
+            @Override
+            public boolean hasNext() {
+              boolean hasNext = super.hasNext();
+              if (!hasNext) {
+                flush();
+              }
+              return hasNext;
+            }
+
+            @Override
+            public T next() {
+              T element = super.next();
+              add(idExtractor.apply(element));
+              return element;
+            }
+          };
+      return StreamSupport.stream(spliteratorUnknownSize(auditingIterator, ORDERED), false)
+          .onClose(elements::close);
+    }
+
+    private void add(Object id) {
+      ids.add(id);
+      if (ids.size() == AUDIT_BATCH_SIZE) {
+        flush();
+      }
+    }
+
+    void flush() {
+      if (!ids.isEmpty()) {
+        audit(type, ENTITY_IDS, ids);
+        ids = new ArrayList<>();
+      }
+    }
+  }
+
   class AuditingIterator extends ForwardingIterator<Entity> {
 
     private final Iterator<Entity> delegate;
@@ -14,6 +14,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.molgenis.data.AbstractRepositoryDecorator;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
@@ -51,29 +53,27 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
   @Override
   public Iterator<E> iterator() {
     Iterable<E> iterable = () -> delegate().iterator();
-    return stream(iterable).filter(entity -> isActionPermitted(entity, READ)).iterator();
+    return filterPermitted(stream(iterable), READ).iterator();
   }
 
   @Override
   public void forEachBatched(Fetch fetch, Consumer<List<E>> consumer, int batchSize) {
     delegate()
         .forEachBatched(
-            fetch,
-            entities ->
-                consumer.accept(
-                    entities.stream()
-                        .filter(entity -> isActionPermitted(entity, READ))
-                        .collect(toList())),
-            batchSize);
+            fetch, entities -> consumer.accept(filterPermitted(entities, READ)), batchSize);
   }
 
   @Override
   public long count() {
-    return findAllPermitted(COUNT).count();
+    return count(new QueryImpl<>());
   }
 
   @Override
   public long count(Query<E> q) {
+    Query<E> permittedQuery = createPermittedQuery(q, COUNT);
+    if (permittedQuery != null) {
+      return delegate().count(permittedQuery);
+    }
     return findAllPermitted(q, COUNT).count();
   }
 
@@ -108,14 +108,12 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
 
   @Override
   public Stream<E> findAll(Stream<Object> ids) {
-    Stream<E> entities = delegate().findAll(ids);
-    entities = entities.filter(entity -> isActionPermitted(entity, READ));
-    return entities;
+    return filterPermitted(delegate().findAll(ids), READ);
   }
 
   @Override
   public Stream<E> findAll(Stream<Object> ids, Fetch fetch) {
-    return delegate().findAll(ids, fetch).filter(entity -> isActionPermitted(entity, READ));
+    return filterPermitted(delegate().findAll(ids, fetch), READ);
   }
 
   @Override
@@ -183,8 +181,7 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
     partition(ids.iterator(), BATCH_SIZE)
         .forEachRemaining(
             idsBatch -> {
-              List<Object> filteredIds =
-                  idsBatch.stream().filter(id -> isActionPermitted(id, DELETE)).collect(toList());
+              List<Object> filteredIds = filterPermittedIds(idsBatch, DELETE);
               delegate().deleteAll(filteredIds.stream());
               filteredIds.forEach(this::deleteAcl);
             });
@@ -197,8 +194,7 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
   }
 
   private void deleteBatch(List<E> entities) {
-    List<E> filteredEntities =
-        entities.stream().filter(entity -> isActionPermitted(entity, DELETE)).collect(toList());
+    List<E> filteredEntities = filterPermitted(entities, DELETE);
     delegate().delete(filteredEntities.stream());
     filteredEntities.forEach(this::deleteAcl);
   }
@@ -224,15 +220,16 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
                 }));
   }
 
-  private Stream<E> findAllPermitted(Action action) {
-    return findAllPermitted(new QueryImpl<>(), action);
-  }
-
   private Stream<E> findAllPermitted(Query<E> query, Action action) {
+    Query<E> permittedQuery = createPermittedQuery(query, action);
+    if (permittedQuery != null) {
+      return delegate().findAll(permittedQuery);
+    }
+
     Query<E> qWithoutLimitOffset = new QueryImpl<>(query);
     qWithoutLimitOffset.offset(0).pageSize(Integer.MAX_VALUE);
     Stream<E> permittedEntityStream =
-        delegate().findAll(qWithoutLimitOffset).filter(entity -> isActionPermitted(entity, action));
+        filterPermitted(delegate().findAll(qWithoutLimitOffset), action);
     if (query.getOffset() > 0) {
       permittedEntityStream = permittedEntityStream.skip(query.getOffset());
     }
@@ -242,6 +239,41 @@ public abstract class AbstractRowLevelSecurityRepositoryDecorator<E extends Enti
     return permittedEntityStream;
   }
 
+  /**
+   * Returns a query that only matches the entities of the given query for which the action is
+   * permitted. This allows the decorated repository to apply permissions, limit and offset instead
+   * of checking the permissions of each entity.
+   *
+   * @return permitted query or <code>null</code> if the permissions have to be checked per entity
+   */
+  @Nullable
+  @CheckForNull
+  protected Query<E> createPermittedQuery(Query<E> query, Action action) {
+    return null;
+  }
+
+  private Stream<E> filterPermitted(Stream<E> entities, Action action) {
+    return stream(partition(entities.iterator(), BATCH_SIZE))
+        .flatMap(batch -> filterPermitted(batch, action).stream())
+        .onClose(entities::close);
+  }
+
+  /**
+   * Returns the entities for which the action is permitted. Override to check the permissions of a
+   * batch of entities at once instead of one entity at a time.
+   */
+  protected List<E> filterPermitted(List<E> entities, Action action) {
+    return entities.stream().filter(entity -> isActionPermitted(entity, action)).collect(toList());
+  }
+
+  /**
+   * Returns the entity ids for which the action is permitted. Override to check the permissions of
+   * a batch of entity ids at once instead of one entity id at a time.
+   */
+  protected List<Object> filterPermittedIds(List<Object> ids, Action action) {
+    return ids.stream().filter(id -> isActionPermitted(id, action)).collect(toList());
+  }
+
   void deleteAcl(ObjectIdentity objectIdentity) {
     mutableAclService.deleteAcl(objectIdentity, true);
   }
@@ -1,21 +1,46 @@
 package org.molgenis.data.security.owned;
 
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
 import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
+import static org.molgenis.security.core.utils.SecurityUtils.currentUserIsSuOrSystem;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityAlreadyExistsException;
+import org.molgenis.data.PermissionFilter;
+import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
+import org.molgenis.data.QueryRule.Operator;
 import org.molgenis.data.Repository;
 import org.molgenis.data.security.EntityIdentity;
+import org.molgenis.data.security.EntityIdentityUtils;
 import org.molgenis.data.security.EntityPermission;
 import org.molgenis.data.security.exception.EntityPermissionDeniedException;
+import org.molgenis.data.support.QueryImpl;
+import org.molgenis.security.core.Permission;
+import org.molgenis.security.core.PermissionRegistry;
 import org.molgenis.security.core.PermissionSet;
 import org.molgenis.security.core.SidUtils;
 import org.molgenis.security.core.UserPermissionEvaluator;
 import org.molgenis.util.UnexpectedEnumException;
+import org.springframework.security.acls.domain.PrincipalSid;
 import org.springframework.security.acls.model.AlreadyExistsException;
 import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.MutableAclService;
+import org.springframework.security.acls.model.ObjectIdentity;
 import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 
 /**
  * RepositoryDecorator that works on EntityTypes that are row-level secured. It is reponsible to
@@ -25,14 +50,20 @@ public class RowLevelSecurityRepositoryDecorator
     extends AbstractRowLevelSecurityRepositoryDecorator<Entity> {
   private final UserPermissionEvaluator userPermissionEvaluator;
   private final MutableAclService mutableAclService;
+  private final SidRetrievalStrategy sidRetrievalStrategy;
+  private final PermissionRegistry permissionRegistry;
 
   RowLevelSecurityRepositoryDecorator(
       Repository<Entity> delegateRepository,
       UserPermissionEvaluator userPermissionEvaluator,
-      MutableAclService mutableAclService) {
+      MutableAclService mutableAclService,
+      SidRetrievalStrategy sidRetrievalStrategy,
+      PermissionRegistry permissionRegistry) {
     super(delegateRepository, mutableAclService);
     this.userPermissionEvaluator = requireNonNull(userPermissionEvaluator);
     this.mutableAclService = requireNonNull(mutableAclService);
+    this.sidRetrievalStrategy = requireNonNull(sidRetrievalStrategy);
+    this.permissionRegistry = requireNonNull(permissionRegistry);
   }
 
   @Override
@@ -50,6 +81,40 @@ public class RowLevelSecurityRepositoryDecorator
     throw new EntityPermissionDeniedException(getPermission(action), entity);
   }
 
+  @Override
+  protected List<Entity> filterPermitted(List<Entity> entities, Action action) {
+    return filterPermitted(entities, this::toEntityIdentity, action);
+  }
+
+  @Override
+  protected List<Object> filterPermittedIds(List<Object> ids, Action action) {
+    return filterPermitted(ids, this::toEntityIdentity, action);
+  }
+
+  /** Retrieves the permissions of all items at once instead of one item at a time. */
+  private <T> List<T> filterPermitted(
+      List<T> items, Function<T, EntityIdentity> entityIdentityFunction, Action action) {
+    if (action == Action.CREATE) {
+      return items;
+    }
+    EntityPermission entityPermission = getPermission(action);
+    List<EntityIdentity> entityIdentities =
+        items.stream().map(entityIdentityFunction).collect(toList());
+    Map<ObjectIdentity, Set<Permission>> permissions =
+        userPermissionEvaluator.getPermissions(
+            entityIdentities, new Permission[] {entityPermission});
+
+    List<T> permittedItems = new ArrayList<>(items.size());
+    for (int i = 0; i < items.size(); i++) {
+      if (permissions
+          .getOrDefault(entityIdentities.get(i), emptySet())
+          .contains(entityPermission)) {
+        permittedItems.add(items.get(i));
+      }
+    }
+    return permittedItems;
+  }
+
   private boolean isActionPermitted(EntityIdentity entityIdentity, Action action) {
     if (action == Action.CREATE) {
       return true;
@@ -58,6 +123,58 @@ public class RowLevelSecurityRepositoryDecorator
     return userPermissionEvaluator.hasPermission(entityIdentity, entityPermission);
   }
 
+  /**
+   * Pushes the permission check down to the decorated repository if it supports the {@link
+   * Operator#PERMITTED} operator. The access control entries of entities never deny permissions and
+   * entity access control lists have no parent, so a matching granting entry is sufficient.
+   */
+  @Override
+  protected Query<Entity> createPermittedQuery(Query<Entity> query, Action action) {
+    if (currentUserIsSuOrSystem()) {
+      return query;
+    }
+    if (!delegate().getQueryOperators().contains(PERMITTED)) {
+      return null;
+    }
+
+    List<QueryRule> rules = new ArrayList<>(3);
+    if (!query.getRules().isEmpty()) {
+      rules.add(new QueryRule(new ArrayList<>(query.getRules())));
+      rules.add(new QueryRule(AND));
+    }
+    rules.add(new QueryRule(PERMITTED, createPermissionFilter(action)));
+
+    Query<Entity> permittedQuery = new QueryImpl<>(rules);
+    permittedQuery.offset(query.getOffset());
+    permittedQuery.pageSize(query.getPageSize());
+    permittedQuery.sort(query.getSort());
+    permittedQuery.setFetch(query.getFetch());
+    return permittedQuery;
+  }
+
+  private PermissionFilter createPermissionFilter(Action action) {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids =
+        authentication != null ? sidRetrievalStrategy.getSids(authentication) : emptyList();
+
+    Set<String> principals = new HashSet<>();
+    Set<String> authorities = new HashSet<>();
+    for (Sid sid : sids) {
+      if (sid instanceof PrincipalSid) {
+        principals.add(((PrincipalSid) sid).getPrincipal());
+      } else {
+        authorities.add(SidUtils.getStringValue(sid));
+      }
+    }
+
+    int mask = 0;
+    for (PermissionSet permissionSet : permissionRegistry.getPermissions(getPermission(action))) {
+      mask |= permissionSet.getMask();
+    }
+    return PermissionFilter.create(
+        EntityIdentityUtils.toType(getEntityType()), principals, authorities, mask);
+  }
+
   /**
    * Finds out what permission to check for an operation that is being performed on this repository.
    *
@@ -1,6 +1,7 @@
 package org.molgenis.data.security.audit;
 
 import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
@@ -12,9 +13,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ALL_ENTITIES_DELETED;
+import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.AUDIT_BATCH_SIZE;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITIES_AGGREGATED;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITIES_COUNTED;
+import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITIES_CREATED;
+import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITIES_DELETED;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITIES_READ;
+import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITIES_UPDATED;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITY_CREATED;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITY_DELETED;
 import static org.molgenis.data.security.audit.AuditingRepositoryDecorator.ENTITY_READ;
@@ -24,6 +29,7 @@ import static org.molgenis.data.system.model.RootSystemPackage.PACKAGE_SYSTEM;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -566,9 +572,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "patients", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "patients", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_DELETED,
+            Map.of("entityTypeId", "patients", "entityIds", List.of("id1", "id2")));
   }
 
   @SuppressWarnings("unchecked")
@@ -590,9 +597,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "sys", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "sys", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_DELETED,
+            Map.of("entityTypeId", "sys", "entityIds", List.of("id1", "id2")));
   }
 
   @Test
@@ -606,6 +614,37 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
     verifyNoInteractions(publisher);
   }
 
+  @SuppressWarnings("unchecked")
+  @Test
+  @WithMockUser("henk")
+  void deleteAllStreamBatched() {
+    onDataEntityType();
+
+    List<Object> ids =
+        IntStream.range(0, AUDIT_BATCH_SIZE + 1).mapToObj(i -> "id" + i).collect(toList());
+
+    decorator.deleteAll(ids.stream());
+
+    var captor = ArgumentCaptor.forClass(Stream.class);
+    verify(repository).deleteAll(captor.capture());
+    captor
+        .getValue()
+        .forEach(
+            (id) -> {
+              // consume
+            });
+    verify(publisher)
+        .publish(
+            "henk",
+            ENTITIES_DELETED,
+            Map.of("entityTypeId", "patients", "entityIds", ids.subList(0, AUDIT_BATCH_SIZE)));
+    verify(publisher)
+        .publish(
+            "henk",
+            ENTITIES_DELETED,
+            Map.of("entityTypeId", "patients", "entityIds", List.of("id" + AUDIT_BATCH_SIZE)));
+  }
+
   @Test
   @WithMockUser("henk")
   void add() {
@@ -666,9 +705,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_CREATED, Map.of("entityTypeId", "patients", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_CREATED, Map.of("entityTypeId", "patients", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_CREATED,
+            Map.of("entityTypeId", "patients", "entityIds", List.of("id1", "id2")));
   }
 
   @SuppressWarnings("unchecked")
@@ -690,9 +730,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_CREATED, Map.of("entityTypeId", "sys", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_CREATED, Map.of("entityTypeId", "sys", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_CREATED,
+            Map.of("entityTypeId", "sys", "entityIds", List.of("id1", "id2")));
   }
 
   @Test
@@ -766,9 +807,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_UPDATED, Map.of("entityTypeId", "patients", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_UPDATED, Map.of("entityTypeId", "patients", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_UPDATED,
+            Map.of("entityTypeId", "patients", "entityIds", List.of("id1", "id2")));
   }
 
   @SuppressWarnings("unchecked")
@@ -790,9 +832,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_UPDATED, Map.of("entityTypeId", "sys", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_UPDATED, Map.of("entityTypeId", "sys", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_UPDATED,
+            Map.of("entityTypeId", "sys", "entityIds", List.of("id1", "id2")));
   }
 
   @Test
@@ -866,9 +909,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "patients", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "patients", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_DELETED,
+            Map.of("entityTypeId", "patients", "entityIds", List.of("id1", "id2")));
   }
 
   @SuppressWarnings("unchecked")
@@ -890,9 +934,10 @@ class AuditingRepositoryDecoratorTest extends AbstractMockitoSpringContextTests
               // consume
             });
     verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "sys", "entityId", "id1"));
-    verify(publisher)
-        .publish("henk", ENTITY_DELETED, Map.of("entityTypeId", "sys", "entityId", "id2"));
+        .publish(
+            "henk",
+            ENTITIES_DELETED,
+            Map.of("entityTypeId", "sys", "entityIds", List.of("id1", "id2")));
   }
 
   @Test
@@ -17,10 +17,16 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.QueryRule.Operator.AND;
+import static org.molgenis.data.QueryRule.Operator.EQUALS;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.security.EntityPermission.READ;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
@@ -30,7 +36,9 @@ import org.mockito.Mock;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityAlreadyExistsException;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.PermissionFilter;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.aggregation.AggregateQuery;
 import org.molgenis.data.aggregation.AggregateResult;
@@ -39,13 +47,18 @@ import org.molgenis.data.security.EntityIdentity;
 import org.molgenis.data.security.EntityPermission;
 import org.molgenis.data.security.exception.EntityPermissionDeniedException;
 import org.molgenis.data.support.QueryImpl;
+import org.molgenis.security.core.Permission;
+import org.molgenis.security.core.PermissionRegistry;
 import org.molgenis.security.core.PermissionSet;
 import org.molgenis.security.core.UserPermissionEvaluator;
 import org.molgenis.test.AbstractMockitoSpringContextTests;
+import org.springframework.security.acls.domain.GrantedAuthoritySid;
 import org.springframework.security.acls.domain.PrincipalSid;
 import org.springframework.security.acls.model.AlreadyExistsException;
 import org.springframework.security.acls.model.MutableAcl;
 import org.springframework.security.acls.model.MutableAclService;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.test.context.annotation.SecurityTestExecutionListeners;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.ContextConfiguration;
@@ -58,20 +71,26 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
   @Mock private Repository<Entity> delegateRepository;
   @Mock private UserPermissionEvaluator userPermissionEvaluator;
   @Mock private MutableAclService mutableAclService;
+  @Mock private SidRetrievalStrategy sidRetrievalStrategy;
+  @Mock private PermissionRegistry permissionRegistry;
   private RowLevelSecurityRepositoryDecorator rowLevelSecurityRepositoryDecorator;
 
   @BeforeEach
   void setUpBeforeMethod() {
     rowLevelSecurityRepositoryDecorator =
         new RowLevelSecurityRepositoryDecorator(
-            delegateRepository, userPermissionEvaluator, mutableAclService);
+            delegateRepository,
+            userPermissionEvaluator,
+            mutableAclService,
+            sidRetrievalStrategy,
+            permissionRegistry);
   }
 
   @Test
   void testRowLevelSecurityRepositoryDecorator() {
     assertThrows(
         NullPointerException.class,
-        () -> new RowLevelSecurityRepositoryDecorator(null, null, null));
+        () -> new RowLevelSecurityRepositoryDecorator(null, null, null, null, null));
   }
 
   @WithMockUser(username = USERNAME)
@@ -191,8 +210,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
   @Test
   void testDeleteStream() {
     Entity entity = getEntityMock();
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), EntityPermission.DELETE))
-        .thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), EntityPermission.DELETE);
     rowLevelSecurityRepositoryDecorator.delete(Stream.of(entity));
 
     @SuppressWarnings("unchecked")
@@ -259,9 +277,10 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
         .when(delegateRepository)
         .forEachBatched(any(), eq(1000));
 
-    when(userPermissionEvaluator.hasPermission(
-            new EntityIdentity(permittedEntity), EntityPermission.DELETE))
-        .thenReturn(true);
+    setUpPermissions(
+        asList(new EntityIdentity(permittedEntity), new EntityIdentity(notPermittedEntity)),
+        EntityPermission.DELETE,
+        new EntityIdentity(permittedEntity));
     rowLevelSecurityRepositoryDecorator.deleteAll();
     ArgumentCaptor<Stream<Entity>> entityStreamCaptor = ArgumentCaptor.forClass(Stream.class);
     verify(delegateRepository).delete(entityStreamCaptor.capture());
@@ -300,9 +319,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     EntityType entityType = when(mock(EntityType.class).getId()).thenReturn(entityTypeId).getMock();
     when(delegateRepository.getEntityType()).thenReturn(entityType);
     Object entityId = "entityId";
-    when(userPermissionEvaluator.hasPermission(
-            new EntityIdentity(entityTypeId, entityId), EntityPermission.DELETE))
-        .thenReturn(true);
+    setUpPermission(new EntityIdentity(entityTypeId, entityId), EntityPermission.DELETE);
     rowLevelSecurityRepositoryDecorator.deleteAll(Stream.of(entityId));
 
     @SuppressWarnings("unchecked")
@@ -380,7 +397,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Entity entity = getEntityMock();
     when(delegateRepository.findAll(new QueryImpl<>().setOffset(0).setPageSize(Integer.MAX_VALUE)))
         .thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), READ);
     assertEquals(rowLevelSecurityRepositoryDecorator.findOne(query), entity);
   }
 
@@ -401,7 +418,31 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Entity entity = getEntityMock();
     when(delegateRepository.findAll(new QueryImpl<>().setOffset(0).setPageSize(Integer.MAX_VALUE)))
         .thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), READ);
+    assertEquals(
+        singletonList(entity),
+        rowLevelSecurityRepositoryDecorator.findAll(query).collect(toList()));
+  }
+
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testFindAllQueryPermitted() {
+    setUpPermittedQuerySupport();
+    Entity entity = mock(Entity.class);
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value").offset(10).pageSize(5);
+    when(delegateRepository.findAll(createPermittedQuery(query, 12)))
+        .thenAnswer(invocation -> Stream.of(entity));
+    assertEquals(
+        singletonList(entity),
+        rowLevelSecurityRepositoryDecorator.findAll(query).collect(toList()));
+  }
+
+  @WithMockUser(username = USERNAME, roles = "SU")
+  @Test
+  void testFindAllQuerySuperuser() {
+    Entity entity = mock(Entity.class);
+    Query<Entity> query = new QueryImpl<>().eq("attr", "value").offset(10).pageSize(5);
+    when(delegateRepository.findAll(query)).thenAnswer(invocation -> Stream.of(entity));
     assertEquals(
         singletonList(entity),
         rowLevelSecurityRepositoryDecorator.findAll(query).collect(toList()));
@@ -423,7 +464,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Object entityId = "entityId";
     Entity entity = getEntityMock();
     when(delegateRepository.findAll(any(Stream.class))).thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), READ);
     assertEquals(
         singletonList(entity),
         rowLevelSecurityRepositoryDecorator.findAll(of(entityId)).collect(toList()));
@@ -447,7 +488,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Fetch fetch = mock(Fetch.class);
     when(delegateRepository.findAll(any(Stream.class), eq(fetch)))
         .thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), READ);
     assertEquals(
         singletonList(entity),
         rowLevelSecurityRepositoryDecorator.findAll(of(entityId), fetch).collect(toList()));
@@ -471,8 +512,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Entity entity = getEntityMock();
     when(delegateRepository.findAll(new QueryImpl<>().setOffset(0).setPageSize(Integer.MAX_VALUE)))
         .thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), EntityPermission.READ))
-        .thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), EntityPermission.READ);
     assertEquals(1L, rowLevelSecurityRepositoryDecorator.count());
   }
 
@@ -491,11 +531,19 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
     Entity entity = getEntityMock();
     when(delegateRepository.findAll(new QueryImpl<>().setOffset(0).setPageSize(Integer.MAX_VALUE)))
         .thenAnswer(invocation -> Stream.of(entity));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), EntityPermission.READ))
-        .thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), EntityPermission.READ);
     assertEquals(1L, rowLevelSecurityRepositoryDecorator.count(query));
   }
 
+  @WithMockUser(username = USERNAME)
+  @Test
+  void testCountQueryPermitted() {
+    setUpPermittedQuerySupport();
+    Query<Entity> query = new QueryImpl<>();
+    when(delegateRepository.count(createPermittedQuery(query, 12))).thenReturn(3L);
+    assertEquals(3L, rowLevelSecurityRepositoryDecorator.count(query));
+  }
+
   @Test
   void testCountQueryPermissionDenied() {
     @SuppressWarnings("unchecked")
@@ -510,7 +558,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
   void testIterator() {
     Entity entity = getEntityMock();
     when(delegateRepository.iterator()).thenReturn(singletonList(entity).iterator());
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), READ);
     assertEquals(
         singletonList(entity), newArrayList(rowLevelSecurityRepositoryDecorator.iterator()));
   }
@@ -535,7 +583,7 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
             })
         .when(delegateRepository)
         .forEachBatched(eq(fetch), any(), eq(1000));
-    when(userPermissionEvaluator.hasPermission(new EntityIdentity(entity), READ)).thenReturn(true);
+    setUpPermission(new EntityIdentity(entity), READ);
     rowLevelSecurityRepositoryDecorator.forEachBatched(fetch, actualEntities::addAll, 1000);
     assertEquals(singletonList(entity), actualEntities);
   }
@@ -575,6 +623,41 @@ class RowLevelSecurityRepositoryDecoratorTest extends AbstractMockitoSpringConte
         () -> rowLevelSecurityRepositoryDecorator.aggregate(aggregateQuery));
   }
 
+  private void setUpPermittedQuerySupport() {
+    EntityType entityType =
+        when(mock(EntityType.class).getId()).thenReturn("entityTypeId").getMock();
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+    when(delegateRepository.getQueryOperators()).thenReturn(EnumSet.of(EQUALS, AND, PERMITTED));
+    when(sidRetrievalStrategy.getSids(any(Authentication.class)))
+        .thenReturn(asList(new PrincipalSid(USERNAME), new GrantedAuthoritySid("ROLE_USER")));
+    when(permissionRegistry.getPermissions(READ))
+        .thenReturn(Set.of(PermissionSet.READ, PermissionSet.WRITE));
+  }
+
+  private static Query<Entity> createPermittedQuery(Query<Entity> query, int mask) {
+    PermissionFilter permissionFilter =
+        PermissionFilter.create("entity-entityTypeId", Set.of(USERNAME), Set.of("ROLE_USER"), mask);
+    List<QueryRule> rules = new ArrayList<>();
+    if (!query.getRules().isEmpty()) {
+      rules.add(new QueryRule(query.getRules()));
+      rules.add(new QueryRule(AND));
+    }
+    rules.add(new QueryRule(PERMITTED, permissionFilter));
+    return new QueryImpl<>(rules).offset(query.getOffset()).pageSize(query.getPageSize());
+  }
+
+  private void setUpPermission(EntityIdentity entityIdentity, EntityPermission permission) {
+    setUpPermissions(singletonList(entityIdentity), permission, entityIdentity);
+  }
+
+  private void setUpPermissions(
+      List<EntityIdentity> entityIdentities,
+      EntityPermission permission,
+      EntityIdentity permittedEntityIdentity) {
+    when(userPermissionEvaluator.getPermissions(entityIdentities, new Permission[] {permission}))
+        .thenReturn(Map.of(permittedEntityIdentity, Set.of(permission)));
+  }
+
   private Entity getEntityMock() {
     EntityType entityType = mock(EntityType.class);
     when(entityType.getId()).thenReturn("entityTypeId");
@@ -19,6 +19,7 @@ import javax.annotation.Nullable;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.Fetch;
+import org.molgenis.data.PermissionFilter;
 import org.molgenis.data.Query;
 import org.molgenis.data.QueryRule;
 import org.molgenis.data.QueryRule.Operator;
@@ -99,6 +100,9 @@ public class QueryValidator {
             .getNestedRules()
             .forEach(nestedQueryRule -> validateQueryRule(nestedQueryRule, entityType));
         break;
+      case PERMITTED:
+        validatePermittedQueryRule(queryRule);
+        break;
       default:
         throw new UnexpectedEnumException(operator);
     }
@@ -131,6 +135,18 @@ public class QueryValidator {
     }
   }
 
+  private void validatePermittedQueryRule(QueryRule queryRule) {
+    Object queryRuleValue = queryRule.getValue();
+    if (!(queryRuleValue instanceof PermissionFilter)) {
+      throw new MolgenisValidationException(
+          new ConstraintViolation(
+              format(
+                  "Query rule with operator [%s] value is of type [%s] instead of [PermissionFilter]",
+                  queryRule.getOperator(),
+                  queryRuleValue != null ? queryRuleValue.getClass().getSimpleName() : null)));
+    }
+  }
+
   private void validateSearchQueryRule(QueryRule queryRule) {
     Object queryRuleValue = queryRule.getValue();
     if (queryRuleValue != null && !(queryRuleValue instanceof String)) {
@@ -6,6 +6,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Collections.unmodifiableMap;
 import static java.util.Collections.unmodifiableSet;
@@ -19,8 +20,13 @@ import static org.molgenis.data.util.EntityTypeUtils.isMultipleReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 import static org.molgenis.data.util.EntityTypeUtils.isSingleReferenceType;
 
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +53,12 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     UPDATE
   }
 
+  /**
+   * Number of entities validated together, the referenced entities and existing unique values of
+   * these entities are looked up with one query per batch.
+   */
+  private static final int VALIDATION_BATCH_SIZE = 1000;
+
   private final DataService dataService;
   private final EntityAttributesValidator entityAttributesValidator;
   private final DefaultValueReferenceValidator defaultValueReferenceValidator;
@@ -137,18 +149,40 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     ValidationProfile validationProfile = new ValidationProfile().invoke();
 
     // add validation operation to stream
-    return entities.filter(
-        entity -> {
-          validate(entity, validationResource, validationMode, validationProfile);
-
-          return true;
-        });
+    Iterator<List<Entity>> batches =
+        Iterators.partition(entities.iterator(), VALIDATION_BATCH_SIZE);
+    return stream(batches)
+        .flatMap(
+            batch -> {
+              validate(batch, validationResource, validationMode, validationProfile);
+              return batch.stream();
+            })
+        .onClose(entities::close);
   }
 
   private void validate(
       Entity entity, ValidationResource validationResource, ValidationMode validationMode) {
     initValidation(validationResource, validationMode);
-    validate(entity, validationResource, validationMode, new ValidationProfile().invoke());
+    validate(
+        singletonList(entity),
+        validationResource,
+        validationMode,
+        new ValidationProfile().invoke());
+  }
+
+  private void validate(
+      List<Entity> entities,
+      ValidationResource validationResource,
+      ValidationMode validationMode,
+      ValidationProfile validationProfile) {
+    validationResource.setRefEntitiesIds(findExistingRefEntitiesIds(entities, validationResource));
+    if (validationProfile.isValidateUniqueness()) {
+      validationResource.setExistingUniqueAttrsValues(
+          findExistingUniqueAttrsValues(entities, validationResource));
+    }
+
+    entities.forEach(
+        entity -> validate(entity, validationResource, validationMode, validationProfile));
   }
 
   private void validate(
@@ -229,37 +263,70 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
               .collect(toList());
     }
 
-    // get referenced entity ids
-    if (!refAttrs.isEmpty()) {
-      Map<String, HugeSet<Object>> refEntitiesIds = new HashMap<>();
-      refAttrs.forEach(
-          refAttr -> {
-            EntityType refEntityType = refAttr.getRefEntity();
-            String refEntityName = refEntityType.getId();
-            HugeSet<Object> refEntityIds = refEntitiesIds.get(refEntityName);
-            if (refEntityIds == null) {
-              refEntityIds = new HugeSet<>();
-              refEntitiesIds.put(refEntityName, refEntityIds);
-
-              Query<Entity> q =
-                  new QueryImpl<>()
-                      .fetch(new Fetch().field(refEntityType.getIdAttribute().getName()));
-              for (Iterator<Entity> it = dataService.findAll(refEntityName, q).iterator();
-                  it.hasNext(); ) {
-                refEntityIds.add(it.next().getIdValue());
-              }
-            }
-          });
-
-      validationResource.setRefEntitiesIds(refEntitiesIds);
-    }
-
     validationResource.setSelfReferencing(
         refAttrs.stream()
             .anyMatch(refAttr -> refAttr.getRefEntity().getId().equals(getEntityType().getId())));
+    if (validationResource.isSelfReferencing()) {
+      validationResource.initValidatedEntityIds(getEntityType().getId());
+    }
     validationResource.setRefAttrs(refAttrs);
   }
 
+  /**
+   * Returns the identifiers of the entities referenced by the given entities that exist, grouped by
+   * referenced entity type identifier.
+   */
+  private Map<String, Set<Object>> findExistingRefEntitiesIds(
+      List<Entity> entities, ValidationResource validationResource) {
+    Map<String, List<Attribute>> refEntityTypeAttrs = new LinkedHashMap<>();
+    validationResource
+        .getRefAttrs()
+        .forEach(
+            refAttr ->
+                refEntityTypeAttrs
+                    .computeIfAbsent(refAttr.getRefEntity().getId(), id -> new ArrayList<>())
+                    .add(refAttr));
+
+    Map<String, Set<Object>> refEntitiesIds = new HashMap<>();
+    refEntityTypeAttrs.forEach(
+        (refEntityTypeId, refAttrs) -> {
+          Set<Object> refEntityIds = new LinkedHashSet<>();
+          for (Attribute refAttr : refAttrs) {
+            for (Entity entity : entities) {
+              addRefEntityIds(entity.get(refAttr.getName()), refEntityIds);
+            }
+          }
+
+          EntityType refEntityType = refAttrs.get(0).getRefEntity();
+          String refIdAttrName = refEntityType.getIdAttribute().getName();
+          Set<Object> existingRefEntityIds = new HashSet<>();
+          for (List<Object> batchRefEntityIds :
+              Iterables.partition(refEntityIds, VALIDATION_BATCH_SIZE)) {
+            Query<Entity> q =
+                new QueryImpl<>()
+                    .in(refIdAttrName, batchRefEntityIds)
+                    .fetch(new Fetch().field(refIdAttrName));
+            dataService
+                .findAll(refEntityTypeId, q)
+                .forEach(refEntity -> existingRefEntityIds.add(refEntity.getIdValue()));
+          }
+          refEntitiesIds.put(refEntityTypeId, existingRefEntityIds);
+        });
+    return refEntitiesIds;
+  }
+
+  private static void addRefEntityIds(Object value, Set<Object> refEntityIds) {
+    if (value instanceof Entity) {
+      refEntityIds.add(((Entity) value).getIdValue());
+    } else if (value instanceof Iterable) {
+      for (Object refValue : (Iterable<?>) value) {
+        if (refValue instanceof Entity) {
+          refEntityIds.add(((Entity) refValue).getIdValue());
+        }
+      }
+    }
+  }
+
   private boolean isDifferentBackend(String backend, Attribute attr) {
     EntityType refEntity = attr.getRefEntity();
     String refEntityBackend = dataService.getMeta().getBackend(refEntity).getName();
@@ -274,40 +341,63 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
               .filter(attr -> attr.isUnique() && attr.getExpression() == null)
               .collect(toList());
 
-      // get existing values for each attributes
-      if (!uniqueAttrs.isEmpty()) {
-        Map<String, HugeMap<Object, Object>> uniqueAttrsValues = new HashMap<>();
+      // values claimed by validated entities
+      Map<String, HugeMap<Object, Object>> uniqueAttrsValues = new HashMap<>();
+      uniqueAttrs.forEach(
+          uniqueAttr -> uniqueAttrsValues.put(uniqueAttr.getName(), new HugeMap<>()));
+      validationResource.setUniqueAttrsValues(uniqueAttrsValues);
 
-        Fetch fetch = new Fetch();
-        uniqueAttrs.forEach(
-            uniqueAttr -> {
-              uniqueAttrsValues.put(uniqueAttr.getName(), new HugeMap<>());
-              fetch.field(uniqueAttr.getName());
-            });
+      validationResource.setUniqueAttrs(uniqueAttrs);
+    }
+  }
 
-        Query<Entity> q = new QueryImpl<>().fetch(fetch);
+  /**
+   * Returns the existing values of the unique attributes that are claimed by the given entities,
+   * mapped to the identifiers of the entities that own them, grouped by attribute name.
+   */
+  private Map<String, Map<Object, Object>> findExistingUniqueAttrsValues(
+      List<Entity> entities, ValidationResource validationResource) {
+    String idAttrName = getEntityType().getIdAttribute().getName();
+
+    Map<String, Map<Object, Object>> existingUniqueAttrsValues = new HashMap<>();
+    for (Attribute uniqueAttr : validationResource.getUniqueAttrs()) {
+      String uniqueAttrName = uniqueAttr.getName();
+      Set<Object> uniqueAttrValues = new LinkedHashSet<>();
+      for (Entity entity : entities) {
+        Object attrValue = getUniqueAttrValue(entity, uniqueAttr);
+        if (attrValue != null) {
+          uniqueAttrValues.add(attrValue);
+        }
+      }
+
+      Map<Object, Object> existingUniqueAttrValues = new HashMap<>();
+      for (List<Object> batchUniqueAttrValues :
+          Iterables.partition(uniqueAttrValues, VALIDATION_BATCH_SIZE)) {
+        Query<Entity> q =
+            new QueryImpl<>()
+                .in(uniqueAttrName, batchUniqueAttrValues)
+                .fetch(new Fetch().field(idAttrName).field(uniqueAttrName));
         delegate()
             .findAll(q)
             .forEach(
-                entity ->
-                    uniqueAttrs.forEach(
-                        uniqueAttr -> {
-                          HugeMap<Object, Object> uniqueAttrValues =
-                              uniqueAttrsValues.get(uniqueAttr.getName());
-                          Object attrValue = entity.get(uniqueAttr.getName());
-                          if (attrValue != null) {
-                            if (isSingleReferenceType(uniqueAttr)) {
-                              attrValue = ((Entity) attrValue).getIdValue();
-                            }
-                            uniqueAttrValues.put(attrValue, entity.getIdValue());
-                          }
-                        }));
-
-        validationResource.setUniqueAttrsValues(uniqueAttrsValues);
+                existingEntity -> {
+                  Object attrValue = getUniqueAttrValue(existingEntity, uniqueAttr);
+                  if (attrValue != null) {
+                    existingUniqueAttrValues.put(attrValue, existingEntity.getIdValue());
+                  }
+                });
       }
+      existingUniqueAttrsValues.put(uniqueAttrName, existingUniqueAttrValues);
+    }
+    return existingUniqueAttrsValues;
+  }
 
-      validationResource.setUniqueAttrs(uniqueAttrs);
+  private static Object getUniqueAttrValue(Entity entity, Attribute uniqueAttr) {
+    Object attrValue = entity.get(uniqueAttr.getName());
+    if (attrValue instanceof Entity) {
+      attrValue = ((Entity) attrValue).getIdValue();
     }
+    return attrValue;
   }
 
   private void initReadonlyValidation(ValidationResource validationResource) {
@@ -371,6 +461,13 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
                 HugeMap<Object, Object> uniqueAttrValues =
                     validationResource.getUniqueAttrsValues().get(uniqueAttr.getName());
                 Object existingEntityId = uniqueAttrValues.get(attrValue);
+                if (existingEntityId == null) {
+                  existingEntityId =
+                      validationResource
+                          .getExistingUniqueAttrsValues()
+                          .get(uniqueAttr.getName())
+                          .get(attrValue);
+                }
                 if ((validationMode == ValidationMode.ADD && existingEntityId != null)
                     || (validationMode == ValidationMode.UPDATE
                         && existingEntityId != null
@@ -394,8 +491,9 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
         .getRefAttrs()
         .forEach(
             refAttr -> {
-              HugeSet<Object> refEntityIds =
-                  validationResource.getRefEntitiesIds().get(refAttr.getRefEntity().getId());
+              String refEntityTypeId = refAttr.getRefEntity().getId();
+              Set<Object> refEntityIds =
+                  validationResource.getRefEntitiesIds().get(refEntityTypeId);
 
               Iterable<Entity> refEntities;
               if (isSingleReferenceType(refAttr)) {
@@ -410,7 +508,9 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
               }
 
               for (Entity refEntity : refEntities) {
-                if (!refEntityIds.contains(refEntity.getIdValue())) {
+                Object refEntityId = refEntity.getIdValue();
+                if (!refEntityIds.contains(refEntityId)
+                    && !validationResource.isValidatedEntityId(refEntityTypeId, refEntityId)) {
                   boolean selfReference =
                       entity.getEntityType().getId().equals(refAttr.getRefEntity().getId());
                   if (!(selfReference && entity.getIdValue().equals(refEntity.getIdValue()))) {
@@ -430,7 +530,7 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
 
               // only do if self reference
               if (validationResource.isSelfReferencing()) {
-                validationResource.addRefEntityId(getName(), entity.getIdValue());
+                validationResource.addValidatedEntityId(entity.getIdValue());
               }
             });
   }
@@ -485,11 +585,21 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
     private AtomicInteger rowNr;
     private List<Attribute> requiredValueAttrs;
     private List<Attribute> refAttrs;
-    private Map<String, HugeSet<Object>> refEntitiesIds;
+    /** Existing referenced entity ids of the current batch */
+    private Map<String, Set<Object>> refEntitiesIds;
+
     private List<Attribute> uniqueAttrs;
+    /** Unique attribute values claimed by validated entities */
     private Map<String, HugeMap<Object, Object>> uniqueAttrsValues;
+    /** Existing unique attribute values claimed by entities of the current batch */
+    private Map<String, Map<Object, Object>> existingUniqueAttrsValues;
+
     private List<Attribute> readonlyAttrs;
     private boolean selfReferencing;
+    /** Ids of validated entities, only available for self referencing entity types */
+    private HugeSet<Object> entityIds;
+
+    private String entityTypeId;
     private Set<ConstraintViolation> violations;
 
     ValidationResource() {
@@ -520,20 +630,22 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.refAttrs = refAttrs;
     }
 
-    Map<String, HugeSet<Object>> getRefEntitiesIds() {
+    Map<String, Set<Object>> getRefEntitiesIds() {
       return refEntitiesIds != null ? unmodifiableMap(refEntitiesIds) : emptyMap();
     }
 
-    void setRefEntitiesIds(Map<String, HugeSet<Object>> refEntitiesIds) {
+    void setRefEntitiesIds(Map<String, Set<Object>> refEntitiesIds) {
       this.refEntitiesIds = refEntitiesIds;
     }
 
-    void addRefEntityId(String name, Object idValue) {
-      HugeSet<Object> refEntityIds = refEntitiesIds.get(name);
-      // only add entity id if this validation run requires entity
-      if (refEntityIds != null) {
-        refEntityIds.add(idValue);
-      }
+    void addValidatedEntityId(Object idValue) {
+      entityIds.add(idValue);
+    }
+
+    boolean isValidatedEntityId(String refEntityTypeId, Object idValue) {
+      return entityIds != null
+          && refEntityTypeId.equals(entityTypeId)
+          && entityIds.contains(idValue);
     }
 
     List<Attribute> getUniqueAttrs() {
@@ -552,6 +664,16 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.uniqueAttrsValues = uniqueAttrsValues;
     }
 
+    Map<String, Map<Object, Object>> getExistingUniqueAttrsValues() {
+      return existingUniqueAttrsValues != null
+          ? unmodifiableMap(existingUniqueAttrsValues)
+          : emptyMap();
+    }
+
+    void setExistingUniqueAttrsValues(Map<String, Map<Object, Object>> existingUniqueAttrsValues) {
+      this.existingUniqueAttrsValues = existingUniqueAttrsValues;
+    }
+
     List<Attribute> getReadonlyAttrs() {
       return readonlyAttrs != null ? unmodifiableList(readonlyAttrs) : emptyList();
     }
@@ -560,6 +682,11 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
       this.readonlyAttrs = readonlyAttrs;
     }
 
+    void initValidatedEntityIds(String entityTypeId) {
+      this.entityTypeId = entityTypeId;
+      this.entityIds = new HugeSet<>();
+    }
+
     void setSelfReferencing(boolean selfReferencing) {
       this.selfReferencing = selfReferencing;
     }
@@ -585,10 +712,8 @@ public class RepositoryValidationDecorator extends AbstractRepositoryDecorator<E
 
     @Override
     public void close() {
-      if (refEntitiesIds != null) {
-        for (HugeSet<Object> refEntityIds : refEntitiesIds.values()) {
-          refEntityIds.close();
-        }
+      if (entityIds != null) {
+        entityIds.close();
       }
       if (uniqueAttrsValues != null) {
         for (HugeMap<Object, Object> uniqueAttrValues : uniqueAttrsValues.values()) {
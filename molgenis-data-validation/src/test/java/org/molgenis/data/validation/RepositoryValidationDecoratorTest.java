@@ -7,6 +7,7 @@ import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -17,6 +18,7 @@ import static org.molgenis.data.meta.AttributeType.STRING;
 import static org.molgenis.data.meta.AttributeType.XREF;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -25,10 +27,13 @@ import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.mockito.stubbing.Answer;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Fetch;
 import org.molgenis.data.Query;
+import org.molgenis.data.QueryRule;
 import org.molgenis.data.Repository;
 import org.molgenis.data.RepositoryCapability;
 import org.molgenis.data.RepositoryCollection;
@@ -186,19 +191,14 @@ class RepositoryValidationDecoratorTest {
     delegateRepository = mock(Repository.class);
     when(delegateRepository.getEntityType()).thenReturn(entityType);
     when(delegateRepository.getName()).thenReturn(entityTypeId);
-    when(delegateRepository.findAll(
-            new QueryImpl<>()
-                .fetch(new Fetch().field(attrUniqueStringName).field(attrUniqueXrefName))))
-        .thenReturn(Stream.empty());
     refRepo = mock(Repository.class);
     when(refRepo.getEntityType()).thenReturn(refEntityType);
 
     dataService = mock(DataService.class);
     when(dataService.getRepository(entityTypeId)).thenReturn(delegateRepository);
     when(dataService.getRepository(refEntityName)).thenReturn(refRepo);
-    when(dataService.findAll(
-            refEntityName, new QueryImpl<>().fetch(new Fetch().field(refAttrIdName))))
-        .thenReturn(Stream.of(refEntity0, refEntity1));
+    when(dataService.findAll(eq(refEntityName), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(refEntity0, refEntity1));
 
     metaDataService = mock(MetaDataService.class);
     when(dataService.getMeta()).thenReturn(metaDataService);
@@ -491,8 +491,8 @@ class RepositoryValidationDecoratorTest {
     when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
     // actual tests
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entity0));
     repositoryValidationDecorator.add(entity0);
 
     verify(delegateRepository, times(1)).add(entity0);
@@ -641,8 +641,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -699,8 +699,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -751,8 +751,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -821,6 +821,47 @@ class RepositoryValidationDecoratorTest {
     verify(entityAttributesValidator, times(1)).validate(entity0, entityType);
   }
 
+  @SuppressWarnings({"rawtypes", "unchecked"})
+  @Test
+  void addStreamLookupExistingValuesOfBatch() {
+    // entities
+    Entity entity0 = mock(Entity.class);
+    when(entity0.getEntityType()).thenReturn(entityType);
+
+    when(entity0.getIdValue()).thenReturn("id0");
+    when(entity0.getEntity(attrXrefName)).thenReturn(refEntity0);
+    when(entity0.getEntity(attrNillableXrefName)).thenReturn(null);
+    when(entity0.getEntities(attrMrefName)).thenReturn(Arrays.asList(refEntity0, refEntity1));
+    when(entity0.getEntities(attrNillableMrefName)).thenReturn(emptyList());
+    when(entity0.getString(attrUniqueStringName)).thenReturn("unique0");
+    when(entity0.getEntity(attrUniqueXrefName)).thenReturn(refEntity0);
+
+    when(entity0.get(attrIdName)).thenReturn("id0");
+    when(entity0.get(attrXrefName)).thenReturn(refEntity0);
+    when(entity0.get(attrNillableXrefName)).thenReturn(null);
+    when(entity0.get(attrMrefName)).thenReturn(Arrays.asList(refEntity0, refEntity1));
+    when(entity0.get(attrNillableMrefName)).thenReturn(emptyList());
+    when(entity0.get(attrUniqueStringName)).thenReturn("unique0");
+    when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
+
+    // actual tests
+    List<Entity> entities = Arrays.asList(entity0);
+    repositoryValidationDecorator.add(entities.stream());
+
+    ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
+    verify(delegateRepository, times(1)).add(captor.capture());
+    Stream<Entity> stream = captor.getValue();
+    stream.collect(toList()); // process stream to enable validation
+
+    verify(dataService, times(1)).findAll(eq(refEntityName), ArgumentMatchers.<Query<Entity>>any());
+    verify(dataService)
+        .findAll(refEntityName, new QueryImpl<>().in(refAttrIdName, asList("idref0", "idref1")));
+    verify(delegateRepository)
+        .findAll(new QueryImpl<>().in(attrUniqueStringName, singletonList("unique0")));
+    verify(delegateRepository)
+        .findAll(new QueryImpl<>().in(attrUniqueXrefName, singletonList("idref0")));
+  }
+
   @SuppressWarnings({"rawtypes", "unchecked"})
   @Test
   void addStreamEntityAttributesValidationError() {
@@ -1032,8 +1073,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entity0));
     repositoryValidationDecorator.add(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -1091,8 +1132,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0, entity1);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.empty());
+    when(dataService.findAll(eq(entityTypeId), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn());
     repositoryValidationDecorator.add(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -1330,8 +1371,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1396,8 +1437,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1517,8 +1558,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1745,8 +1786,8 @@ class RepositoryValidationDecoratorTest {
     when(entity0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
     // actual tests
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entity0));
     repositoryValidationDecorator.update(entity0);
     verify(delegateRepository, times(1)).update(entity0);
     verify(entityAttributesValidator, times(1)).validate(entity0, entityType);
@@ -1894,8 +1935,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -1952,8 +1993,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -2004,8 +2045,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -2753,8 +2794,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0));
+    when(dataService.findAll(eq(entityTypeId), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entity0));
     repositoryValidationDecorator.update(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -2812,8 +2853,8 @@ class RepositoryValidationDecoratorTest {
 
     // actual tests
     List<Entity> entities = Arrays.asList(entity0, entity1);
-    when(dataService.findAll(entityTypeId, new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entity0, entity1));
+    when(dataService.findAll(eq(entityTypeId), ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entity0, entity1));
     repositoryValidationDecorator.update(entities.stream());
 
     ArgumentCaptor<Stream<Entity>> captor = ArgumentCaptor.forClass(Stream.class);
@@ -3051,8 +3092,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -3117,8 +3158,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -3238,8 +3279,8 @@ class RepositoryValidationDecoratorTest {
     when(entityInBackend0.get(attrUniqueStringName)).thenReturn("unique0");
     when(entityInBackend0.get(attrUniqueXrefName)).thenReturn(refEntity0);
 
-    when(delegateRepository.findAll(new QueryImpl<>().fetch(new Fetch().field(attrIdName))))
-        .thenReturn(Stream.of(entityInBackend0));
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any()))
+        .thenAnswer(findAllIn(entityInBackend0));
 
     // entities
     Entity entity0 = mock(Entity.class);
@@ -3884,4 +3925,23 @@ class RepositoryValidationDecoratorTest {
         MolgenisValidationException.class,
         () -> repositoryValidationDecorator.deleteAll(entityIdStream));
   }
+
+  /** Answers queries with an 'in' query rule with the given entities that match the rule */
+  private static Answer<Stream<Entity>> findAllIn(Entity... entities) {
+    return invocation -> {
+      Query<Entity> query = invocation.getArgument(invocation.getArguments().length - 1);
+      QueryRule queryRule = query.getRules().get(0);
+      assertEquals(QueryRule.Operator.IN, queryRule.getOperator());
+      Collection<?> values = (Collection<?>) queryRule.getValue();
+      return Arrays.stream(entities)
+          .filter(
+              entity -> {
+                Object value = entity.get(queryRule.getField());
+                if (value instanceof Entity) {
+                  value = ((Entity) value).getIdValue();
+                }
+                return values.contains(value);
+              });
+    };
+  }
 }
@@ -0,0 +1,18 @@
+package org.molgenis.data;
+
+import java.util.OptionalLong;
+import org.molgenis.data.meta.model.EntityType;
+
+/**
+ * Estimates the number of entities of an entity type without counting them, e.g. based on backend
+ * statistics.
+ */
+public interface EntityCountEstimator {
+  /**
+   * Returns the estimated number of entities of the given entity type.
+   *
+   * @param entityType entity type
+   * @return estimated number of entities or an empty optional if no estimate is available
+   */
+  OptionalLong estimateCount(EntityType entityType);
+}
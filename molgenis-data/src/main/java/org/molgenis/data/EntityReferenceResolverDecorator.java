@@ -1,35 +1,57 @@
 package org.molgenis.data;
 
 import static java.util.Objects.requireNonNull;
+import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map.Entry;
+import java.util.Objects;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.molgenis.data.meta.model.Attribute;
+import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.QueryImpl;
 
 public class EntityReferenceResolverDecorator extends AbstractRepositoryDecorator<Entity> {
   private final EntityManager entityManager;
+  private final ReferenceJoinPolicy referenceJoinPolicy;
 
   public EntityReferenceResolverDecorator(
       Repository<Entity> delegateRepository, EntityManager entityManager) {
+    this(delegateRepository, entityManager, refEntityType -> false);
+  }
+
+  /**
+   * @param referenceJoinPolicy decides which references are retrieved together with the referring
+   *     entities by the delegate repository instead of being resolved afterwards
+   */
+  public EntityReferenceResolverDecorator(
+      Repository<Entity> delegateRepository,
+      EntityManager entityManager,
+      ReferenceJoinPolicy referenceJoinPolicy) {
     super(delegateRepository);
     this.entityManager = requireNonNull(entityManager);
+    this.referenceJoinPolicy = requireNonNull(referenceJoinPolicy);
   }
 
   // Resolve entity references based on given fetch
   @Override
   public Stream<Entity> findAll(Query<Entity> q) {
-    Stream<Entity> entities = delegate().findAll(q);
-    return resolveEntityReferences(entities, q.getFetch());
+    Query<Entity> joinQuery = createJoinQuery(q);
+    Stream<Entity> entities = delegate().findAll(joinQuery);
+    return resolveEntityReferences(entities, joinQuery.getFetch());
   }
 
   // Resolve entity references based on given fetch
   @Override
   public Entity findOne(Query<Entity> q) {
-    Entity entity = delegate().findOne(q);
-    return entity != null ? resolveEntityReferences(entity, q.getFetch()) : null;
+    Query<Entity> joinQuery = createJoinQuery(q);
+    Entity entity = delegate().findOne(joinQuery);
+    return entity != null ? resolveEntityReferences(entity, joinQuery.getFetch()) : null;
   }
 
   // Resolve entity references
@@ -63,8 +85,9 @@ public class EntityReferenceResolverDecorator extends AbstractRepositoryDecorato
   // Resolve entity references based on given fetch
   @Override
   public Entity findOneById(Object id, Fetch fetch) {
-    Entity entity = delegate().findOneById(id, fetch);
-    return entity != null ? resolveEntityReferences(entity, fetch) : null;
+    Fetch joinFetch = createJoinFetch(fetch);
+    Entity entity = delegate().findOneById(id, joinFetch);
+    return entity != null ? resolveEntityReferences(entity, joinFetch) : null;
   }
 
   // Resolve entity references
@@ -77,8 +100,86 @@ public class EntityReferenceResolverDecorator extends AbstractRepositoryDecorato
   // Resolve entity references based on given fetch
   @Override
   public Stream<Entity> findAll(Stream<Object> ids, Fetch fetch) {
-    Stream<Entity> entities = delegate().findAll(ids, fetch);
-    return resolveEntityReferences(entities, fetch);
+    Fetch joinFetch = createJoinFetch(fetch);
+    Stream<Entity> entities = delegate().findAll(ids, joinFetch);
+    return resolveEntityReferences(entities, joinFetch);
+  }
+
+  private Query<Entity> createJoinQuery(Query<Entity> q) {
+    Fetch fetch = q.getFetch();
+    Fetch joinFetch = createJoinFetch(fetch);
+    return joinFetch != fetch ? new QueryImpl<>(q).fetch(joinFetch) : q;
+  }
+
+  /**
+   * Returns a copy of the fetch in which the reference fields that can be retrieved together with
+   * the referring entities are joined or the fetch itself if no reference fields can be joined.
+   */
+  private Fetch createJoinFetch(Fetch fetch) {
+    if (fetch == null) {
+      return null;
+    }
+
+    EntityType entityType = getEntityType();
+    Fetch joinFetch = new Fetch(fetch.isValidated());
+    boolean joined = false;
+    for (Entry<String, Fetch> entry : fetch) {
+      String field = entry.getKey();
+      Fetch subFetch = entry.getValue();
+
+      Attribute attr = entityType.getAttribute(field);
+      Fetch refJoinFetch = attr != null ? createRefJoinFetch(entityType, attr, subFetch) : null;
+      if (refJoinFetch != null) {
+        joinFetch.join(field, refJoinFetch);
+        joined = true;
+      } else {
+        joinFetch.field(field, subFetch);
+      }
+    }
+    return joined ? joinFetch : fetch;
+  }
+
+  /**
+   * Returns the fetch to join the entities referenced by an attribute with or null if the attribute
+   * can't be joined. References can only be joined if all references in the fetch of the referenced
+   * entities can be joined as well, because references of joined entities are not resolved.
+   */
+  @Nullable
+  @CheckForNull
+  private Fetch createRefJoinFetch(EntityType entityType, Attribute attr, @Nullable Fetch fetch) {
+    if (fetch == null || !isReferenceType(attr) || attr.getExpression() != null) {
+      return null;
+    }
+
+    EntityType refEntityType = attr.getRefEntity();
+    if (!Objects.equals(refEntityType.getBackend(), entityType.getBackend())
+        || !referenceJoinPolicy.isJoinable(refEntityType)) {
+      return null;
+    }
+
+    Fetch refJoinFetch = new Fetch(fetch.isValidated());
+    String idAttributeName = refEntityType.getIdAttribute().getName();
+    if (!fetch.hasField(idAttributeName)) {
+      refJoinFetch.field(idAttributeName);
+    }
+    for (Entry<String, Fetch> entry : fetch) {
+      String field = entry.getKey();
+      Attribute refAttr = refEntityType.getAttribute(field);
+      if (refAttr == null) {
+        return null;
+      }
+
+      if (isReferenceType(refAttr)) {
+        Fetch nestedRefJoinFetch = createRefJoinFetch(refEntityType, refAttr, entry.getValue());
+        if (nestedRefJoinFetch == null) {
+          return null;
+        }
+        refJoinFetch.join(field, nestedRefJoinFetch);
+      } else {
+        refJoinFetch.field(field, entry.getValue());
+      }
+    }
+    return refJoinFetch;
   }
 
   private Entity resolveEntityReferences(Entity entity) {
@@ -1,6 +1,9 @@
 package org.molgenis.data;
 
+import static java.util.Objects.requireNonNull;
+
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -20,6 +23,7 @@ import org.molgenis.data.meta.model.Attribute;
  */
 public class Fetch implements Iterable<Entry<String, Fetch>> {
   private final Map<String, Fetch> attrFetchMap;
+  private final Set<String> joinedFields;
   private final boolean validated;
 
   /** Creates an empty Fetch. */
@@ -35,6 +39,7 @@ public class Fetch implements Iterable<Entry<String, Fetch>> {
    */
   public Fetch(boolean validated) {
     this.attrFetchMap = new LinkedHashMap<>();
+    this.joinedFields = new HashSet<>();
     this.validated = validated;
   }
 
@@ -59,9 +64,35 @@ public class Fetch implements Iterable<Entry<String, Fetch>> {
    */
   public Fetch field(String field, Fetch fetch) {
     attrFetchMap.put(field, fetch);
+    joinedFields.remove(field);
+    return this;
+  }
+
+  /**
+   * Updates this fetch, adding a single reference field of which the referenced entities are
+   * retrieved together with the referring entities instead of being resolved afterwards.
+   *
+   * @param field the name of the reference field to fetch
+   * @param fetch the fetch to use for the referenced entities
+   * @return this Fetch, updated
+   */
+  public Fetch join(String field, Fetch fetch) {
+    attrFetchMap.put(field, requireNonNull(fetch));
+    joinedFields.add(field);
     return this;
   }
 
+  /**
+   * Indicates if the referenced entities of a field are retrieved together with the referring
+   * entities.
+   *
+   * @param field the field that is queried
+   * @return true if the field is joined in this Fetch, otherwise false
+   */
+  public boolean isJoined(String field) {
+    return joinedFields.contains(field);
+  }
+
   /**
    * Retrieves the Fetch for a particular field
    *
@@ -134,12 +165,14 @@ public class Fetch implements Iterable<Entry<String, Fetch>> {
       return false;
     }
     Fetch fetch = (Fetch) o;
-    return validated == fetch.validated && attrFetchMap.equals(fetch.attrFetchMap);
+    return validated == fetch.validated
+        && attrFetchMap.equals(fetch.attrFetchMap)
+        && joinedFields.equals(fetch.joinedFields);
   }
 
   @Override
   public int hashCode() {
-    return Objects.hash(attrFetchMap, validated);
+    return Objects.hash(attrFetchMap, joinedFields, validated);
   }
 
   @Override
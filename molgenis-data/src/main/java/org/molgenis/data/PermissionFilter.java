@@ -0,0 +1,31 @@
+package org.molgenis.data;
+
+import com.google.auto.value.AutoValue;
+import java.util.Set;
+
+/**
+ * Value object for {@link QueryRule.Operator#PERMITTED} query rules: matches the entities for which
+ * an access control entry grants one of the permissions in the mask to one of the security
+ * identities.
+ */
+@AutoValue
+@SuppressWarnings("java:S1610") // Abstract classes without fields should be converted to interfaces
+public abstract class PermissionFilter {
+  /** Access control list object type of the entities, e.g. 'entity-myEntityTypeId' */
+  public abstract String getObjectType();
+
+  /** Principal security identities (user names) */
+  public abstract Set<String> getPrincipals();
+
+  /** Granted authority security identities (e.g. role names) */
+  public abstract Set<String> getAuthorities();
+
+  /** Permission mask, an access control entry matches if it shares at least one bit */
+  public abstract int getMask();
+
+  public static PermissionFilter create(
+      String objectType, Set<String> principals, Set<String> authorities, int mask) {
+    return new AutoValue_PermissionFilter(
+        objectType, Set.copyOf(principals), Set.copyOf(authorities), mask);
+  }
+}
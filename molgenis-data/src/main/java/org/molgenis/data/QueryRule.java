@@ -116,7 +116,13 @@ public class QueryRule {
     FUZZY_MATCH("FUZZY_MATCH"),
 
     /** Fuzzy match operator */
-    FUZZY_MATCH_NGRAM("FUZZY_MATCH_NGRAM");
+    FUZZY_MATCH_NGRAM("FUZZY_MATCH_NGRAM"),
+
+    /**
+     * entity is permitted by the {@link PermissionFilter} 'value'. The parameter 'field' is
+     * ommitted.
+     */
+    PERMITTED("PERMITTED");
 
     private String label;
 
@@ -164,6 +170,13 @@ public class QueryRule {
     if (operator == Operator.SEARCH || operator == Operator.SEARCH_QUERY) {
       this.operator = operator;
       setValue(value);
+    } else if (operator == Operator.PERMITTED) {
+      if (!(value instanceof PermissionFilter)) {
+        throw new IllegalArgumentException(
+            "QueryRule(PERMITTED, value): value should be PermissionFilter");
+      }
+      this.operator = operator;
+      this.value = value;
     } else if (Operator.NESTED.equals(operator)) {
       boolean okay = true;
       if (value instanceof List) {
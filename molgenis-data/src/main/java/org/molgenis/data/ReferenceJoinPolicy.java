@@ -0,0 +1,16 @@
+package org.molgenis.data;
+
+import org.molgenis.data.meta.model.EntityType;
+
+/**
+ * Decides whether entities of an entity type may be retrieved together with the entities referring
+ * to them, bypassing the repository of the referenced entity type.
+ */
+@FunctionalInterface
+public interface ReferenceJoinPolicy {
+  /**
+   * @param refEntityType referenced entity type
+   * @return whether referenced entities of this type can be joined with the referring entities
+   */
+  boolean isJoinable(EntityType refEntityType);
+}
@@ -0,0 +1,24 @@
+package org.molgenis.data.aggregation;
+
+import java.util.Comparator;
+
+/**
+ * Orders the labels of an {@link AggregateResult} in the same way for all backends. Labels of the
+ * same comparable type are ordered naturally, so that numbers and dates are ordered by value. Other
+ * labels are ordered by their string value and the missing value label comes last.
+ */
+public class AggregateLabelComparator implements Comparator<Object> {
+  @Override
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public int compare(Object o1, Object o2) {
+    if (o1 == null) {
+      return o2 == null ? 0 : 1;
+    } else if (o2 == null) {
+      return -1;
+    } else if (o1 instanceof Comparable && o1.getClass() == o2.getClass()) {
+      return ((Comparable) o1).compareTo(o2);
+    } else {
+      return o1.toString().compareTo(o2.toString());
+    }
+  }
+}
@@ -3,6 +3,7 @@ package org.molgenis.data.decorator;
 import java.util.stream.Stream;
 import org.molgenis.data.Entity;
 import org.molgenis.data.Repository;
+import org.molgenis.data.meta.model.EntityType;
 
 public interface DynamicRepositoryDecoratorRegistry {
   void addFactory(DynamicRepositoryDecoratorFactory factory);
@@ -13,5 +14,8 @@ public interface DynamicRepositoryDecoratorRegistry {
 
   Repository<Entity> decorate(Repository<Entity> repository);
 
+  /** Returns whether repositories of the given entity type are decorated by this registry. */
+  boolean isDecorated(EntityType entityType);
+
   void excludeEntityType(String entityTypeId);
 }
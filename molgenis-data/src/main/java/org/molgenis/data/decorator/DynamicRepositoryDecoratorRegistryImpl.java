@@ -25,6 +25,7 @@ import org.molgenis.data.decorator.meta.DecoratorConfiguration;
 import org.molgenis.data.decorator.meta.DecoratorParameters;
 import org.molgenis.data.decorator.meta.DynamicDecorator;
 import org.molgenis.data.event.BootstrappingEvent;
+import org.molgenis.data.meta.model.EntityType;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
@@ -74,21 +75,27 @@ public class DynamicRepositoryDecoratorRegistryImpl implements DynamicRepository
    */
   @Override
   public Repository<Entity> decorate(Repository<Entity> repository) {
-    String entityTypeId = repository.getEntityType().getId();
+    DecoratorConfiguration config = getDecoratorConfiguration(repository.getEntityType());
+    if (config != null) {
+      repository = decorateRepository(repository, config);
+    }
+    return repository;
+  }
 
-    if (!EXCLUDED.contains(entityTypeId) && bootstrappingDone) {
-      DecoratorConfiguration config =
-          dataService
-              .query(DECORATOR_CONFIGURATION, DecoratorConfiguration.class)
-              .eq(ENTITY_TYPE_ID, entityTypeId)
-              .findOne();
+  @Override
+  public boolean isDecorated(EntityType entityType) {
+    return getDecoratorConfiguration(entityType) != null;
+  }
 
-      if (config != null) {
-        repository = decorateRepository(repository, config);
-      }
+  private DecoratorConfiguration getDecoratorConfiguration(EntityType entityType) {
+    String entityTypeId = entityType.getId();
+    if (EXCLUDED.contains(entityTypeId) || !bootstrappingDone) {
+      return null;
     }
-
-    return repository;
+    return dataService
+        .query(DECORATOR_CONFIGURATION, DecoratorConfiguration.class)
+        .eq(ENTITY_TYPE_ID, entityTypeId)
+        .findOne();
   }
 
   public void excludeEntityType(String entityTypeId) {
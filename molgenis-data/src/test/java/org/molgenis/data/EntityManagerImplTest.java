@@ -3,16 +3,24 @@ package org.molgenis.data;
 import static java.util.Arrays.asList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.XREF;
 
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.populate.EntityPopulator;
 import org.molgenis.data.support.DynamicEntity;
+import org.molgenis.data.support.LazyEntity;
 import org.molgenis.test.AbstractMockitoTest;
 
 class EntityManagerImplTest extends AbstractMockitoTest {
@@ -69,4 +77,37 @@ class EntityManagerImplTest extends AbstractMockitoTest {
         entityManagerImpl.resolveReferences(entityType, Stream.of(entity0, entity1), fetch);
     assertEquals(asList(entity0, entity1), entities.collect(toList()));
   }
+
+  @Test
+  void resolveReferencesJoined() {
+    EntityType refEntityType =
+        when(mock(EntityType.class).getId()).thenReturn("refEntityType").getMock();
+    Attribute xrefAttr = mock(Attribute.class);
+    when(xrefAttr.getName()).thenReturn("xref");
+    when(xrefAttr.getDataType()).thenReturn(XREF);
+    when(xrefAttr.getRefEntity()).thenReturn(refEntityType);
+    EntityType entityType = mock(EntityType.class);
+    when(entityType.getAtomicAttributes()).thenReturn(asList(xrefAttr));
+
+    Entity joinedRefEntity = mock(Entity.class);
+    Entity entity0 =
+        when(mock(Entity.class).getEntity("xref")).thenReturn(joinedRefEntity).getMock();
+    Entity lazyRefEntity = new LazyEntity(refEntityType, dataService, "id1");
+    Entity entity1 = when(mock(Entity.class).getEntity("xref")).thenReturn(lazyRefEntity).getMock();
+
+    Entity refEntity = when(mock(Entity.class).getIdValue()).thenReturn("id1").getMock();
+    Fetch refFetch = new Fetch().field("id");
+    when(dataService.findAll(
+            eq("refEntityType"), ArgumentMatchers.<Stream<Object>>any(), eq(refFetch)))
+        .thenReturn(Stream.of(refEntity));
+
+    Fetch fetch = new Fetch().join("xref", refFetch);
+    assertEquals(
+        asList(entity0, entity1),
+        entityManagerImpl
+            .resolveReferences(entityType, Stream.of(entity0, entity1), fetch)
+            .collect(toList()));
+    verify(entity0, never()).set(any(String.class), any());
+    verify(entity1).set("xref", refEntity);
+  }
 }
@@ -13,6 +13,8 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.molgenis.data.meta.AttributeType.STRING;
+import static org.molgenis.data.meta.AttributeType.XREF;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -22,9 +24,11 @@ import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.molgenis.data.aggregation.AggregateQuery;
+import org.molgenis.data.meta.model.Attribute;
 import org.molgenis.data.meta.model.EntityType;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.test.AbstractMockitoTest;
@@ -37,6 +41,7 @@ class EntityReferenceResolverDecoratorTest extends AbstractMockitoTest {
   @Mock private Consumer<List<Entity>> consumer;
   @Captor private ArgumentCaptor<Consumer<List<Entity>>> consumerArgumentCaptor;
   @Captor private ArgumentCaptor<Stream<Entity>> streamArgumentCaptor;
+  @Captor private ArgumentCaptor<Query<Entity>> queryArgumentCaptor;
 
   @BeforeEach
   void setUpBeforeMethod() {
@@ -144,7 +149,7 @@ class EntityReferenceResolverDecoratorTest extends AbstractMockitoTest {
     Entity entity0 = mock(Entity.class);
     @SuppressWarnings("unchecked")
     Query<Entity> query = mock(Query.class);
-    Fetch fetch = mock(Fetch.class);
+    Fetch fetch = new Fetch();
     when(query.getFetch()).thenReturn(fetch);
     Stream<Entity> entities = Stream.of(entity0);
     when(delegateRepository.findAll(query)).thenReturn(entities);
@@ -153,6 +158,63 @@ class EntityReferenceResolverDecoratorTest extends AbstractMockitoTest {
     assertEquals(singletonList(entity0), expectedEntities.collect(toList()));
   }
 
+  @Test
+  void findAllJoinsReferences() {
+    EntityType refEntityType = mock(EntityType.class);
+    Attribute refIdAttr = when(mock(Attribute.class).getName()).thenReturn("id").getMock();
+    when(refEntityType.getIdAttribute()).thenReturn(refIdAttr);
+    Attribute refLabelAttr = when(mock(Attribute.class).getDataType()).thenReturn(STRING).getMock();
+    when(refEntityType.getAttribute("label")).thenReturn(refLabelAttr);
+    when(refEntityType.getBackend()).thenReturn("PostgreSQL");
+    Attribute xrefAttr = mock(Attribute.class);
+    when(xrefAttr.getDataType()).thenReturn(XREF);
+    when(xrefAttr.getRefEntity()).thenReturn(refEntityType);
+    when(entityType.getAttribute("xref")).thenReturn(xrefAttr);
+    when(entityType.getBackend()).thenReturn("PostgreSQL");
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+
+    EntityReferenceResolverDecorator joiningDecorator =
+        new EntityReferenceResolverDecorator(
+            delegateRepository, entityManager, refEntityType::equals);
+
+    Query<Entity> query =
+        new QueryImpl<>().fetch(new Fetch().field("xref", new Fetch().field("label")));
+    Stream<Entity> entities = Stream.empty();
+    when(delegateRepository.findAll(ArgumentMatchers.<Query<Entity>>any())).thenReturn(entities);
+    Fetch joinFetch = new Fetch().join("xref", new Fetch().field("id").field("label"));
+    when(entityManager.resolveReferences(entityType, entities, joinFetch)).thenReturn(entities);
+
+    joiningDecorator.findAll(query);
+
+    verify(delegateRepository).findAll(queryArgumentCaptor.capture());
+    assertEquals(joinFetch, queryArgumentCaptor.getValue().getFetch());
+  }
+
+  @Test
+  void findAllNotJoinableReferences() {
+    EntityType refEntityType = mock(EntityType.class);
+    when(refEntityType.getBackend()).thenReturn("PostgreSQL");
+    Attribute xrefAttr = mock(Attribute.class);
+    when(xrefAttr.getDataType()).thenReturn(XREF);
+    when(xrefAttr.getRefEntity()).thenReturn(refEntityType);
+    when(entityType.getAttribute("xref")).thenReturn(xrefAttr);
+    when(entityType.getBackend()).thenReturn("PostgreSQL");
+    when(delegateRepository.getEntityType()).thenReturn(entityType);
+
+    EntityReferenceResolverDecorator joiningDecorator =
+        new EntityReferenceResolverDecorator(delegateRepository, entityManager, refEntity -> false);
+
+    Fetch fetch = new Fetch().field("xref", new Fetch().field("label"));
+    Query<Entity> query = new QueryImpl<>().fetch(fetch);
+    Stream<Entity> entities = Stream.empty();
+    when(delegateRepository.findAll(query)).thenReturn(entities);
+    when(entityManager.resolveReferences(entityType, entities, fetch)).thenReturn(entities);
+
+    joiningDecorator.findAll(query);
+
+    verify(delegateRepository).findAll(query);
+  }
+
   @Test
   void findAllAsStreamNoFetch() {
     when(delegateRepository.getEntityType()).thenReturn(entityType);
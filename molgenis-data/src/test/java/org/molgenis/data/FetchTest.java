@@ -36,6 +36,25 @@ class FetchTest {
     assertNotEquals(new Fetch().field(field, subFetch), new Fetch().field(field));
   }
 
+  @Test
+  void equalsJoinFalse() {
+    String field = "field";
+    Fetch subFetch = new Fetch();
+    assertNotEquals(new Fetch().join(field, subFetch), new Fetch().field(field, subFetch));
+  }
+
+  @Test
+  void isJoined() {
+    String field = "field";
+    assertTrue(new Fetch().join(field, new Fetch()).isJoined(field));
+  }
+
+  @Test
+  void isJoinedAfterField() {
+    String field = "field";
+    assertFalse(new Fetch().join(field, new Fetch()).field(field).isJoined(field));
+  }
+
   @Test
   void getFetch() {
     String field = "field";
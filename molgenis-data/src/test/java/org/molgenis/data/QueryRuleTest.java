@@ -5,16 +5,19 @@ import static java.util.Arrays.asList;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.QueryRule.Operator.EQUALS;
 import static org.molgenis.data.QueryRule.Operator.IN;
+import static org.molgenis.data.QueryRule.Operator.PERMITTED;
 import static org.molgenis.data.QueryRule.Operator.RANGE;
 import static org.molgenis.data.QueryRule.Operator.SEARCH;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.molgenis.data.QueryRule.Operator;
 
@@ -66,6 +69,20 @@ class QueryRuleTest {
     assertEquals(q.getNestedRules().get(0), nested);
   }
 
+  @Test
+  void permitted() {
+    PermissionFilter permissionFilter =
+        PermissionFilter.create("entity-test", Set.of("user"), Set.of("ROLE_USER"), 4);
+    QueryRule q = new QueryRule(PERMITTED, permissionFilter);
+    assertEquals(PERMITTED, q.getOperator());
+    assertEquals(permissionFilter, q.getValue());
+  }
+
+  @Test
+  void permittedInvalidValue() {
+    assertThrows(IllegalArgumentException.class, () -> new QueryRule(PERMITTED, "value"));
+  }
+
   @Test
   void equalsEntityId() {
     Entity valueEntity = mock(Entity.class);
@@ -0,0 +1,38 @@
+package org.molgenis.data.aggregation;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+
+class AggregateLabelComparatorTest {
+  @Test
+  void testCompareNumbers() {
+    assertEquals(Arrays.asList(9, 10, null), sort(10, null, 9));
+  }
+
+  @Test
+  void testCompareDates() {
+    LocalDate date = LocalDate.parse("2020-01-09");
+    LocalDate otherDate = LocalDate.parse("2020-01-10");
+    assertEquals(Arrays.asList(date, otherDate, null), sort(null, otherDate, date));
+  }
+
+  @Test
+  void testCompareStrings() {
+    assertEquals(Arrays.asList("10", "9", null), sort("9", null, "10"));
+  }
+
+  @Test
+  void testCompareMixedTypes() {
+    assertEquals(Arrays.asList(10L, "9"), sort("9", 10L));
+  }
+
+  private static List<Object> sort(Object... labels) {
+    return Stream.of(labels).sorted(new AggregateLabelComparator()).collect(toList());
+  }
+}
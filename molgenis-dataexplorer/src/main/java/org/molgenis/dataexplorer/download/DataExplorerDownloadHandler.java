@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 import java.util.Set;
+import org.apache.poi.ss.SpreadsheetVersion;
 import org.molgenis.data.DataService;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.csv.CsvWriter;
@@ -24,8 +25,11 @@ import org.molgenis.dataexplorer.controller.DataRequest;
 import org.molgenis.util.UnexpectedEnumException;
 
 public class DataExplorerDownloadHandler {
-  // Magic value: https://github.com/molgenis/molgenis/issues/6687
-  private static final long MAX_EXCEL_CELLS = 500000L;
+  // Magic value: https://github.com/molgenis/molgenis/issues/6687, raised now that .xlsx rows are
+  // streamed to the output instead of being kept in memory
+  private static final long MAX_EXCEL_CELLS = 25000000L;
+  // one row is taken by the header
+  private static final long MAX_EXCEL_ROWS = SpreadsheetVersion.EXCEL2007.getMaxRows() - 1L;
   private final DataService dataService;
   private final AttributeFactory attrMetaFactory;
 
@@ -63,6 +67,12 @@ public class DataExplorerDownloadHandler {
               "Total number of cells for this download exceeds the maximum of %s for .xlsx downloads, please use .csv instead",
               MAX_EXCEL_CELLS));
     }
+    if (rows > MAX_EXCEL_ROWS) {
+      throw new MolgenisDataException(
+          String.format(
+              "Total number of rows for this download exceeds the maximum of %s for .xlsx downloads, please use .csv instead",
+              MAX_EXCEL_ROWS));
+    }
   }
 
   public void writeToCsv(DataRequest request, OutputStream outputStream, char separator)
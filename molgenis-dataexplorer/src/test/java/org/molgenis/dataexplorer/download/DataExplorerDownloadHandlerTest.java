@@ -116,7 +116,7 @@ class DataExplorerDownloadHandlerTest extends AbstractMockitoTest {
 
   @Test
   void testWriteToExcelTooManyCells() throws Exception {
-    when(dataService.count("sys_set_thousandgenomes", query)).thenReturn(2500001L);
+    when(dataService.count("sys_set_thousandgenomes", query)).thenReturn(12500001L);
     when(dataService.getEntityType("sys_set_thousandgenomes")).thenReturn(entityType);
     when(entityType.getAtomicAttributes()).thenReturn(asList(attribute1, attribute2, attribute3));
     when(attribute1.getName()).thenReturn("attr1");
@@ -136,7 +136,32 @@ class DataExplorerDownloadHandlerTest extends AbstractMockitoTest {
             () -> dataExplorerDownloadHandler.writeToExcel(dataRequest, mock(OutputStream.class)));
     assertThat(exception.getMessage())
         .containsPattern(
-            "Total number of cells for this download exceeds the maximum of 500000 for .xlsx downloads, please use .csv instead");
+            "Total number of cells for this download exceeds the maximum of 25000000 for .xlsx downloads, please use .csv instead");
+  }
+
+  @Test
+  void testWriteToExcelTooManyRows() {
+    when(dataService.count("sys_set_thousandgenomes", query)).thenReturn(1048576L);
+    when(dataService.getEntityType("sys_set_thousandgenomes")).thenReturn(entityType);
+    when(entityType.getAtomicAttributes()).thenReturn(asList(attribute1, attribute2, attribute3));
+    when(attribute1.getName()).thenReturn("attr1");
+    when(attribute2.getName()).thenReturn("attr2");
+    when(attribute3.getName()).thenReturn("attr3");
+
+    DataRequest dataRequest = new DataRequest();
+    dataRequest.setEntityName("sys_set_thousandgenomes");
+    dataRequest.setQuery(query);
+    dataRequest.setAttributeNames(asList("attr1", "attr2"));
+    dataRequest.setColNames(DataRequest.ColNames.ATTRIBUTE_NAMES);
+    dataRequest.setEntityValues(DataRequest.EntityValues.ENTITY_LABELS);
+
+    Exception exception =
+        assertThrows(
+            MolgenisDataException.class,
+            () -> dataExplorerDownloadHandler.writeToExcel(dataRequest, mock(OutputStream.class)));
+    assertThat(exception.getMessage())
+        .containsPattern(
+            "Total number of rows for this download exceeds the maximum of 1048575 for .xlsx downloads, please use .csv instead");
   }
 
   static Object[][] writeToExcelDataProvider() {
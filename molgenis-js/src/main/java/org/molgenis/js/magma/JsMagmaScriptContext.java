@@ -5,9 +5,12 @@ import static java.util.stream.Collectors.toList;
 import static org.molgenis.js.graal.GraalScriptEngine.convertGraalValue;
 import static org.molgenis.util.ResourceUtils.getString;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.stream.Stream;
 import org.graalvm.polyglot.Context;
 import org.graalvm.polyglot.Source;
@@ -26,9 +29,53 @@ public class JsMagmaScriptContext {
   private static final String KEY_MAGMA_SCRIPT = "MagmaScript";
   private static final String BIND = "bind";
   public static final String KEY_ID_VALUE = "_idValue";
+  private static final String EXPRESSION_SOURCE_NAME = "expression";
+  private static final int MAX_CACHED_EXPRESSIONS = 10000;
   private static final List<Source> SOURCES;
 
+  /**
+   * Returns a function that checks whether the global scope, MagmaScript and the built-in
+   * prototypes still have the properties that they had when the function was created. Expressions
+   * that declare globals or change these objects make a context unsafe to share with other callers.
+   */
+  private static final Source GLOBAL_SCOPE_GUARD =
+      Source.create(
+          "js",
+          "(function () {\n"
+              + "  var objects = [globalThis, MagmaScript, MagmaScript.prototype, Object.prototype,\n"
+              + "    Function.prototype, Array.prototype, String.prototype, Number.prototype,\n"
+              + "    Boolean.prototype, Date.prototype, RegExp.prototype, Math, JSON];\n"
+              + "  function snapshot(object) {\n"
+              + "    return Object.getOwnPropertyNames(object)\n"
+              + "      .filter(function (name) { return object !== globalThis || name !== '$'; })\n"
+              + "      .map(function (name) {\n"
+              + "        var descriptor = Object.getOwnPropertyDescriptor(object, name);\n"
+              + "        return [name, 'value' in descriptor ? descriptor.value : descriptor.get];\n"
+              + "      });\n"
+              + "  }\n"
+              + "  var snapshots = objects.map(snapshot);\n"
+              + "  return function () {\n"
+              + "    return objects.every(function (object, index) {\n"
+              + "      var expected = snapshots[index], actual = snapshot(object);\n"
+              + "      return actual.length === expected.length && actual.every(function (property, i) {\n"
+              + "        return property[0] === expected[i][0] && Object.is(property[1], expected[i][1]);\n"
+              + "      });\n"
+              + "    });\n"
+              + "  };\n"
+              + "})()");
+
+  /**
+   * Expression sources shared by all contexts. Graal caches the parsed code of a source for all
+   * contexts of the same engine, so each expression is only parsed once.
+   */
+  private static final Cache<String, Source> EXPRESSION_SOURCES =
+      Caffeine.newBuilder().maximumSize(MAX_CACHED_EXPRESSIONS).recordStats().build();
+
+  private static final LongAdder EVAL_COUNT = new LongAdder();
+  private static final LongAdder EVAL_TIME_NANOS = new LongAdder();
+
   private final Context context;
+  private Value globalScopeGuard;
 
   static {
     SOURCES =
@@ -56,6 +103,7 @@ public class JsMagmaScriptContext {
     Value magmaScript = bindings.getMember(KEY_MAGMA_SCRIPT);
     bindings.putMember(KEY_NEW_VALUE, magmaScript.getMember(KEY_NEW_VALUE));
     bindings.putMember(KEY_IS_NULL, magmaScript.getMember(KEY_IS_NULL));
+    globalScopeGuard = context.eval(GLOBAL_SCOPE_GUARD);
   }
 
   public Object tryEval(String expression) {
@@ -67,7 +115,42 @@ public class JsMagmaScriptContext {
   }
 
   public Object eval(String expression) {
-    return convertGraalValue(context.eval("js", expression));
+    long start = System.nanoTime();
+    try {
+      return convertGraalValue(context.eval(getExpressionSource(expression)));
+    } finally {
+      EVAL_COUNT.increment();
+      EVAL_TIME_NANOS.add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * Returns the cached source of the given expression. The expression is wrapped in a block so that
+   * its let and const declarations do not clash with those of earlier evaluations in this context.
+   * A block evaluates to the value of its last statement, just like the expression itself.
+   *
+   * <p>The block does not scope var and function declarations, these end up in the global scope of
+   * the context, see {@link #isGlobalScopeUnchanged()}.
+   */
+  private static Source getExpressionSource(String expression) {
+    return EXPRESSION_SOURCES.get(
+        expression,
+        key ->
+            Source.newBuilder("js", "{\n" + key + "\n}", EXPRESSION_SOURCE_NAME)
+                .cached(true)
+                .buildLiteral());
+  }
+
+  static Cache<String, Source> getExpressionSources() {
+    return EXPRESSION_SOURCES;
+  }
+
+  static long getEvalCount() {
+    return EVAL_COUNT.sum();
+  }
+
+  static double getEvalTimeNanos() {
+    return EVAL_TIME_NANOS.sum();
   }
 
   /**
@@ -83,6 +166,20 @@ public class JsMagmaScriptContext {
     bindings.putMember(KEY_DOLLAR, boundDollar);
   }
 
+  /** Releases the last bound entity so that it can be garbage collected. */
+  void unbind() {
+    context.getBindings("js").putMember(KEY_DOLLAR, null);
+  }
+
+  /**
+   * Returns whether the global scope, MagmaScript and the built-in prototypes are unchanged since
+   * the context was prepared, apart from the bound entity. Only such a context can be shared with
+   * other callers without leaking declarations or data of earlier evaluations.
+   */
+  boolean isGlobalScopeUnchanged() {
+    return globalScopeGuard.execute().asBoolean();
+  }
+
   void enter() {
     context.enter();
   }
@@ -0,0 +1,88 @@
+package org.molgenis.js.magma;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.PreDestroy;
+import org.graalvm.polyglot.PolyglotException;
+import org.molgenis.js.graal.GraalScriptEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pool of prepared {@link JsMagmaScriptContext}s. Preparing a context is expensive, so contexts are
+ * reused across calls. A context is used by a single thread at a time.
+ *
+ * <p>Borrowing never blocks: if no idle context is available a new context is prepared. At most
+ * {@link #MAX_IDLE_CONTEXTS} contexts are kept idle, other returned contexts are closed.
+ *
+ * <p>Contexts are shared by unrelated callers, so a returned context is only reused if its
+ * expressions left the global scope unchanged. A context in which an expression declared a global
+ * variable or function, or changed MagmaScript or a built-in prototype, is closed instead.
+ */
+@Component
+public class JsMagmaScriptContextPool {
+  private static final Logger LOG = LoggerFactory.getLogger(JsMagmaScriptContextPool.class);
+
+  static final int MAX_IDLE_CONTEXTS = Runtime.getRuntime().availableProcessors();
+
+  private final GraalScriptEngine engine;
+  private final BlockingQueue<JsMagmaScriptContext> idleContexts;
+  private final LongAdder createdContexts = new LongAdder();
+
+  public JsMagmaScriptContextPool(GraalScriptEngine engine) {
+    this.engine = requireNonNull(engine);
+    this.idleContexts = new ArrayBlockingQueue<>(MAX_IDLE_CONTEXTS);
+  }
+
+  /** Returns an idle context or prepares a new context if none is available */
+  public JsMagmaScriptContext borrowContext() {
+    JsMagmaScriptContext context = idleContexts.poll();
+    if (context == null) {
+      LOG.debug("Preparing new MagmaScript context");
+      context = new JsMagmaScriptContext(engine.createContext());
+      createdContexts.increment();
+    }
+    return context;
+  }
+
+  /** Returns a context that is no longer used by the current thread to the pool */
+  public void returnContext(JsMagmaScriptContext context) {
+    boolean reusable;
+    try {
+      context.unbind();
+      reusable = context.isGlobalScopeUnchanged();
+    } catch (IllegalStateException | PolyglotException e) {
+      LOG.debug("Discarding unusable MagmaScript context", e);
+      context.close();
+      return;
+    }
+    if (!reusable) {
+      LOG.debug("Discarding MagmaScript context with a changed global scope");
+      context.close();
+      return;
+    }
+    if (!idleContexts.offer(context)) {
+      context.close();
+    }
+  }
+
+  int getNrIdleContexts() {
+    return idleContexts.size();
+  }
+
+  long getNrCreatedContexts() {
+    return createdContexts.sum();
+  }
+
+  @PreDestroy
+  void close() {
+    JsMagmaScriptContext context;
+    while ((context = idleContexts.poll()) != null) {
+      context.close();
+    }
+  }
+}
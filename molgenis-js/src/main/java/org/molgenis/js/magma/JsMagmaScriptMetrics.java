@@ -0,0 +1,49 @@
+package org.molgenis.js.magma;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import javax.annotation.PostConstruct;
+import org.springframework.stereotype.Component;
+
+/** Expression cache, evaluation and context pool metrics of MagmaScript. */
+@Component
+public class JsMagmaScriptMetrics {
+
+  private final JsMagmaScriptContextPool contextPool;
+  private final MeterRegistry meterRegistry;
+
+  JsMagmaScriptMetrics(JsMagmaScriptContextPool contextPool, MeterRegistry meterRegistry) {
+    this.contextPool = requireNonNull(contextPool);
+    this.meterRegistry = requireNonNull(meterRegistry);
+  }
+
+  @PostConstruct
+  public void bindToRegistry() {
+    CaffeineCacheMetrics.monitor(
+        meterRegistry, JsMagmaScriptContext.getExpressionSources(), "magmascript.expressions");
+    FunctionTimer.builder(
+            "magmascript.eval",
+            this,
+            metrics -> JsMagmaScriptContext.getEvalCount(),
+            metrics -> JsMagmaScriptContext.getEvalTimeNanos(),
+            NANOSECONDS)
+        .description("MagmaScript expression evaluations")
+        .register(meterRegistry);
+    Gauge.builder(
+            "magmascript.contexts.idle", contextPool, JsMagmaScriptContextPool::getNrIdleContexts)
+        .description("The number of idle MagmaScript contexts in the pool")
+        .register(meterRegistry);
+    FunctionCounter.builder(
+            "magmascript.contexts.created",
+            contextPool,
+            JsMagmaScriptContextPool::getNrCreatedContexts)
+        .description("The number of prepared MagmaScript contexts")
+        .register(meterRegistry);
+  }
+}
@@ -8,7 +8,6 @@ import static org.molgenis.js.magma.JsMagmaScriptContextHolder.setContext;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.molgenis.js.graal.GraalScriptEngine;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
 import org.springframework.stereotype.Component;
 
@@ -18,16 +17,16 @@ import org.springframework.stereotype.Component;
 @Component
 public class WithJsMagmaScriptAspect {
 
-  private final GraalScriptEngine engine;
+  private final JsMagmaScriptContextPool contextPool;
 
-  public WithJsMagmaScriptAspect(GraalScriptEngine engine) {
-    this.engine = requireNonNull(engine);
+  public WithJsMagmaScriptAspect(JsMagmaScriptContextPool contextPool) {
+    this.contextPool = requireNonNull(contextPool);
   }
 
   @SuppressWarnings("java:S00112") // generic exceptions should never be thrown
   @Around("@annotation(org.molgenis.js.magma.WithJsMagmaScriptContext)")
   public Object aroundAdvice(ProceedingJoinPoint joinPoint) throws Throwable {
-    return withJsMagmaScriptContext(engine, joinPoint::proceed);
+    return withJsMagmaScriptContext(contextPool, joinPoint::proceed);
   }
 
   public interface RunnableWithJsContext<T, U extends Throwable> {
@@ -35,11 +34,11 @@ public class WithJsMagmaScriptAspect {
   }
 
   public static <T, U extends Throwable> T withJsMagmaScriptContext(
-      GraalScriptEngine engine, RunnableWithJsContext<T, U> runnable) throws U {
+      JsMagmaScriptContextPool contextPool, RunnableWithJsContext<T, U> runnable) throws U {
     JsMagmaScriptContext context = getContext();
-    boolean createAndClose = context == null;
-    if (createAndClose) {
-      context = new JsMagmaScriptContext(engine.createContext());
+    boolean borrowAndReturn = context == null;
+    if (borrowAndReturn) {
+      context = contextPool.borrowContext();
       setContext(context);
     }
     try {
@@ -47,9 +46,9 @@ public class WithJsMagmaScriptAspect {
       return runnable.run();
     } finally {
       context.leave();
-      if (createAndClose) {
-        context.close();
+      if (borrowAndReturn) {
         clearContext();
+        contextPool.returnContext(context);
       }
     }
   }
@@ -0,0 +1,94 @@
+package org.molgenis.js.magma;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.molgenis.js.graal.GraalScriptEngine;
+
+class JsMagmaScriptContextPoolTest {
+  private static JsMagmaScriptContextPool contextPool;
+
+  @BeforeAll
+  static void setUpBeforeAll() {
+    contextPool = new JsMagmaScriptContextPool(new GraalScriptEngine());
+  }
+
+  @AfterAll
+  static void tearDownAfterAll() {
+    contextPool.close();
+  }
+
+  @Test
+  void borrowContextReusesReturnedContext() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    contextPool.returnContext(context);
+    assertSame(context, contextPool.borrowContext());
+    contextPool.returnContext(context);
+  }
+
+  @Test
+  void borrowContextWhileBorrowed() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    JsMagmaScriptContext otherContext = contextPool.borrowContext();
+    assertNotSame(context, otherContext);
+    contextPool.returnContext(context);
+    contextPool.returnContext(otherContext);
+  }
+
+  @Test
+  void returnContextMaxIdleContexts() {
+    List<JsMagmaScriptContext> contexts = new ArrayList<>();
+    for (int i = 0; i < JsMagmaScriptContextPool.MAX_IDLE_CONTEXTS + 1; i++) {
+      contexts.add(contextPool.borrowContext());
+    }
+    contexts.forEach(contextPool::returnContext);
+    assertEquals(JsMagmaScriptContextPool.MAX_IDLE_CONTEXTS, contextPool.getNrIdleContexts());
+  }
+
+  @Test
+  void returnContextUnbindsEntity() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("var $ = 'entity'");
+    contextPool.returnContext(context);
+    assertEquals(true, context.eval("$ === null"));
+  }
+
+  @Test
+  void returnContextDeclarationsInvisibleToNextCaller() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("var secret = $; function leak() { return secret; }");
+    contextPool.returnContext(context);
+
+    JsMagmaScriptContext otherContext = contextPool.borrowContext();
+    assertEquals("undefined", otherContext.eval("typeof secret"));
+    assertEquals("undefined", otherContext.eval("typeof leak"));
+    contextPool.returnContext(otherContext);
+  }
+
+  @Test
+  void returnContextMagmaScriptChangesInvisibleToNextCaller() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("MagmaScript.prototype.value = function () { return 'leaked'; }");
+    contextPool.returnContext(context);
+
+    JsMagmaScriptContext otherContext = contextPool.borrowContext();
+    assertNotSame(context, otherContext);
+    assertEquals("value", otherContext.eval("new MagmaScript('value').value()"));
+    contextPool.returnContext(otherContext);
+  }
+
+  @Test
+  void returnContextWithoutGlobalDeclarationsKeepsContext() {
+    JsMagmaScriptContext context = contextPool.borrowContext();
+    context.eval("let x = 1; const y = 2; x + y");
+    assertTrue(context.isGlobalScopeUnchanged());
+    contextPool.returnContext(context);
+  }
+}
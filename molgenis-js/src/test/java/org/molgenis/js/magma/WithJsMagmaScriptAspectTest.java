@@ -13,10 +13,15 @@ import org.springframework.context.annotation.Configuration;
 import org.springframework.test.context.ContextConfiguration;
 
 @ContextConfiguration(
-    classes = {WithJsMagmaScriptAspect.class, WithJsMagmaScriptAspectTest.Config.class})
+    classes = {
+      WithJsMagmaScriptAspect.class,
+      JsMagmaScriptContextPool.class,
+      WithJsMagmaScriptAspectTest.Config.class
+    })
 class WithJsMagmaScriptAspectTest extends AbstractMockitoSpringContextTests {
 
   @Autowired TestBean testBean;
+  @Autowired JsMagmaScriptContextPool contextPool;
 
   @BeforeEach
   void beforeEach() {
@@ -25,10 +30,24 @@ class WithJsMagmaScriptAspectTest extends AbstractMockitoSpringContextTests {
 
   @Test
   void testRunsWithinSameContext() {
-    assertEquals("Hello", testBean.execute("const a = 'Hello'", "a"));
+    assertEquals("Hello", testBean.execute("var a = 'Hello'", "a"));
     assertNull(JsMagmaScriptContextHolder.getContext());
   }
 
+  @Test
+  void testReusesContext() {
+    testBean.execute("'Hello'", "'World'");
+    long nrCreatedContexts = contextPool.getNrCreatedContexts();
+    testBean.execute("'Hello'", "'World'");
+    assertEquals(nrCreatedContexts, contextPool.getNrCreatedContexts());
+  }
+
+  @Test
+  void testLexicalDeclarationsAreScopedToExpression() {
+    assertEquals("Hello", testBean.execute("const a = 'Hello'; a", "const a = 'Hello'; a"));
+    assertEquals("Hello", testBean.execute("const a = 'Hello'; a", "const a = 'Hello'; a"));
+  }
+
   @Test
   void testThrow() {
     assertThrows(PolyglotException.class, () -> testBean.execute("'Hello'", "throw(new Error())"));
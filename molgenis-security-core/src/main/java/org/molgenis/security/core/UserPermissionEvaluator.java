@@ -1,6 +1,8 @@
 package org.molgenis.security.core;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.springframework.security.acls.model.ObjectIdentity;
 
@@ -31,4 +33,16 @@ public interface UserPermissionEvaluator {
   boolean hasPermission(ObjectIdentity objectIdentity, List<Permission> permissions);
 
   Set<Permission> getPermissions(ObjectIdentity objectIdentity, Permission[] permissions);
+
+  /**
+   * Returns which of the given {@link Permission}s the currently authenticated user has on each of
+   * the given domain objects. Retrieves the access control lists in batches instead of one domain
+   * object at a time.
+   *
+   * @param objectIdentities domain object identities
+   * @param permissions List of {@link Permission} to check.
+   * @return granted permissions for each of the domain object identities
+   */
+  Map<ObjectIdentity, Set<Permission>> getPermissions(
+      Collection<? extends ObjectIdentity> objectIdentities, Permission[] permissions);
 }
@@ -37,6 +37,7 @@ import org.springframework.security.core.authority.SimpleGrantedAuthority;
 @Configuration
 @Import(DataSourceConfig.class)
 public class AclConfig {
+  private static final int ACL_LOOKUP_BATCH_SIZE = 1000;
 
   private final DataSource dataSource;
   private final TransactionManager transactionManager;
@@ -124,6 +125,8 @@ public class AclConfig {
             dataSource, aclCache(), aclAuthorizationStrategy(), permissionGrantingStrategy());
     basicLookupStrategy.setAclClassIdSupported(true);
     basicLookupStrategy.setConversionService(conversionService);
+    // retrieve a batch of access control lists in one query instead of batches of 50
+    basicLookupStrategy.setBatchSize(ACL_LOOKUP_BATCH_SIZE);
     return basicLookupStrategy;
   }
 
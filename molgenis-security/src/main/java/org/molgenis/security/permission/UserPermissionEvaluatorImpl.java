@@ -1,9 +1,18 @@
 package org.molgenis.security.permission;
 
+import static com.google.common.collect.Iterables.partition;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
 import static java.util.Objects.requireNonNull;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import org.molgenis.security.core.Permission;
@@ -13,20 +22,34 @@ import org.molgenis.security.core.UserPermissionEvaluator;
 import org.molgenis.security.core.utils.SecurityUtils;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.acls.domain.CumulativePermission;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.NotFoundException;
 import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 
 @Component
 public class UserPermissionEvaluatorImpl implements UserPermissionEvaluator {
+  static final int BATCH_SIZE = 1000;
+
   private final PermissionEvaluator permissionEvaluator;
   private final PermissionRegistry permissionRegistry;
+  private final LookupStrategy lookupStrategy;
+  private final SidRetrievalStrategy sidRetrievalStrategy;
 
   UserPermissionEvaluatorImpl(
-      PermissionEvaluator permissionEvaluator, PermissionRegistry permissionRegistry) {
+      PermissionEvaluator permissionEvaluator,
+      PermissionRegistry permissionRegistry,
+      LookupStrategy lookupStrategy,
+      SidRetrievalStrategy sidRetrievalStrategy) {
     this.permissionEvaluator = requireNonNull(permissionEvaluator);
     this.permissionRegistry = requireNonNull(permissionRegistry);
+    this.lookupStrategy = requireNonNull(lookupStrategy);
+    this.sidRetrievalStrategy = requireNonNull(sidRetrievalStrategy);
   }
 
   @Override
@@ -56,6 +79,52 @@ public class UserPermissionEvaluatorImpl implements UserPermissionEvaluator {
         .collect(Collectors.toSet());
   }
 
+  @Override
+  public Map<ObjectIdentity, Set<Permission>> getPermissions(
+      Collection<? extends ObjectIdentity> objectIdentities, Permission[] permissions) {
+    Map<ObjectIdentity, Set<Permission>> permissionsMap =
+        new LinkedHashMap<>(objectIdentities.size());
+    if (SecurityUtils.currentUserIsSuOrSystem()) {
+      Set<Permission> allPermissions = Set.of(permissions);
+      objectIdentities.forEach(
+          objectIdentity -> permissionsMap.put(objectIdentity, allPermissions));
+      return permissionsMap;
+    }
+
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids =
+        authentication != null ? sidRetrievalStrategy.getSids(authentication) : emptyList();
+    for (List<? extends ObjectIdentity> batch : partition(objectIdentities, BATCH_SIZE)) {
+      Map<ObjectIdentity, Acl> acls =
+          sids.isEmpty() ? Map.of() : lookupStrategy.readAclsById(new ArrayList<>(batch), sids);
+      for (ObjectIdentity objectIdentity : batch) {
+        Acl acl = acls.get(objectIdentity);
+        permissionsMap.put(
+            objectIdentity, acl != null ? getPermissions(acl, sids, permissions) : emptySet());
+      }
+    }
+    return permissionsMap;
+  }
+
+  private Set<Permission> getPermissions(Acl acl, List<Sid> sids, Permission[] permissions) {
+    Set<Permission> grantedPermissions = new HashSet<>();
+    for (Permission permission : permissions) {
+      if (isGranted(acl, sids, permission)) {
+        grantedPermissions.add(permission);
+      }
+    }
+    return grantedPermissions;
+  }
+
+  /** Same check as {@link org.springframework.security.acls.AclPermissionEvaluator} */
+  private boolean isGranted(Acl acl, List<Sid> sids, Permission permission) {
+    try {
+      return acl.isGranted(singletonList(getCumulativePermissionToCheck(permission)), sids, false);
+    } catch (NotFoundException e) {
+      return false;
+    }
+  }
+
   private CumulativePermission getCumulativePermissionToCheck(Permission permission) {
     CumulativePermission result = new CumulativePermission();
     Set<PermissionSet> permissionSets = permissionRegistry.getPermissions(permission);
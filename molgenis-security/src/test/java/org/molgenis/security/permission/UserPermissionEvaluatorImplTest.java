@@ -1,15 +1,33 @@
 package org.molgenis.security.permission;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.molgenis.data.plugin.model.PluginPermission.VIEW_PLUGIN;
 import static org.molgenis.data.security.EntityTypePermission.READ_DATA;
+import static org.molgenis.data.security.EntityTypePermission.UPDATE_DATA;
 import static org.molgenis.security.core.PermissionSet.READ;
 import static org.molgenis.security.core.PermissionSet.WRITE;
 import static org.molgenis.security.core.PermissionSet.WRITEMETA;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -17,10 +35,18 @@ import org.molgenis.data.plugin.model.PluginIdentity;
 import org.molgenis.data.plugin.model.PluginPermission;
 import org.molgenis.data.security.EntityTypeIdentity;
 import org.molgenis.data.security.EntityTypePermission;
+import org.molgenis.security.core.Permission;
 import org.molgenis.security.core.PermissionRegistry;
 import org.molgenis.test.AbstractMockitoSpringContextTests;
 import org.springframework.security.access.PermissionEvaluator;
 import org.springframework.security.acls.domain.CumulativePermission;
+import org.springframework.security.acls.domain.PrincipalSid;
+import org.springframework.security.acls.jdbc.LookupStrategy;
+import org.springframework.security.acls.model.Acl;
+import org.springframework.security.acls.model.NotFoundException;
+import org.springframework.security.acls.model.ObjectIdentity;
+import org.springframework.security.acls.model.Sid;
+import org.springframework.security.acls.model.SidRetrievalStrategy;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.test.context.annotation.SecurityTestExecutionListeners;
@@ -32,13 +58,16 @@ import org.springframework.test.context.ContextConfiguration;
 class UserPermissionEvaluatorImplTest extends AbstractMockitoSpringContextTests {
   @Mock private PermissionEvaluator permissionEvaluator;
   @Mock private PermissionRegistry permissionRegistry;
+  @Mock private LookupStrategy lookupStrategy;
+  @Mock private SidRetrievalStrategy sidRetrievalStrategy;
 
   private UserPermissionEvaluatorImpl userPermissionEvaluator;
 
   @BeforeEach
   void setUpBeforeMethod() {
     userPermissionEvaluator =
-        new UserPermissionEvaluatorImpl(permissionEvaluator, permissionRegistry);
+        new UserPermissionEvaluatorImpl(
+            permissionEvaluator, permissionRegistry, lookupStrategy, sidRetrievalStrategy);
   }
 
   @WithMockUser(username = "USER")
@@ -196,5 +225,69 @@ class UserPermissionEvaluatorImplTest extends AbstractMockitoSpringContextTests
     assertTrue(userPermissionEvaluator.hasPermission(new PluginIdentity("plugin1"), VIEW_PLUGIN));
   }
 
+  @WithMockUser(username = "USER")
+  @Test
+  void getPermissionsBatch() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids = singletonList(new PrincipalSid("USER"));
+    when(sidRetrievalStrategy.getSids(authentication)).thenReturn(sids);
+    when(permissionRegistry.getPermissions(READ_DATA)).thenReturn(ImmutableSet.of(READ));
+    EntityTypeIdentity permittedIdentity = new EntityTypeIdentity("entityType0");
+    EntityTypeIdentity deniedIdentity = new EntityTypeIdentity("entityType1");
+    EntityTypeIdentity unknownIdentity = new EntityTypeIdentity("entityType2");
+    Acl permittedAcl = mock(Acl.class);
+    when(permittedAcl.isGranted(singletonList(new CumulativePermission().set(READ)), sids, false))
+        .thenReturn(true);
+    Acl deniedAcl = mock(Acl.class);
+    when(deniedAcl.isGranted(singletonList(new CumulativePermission().set(READ)), sids, false))
+        .thenThrow(new NotFoundException("no matching entry"));
+    when(lookupStrategy.readAclsById(
+            asList(permittedIdentity, deniedIdentity, unknownIdentity), sids))
+        .thenReturn(Map.of(permittedIdentity, permittedAcl, deniedIdentity, deniedAcl));
+
+    Map<ObjectIdentity, Set<Permission>> expectedPermissions = new HashMap<>();
+    expectedPermissions.put(permittedIdentity, singleton(READ_DATA));
+    expectedPermissions.put(deniedIdentity, emptySet());
+    expectedPermissions.put(unknownIdentity, emptySet());
+    assertEquals(
+        expectedPermissions,
+        userPermissionEvaluator.getPermissions(
+            asList(permittedIdentity, deniedIdentity, unknownIdentity),
+            new Permission[] {READ_DATA}));
+  }
+
+  @WithMockUser(username = "USER")
+  @Test
+  void getPermissionsBatchPartitioned() {
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    List<Sid> sids = singletonList(new PrincipalSid("USER"));
+    when(sidRetrievalStrategy.getSids(authentication)).thenReturn(sids);
+    List<ObjectIdentity> objectIdentities = new ArrayList<>();
+    for (int i = 0; i < UserPermissionEvaluatorImpl.BATCH_SIZE + 1; i++) {
+      objectIdentities.add(new EntityTypeIdentity("entityType" + i));
+    }
+    when(lookupStrategy.readAclsById(any(), eq(sids))).thenReturn(emptyMap());
+
+    assertEquals(
+        objectIdentities.size(),
+        userPermissionEvaluator
+            .getPermissions(objectIdentities, new Permission[] {READ_DATA})
+            .size());
+    verify(lookupStrategy, times(2)).readAclsById(any(), eq(sids));
+  }
+
+  @WithMockUser(
+      username = "USER",
+      authorities = {"ROLE_SU"})
+  @Test
+  void getPermissionsBatchSuperuser() {
+    EntityTypeIdentity entityTypeIdentity = new EntityTypeIdentity("entityType0");
+    assertEquals(
+        Map.of(entityTypeIdentity, Set.of(READ_DATA, UPDATE_DATA)),
+        userPermissionEvaluator.getPermissions(
+            singletonList(entityTypeIdentity), new Permission[] {READ_DATA, UPDATE_DATA}));
+    verifyZeroInteractions(lookupStrategy);
+  }
+
   static class Config {}
 }
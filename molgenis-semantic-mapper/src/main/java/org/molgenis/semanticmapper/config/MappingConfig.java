@@ -2,11 +2,16 @@ package org.molgenis.semanticmapper.config;
 
 import static java.util.Objects.requireNonNull;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.PreDestroy;
 import org.molgenis.data.DataService;
 import org.molgenis.data.EntityManager;
 import org.molgenis.data.meta.model.AttributeFactory;
 import org.molgenis.data.populate.IdGenerator;
 import org.molgenis.data.security.permission.PermissionSystemService;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.ontology.core.config.OntologyConfig;
 import org.molgenis.ontology.core.service.OntologyService;
 import org.molgenis.semanticmapper.algorithmgenerator.service.AlgorithmGeneratorService;
@@ -26,6 +31,7 @@ import org.molgenis.semanticmapper.service.impl.AlgorithmTemplateServiceImpl;
 import org.molgenis.semanticmapper.service.impl.MappingServiceImpl;
 import org.molgenis.semanticmapper.service.impl.UnitResolverImpl;
 import org.molgenis.semanticsearch.service.SemanticSearchService;
+import org.molgenis.util.ExecutorServiceUtils;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -33,6 +39,8 @@ import org.springframework.context.annotation.Import;
 @Configuration
 @Import(OntologyConfig.class)
 public class MappingConfig {
+  private static final int MAPPING_THREADS = Runtime.getRuntime().availableProcessors();
+
   private final DataService dataService;
   private final SemanticSearchService semanticSearchService;
   private final OntologyService ontologyService;
@@ -42,6 +50,8 @@ public class MappingConfig {
   private final AttributeFactory attrMetaFactory;
   private final MappingProjectMetadata mappingProjectMeta;
   private final EntityManager entityManager;
+  private final JsMagmaScriptContextPool jsMagmaScriptContextPool;
+  private ExecutorService mappingExecutorService;
 
   public MappingConfig(
       PermissionSystemService permissionSystemService,
@@ -52,7 +62,8 @@ public class MappingConfig {
       AttributeMappingMetadata attributeMappingMetaData,
       AttributeFactory attrMetaFactory,
       MappingProjectMetadata mappingProjectMeta,
-      EntityManager entityManager) {
+      EntityManager entityManager,
+      JsMagmaScriptContextPool jsMagmaScriptContextPool) {
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.dataService = requireNonNull(dataService);
     this.semanticSearchService = requireNonNull(semanticSearchService);
@@ -62,6 +73,14 @@ public class MappingConfig {
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.mappingProjectMeta = requireNonNull(mappingProjectMeta);
     this.entityManager = requireNonNull(entityManager);
+    this.jsMagmaScriptContextPool = requireNonNull(jsMagmaScriptContextPool);
+  }
+
+  @PreDestroy
+  void preDestroy() {
+    if (mappingExecutorService != null) {
+      ExecutorServiceUtils.shutdownAndAwaitTermination(mappingExecutorService);
+    }
   }
 
   @Bean
@@ -72,7 +91,20 @@ public class MappingConfig {
         mappingProjectRepository(),
         permissionSystemService,
         attrMetaFactory,
-        entityManager);
+        entityManager,
+        jsMagmaScriptContextPool,
+        mappingExecutorService());
+  }
+
+  /** Not exposed as bean to avoid ambiguity with the job executor service */
+  private synchronized ExecutorService mappingExecutorService() {
+    if (mappingExecutorService == null) {
+      mappingExecutorService =
+          Executors.newFixedThreadPool(
+              MAPPING_THREADS,
+              new ThreadFactoryBuilder().setNameFormat("molgenis-mapping-%d").build());
+    }
+    return mappingExecutorService;
   }
 
   @Bean
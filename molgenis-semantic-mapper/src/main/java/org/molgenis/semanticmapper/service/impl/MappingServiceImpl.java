@@ -5,22 +5,32 @@ import static java.lang.Boolean.TRUE;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
 import static org.molgenis.data.EntityManager.CreationMode.POPULATE;
 import static org.molgenis.data.meta.model.EntityType.AttributeCopyMode.DEEP_COPY_ATTRS;
 import static org.molgenis.data.meta.model.PackageMetadata.PACKAGE;
 import static org.molgenis.data.util.EntityTypeUtils.hasSelfReferences;
 import static org.molgenis.data.util.EntityTypeUtils.isReferenceType;
+import static org.molgenis.js.magma.WithJsMagmaScriptAspect.withJsMagmaScriptContext;
 import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.MAPPING_PROJECT;
 import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.NAME;
+import static org.springframework.security.concurrent.DelegatingSecurityContextCallable.create;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Repository;
 import org.molgenis.data.UnknownEntityException;
@@ -33,7 +43,7 @@ import org.molgenis.data.meta.model.Package;
 import org.molgenis.data.security.permission.PermissionSystemService;
 import org.molgenis.data.support.QueryImpl;
 import org.molgenis.jobs.Progress;
-import org.molgenis.js.magma.WithJsMagmaScriptContext;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.semanticmapper.mapping.model.AttributeMapping;
 import org.molgenis.semanticmapper.mapping.model.EntityMapping;
 import org.molgenis.semanticmapper.mapping.model.MappingProject;
@@ -42,6 +52,8 @@ import org.molgenis.semanticmapper.repository.MappingProjectRepository;
 import org.molgenis.semanticmapper.service.AlgorithmService;
 import org.molgenis.semanticmapper.service.MappingService;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.transaction.annotation.Transactional;
 
 @PreAuthorize("hasAnyRole('ROLE_SU')")
@@ -49,6 +61,9 @@ public class MappingServiceImpl implements MappingService {
 
   public static final int MAPPING_BATCH_SIZE = 1000;
 
+  /** Maximum number of source batches that are mapped ahead of the batch that is being written */
+  static final int MAX_PENDING_BATCHES = 2 * Runtime.getRuntime().availableProcessors();
+
   static final String SOURCE = "source";
 
   private final DataService dataService;
@@ -57,6 +72,8 @@ public class MappingServiceImpl implements MappingService {
   private final PermissionSystemService permissionSystemService;
   private final AttributeFactory attrMetaFactory;
   private final EntityManager entityManager;
+  private final JsMagmaScriptContextPool contextPool;
+  private final ExecutorService mappingExecutorService;
 
   public MappingServiceImpl(
       DataService dataService,
@@ -64,13 +81,17 @@ public class MappingServiceImpl implements MappingService {
       MappingProjectRepository mappingProjectRepository,
       PermissionSystemService permissionSystemService,
       AttributeFactory attrMetaFactory,
-      EntityManager entityManager) {
+      EntityManager entityManager,
+      JsMagmaScriptContextPool contextPool,
+      ExecutorService mappingExecutorService) {
     this.dataService = requireNonNull(dataService);
     this.algorithmService = requireNonNull(algorithmService);
     this.mappingProjectRepository = requireNonNull(mappingProjectRepository);
     this.permissionSystemService = requireNonNull(permissionSystemService);
     this.attrMetaFactory = requireNonNull(attrMetaFactory);
     this.entityManager = requireNonNull(entityManager);
+    this.contextPool = requireNonNull(contextPool);
+    this.mappingExecutorService = requireNonNull(mappingExecutorService);
   }
 
   @Override
@@ -154,7 +175,6 @@ public class MappingServiceImpl implements MappingService {
 
   @Override
   @Transactional
-  @WithJsMagmaScriptContext
   public long applyMappings(
       String mappingProjectId,
       String entityTypeId,
@@ -333,46 +353,126 @@ public class MappingServiceImpl implements MappingService {
         .sum();
   }
 
-  /** Package-private for testability */
+  /**
+   * Maps the source entities to the target repository in a pipeline: the calling thread reads
+   * source batches and submits them to the mapping executor service, which evaluates the algorithms
+   * using pooled JavaScript contexts. The calling thread writes the mapped batches in source order,
+   * so reads and writes take place in the transaction of the calling thread and the result is the
+   * same as mapping the batches one after the other.
+   *
+   * <p>The mapping executor threads do not take part in this transaction. Source entities are
+   * therefore read with the entities they reference through the attributes used by the algorithms,
+   * so that the algorithms see the rows written earlier in the transaction. Entities that are
+   * referenced by these referenced entities are loaded when an algorithm needs them, outside the
+   * transaction.
+   *
+   * <p>Package-private for testability
+   */
   long applyMappingToRepo(
       EntityMapping sourceMapping, Repository<Entity> targetRepo, Progress progress) {
     progress.status(format("Mapping source [%s]...", sourceMapping.getLabel()));
     AtomicLong counter = new AtomicLong();
 
     boolean canAdd = targetRepo.count() == 0;
-    dataService
-        .getRepository(sourceMapping.getName())
-        .forEachBatched(
-            entities ->
-                processBatch(sourceMapping, targetRepo, progress, counter, canAdd, entities),
-            MAPPING_BATCH_SIZE);
+    EntityType targetMetadata = targetRepo.getEntityType();
+    SecurityContext securityContext = SecurityContextHolder.getContext();
+    Deque<Future<List<Entity>>> pendingBatches = new ArrayDeque<>();
+    Repository<Entity> sourceRepo = dataService.getRepository(sourceMapping.getName());
+    try {
+      sourceRepo.forEachBatched(
+          createSourceFetch(sourceMapping, sourceRepo.getEntityType()),
+          entities -> {
+            pendingBatches.add(
+                mappingExecutorService.submit(
+                    create(
+                        () -> mapEntities(sourceMapping, targetMetadata, entities),
+                        securityContext)));
+            if (pendingBatches.size() >= MAX_PENDING_BATCHES) {
+              writeBatch(targetRepo, progress, counter, canAdd, pendingBatches.remove());
+            }
+          },
+          MAPPING_BATCH_SIZE);
+      while (!pendingBatches.isEmpty()) {
+        writeBatch(targetRepo, progress, counter, canAdd, pendingBatches.remove());
+      }
+    } finally {
+      pendingBatches.forEach(pendingBatch -> pendingBatch.cancel(true));
+    }
 
     progress.status(format("Mapped %s [%s] entities.", counter, sourceMapping.getLabel()));
     return counter.get();
   }
 
-  private void processBatch(
-      EntityMapping sourceMapping,
+  /**
+   * Creates the fetch to read the source entities with. Reference attributes used by the algorithms
+   * are fetched including the attributes of the referenced entities, which resolves these
+   * references on the calling thread.
+   */
+  private Fetch createSourceFetch(EntityMapping sourceMapping, EntityType sourceEntityType) {
+    Set<String> sourceAttributeNames =
+        sourceMapping.getAttributeMappings().stream()
+            .map(AttributeMapping::getAlgorithm)
+            .flatMap(algorithm -> algorithmService.getSourceAttributeNames(algorithm).stream())
+            .collect(toSet());
+
+    Fetch fetch = new Fetch();
+    for (Attribute attr : sourceEntityType.getAtomicAttributes()) {
+      if (attr.hasRefEntity() && sourceAttributeNames.contains(attr.getName())) {
+        Fetch refFetch = new Fetch();
+        attr.getRefEntity()
+            .getAtomicAttributes()
+            .forEach(refAttr -> refFetch.field(refAttr.getName()));
+        fetch.field(attr.getName(), refFetch);
+      } else {
+        fetch.field(attr.getName());
+      }
+    }
+    return fetch;
+  }
+
+  private void writeBatch(
       Repository<Entity> targetRepo,
       Progress progress,
       AtomicLong counter,
       boolean canAdd,
-      List<Entity> entities) {
-    List<Entity> mappedEntities = mapEntities(sourceMapping, targetRepo.getEntityType(), entities);
+      Future<List<Entity>> pendingBatch) {
+    List<Entity> mappedEntities = getMappedEntities(pendingBatch);
     if (canAdd) {
       targetRepo.add(mappedEntities.stream());
     } else {
       targetRepo.upsertBatch(mappedEntities);
     }
     progress.increment(1);
-    counter.addAndGet(entities.size());
+    counter.addAndGet(mappedEntities.size());
+  }
+
+  private static List<Entity> getMappedEntities(Future<List<Entity>> pendingBatch) {
+    try {
+      return pendingBatch.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MolgenisDataException("Interrupted while mapping entities", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new MolgenisDataException(cause);
+    }
   }
 
   private List<Entity> mapEntities(
       EntityMapping sourceMapping, EntityType targetMetaData, List<Entity> entities) {
-    return entities.stream()
-        .map(sourceEntity -> applyMappingToEntity(sourceMapping, sourceEntity, targetMetaData))
-        .collect(toList());
+    return withJsMagmaScriptContext(
+        contextPool,
+        () ->
+            entities.stream()
+                .map(
+                    sourceEntity ->
+                        applyMappingToEntity(sourceMapping, sourceEntity, targetMetaData))
+                .collect(toList()));
   }
 
   /** Package-private for testablility */
@@ -11,6 +11,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
@@ -25,6 +26,7 @@ import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.MAPPING_PR
 import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.MAPPING_TARGETS;
 import static org.molgenis.semanticmapper.meta.MappingProjectMetadata.NAME;
 import static org.molgenis.semanticmapper.service.impl.MappingServiceImpl.MAPPING_BATCH_SIZE;
+import static org.molgenis.semanticmapper.service.impl.MappingServiceImpl.MAX_PENDING_BATCHES;
 import static org.molgenis.semanticmapper.service.impl.MappingServiceImpl.SOURCE;
 
 import com.google.common.collect.Lists;
@@ -33,6 +35,8 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
@@ -48,6 +52,7 @@ import org.molgenis.data.AbstractMolgenisSpringTest;
 import org.molgenis.data.DataService;
 import org.molgenis.data.Entity;
 import org.molgenis.data.EntityManager;
+import org.molgenis.data.Fetch;
 import org.molgenis.data.MolgenisDataException;
 import org.molgenis.data.Query;
 import org.molgenis.data.Repository;
@@ -64,6 +69,8 @@ import org.molgenis.data.security.permission.PermissionSystemService;
 import org.molgenis.data.support.DynamicEntity;
 import org.molgenis.data.util.EntityUtils;
 import org.molgenis.jobs.Progress;
+import org.molgenis.js.magma.JsMagmaScriptContext;
+import org.molgenis.js.magma.JsMagmaScriptContextPool;
 import org.molgenis.js.magma.JsMagmaScriptEvaluator;
 import org.molgenis.semanticmapper.mapping.model.AttributeMapping;
 import org.molgenis.semanticmapper.mapping.model.EntityMapping;
@@ -360,13 +367,14 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
             invocationOnMock -> {
               @SuppressWarnings("unchecked")
               Consumer<List<Entity>> consumer =
-                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(0);
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
 
               consumer.accept(sourceGeneEntities);
               return null;
             })
         .when(geneRepo)
-        .forEachBatched(ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+        .forEachBatched(
+            ArgumentMatchers.any(), ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
 
     // create project and apply mappings once
     createMappingProjectWithMappings();
@@ -383,7 +391,10 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
         mappingService.applyMappings("TestRun", entityTypeId, true, packageId, "label", progress));
 
     Mockito.verify(geneRepo)
-        .forEachBatched(ArgumentMatchers.any(Consumer.class), ArgumentMatchers.any(Integer.class));
+        .forEachBatched(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.any(Consumer.class),
+            ArgumentMatchers.any(Integer.class));
 
     ArgumentCaptor<EntityType> entityTypeCaptor = ArgumentCaptor.forClass(EntityType.class);
     Mockito.verify(permissionSystemService)
@@ -434,12 +445,13 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
             invocationOnMock -> {
               @SuppressWarnings("unchecked")
               Consumer<List<Entity>> consumer =
-                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(0);
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
               consumer.accept(sourceGeneEntities);
               return null;
             })
         .when(geneRepo)
-        .forEachBatched(ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+        .forEachBatched(
+            ArgumentMatchers.any(), ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
 
     // create mapping project and apply mappings once
     createMappingProjectWithMappings();
@@ -453,7 +465,10 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
             "TestRun", entityTypeId, false, "packageId", "label", progress));
 
     Mockito.verify(geneRepo)
-        .forEachBatched(ArgumentMatchers.any(Consumer.class), ArgumentMatchers.any(Integer.class));
+        .forEachBatched(
+            ArgumentMatchers.any(),
+            ArgumentMatchers.any(Consumer.class),
+            ArgumentMatchers.any(Integer.class));
 
     Mockito.verify(updateEntityRepo).upsertBatch(batchCaptor.capture());
     assertTrue(EntityUtils.equalsEntities(batchCaptor.getValue(), expectedEntities));
@@ -493,7 +508,7 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     Mockito.doAnswer(
             invocationOnMock -> {
               Consumer<List<Entity>> consumer =
-                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(0);
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
 
               consumer.accept(batch);
               consumer.accept(batch);
@@ -501,7 +516,8 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
               return null;
             })
         .when(sourceRepo)
-        .forEachBatched(ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+        .forEachBatched(
+            ArgumentMatchers.any(), ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
 
     mappingService.applyMappingToRepo(sourceMapping, targetRepo, progress);
 
@@ -522,6 +538,7 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     when(sourceMapping.getName()).thenReturn("sourceMappingID");
 
     when(dataService.getRepository("sourceMappingID")).thenReturn(sourceRepo);
+    when(sourceRepo.getEntityType()).thenReturn(mock(EntityType.class));
     when(targetRepo.count()).thenReturn(3L);
 
     EntityType targetEntityType = mock(EntityType.class);
@@ -537,13 +554,14 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     Mockito.doAnswer(
             invocationOnMock -> {
               Consumer<List<Entity>> consumer =
-                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(0);
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
               consumer.accept(batch);
               consumer.accept(batch);
               return null;
             })
         .when(sourceRepo)
-        .forEachBatched(ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+        .forEachBatched(
+            ArgumentMatchers.any(), ArgumentMatchers.any(Consumer.class), eq(MAPPING_BATCH_SIZE));
 
     mappingService.applyMappingToRepo(sourceMapping, targetRepo, progress);
 
@@ -554,6 +572,132 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     Mockito.verifyNoMoreInteractions(progress);
   }
 
+  @Test
+  @SuppressWarnings("unchecked")
+  void testApplyMappingsToRepoWritesBatchesInSourceOrder() {
+    Repository<Entity> targetRepo = mock(Repository.class);
+    Repository<Entity> sourceRepo = mock(Repository.class);
+    EntityMapping sourceMapping = mock(EntityMapping.class);
+    when(sourceMapping.getLabel()).thenReturn("sourceMappingLabel");
+    when(sourceMapping.getName()).thenReturn("sourceMappingID");
+    when(dataService.getRepository("sourceMappingID")).thenReturn(sourceRepo);
+    when(sourceRepo.getEntityType()).thenReturn(mock(EntityType.class));
+    when(targetRepo.count()).thenReturn(1L);
+    when(targetRepo.getEntityType()).thenReturn(mock(EntityType.class));
+
+    int nrBatches = 2 * MAX_PENDING_BATCHES + 1;
+    Mockito.doAnswer(
+            invocationOnMock -> {
+              Consumer<List<Entity>> consumer =
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
+              for (int i = 1; i <= nrBatches; i++) {
+                consumer.accept(Collections.nCopies(i, mock(Entity.class)));
+              }
+              return null;
+            })
+        .when(sourceRepo)
+        .forEachBatched(any(), any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+
+    long expectedNrEntities = (long) nrBatches * (nrBatches + 1) / 2;
+    assertEquals(
+        expectedNrEntities, mappingService.applyMappingToRepo(sourceMapping, targetRepo, progress));
+
+    Mockito.verify(targetRepo, Mockito.times(nrBatches)).upsertBatch(batchCaptor.capture());
+    List<List<Entity>> batches = batchCaptor.getAllValues();
+    for (int i = 0; i < nrBatches; i++) {
+      assertEquals(i + 1, batches.get(i).size());
+    }
+    Mockito.verify(progress, Mockito.times(nrBatches)).increment(1);
+    Mockito.verify(progress)
+        .status("Mapped " + expectedNrEntities + " [sourceMappingLabel] entities.");
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testApplyMappingsToRepoAlgorithmException() {
+    Repository<Entity> targetRepo = mock(Repository.class);
+    Repository<Entity> sourceRepo = mock(Repository.class);
+    EntityMapping sourceMapping = mock(EntityMapping.class);
+    when(sourceMapping.getName()).thenReturn("sourceMappingID");
+    AttributeMapping attributeMapping = mock(AttributeMapping.class);
+    when(attributeMapping.getTargetAttribute()).thenReturn(mock(Attribute.class));
+    when(sourceMapping.getAttributeMappings()).thenReturn(singletonList(attributeMapping));
+    when(dataService.getRepository("sourceMappingID")).thenReturn(sourceRepo);
+    when(sourceRepo.getEntityType()).thenReturn(mock(EntityType.class));
+    when(targetRepo.getEntityType()).thenReturn(mock(EntityType.class));
+    when(algorithmService.apply(attributeMapping)).thenThrow(new AlgorithmException("error"));
+
+    Mockito.doAnswer(
+            invocationOnMock -> {
+              Consumer<List<Entity>> consumer =
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
+              consumer.accept(singletonList(mock(Entity.class)));
+              return null;
+            })
+        .when(sourceRepo)
+        .forEachBatched(any(), any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+
+    assertThrows(
+        AlgorithmException.class,
+        () -> mappingService.applyMappingToRepo(sourceMapping, targetRepo, progress));
+    Mockito.verify(targetRepo, Mockito.never()).add(any(Stream.class));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testApplyMappingsToRepoResolvesReferencedEntitiesOnCallingThread() {
+    Repository<Entity> targetRepo = mock(Repository.class);
+    Repository<Entity> sourceRepo = mock(Repository.class);
+    EntityMapping sourceMapping = mock(EntityMapping.class);
+    when(sourceMapping.getName()).thenReturn("sourceMappingID");
+    AttributeMapping attributeMapping = mock(AttributeMapping.class);
+    when(attributeMapping.getAlgorithm()).thenReturn("$('ref').attr('label').value()");
+    when(attributeMapping.getTargetAttribute()).thenReturn(mock(Attribute.class));
+    when(sourceMapping.getAttributeMappings()).thenReturn(singletonList(attributeMapping));
+    when(algorithmService.getSourceAttributeNames("$('ref').attr('label').value()"))
+        .thenReturn(singletonList("ref"));
+    when(dataService.getRepository("sourceMappingID")).thenReturn(sourceRepo);
+    when(targetRepo.count()).thenReturn(1L);
+    EntityType targetEntityType = mock(EntityType.class);
+    when(targetRepo.getEntityType()).thenReturn(targetEntityType);
+    when(entityManager.create(targetEntityType, EntityManager.CreationMode.POPULATE))
+        .thenReturn(mock(Entity.class));
+
+    EntityType refEntityType = entityTypeFactory.create("refEntityType");
+    refEntityType.addAttribute(attrMetaFactory.create().setName("refId"), ROLE_ID);
+    refEntityType.addAttribute(attrMetaFactory.create().setName("label"));
+    refEntityType.addAttribute(
+        attrMetaFactory.create().setName("refRef").setDataType(XREF).setRefEntity(refEntityType));
+    EntityType sourceEntityType = entityTypeFactory.create("sourceEntityType");
+    sourceEntityType.addAttribute(attrMetaFactory.create().setName("id"), ROLE_ID);
+    sourceEntityType.addAttribute(
+        attrMetaFactory.create().setName("ref").setDataType(XREF).setRefEntity(refEntityType));
+    sourceEntityType.addAttribute(
+        attrMetaFactory.create().setName("otherRef").setDataType(XREF).setRefEntity(refEntityType));
+    when(sourceRepo.getEntityType()).thenReturn(sourceEntityType);
+
+    // entities referenced by the algorithms, including rows written earlier in the transaction,
+    // must be resolved by the read on the calling thread instead of by the mapping threads
+    Fetch expectedFetch =
+        new Fetch()
+            .field("id")
+            .field("ref", new Fetch().field("refId").field("label").field("refRef"))
+            .field("otherRef");
+    Mockito.doAnswer(
+            invocationOnMock -> {
+              Consumer<List<Entity>> consumer =
+                  (Consumer<List<Entity>>) invocationOnMock.<Consumer>getArgument(1);
+              consumer.accept(singletonList(mock(Entity.class)));
+              return null;
+            })
+        .when(sourceRepo)
+        .forEachBatched(eq(expectedFetch), any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+
+    assertEquals(1, mappingService.applyMappingToRepo(sourceMapping, targetRepo, progress));
+    Mockito.verify(sourceRepo)
+        .forEachBatched(eq(expectedFetch), any(Consumer.class), eq(MAPPING_BATCH_SIZE));
+  }
+
   @Test
   void testIncompatibleMetaDataUnknownAttribute() {
     String targetRepositoryName = "targetRepository";
@@ -847,5 +991,17 @@ class MappingServiceImplTest extends AbstractMolgenisSpringTest {
     PermissionSystemService permissionSystemService() {
       return mock(PermissionSystemService.class);
     }
+
+    @Bean
+    JsMagmaScriptContextPool jsMagmaScriptContextPool() {
+      JsMagmaScriptContextPool contextPool = mock(JsMagmaScriptContextPool.class);
+      when(contextPool.borrowContext()).thenAnswer(invocation -> mock(JsMagmaScriptContext.class));
+      return contextPool;
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    ExecutorService mappingExecutorService() {
+      return Executors.newFixedThreadPool(2);
+    }
   }
 }
@@ -1,117 +1,121 @@
 package org.molgenis.util;
 
+import static java.util.Collections.emptyIterator;
+import static java.util.Objects.requireNonNull;
+
 import java.io.Closeable;
-import java.io.File;
-import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
 import java.util.Set;
-import org.mapdb.DB;
-import org.mapdb.DBMaker;
-
-public class HugeMap<K, V> implements Map<K, V>, Closeable {
-  protected static final int THRESHOLD = 10000;
-  private DB mapDB;
-  private Map<K, V> map;
-  private final Map<K, V> hashMap = new HashMap<>();
 
-  @Override
-  public int size() {
-    if (map == null) return hashMap.size();
-    return map.size();
+/**
+ * Map that can contain a huge amount of data. Entries are stored on the heap in an open addressing
+ * hash table, with primitive keys if all keys are integers or all keys are longs, until the
+ * estimated memory usage exceeds the memory budget. Then the entries are moved to a hash table in
+ * memory-mapped files outside of the heap. Does not permit <code>null</code> keys.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class HugeMap<K, V> extends AbstractMap<K, V> implements Closeable {
+  /** Default heap memory budget in bytes */
+  public static final long DEFAULT_MEMORY_BUDGET = 16L * 1024 * 1024;
+
+  private final long memoryBudget;
+  private HugeTable<K, V> table;
+
+  public HugeMap() {
+    this(DEFAULT_MEMORY_BUDGET);
   }
 
-  @Override
-  public boolean isEmpty() {
-    if (map == null) return hashMap.isEmpty();
-    return map.isEmpty();
+  /** @param memoryBudget maximum estimated heap memory usage in bytes before moving off-heap */
+  public HugeMap(long memoryBudget) {
+    if (memoryBudget < 0) {
+      throw new IllegalArgumentException("Memory budget must be greater than or equal to zero");
+    }
+    this.memoryBudget = memoryBudget;
   }
 
   @Override
-  public boolean containsKey(Object key) {
-    if (map == null) return hashMap.containsKey(key);
-    return map.containsKey(key);
+  public int size() {
+    return table != null ? table.size() : 0;
   }
 
   @Override
-  public boolean containsValue(Object value) {
-    if (map == null) return hashMap.containsValue(value);
-    return map.containsValue(value);
+  public boolean containsKey(Object key) {
+    return key != null && table != null && table.containsKey(key);
   }
 
   @Override
   public V get(Object key) {
-    if (map == null) return hashMap.get(key);
-    return map.get(key);
+    return key != null && table != null ? table.get(key) : null;
   }
 
   @Override
   public V put(K key, V value) {
-    if (hashMap.size() == THRESHOLD) {
-      File dbFile;
-      try {
-        dbFile = File.createTempFile("mapdb", "temp");
-      } catch (IOException e) {
-        throw new UncheckedIOException(e);
-      }
-
-      mapDB = DBMaker.newFileDB(dbFile).deleteFilesAfterClose().transactionDisable().make();
-      map = mapDB.createHashMap("map").make();
-      map.putAll(hashMap);
-      hashMap.clear();
+    requireNonNull(key);
+    if (table == null) {
+      table =
+          LongHashTable.isSupported(key.getClass())
+              ? new LongHashTable<>(key.getClass())
+              : new ObjectHashTable<>();
+    } else if (!table.accepts(key)) {
+      moveTo(new ObjectHashTable<>());
     }
 
-    if (map == null) {
-      return hashMap.put(key, value);
+    V previousValue = table.put(key, value);
+    if (table.getMemoryUsage() > memoryBudget) {
+      moveTo(new OffHeapHashTable<>(table.size()));
     }
-
-    return map.put(key, value);
+    return previousValue;
   }
 
   @Override
   public V remove(Object key) {
-    if (map == null) return hashMap.remove(key);
-    return map.remove(key);
-  }
-
-  @Override
-  public void putAll(Map<? extends K, ? extends V> m) {
-    m.forEach(this::put);
+    return key != null && table != null ? table.remove(key) : null;
   }
 
   @Override
   public void clear() {
-    if (map == null) {
-      hashMap.clear();
-    } else {
-      map.clear();
-    }
+    close();
   }
 
   @Override
-  public Set<K> keySet() {
-    if (map == null) return hashMap.keySet();
-    return map.keySet();
-  }
+  public Set<Entry<K, V>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Entry<K, V>> iterator() {
+        return table != null ? table.iterator() : emptyIterator();
+      }
 
-  @Override
-  public Collection<V> values() {
-    if (map == null) return hashMap.values();
-    return map.values();
-  }
+      @Override
+      public int size() {
+        return HugeMap.this.size();
+      }
 
-  @Override
-  public Set<java.util.Map.Entry<K, V>> entrySet() {
-    if (map == null) return hashMap.entrySet();
-    return map.entrySet();
+      @Override
+      public void clear() {
+        HugeMap.this.clear();
+      }
+    };
   }
 
+  /** Releases the memory and files used by this map, the map is empty afterwards */
   @Override
   public void close() {
-    if (mapDB != null) {
-      mapDB.close();
+    if (table != null) {
+      table.close();
+      table = null;
+    }
+  }
+
+  private void moveTo(HugeTable<K, V> newTable) {
+    for (Iterator<Entry<K, V>> it = table.iterator(); it.hasNext(); ) {
+      Entry<K, V> entry = it.next();
+      newTable.put(entry.getKey(), entry.getValue());
     }
+    table.close();
+    table = newTable;
   }
 }
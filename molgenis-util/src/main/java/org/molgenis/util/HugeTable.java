@@ -0,0 +1,64 @@
+package org.molgenis.util;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.Map.Entry;
+
+/**
+ * Hash table that stores the entries of a {@link HugeMap}, does not permit <code>null</code> keys.
+ */
+interface HugeTable<K, V> extends Closeable {
+  int MAX_CAPACITY = 1 << 30;
+
+  /** Returns whether this table can store the given key */
+  boolean accepts(Object key);
+
+  int size();
+
+  boolean containsKey(Object key);
+
+  V get(Object key);
+
+  V put(K key, V value);
+
+  V remove(Object key);
+
+  void clear();
+
+  /** Returns an iterator over the entries of this table that supports removal */
+  Iterator<Entry<K, V>> iterator();
+
+  /** Returns the estimated number of bytes of heap memory used by this table */
+  long getMemoryUsage();
+
+  @Override
+  void close();
+
+  /** Spreads the bits of the given hash code to reduce collisions in power of two tables */
+  static int mix(int hashCode) {
+    int h = hashCode * 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /** Returns the power of two table capacity for the given number of entries */
+  static int capacityFor(int expectedSize) {
+    long capacity = Long.highestOneBit(Math.max(expectedSize, 8) * 2L - 1) << 1;
+    if (capacity > MAX_CAPACITY) {
+      throw new IllegalStateException("Hash table capacity exceeds maximum capacity");
+    }
+    return (int) capacity;
+  }
+
+  /** Returns the estimated number of bytes of heap memory used by the given key or value */
+  static long estimateSize(Object object) {
+    if (object == null || object instanceof Boolean) {
+      return 0;
+    } else if (object instanceof String) {
+      return 40L + 2L * ((String) object).length();
+    } else if (object instanceof Number) {
+      return 16;
+    } else {
+      return 64;
+    }
+  }
+}
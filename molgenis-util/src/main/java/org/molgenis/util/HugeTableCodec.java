@@ -0,0 +1,130 @@
+package org.molgenis.util;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Encodes keys and values of {@link OffHeapHashTable} entries. Common types have a compact encoding
+ * in which equal objects have equal bytes, other types fall back to Java serialization.
+ */
+class HugeTableCodec {
+  private static final byte NULL = 0;
+  private static final byte STRING = 1;
+  private static final byte INTEGER = 2;
+  private static final byte LONG = 3;
+  private static final byte DOUBLE = 4;
+  private static final byte BOOLEAN = 5;
+  private static final byte LOCAL_DATE = 6;
+  private static final byte INSTANT = 7;
+  private static final byte SERIALIZED = 8;
+
+  private HugeTableCodec() {}
+
+  static byte[] encode(Object object) {
+    if (object == null) {
+      return new byte[] {NULL};
+    } else if (object instanceof String) {
+      byte[] stringBytes = ((String) object).getBytes(UTF_8);
+      byte[] bytes = new byte[stringBytes.length + 1];
+      bytes[0] = STRING;
+      System.arraycopy(stringBytes, 0, bytes, 1, stringBytes.length);
+      return bytes;
+    } else if (object instanceof Integer) {
+      return ByteBuffer.allocate(1 + Integer.BYTES).put(INTEGER).putInt((Integer) object).array();
+    } else if (object instanceof Long) {
+      return ByteBuffer.allocate(1 + Long.BYTES).put(LONG).putLong((Long) object).array();
+    } else if (object instanceof Double) {
+      // consistent with Double.equals
+      long bits = Double.doubleToLongBits((Double) object);
+      return ByteBuffer.allocate(1 + Long.BYTES).put(DOUBLE).putLong(bits).array();
+    } else if (object instanceof Boolean) {
+      return new byte[] {BOOLEAN, (byte) (Boolean.TRUE.equals(object) ? 1 : 0)};
+    } else if (object instanceof LocalDate) {
+      long epochDay = ((LocalDate) object).toEpochDay();
+      return ByteBuffer.allocate(1 + Long.BYTES).put(LOCAL_DATE).putLong(epochDay).array();
+    } else if (object instanceof Instant) {
+      Instant instant = (Instant) object;
+      return ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES)
+          .put(INSTANT)
+          .putLong(instant.getEpochSecond())
+          .putInt(instant.getNano())
+          .array();
+    } else {
+      return serialize(object);
+    }
+  }
+
+  static Object decode(byte[] bytes) {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+    switch (bytes[0]) {
+      case NULL:
+        return null;
+      case STRING:
+        return new String(bytes, 1, bytes.length - 1, UTF_8);
+      case INTEGER:
+        return buffer.getInt();
+      case LONG:
+        return buffer.getLong();
+      case DOUBLE:
+        return Double.longBitsToDouble(buffer.getLong());
+      case BOOLEAN:
+        return bytes[1] == 1;
+      case LOCAL_DATE:
+        return LocalDate.ofEpochDay(buffer.getLong());
+      case INSTANT:
+        return Instant.ofEpochSecond(buffer.getLong(), buffer.getInt());
+      case SERIALIZED:
+        return deserialize(bytes);
+      default:
+        throw new IllegalArgumentException("Unknown type [" + bytes[0] + "]");
+    }
+  }
+
+  /**
+   * Returns whether the given encoded objects are equal. Serialized objects are deserialized and
+   * compared with {@link Object#equals(Object)} because equal objects can serialize differently.
+   */
+  static boolean equals(byte[] bytes, byte[] otherBytes) {
+    if (bytes[0] == SERIALIZED && otherBytes[0] == SERIALIZED) {
+      return deserialize(bytes).equals(deserialize(otherBytes));
+    }
+    return Arrays.equals(bytes, otherBytes);
+  }
+
+  /** Returns whether the given encoded object is encoded using Java serialization */
+  static boolean isSerialized(byte[] bytes) {
+    return bytes[0] == SERIALIZED;
+  }
+
+  private static byte[] serialize(Object object) {
+    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+    byteArrayOutputStream.write(SERIALIZED);
+    try (ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream)) {
+      objectOutputStream.writeObject(object);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return byteArrayOutputStream.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes) {
+    try (ObjectInputStream objectInputStream =
+        new ObjectInputStream(new ByteArrayInputStream(bytes, 1, bytes.length - 1))) {
+      return objectInputStream.readObject();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,240 @@
+package org.molgenis.util;
+
+import static org.molgenis.util.HugeTable.capacityFor;
+import static org.molgenis.util.HugeTable.estimateSize;
+import static org.molgenis.util.HugeTable.mix;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing hash table with linear probing for {@link Integer} or {@link Long} keys, keys are
+ * stored as primitive longs. Removed entries leave a marker that is cleaned up on rehash.
+ */
+class LongHashTable<K, V> implements HugeTable<K, V> {
+  private static final byte FREE = 0;
+  private static final byte FULL = 1;
+  private static final byte REMOVED = 2;
+
+  /** Estimated number of bytes of heap memory used per slot */
+  private static final int SLOT_SIZE = Long.BYTES + Integer.BYTES + Byte.BYTES;
+
+  private final Class<?> keyClass;
+  private long[] keys;
+  private Object[] values;
+  private byte[] states;
+  private int size;
+  /** Number of full or removed slots */
+  private int used;
+
+  private long valuesMemoryUsage;
+
+  LongHashTable(Class<?> keyClass) {
+    if (!isSupported(keyClass)) {
+      throw new IllegalArgumentException(
+          "Key class [" + keyClass.getName() + "] is not Integer or Long");
+    }
+    this.keyClass = keyClass;
+    allocate(capacityFor(0));
+  }
+
+  static boolean isSupported(Class<?> keyClass) {
+    return keyClass == Integer.class || keyClass == Long.class;
+  }
+
+  @Override
+  public boolean accepts(Object key) {
+    return key.getClass() == keyClass;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return accepts(key) && findSlot(toLong(key)) != -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V get(Object key) {
+    int slot = accepts(key) ? findSlot(toLong(key)) : -1;
+    return slot != -1 ? (V) values[slot] : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V put(K key, V value) {
+    long longKey = toLong(key);
+    int mask = states.length - 1;
+    int removedSlot = -1;
+    for (int slot = mix(Long.hashCode(longKey)) & mask; ; slot = (slot + 1) & mask) {
+      byte state = states[slot];
+      if (state == FREE) {
+        if (removedSlot != -1) {
+          slot = removedSlot;
+        } else {
+          used++;
+        }
+        keys[slot] = longKey;
+        values[slot] = value;
+        states[slot] = FULL;
+        size++;
+        valuesMemoryUsage += estimateSize(value);
+
+        if (used > states.length / 2) {
+          rehash(capacityFor(size));
+        }
+        return null;
+      } else if (state == FULL && keys[slot] == longKey) {
+        V previousValue = (V) values[slot];
+        values[slot] = value;
+        valuesMemoryUsage += estimateSize(value) - estimateSize(previousValue);
+        return previousValue;
+      } else if (state == REMOVED && removedSlot == -1) {
+        removedSlot = slot;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V remove(Object key) {
+    int slot = accepts(key) ? findSlot(toLong(key)) : -1;
+    if (slot == -1) {
+      return null;
+    }
+    V value = (V) values[slot];
+    removeSlot(slot);
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    allocate(capacityFor(0));
+    size = 0;
+    used = 0;
+    valuesMemoryUsage = 0;
+  }
+
+  @Override
+  public Iterator<Entry<K, V>> iterator() {
+    return new LongHashTableIterator();
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return (long) states.length * SLOT_SIZE + valuesMemoryUsage;
+  }
+
+  @Override
+  public void close() {
+    // noop
+  }
+
+  private int findSlot(long longKey) {
+    int mask = states.length - 1;
+    for (int slot = mix(Long.hashCode(longKey)) & mask; ; slot = (slot + 1) & mask) {
+      byte state = states[slot];
+      if (state == FREE) {
+        return -1;
+      } else if (state == FULL && keys[slot] == longKey) {
+        return slot;
+      }
+    }
+  }
+
+  private void removeSlot(int slot) {
+    valuesMemoryUsage -= estimateSize(values[slot]);
+    values[slot] = null;
+    states[slot] = REMOVED;
+    size--;
+  }
+
+  private void rehash(int capacity) {
+    long[] oldKeys = keys;
+    Object[] oldValues = values;
+    byte[] oldStates = states;
+    allocate(capacity);
+
+    int mask = capacity - 1;
+    for (int i = 0; i < oldStates.length; i++) {
+      if (oldStates[i] == FULL) {
+        int slot = mix(Long.hashCode(oldKeys[i])) & mask;
+        while (states[slot] != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+        states[slot] = FULL;
+      }
+    }
+    used = size;
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    values = new Object[capacity];
+    states = new byte[capacity];
+  }
+
+  private static long toLong(Object key) {
+    return ((Number) key).longValue();
+  }
+
+  @SuppressWarnings("unchecked")
+  private K toKey(long longKey) {
+    Object key;
+    if (keyClass == Integer.class) {
+      key = (int) longKey;
+    } else {
+      key = longKey;
+    }
+    return (K) key;
+  }
+
+  private class LongHashTableIterator implements Iterator<Entry<K, V>> {
+    private int nextSlot;
+    private int lastSlot = -1;
+
+    LongHashTableIterator() {
+      nextSlot = findNext(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextSlot < states.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastSlot = nextSlot;
+      nextSlot = findNext(nextSlot + 1);
+      return new SimpleImmutableEntry<>(toKey(keys[lastSlot]), (V) values[lastSlot]);
+    }
+
+    @Override
+    public void remove() {
+      if (lastSlot == -1) {
+        throw new IllegalStateException();
+      }
+      removeSlot(lastSlot);
+      lastSlot = -1;
+    }
+
+    private int findNext(int slot) {
+      while (slot < states.length && states[slot] != FULL) {
+        slot++;
+      }
+      return slot;
+    }
+  }
+}
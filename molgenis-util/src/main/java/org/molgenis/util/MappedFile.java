@@ -0,0 +1,134 @@
+package org.molgenis.util;
+
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.DELETE_ON_CLOSE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Temporary file that is memory-mapped in segments of at most {@link #SEGMENT_SIZE} bytes. Values
+ * must not cross segment boundaries. The file is deleted on close.
+ */
+class MappedFile implements Closeable {
+  static final int SEGMENT_SIZE = 1 << 30;
+  private static final int SEGMENT_SHIFT = Integer.numberOfTrailingZeros(SEGMENT_SIZE);
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private final FileChannel fileChannel;
+  private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  private long capacity;
+
+  private MappedFile(FileChannel fileChannel) {
+    this.fileChannel = fileChannel;
+  }
+
+  static MappedFile create(String prefix, long capacity) {
+    MappedFile mappedFile;
+    try {
+      Path path = Files.createTempFile(prefix, ".tmp");
+      mappedFile = new MappedFile(FileChannel.open(path, READ, WRITE, DELETE_ON_CLOSE));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    mappedFile.ensureCapacity(capacity);
+    return mappedFile;
+  }
+
+  /**
+   * Grows the mapped region of this file to at least the given capacity, new bytes are zero. Grows
+   * at least by a factor two to amortize remapping.
+   */
+  void ensureCapacity(long minCapacity) {
+    if (minCapacity <= capacity) {
+      return;
+    }
+
+    long newCapacity = Math.max(minCapacity, capacity * 2);
+    int nrSegments = (int) ((newCapacity + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+    MappedByteBuffer[] newSegments = new MappedByteBuffer[nrSegments];
+    try {
+      for (int i = 0; i < nrSegments; i++) {
+        long position = (long) i << SEGMENT_SHIFT;
+        long size = Math.min(SEGMENT_SIZE, newCapacity - position);
+        if (i < segments.length && segments[i].capacity() == size) {
+          newSegments[i] = segments[i];
+        } else {
+          newSegments[i] = fileChannel.map(READ_WRITE, position, size);
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    segments = newSegments;
+    capacity = newCapacity;
+  }
+
+  /** Returns the position of the next segment if the given number of bytes would cross it */
+  static long alignToSegment(long position, int length) {
+    if (length > SEGMENT_SIZE) {
+      throw new IllegalArgumentException("Length exceeds segment size");
+    }
+    if ((position & SEGMENT_MASK) + length > SEGMENT_SIZE) {
+      return ((position >>> SEGMENT_SHIFT) + 1) << SEGMENT_SHIFT;
+    }
+    return position;
+  }
+
+  long getLong(long position) {
+    return segment(position).getLong(offset(position));
+  }
+
+  void putLong(long position, long value) {
+    segment(position).putLong(offset(position), value);
+  }
+
+  int getInt(long position) {
+    return segment(position).getInt(offset(position));
+  }
+
+  void putInt(long position, int value) {
+    segment(position).putInt(offset(position), value);
+  }
+
+  byte[] getBytes(long position, int length) {
+    byte[] bytes = new byte[length];
+    ByteBuffer buffer = segment(position).duplicate();
+    buffer.position(offset(position));
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  void putBytes(long position, byte[] bytes) {
+    ByteBuffer buffer = segment(position).duplicate();
+    buffer.position(offset(position));
+    buffer.put(bytes);
+  }
+
+  @Override
+  public void close() {
+    segments = new MappedByteBuffer[0];
+    capacity = 0;
+    try {
+      fileChannel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private MappedByteBuffer segment(long position) {
+    return segments[(int) (position >>> SEGMENT_SHIFT)];
+  }
+
+  private static int offset(long position) {
+    return (int) (position & SEGMENT_MASK);
+  }
+}
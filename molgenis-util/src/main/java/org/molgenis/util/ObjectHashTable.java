@@ -0,0 +1,211 @@
+package org.molgenis.util;
+
+import static org.molgenis.util.HugeTable.capacityFor;
+import static org.molgenis.util.HugeTable.estimateSize;
+import static org.molgenis.util.HugeTable.mix;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing hash table with linear probing for keys of any type. Unlike {@link
+ * java.util.HashMap} no node object is allocated per entry. Removed entries leave a marker that is
+ * cleaned up on rehash.
+ */
+class ObjectHashTable<K, V> implements HugeTable<K, V> {
+  private static final Object REMOVED = new Object();
+
+  /** Estimated number of bytes of heap memory used per slot */
+  private static final int SLOT_SIZE = 2 * Integer.BYTES;
+
+  private Object[] keys;
+  private Object[] values;
+  private int size;
+  /** Number of full or removed slots */
+  private int used;
+
+  private long entriesMemoryUsage;
+
+  ObjectHashTable() {
+    allocate(capacityFor(0));
+  }
+
+  @Override
+  public boolean accepts(Object key) {
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return findSlot(key) != -1;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V get(Object key) {
+    int slot = findSlot(key);
+    return slot != -1 ? (V) values[slot] : null;
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V put(K key, V value) {
+    int mask = keys.length - 1;
+    int removedSlot = -1;
+    for (int slot = mix(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+      Object slotKey = keys[slot];
+      if (slotKey == null) {
+        if (removedSlot != -1) {
+          slot = removedSlot;
+        } else {
+          used++;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        size++;
+        entriesMemoryUsage += estimateSize(key) + estimateSize(value);
+
+        if (used > keys.length / 2) {
+          rehash(capacityFor(size));
+        }
+        return null;
+      } else if (slotKey == REMOVED) {
+        if (removedSlot == -1) {
+          removedSlot = slot;
+        }
+      } else if (slotKey.equals(key)) {
+        V previousValue = (V) values[slot];
+        values[slot] = value;
+        entriesMemoryUsage += estimateSize(value) - estimateSize(previousValue);
+        return previousValue;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  public V remove(Object key) {
+    int slot = findSlot(key);
+    if (slot == -1) {
+      return null;
+    }
+    V value = (V) values[slot];
+    removeSlot(slot);
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    allocate(capacityFor(0));
+    size = 0;
+    used = 0;
+    entriesMemoryUsage = 0;
+  }
+
+  @Override
+  public Iterator<Entry<K, V>> iterator() {
+    return new ObjectHashTableIterator();
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return (long) keys.length * SLOT_SIZE + entriesMemoryUsage;
+  }
+
+  @Override
+  public void close() {
+    // noop
+  }
+
+  private int findSlot(Object key) {
+    int mask = keys.length - 1;
+    for (int slot = mix(key.hashCode()) & mask; ; slot = (slot + 1) & mask) {
+      Object slotKey = keys[slot];
+      if (slotKey == null) {
+        return -1;
+      } else if (slotKey != REMOVED && slotKey.equals(key)) {
+        return slot;
+      }
+    }
+  }
+
+  private void removeSlot(int slot) {
+    entriesMemoryUsage -= estimateSize(keys[slot]) + estimateSize(values[slot]);
+    keys[slot] = REMOVED;
+    values[slot] = null;
+    size--;
+  }
+
+  private void rehash(int capacity) {
+    Object[] oldKeys = keys;
+    Object[] oldValues = values;
+    allocate(capacity);
+
+    int mask = capacity - 1;
+    for (int i = 0; i < oldKeys.length; i++) {
+      Object key = oldKeys[i];
+      if (key != null && key != REMOVED) {
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+          slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = oldValues[i];
+      }
+    }
+    used = size;
+  }
+
+  private void allocate(int capacity) {
+    keys = new Object[capacity];
+    values = new Object[capacity];
+  }
+
+  private class ObjectHashTableIterator implements Iterator<Entry<K, V>> {
+    private int nextSlot;
+    private int lastSlot = -1;
+
+    ObjectHashTableIterator() {
+      nextSlot = findNext(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextSlot < keys.length;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastSlot = nextSlot;
+      nextSlot = findNext(nextSlot + 1);
+      return new SimpleImmutableEntry<>((K) keys[lastSlot], (V) values[lastSlot]);
+    }
+
+    @Override
+    public void remove() {
+      if (lastSlot == -1) {
+        throw new IllegalStateException();
+      }
+      removeSlot(lastSlot);
+      lastSlot = -1;
+    }
+
+    private int findNext(int slot) {
+      while (slot < keys.length && (keys[slot] == null || keys[slot] == REMOVED)) {
+        slot++;
+      }
+      return slot;
+    }
+  }
+}
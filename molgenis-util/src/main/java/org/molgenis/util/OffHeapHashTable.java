@@ -0,0 +1,287 @@
+package org.molgenis.util;
+
+import static org.molgenis.util.HugeTable.capacityFor;
+import static org.molgenis.util.HugeTable.mix;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+
+/**
+ * Open addressing hash table with linear probing that stores its entries outside of the Java heap
+ * in memory-mapped temporary files, so that the operating system can page them to disk.
+ *
+ * <p>A slots file contains the record position and key hash of each slot. Records consisting of the
+ * encoded key and value are appended to a data file. The space of removed or replaced records is
+ * reclaimed when the table is cleared.
+ */
+class OffHeapHashTable<K, V> implements HugeTable<K, V> {
+  /** Slot layout: long record position, int key hash, int padding */
+  private static final int SLOT_SIZE = 16;
+
+  private static final int SLOT_HASH_OFFSET = Long.BYTES;
+  private static final long FREE = 0;
+  private static final long REMOVED = -1;
+
+  /** Record layout: int key length, int value length, key bytes, value bytes */
+  private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+
+  /** Records start after the first position so that zero can mark free slots */
+  private static final long FIRST_RECORD_POSITION = Long.BYTES;
+
+  private static final long INITIAL_DATA_CAPACITY = 64 * 1024;
+
+  private final int expectedSize;
+  private MappedFile slotsFile;
+  private MappedFile dataFile;
+  private int capacity;
+  private int size;
+  /** Number of full or removed slots */
+  private int used;
+
+  private long dataSize;
+
+  OffHeapHashTable(int expectedSize) {
+    this.expectedSize = expectedSize;
+    allocate();
+  }
+
+  @Override
+  public boolean accepts(Object key) {
+    return true;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return findSlot(key.hashCode(), HugeTableCodec.encode(key)) != -1;
+  }
+
+  @Override
+  public V get(Object key) {
+    int slot = findSlot(key.hashCode(), HugeTableCodec.encode(key));
+    return slot != -1 ? getValue(getRecordPosition(slot)) : null;
+  }
+
+  @Override
+  public V put(K key, V value) {
+    int hash = key.hashCode();
+    byte[] keyBytes = HugeTableCodec.encode(key);
+    int mask = capacity - 1;
+    int removedSlot = -1;
+    for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+      long recordPosition = getRecordPosition(slot);
+      if (recordPosition == FREE) {
+        if (removedSlot != -1) {
+          slot = removedSlot;
+        } else {
+          used++;
+        }
+        setSlot(slot, appendRecord(keyBytes, value), hash);
+        size++;
+
+        if (used > capacity / 2) {
+          rehash(capacityFor(size));
+        }
+        return null;
+      } else if (recordPosition == REMOVED) {
+        if (removedSlot == -1) {
+          removedSlot = slot;
+        }
+      } else if (isKey(slot, recordPosition, hash, keyBytes)) {
+        V previousValue = getValue(recordPosition);
+        setSlot(slot, appendRecord(keyBytes, value), hash);
+        return previousValue;
+      }
+    }
+  }
+
+  @Override
+  public V remove(Object key) {
+    int slot = findSlot(key.hashCode(), HugeTableCodec.encode(key));
+    if (slot == -1) {
+      return null;
+    }
+    V value = getValue(getRecordPosition(slot));
+    removeSlot(slot);
+    return value;
+  }
+
+  @Override
+  public void clear() {
+    close();
+    allocate();
+  }
+
+  @Override
+  public Iterator<Entry<K, V>> iterator() {
+    return new OffHeapHashTableIterator();
+  }
+
+  @Override
+  public long getMemoryUsage() {
+    return 0;
+  }
+
+  @Override
+  public void close() {
+    if (slotsFile != null) {
+      slotsFile.close();
+      slotsFile = null;
+    }
+    if (dataFile != null) {
+      dataFile.close();
+      dataFile = null;
+    }
+  }
+
+  private void allocate() {
+    capacity = capacityFor(expectedSize);
+    slotsFile = MappedFile.create("hugeslots", (long) capacity * SLOT_SIZE);
+    dataFile = MappedFile.create("hugedata", INITIAL_DATA_CAPACITY);
+    dataSize = FIRST_RECORD_POSITION;
+    size = 0;
+    used = 0;
+  }
+
+  private int findSlot(int hash, byte[] keyBytes) {
+    int mask = capacity - 1;
+    for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+      long recordPosition = getRecordPosition(slot);
+      if (recordPosition == FREE) {
+        return -1;
+      } else if (recordPosition != REMOVED && isKey(slot, recordPosition, hash, keyBytes)) {
+        return slot;
+      }
+    }
+  }
+
+  private boolean isKey(int slot, long recordPosition, int hash, byte[] keyBytes) {
+    if (slotsFile.getInt((long) slot * SLOT_SIZE + SLOT_HASH_OFFSET) != hash) {
+      return false;
+    }
+    int keyLength = dataFile.getInt(recordPosition);
+    if (keyLength != keyBytes.length && !HugeTableCodec.isSerialized(keyBytes)) {
+      return false;
+    }
+    byte[] recordKeyBytes = dataFile.getBytes(recordPosition + RECORD_HEADER_SIZE, keyLength);
+    return HugeTableCodec.equals(recordKeyBytes, keyBytes);
+  }
+
+  private long getRecordPosition(int slot) {
+    return slotsFile.getLong((long) slot * SLOT_SIZE);
+  }
+
+  private void setSlot(int slot, long recordPosition, int hash) {
+    long slotPosition = (long) slot * SLOT_SIZE;
+    slotsFile.putLong(slotPosition, recordPosition);
+    slotsFile.putInt(slotPosition + SLOT_HASH_OFFSET, hash);
+  }
+
+  private void removeSlot(int slot) {
+    slotsFile.putLong((long) slot * SLOT_SIZE, REMOVED);
+    size--;
+  }
+
+  private long appendRecord(byte[] keyBytes, Object value) {
+    byte[] valueBytes = HugeTableCodec.encode(value);
+    int recordLength = RECORD_HEADER_SIZE + keyBytes.length + valueBytes.length;
+
+    long recordPosition = MappedFile.alignToSegment(dataSize, recordLength);
+    dataFile.ensureCapacity(recordPosition + recordLength);
+    dataFile.putInt(recordPosition, keyBytes.length);
+    dataFile.putInt(recordPosition + Integer.BYTES, valueBytes.length);
+    dataFile.putBytes(recordPosition + RECORD_HEADER_SIZE, keyBytes);
+    dataFile.putBytes(recordPosition + RECORD_HEADER_SIZE + keyBytes.length, valueBytes);
+    dataSize = recordPosition + recordLength;
+    return recordPosition;
+  }
+
+  @SuppressWarnings("unchecked")
+  private K getKey(long recordPosition) {
+    int keyLength = dataFile.getInt(recordPosition);
+    return (K)
+        HugeTableCodec.decode(dataFile.getBytes(recordPosition + RECORD_HEADER_SIZE, keyLength));
+  }
+
+  @SuppressWarnings("unchecked")
+  private V getValue(long recordPosition) {
+    int keyLength = dataFile.getInt(recordPosition);
+    int valueLength = dataFile.getInt(recordPosition + Integer.BYTES);
+    long valuePosition = recordPosition + RECORD_HEADER_SIZE + keyLength;
+    return (V) HugeTableCodec.decode(dataFile.getBytes(valuePosition, valueLength));
+  }
+
+  private void rehash(int newCapacity) {
+    MappedFile oldSlotsFile = slotsFile;
+    int oldCapacity = capacity;
+    slotsFile = MappedFile.create("hugeslots", (long) newCapacity * SLOT_SIZE);
+    capacity = newCapacity;
+
+    int mask = newCapacity - 1;
+    for (int i = 0; i < oldCapacity; i++) {
+      long oldSlotPosition = (long) i * SLOT_SIZE;
+      long recordPosition = oldSlotsFile.getLong(oldSlotPosition);
+      if (recordPosition != FREE && recordPosition != REMOVED) {
+        int hash = oldSlotsFile.getInt(oldSlotPosition + SLOT_HASH_OFFSET);
+        int slot = mix(hash) & mask;
+        while (getRecordPosition(slot) != FREE) {
+          slot = (slot + 1) & mask;
+        }
+        setSlot(slot, recordPosition, hash);
+      }
+    }
+    oldSlotsFile.close();
+    used = size;
+  }
+
+  private class OffHeapHashTableIterator implements Iterator<Entry<K, V>> {
+    private int nextSlot;
+    private int lastSlot = -1;
+
+    OffHeapHashTableIterator() {
+      nextSlot = findNext(0);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return nextSlot < capacity;
+    }
+
+    @Override
+    public Entry<K, V> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      lastSlot = nextSlot;
+      nextSlot = findNext(nextSlot + 1);
+      long recordPosition = getRecordPosition(lastSlot);
+      return new SimpleImmutableEntry<>(getKey(recordPosition), getValue(recordPosition));
+    }
+
+    @Override
+    public void remove() {
+      if (lastSlot == -1) {
+        throw new IllegalStateException();
+      }
+      removeSlot(lastSlot);
+      lastSlot = -1;
+    }
+
+    private int findNext(int slot) {
+      while (slot < capacity) {
+        long recordPosition = getRecordPosition(slot);
+        if (recordPosition != FREE && recordPosition != REMOVED) {
+          break;
+        }
+        slot++;
+      }
+      return slot;
+    }
+  }
+}
@@ -4,24 +4,32 @@ import static com.google.common.collect.Sets.newHashSet;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.molgenis.util.HugeMap.THRESHOLD;
 
 import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.stream.IntStream;
+import java.util.stream.LongStream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 class HugeMapTest {
+  /** Number of entries that exceeds the memory budget */
+  private static final int THRESHOLD = 10000;
+
+  private static final long MEMORY_BUDGET = 64 * 1024;
+
   private HugeMap<String, String> hugeMap;
 
   @BeforeEach
   void beforeMethod() {
-    hugeMap = new HugeMap<>();
+    hugeMap = new HugeMap<>(MEMORY_BUDGET);
   }
 
   @AfterEach
@@ -132,7 +140,7 @@ class HugeMapTest {
   @Test
   void putAllLarge() {
     Map<String, String> map = new HashMap<>();
-    for (int i = 0; i < HugeMap.THRESHOLD; i++) {
+    for (int i = 0; i < THRESHOLD; i++) {
       map.put(Integer.toString(i), Integer.toString(i));
     }
 
@@ -166,9 +174,83 @@ class HugeMapTest {
     assertEquals(THRESHOLD, hugeMap.values().size());
   }
 
+  @Test
+  void putReplaceLarge() {
+    fillToThreshold();
+    assertEquals("2", hugeMap.put("2", "value"));
+    assertEquals("value", hugeMap.get("2"));
+    assertEquals(THRESHOLD, hugeMap.size());
+  }
+
+  @Test
+  void putNullValueLarge() {
+    fillToThreshold();
+    hugeMap.put("key", null);
+    assertTrue(hugeMap.containsKey("key"));
+    assertNull(hugeMap.get("key"));
+  }
+
+  @Test
+  void putNullKey() {
+    assertThrows(NullPointerException.class, () -> hugeMap.put(null, "value"));
+  }
+
+  @Test
+  void putLongKeys() {
+    try (HugeMap<Long, Long> longMap = new HugeMap<>()) {
+      LongStream.range(0, THRESHOLD).forEach(i -> longMap.put(i, i * 2));
+      assertEquals(THRESHOLD, longMap.size());
+      assertEquals(Long.valueOf(6), longMap.get(3L));
+      assertNull(longMap.get(3));
+    }
+  }
+
+  @Test
+  void putLongKeysLarge() {
+    try (HugeMap<Long, Long> longMap = new HugeMap<>(MEMORY_BUDGET)) {
+      LongStream.range(0, THRESHOLD).forEach(i -> longMap.put(i, i * 2));
+      assertEquals(THRESHOLD, longMap.size());
+      assertEquals(Long.valueOf(6), longMap.get(3L));
+      assertNull(longMap.get(3));
+    }
+  }
+
+  @Test
+  void putMixedKeys() {
+    try (HugeMap<Object, String> mixedMap = new HugeMap<>(MEMORY_BUDGET)) {
+      mixedMap.put(1, "integer");
+      mixedMap.put(1L, "long");
+      mixedMap.put("1", "string");
+      assertEquals(3, mixedMap.size());
+      assertEquals("integer", mixedMap.get(1));
+      assertEquals("long", mixedMap.get(1L));
+      assertEquals("string", mixedMap.get("1"));
+    }
+  }
+
+  @Test
+  void entrySetIteratorRemoveLarge() {
+    fillToThreshold();
+    for (Iterator<Entry<String, String>> it = hugeMap.entrySet().iterator(); it.hasNext(); ) {
+      if (Integer.parseInt(it.next().getKey()) % 2 == 0) {
+        it.remove();
+      }
+    }
+    assertEquals(THRESHOLD / 2, hugeMap.size());
+    assertFalse(hugeMap.containsKey("2"));
+    assertTrue(hugeMap.containsKey("3"));
+  }
+
+  @Test
+  void putAfterClose() {
+    fillToThreshold();
+    hugeMap.close();
+    assertTrue(hugeMap.isEmpty());
+    hugeMap.put("key", "value");
+    assertEquals("value", hugeMap.get("key"));
+  }
+
   private void fillToThreshold() {
-    IntStream.range(0, HugeMap.THRESHOLD)
-        .mapToObj(Integer::toString)
-        .forEach(s -> hugeMap.put(s, s));
+    IntStream.range(0, THRESHOLD).mapToObj(Integer::toString).forEach(s -> hugeMap.put(s, s));
   }
 }
@@ -4,7 +4,6 @@ import static com.google.common.collect.Iterators.size;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.molgenis.util.HugeSet.THRESHOLD;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -18,11 +17,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 class HugeSetTest {
+  /** Number of entries that exceeds the memory budget */
+  private static final int THRESHOLD = 10000;
+
+  private static final long MEMORY_BUDGET = 64 * 1024;
+
   private HugeSet<String> hugeSet;
 
   @BeforeEach
   void beforeMethod() {
-    hugeSet = new HugeSet<>();
+    hugeSet = new HugeSet<>(MEMORY_BUDGET);
   }
 
   @AfterEach
@@ -83,7 +87,7 @@ class HugeSetTest {
   void containsAllLarge() {
     fillToThreshold();
     Set<String> contents = new HashSet<>();
-    IntStream.range(0, HugeSet.THRESHOLD).mapToObj(Integer::toString).forEach(contents::add);
+    IntStream.range(0, THRESHOLD).mapToObj(Integer::toString).forEach(contents::add);
     assertTrue(hugeSet.containsAll(contents));
   }
 
@@ -105,7 +109,7 @@ class HugeSetTest {
     fillToThreshold();
 
     Set<String> contents = new HashSet<>();
-    IntStream.range(0, HugeSet.THRESHOLD).mapToObj(Integer::toString).forEach(contents::add);
+    IntStream.range(0, THRESHOLD).mapToObj(Integer::toString).forEach(contents::add);
 
     Iterator<String> it = hugeSet.iterator();
     assertEquals(contents.size(), size(it));
@@ -143,7 +147,7 @@ class HugeSetTest {
     fillToThreshold();
 
     Set<String> contents = new HashSet<>();
-    IntStream.range(0, HugeSet.THRESHOLD).mapToObj(Integer::toString).forEach(contents::add);
+    IntStream.range(0, THRESHOLD).mapToObj(Integer::toString).forEach(contents::add);
 
     hugeSet.removeAll(contents);
     assertEquals(0, hugeSet.size());
@@ -178,6 +182,6 @@ class HugeSetTest {
   }
 
   private void fillToThreshold() {
-    IntStream.range(0, HugeSet.THRESHOLD).mapToObj(Integer::toString).forEach(hugeSet::add);
+    IntStream.range(0, THRESHOLD).mapToObj(Integer::toString).forEach(hugeSet::add);
   }
 }
@@ -0,0 +1,109 @@
+package org.molgenis.util;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OffHeapHashTableTest {
+  private OffHeapHashTable<Object, Object> offHeapHashTable;
+
+  @BeforeEach
+  void setUpBeforeEach() {
+    offHeapHashTable = new OffHeapHashTable<>(0);
+  }
+
+  @AfterEach
+  void tearDownAfterEach() {
+    offHeapHashTable.close();
+  }
+
+  @Test
+  void putGet() {
+    IntStream.range(0, 100000).forEach(i -> offHeapHashTable.put(i, "value" + i));
+    assertEquals(100000, offHeapHashTable.size());
+    assertEquals("value12345", offHeapHashTable.get(12345));
+    assertNull(offHeapHashTable.get(100000));
+    assertNull(offHeapHashTable.get(12345L));
+  }
+
+  @Test
+  void putReplace() {
+    assertNull(offHeapHashTable.put("key", "value"));
+    assertEquals("value", offHeapHashTable.put("key", "otherValue"));
+    assertEquals("otherValue", offHeapHashTable.get("key"));
+    assertEquals(1, offHeapHashTable.size());
+  }
+
+  @Test
+  void putValueTypes() {
+    LocalDate localDate = LocalDate.of(2020, 2, 29);
+    Instant instant = Instant.ofEpochSecond(1234567890, 123);
+    offHeapHashTable.put(1, 1.5);
+    offHeapHashTable.put(2, true);
+    offHeapHashTable.put(3, localDate);
+    offHeapHashTable.put(4, instant);
+    offHeapHashTable.put(5, null);
+    assertEquals(1.5, offHeapHashTable.get(1));
+    assertEquals(true, offHeapHashTable.get(2));
+    assertEquals(localDate, offHeapHashTable.get(3));
+    assertEquals(instant, offHeapHashTable.get(4));
+    assertTrue(offHeapHashTable.containsKey(5));
+    assertNull(offHeapHashTable.get(5));
+  }
+
+  @Test
+  void putSerializedKey() {
+    List<String> key = new ArrayList<>(asList("a", "b"));
+    offHeapHashTable.put(key, "value");
+    assertEquals("value", offHeapHashTable.get(asList("a", "b")));
+    assertFalse(offHeapHashTable.containsKey(asList("b", "a")));
+  }
+
+  @Test
+  void removePut() {
+    IntStream.range(0, 1000).forEach(i -> offHeapHashTable.put(i, i));
+    IntStream.range(0, 1000).forEach(i -> assertEquals(i, offHeapHashTable.remove(i)));
+    assertEquals(0, offHeapHashTable.size());
+    IntStream.range(0, 1000).forEach(i -> offHeapHashTable.put(i, -i));
+    assertEquals(1000, offHeapHashTable.size());
+    assertEquals(-500, offHeapHashTable.get(500));
+  }
+
+  @Test
+  void iteratorRemove() {
+    IntStream.range(0, 1000).forEach(i -> offHeapHashTable.put(i, i));
+    for (Iterator<Entry<Object, Object>> it = offHeapHashTable.iterator(); it.hasNext(); ) {
+      Entry<Object, Object> entry = it.next();
+      assertEquals(entry.getKey(), entry.getValue());
+      if ((Integer) entry.getKey() < 500) {
+        it.remove();
+      }
+    }
+    assertEquals(500, offHeapHashTable.size());
+    assertFalse(offHeapHashTable.containsKey(499));
+    assertTrue(offHeapHashTable.containsKey(500));
+  }
+
+  @Test
+  void clear() {
+    IntStream.range(0, 1000).forEach(i -> offHeapHashTable.put(i, i));
+    offHeapHashTable.clear();
+    assertEquals(0, offHeapHashTable.size());
+    assertFalse(offHeapHashTable.iterator().hasNext());
+    offHeapHashTable.put("key", "value");
+    assertEquals("value", offHeapHashTable.get("key"));
+  }
+}